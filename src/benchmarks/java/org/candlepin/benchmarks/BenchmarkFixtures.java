@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.benchmarks;
+
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerInstalledProduct;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.Content;
+import org.candlepin.model.Entitlement;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+
+
+/**
+ * The BenchmarkFixtures class builds an in-memory organization resembling a typical customer
+ * organization: a number of engineering products carrying yum content, subscriptions providing
+ * those products, and a system consumer with the products installed and entitlements to some of the
+ * subscriptions. The entities are not persisted, and all have IDs assigned.
+ */
+public class BenchmarkFixtures {
+
+    private final Owner owner;
+    private final ConsumerType consumerType;
+    private final List<Product> engProducts;
+    private final List<Product> skus;
+    private final List<Pool> pools;
+    private final Consumer consumer;
+
+    /**
+     * Builds a new set of fixtures.
+     *
+     * @param productCount
+     *  the number of engineering products to create
+     *
+     * @param contentPerProduct
+     *  the number of content to create for each engineering product
+     *
+     * @param poolCount
+     *  the number of subscriptions/pools to create; each provides all of the engineering products
+     */
+    public BenchmarkFixtures(int productCount, int contentPerProduct, int poolCount) {
+        this.owner = new Owner("benchmark_org", "Benchmark Organization")
+            .setId("benchmark_owner_id");
+
+        this.consumerType = new ConsumerType(ConsumerType.ConsumerTypeEnum.SYSTEM)
+            .setId("benchmark_ctype_id");
+
+        this.engProducts = new ArrayList<>();
+        for (int i = 0; i < productCount; ++i) {
+            this.engProducts.add(this.buildEngProduct(i, contentPerProduct));
+        }
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.YEAR, -1);
+        Date startDate = calendar.getTime();
+        calendar.add(Calendar.YEAR, 3);
+        Date endDate = calendar.getTime();
+
+        this.skus = new ArrayList<>();
+        this.pools = new ArrayList<>();
+        for (int i = 0; i < poolCount; ++i) {
+            Product sku = this.buildSku(i);
+            this.skus.add(sku);
+
+            Pool pool = new Pool()
+                .setId("benchmark_pool_" + i)
+                .setOwner(this.owner)
+                .setProduct(sku)
+                .setQuantity(100L)
+                .setConsumed(10L)
+                .setStartDate(startDate)
+                .setEndDate(endDate)
+                .setContractNumber("contract_" + i)
+                .setAccountNumber("account_" + i)
+                .setOrderNumber("order_" + i);
+
+            pool.setCreated(startDate);
+            pool.setUpdated(startDate);
+            this.pools.add(pool);
+        }
+
+        this.consumer = new Consumer("benchmark_system", "benchmark_user", this.owner, this.consumerType);
+        this.consumer.setId("benchmark_consumer_id");
+        this.consumer.setUuid("benchmark_consumer_uuid");
+        this.consumer.setFact("cpu.cpu_socket(s)", "4");
+        this.consumer.setFact("cpu.core(s)_per_socket", "8");
+        this.consumer.setFact("memory.memtotal", "16332804");
+        this.consumer.setFact("uname.machine", "x86_64");
+        this.consumer.setFact("system.certificate_version", "3.4");
+        this.consumer.setFact("virt.is_guest", "false");
+
+        for (Product product : this.engProducts) {
+            this.consumer.addInstalledProduct(
+                new ConsumerInstalledProduct(product.getId(), product.getName()));
+        }
+
+        // Attach the consumer to every other pool, leaving the rest available for autobind
+        for (int i = 0; i < this.pools.size(); i += 2) {
+            Entitlement entitlement = new Entitlement(this.pools.get(i), this.consumer, this.owner, 2);
+            entitlement.setId("benchmark_entitlement_" + i);
+            entitlement.setCreated(startDate);
+            entitlement.setUpdated(startDate);
+
+            this.consumer.addEntitlement(entitlement);
+        }
+    }
+
+    private Product buildEngProduct(int index, int contentCount) {
+        Product product = new Product(String.valueOf(69 + index), "Red Hat Enterprise Linux " + index);
+        product.setAttribute(Product.Attributes.ARCHITECTURE, "x86_64,ppc64le,aarch64,s390x");
+        product.setAttribute(Product.Attributes.VERSION, "8." + index);
+        product.setAttribute(Product.Attributes.BRANDING_TYPE, "OS");
+
+        for (int i = 0; i < contentCount; ++i) {
+            String label = String.format("rhel-8-for-x86_64-%d-%d-rpms", index, i);
+            Content content = new Content("content_" + index + "_" + i, label, "yum", label, "Red Hat");
+            content.setContentUrl(String.format(
+                "/content/dist/rhel8/$releasever/x86_64/product-%d/repo-%d/os", index, i));
+            content.setGpgUrl("file:///etc/pki/rpm-gpg/RPM-GPG-KEY-redhat-release");
+            content.setArches("x86_64");
+            content.setMetadataExpiration(86400L);
+
+            product.addContent(content, i % 4 == 0);
+        }
+
+        return product;
+    }
+
+    private Product buildSku(int index) {
+        Product sku = new Product("RH0000" + index, "Red Hat Enterprise Linux Server, Premium " + index);
+        sku.setAttribute(Product.Attributes.SOCKETS, "2");
+        sku.setAttribute(Product.Attributes.STACKING_ID, "benchmark_stack_" + index);
+        sku.setAttribute(Product.Attributes.SUPPORT_LEVEL, index % 2 == 0 ? "Premium" : "Standard");
+        sku.setAttribute(Product.Attributes.SUPPORT_TYPE, "L1-L3");
+        sku.setAttribute(Product.Attributes.VIRT_LIMIT, "2");
+        sku.setAttribute(Product.Attributes.WARNING_PERIOD, "30");
+        sku.setAttribute(Pool.Attributes.MULTI_ENTITLEMENT, "yes");
+        sku.setAttribute(Product.Attributes.MANAGEMENT_ENABLED, "1");
+        sku.setProvidedProducts(this.engProducts);
+
+        return sku;
+    }
+
+    public Owner getOwner() {
+        return this.owner;
+    }
+
+    public ConsumerType getConsumerType() {
+        return this.consumerType;
+    }
+
+    public List<Product> getEngProducts() {
+        return Collections.unmodifiableList(this.engProducts);
+    }
+
+    public List<Product> getSkus() {
+        return Collections.unmodifiableList(this.skus);
+    }
+
+    public List<Pool> getPools() {
+        return Collections.unmodifiableList(this.pools);
+    }
+
+    public Consumer getConsumer() {
+        return this.consumer;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.benchmarks;
+
+import org.candlepin.model.Content;
+import org.candlepin.model.Product;
+import org.candlepin.model.ProductContent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Benchmarks for calculating the entity version of a product tree, as done for every product and
+ * content received during refresh and import. The cached versions of the entire tree are
+ * invalidated before each invocation, so every invocation performs the full calculation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityVersionBenchmark {
+
+    @Param({"10", "50"})
+    public int productCount;
+
+    @Param({"10", "50"})
+    public int contentPerProduct;
+
+    private Product sku;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(this.productCount, this.contentPerProduct, 1);
+        this.sku = fixtures.getSkus().get(0);
+    }
+
+    @Setup(Level.Invocation)
+    public void invalidateVersions() {
+        // Entity versions are cached until the entity is changed, so we touch each entity in the
+        // tree to force the full calculation on the next call
+        for (Product product : this.sku.getProvidedProducts()) {
+            for (ProductContent pc : product.getProductContent()) {
+                Content content = pc.getContent();
+                content.setName(content.getName());
+            }
+
+            product.setName(product.getName());
+        }
+
+        this.sku.setName(this.sku.getName());
+    }
+
+    @Benchmark
+    public long coldEntityVersion() {
+        return this.sku.getEntityVersion();
+    }
+}
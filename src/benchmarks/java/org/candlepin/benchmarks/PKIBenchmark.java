@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.benchmarks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import org.candlepin.TestingModules;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.Configuration;
+import org.candlepin.controller.util.PromotedContent;
+import org.candlepin.model.EntitlementCurator;
+import org.candlepin.model.KeyPairDataCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+import org.candlepin.pki.CertificateReader;
+import org.candlepin.pki.SubjectKeyIdentifierWriter;
+import org.candlepin.pki.X509ByteExtensionWrapper;
+import org.candlepin.pki.impl.JSSPKIUtility;
+import org.candlepin.pki.impl.JSSProviderLoader;
+import org.candlepin.util.X509V3ExtensionUtil;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Benchmarks for the JSS-backed certificate creation and signing operations performed for each
+ * entitlement certificate and manifest. The certificates are built with the v3 entitlement
+ * extensions generated from the benchmark fixtures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PKIBenchmark {
+
+    private JSSPKIUtility pkiUtility;
+    private KeyPair keyPair;
+    private Set<X509ByteExtensionWrapper> byteExtensions;
+    private byte[] payload;
+    private Date startDate;
+    private Date endDate;
+
+    @Setup
+    public void setup() throws Exception {
+        JSSProviderLoader.initialize();
+        Configuration config = new CandlepinCommonTestConfig();
+
+        Injector injector = Guice.createInjector(
+            new TestingModules.MockJpaModule(),
+            new TestingModules.StandardTest(config),
+            new TestingModules.ServletEnvironmentModule()
+        );
+
+        this.pkiUtility = new JSSPKIUtility(injector.getInstance(CertificateReader.class),
+            injector.getInstance(SubjectKeyIdentifierWriter.class), config,
+            mock(KeyPairDataCurator.class, withSettings().stubOnly()));
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(JSSPKIUtility.KEY_SIZE);
+        this.keyPair = generator.generateKeyPair();
+
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(10, 10, 1);
+        Pool pool = fixtures.getPools().get(0);
+        Product sku = pool.getProduct();
+
+        X509V3ExtensionUtil util = new X509V3ExtensionUtil(config,
+            mock(EntitlementCurator.class, withSettings().stubOnly()), new ObjectMapper());
+
+        List<org.candlepin.model.dto.Product> productModels = util.createProducts(sku,
+            new HashSet<>(sku.getProvidedProducts()), new PromotedContent(envId -> ""),
+            fixtures.getConsumer(), pool, new HashSet<>());
+
+        this.byteExtensions = util.getByteExtensions(productModels);
+        this.payload = util.createEntitlementDataPayload(productModels, fixtures.getConsumer(), pool, 2);
+
+        Calendar calendar = Calendar.getInstance();
+        this.startDate = calendar.getTime();
+        calendar.add(Calendar.YEAR, 1);
+        this.endDate = calendar.getTime();
+    }
+
+    @Benchmark
+    public X509Certificate createX509Certificate() throws IOException {
+        return this.pkiUtility.createX509Certificate("CN=benchmark_consumer_uuid", null, this.byteExtensions,
+            this.startDate, this.endDate, this.keyPair, BigInteger.valueOf(1999L), null);
+    }
+
+    @Benchmark
+    public byte[] signPayload() {
+        return this.pkiUtility.getSHA256WithRSAHash(new ByteArrayInputStream(this.payload));
+    }
+}
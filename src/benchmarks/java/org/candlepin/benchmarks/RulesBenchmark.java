@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import org.candlepin.audit.EventSink;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.StandardTranslator;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+import org.candlepin.model.ConsumerTypeCurator;
+import org.candlepin.model.EntitlementCurator;
+import org.candlepin.model.EnvironmentCurator;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.PoolQuantity;
+import org.candlepin.model.Product;
+import org.candlepin.model.ProductCurator;
+import org.candlepin.model.Rules;
+import org.candlepin.model.RulesCurator;
+import org.candlepin.policy.js.JsRunner;
+import org.candlepin.policy.js.JsRunnerProvider;
+import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.RulesJsonCache;
+import org.candlepin.policy.js.RulesObjectMapper;
+import org.candlepin.policy.js.autobind.AutobindRules;
+import org.candlepin.policy.js.compliance.ComplianceRules;
+import org.candlepin.policy.js.compliance.ComplianceStatus;
+import org.candlepin.policy.js.compliance.StatusReasonMessageGenerator;
+import org.candlepin.util.Util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Benchmarks for the compliance and autobind calls into the JavaScript rules. The rules are the
+ * default rules shipped with Candlepin, compiled once per trial, such that the benchmarks measure
+ * the cost of serializing the inputs, executing the rules and deserializing the results. Autobind is
+ * measured with both the rules and the native pool selection engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RulesBenchmark {
+
+    @Param({"10", "40"})
+    public int poolCount;
+
+    @Param({"js", "java"})
+    public String engine;
+
+    private ComplianceRules complianceRules;
+    private AutobindRules autobindRules;
+
+    private Consumer consumer;
+    private String[] productIds;
+    private List<Pool> availablePools;
+    private ComplianceStatus status;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(5, 5, this.poolCount);
+        this.consumer = fixtures.getConsumer();
+
+        ConsumerTypeCurator consumerTypeCurator = mock(ConsumerTypeCurator.class, withSettings().stubOnly());
+        doReturn(fixtures.getConsumerType()).when(consumerTypeCurator).getConsumerType(any(Consumer.class));
+        doReturn(fixtures.getConsumerType()).when(consumerTypeCurator).get(anyString());
+
+        OwnerCurator ownerCurator = mock(OwnerCurator.class, withSettings().stubOnly());
+        doReturn(fixtures.getOwner()).when(ownerCurator).findOwnerById(anyString());
+
+        EnvironmentCurator environmentCurator = mock(EnvironmentCurator.class, withSettings().stubOnly());
+        ModelTranslator translator = new StandardTranslator(consumerTypeCurator, environmentCurator,
+            ownerCurator);
+
+        JsRunner jsRunner = this.buildJsRunner();
+
+        Locale locale = new Locale("en_US");
+        I18n i18n = I18nFactory.getI18n(getClass(), "org.candlepin.i18n.Messages", locale,
+            I18nFactory.FALLBACK);
+
+        this.complianceRules = new ComplianceRules(jsRunner,
+            mock(EntitlementCurator.class, withSettings().stubOnly()), new StatusReasonMessageGenerator(i18n),
+            mock(EventSink.class, withSettings().stubOnly()),
+            mock(ConsumerCurator.class, withSettings().stubOnly()), consumerTypeCurator,
+            new RulesObjectMapper(), translator);
+
+        Configuration config = new CandlepinCommonTestConfig();
+        config.setProperty(ConfigProperties.AUTOBIND_ENGINE, this.engine);
+
+        RulesObjectMapper mapper = new RulesObjectMapper();
+        this.autobindRules = new AutobindRules(jsRunner,
+            mock(ProductCurator.class, withSettings().stubOnly()), consumerTypeCurator,
+            ownerCurator, mapper, translator, new RulesJsonCache(translator, mapper, 1000), config,
+            new SimpleMeterRegistry());
+
+        this.productIds = fixtures.getEngProducts().stream()
+            .map(Product::getId)
+            .toArray(String[]::new);
+
+        // The consumer is attached to the even pools; the odd pools are the autobind candidates
+        this.availablePools = new ArrayList<>();
+        for (int i = 1; i < fixtures.getPools().size(); i += 2) {
+            this.availablePools.add(fixtures.getPools().get(i));
+        }
+
+        this.status = this.complianceStatus();
+    }
+
+    private JsRunner buildJsRunner() throws Exception {
+        Rules rules;
+        try (InputStream is = this.getClass().getResourceAsStream(RulesCurator.DEFAULT_RULES_FILE)) {
+            rules = new Rules(Util.readFile(is));
+        }
+
+        RulesCurator rulesCurator = mock(RulesCurator.class, withSettings().stubOnly());
+        doReturn(rules).when(rulesCurator).getRules();
+        doReturn(new Date()).when(rulesCurator).getUpdated();
+
+        JsRunnerRequestCache cache = new JsRunnerRequestCache();
+        return new JsRunnerProvider(rulesCurator, () -> cache, new SimpleMeterRegistry()).get();
+    }
+
+    @Benchmark
+    public ComplianceStatus complianceStatus() {
+        return this.complianceRules.getStatus(this.consumer, null, new Date(), true, false, false, false);
+    }
+
+    @Benchmark
+    public List<PoolQuantity> selectBestPools() {
+        return this.autobindRules.selectBestPools(this.consumer, this.productIds, this.availablePools,
+            this.status, null, Collections.emptySet(), false);
+    }
+}
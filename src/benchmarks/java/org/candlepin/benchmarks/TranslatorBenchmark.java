@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.StandardTranslator;
+import org.candlepin.dto.api.server.v1.ConsumerDTO;
+import org.candlepin.dto.api.server.v1.PoolDTO;
+import org.candlepin.dto.api.server.v1.ProductDTO;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerTypeCurator;
+import org.candlepin.model.EnvironmentCurator;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+
+
+/**
+ * Benchmarks for translating the model entities returned by the most frequently used API endpoints
+ * into their API DTOs with the StandardTranslator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranslatorBenchmark {
+
+    @Param({"10", "100"})
+    public int poolCount;
+
+    private ModelTranslator translator;
+    private BenchmarkFixtures fixtures;
+
+    @Setup
+    public void setup() {
+        this.fixtures = new BenchmarkFixtures(10, 10, this.poolCount);
+
+        ConsumerTypeCurator consumerTypeCurator = mock(ConsumerTypeCurator.class, withSettings().stubOnly());
+        doReturn(this.fixtures.getConsumerType()).when(consumerTypeCurator)
+            .getConsumerType(any(Consumer.class));
+
+        OwnerCurator ownerCurator = mock(OwnerCurator.class, withSettings().stubOnly());
+        doReturn(this.fixtures.getOwner()).when(ownerCurator).findOwnerById(anyString());
+
+        EnvironmentCurator environmentCurator = mock(EnvironmentCurator.class, withSettings().stubOnly());
+
+        this.translator = new StandardTranslator(consumerTypeCurator, environmentCurator, ownerCurator);
+    }
+
+    @Benchmark
+    public List<PoolDTO> translatePools() {
+        return this.fixtures.getPools().stream()
+            .map(this.translator.getStreamMapper(Pool.class, PoolDTO.class))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ProductDTO> translateProducts() {
+        return this.fixtures.getSkus().stream()
+            .map(this.translator.getStreamMapper(Product.class, ProductDTO.class))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public ConsumerDTO translateConsumer() {
+        return this.translator.translate(this.fixtures.getConsumer(), ConsumerDTO.class);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.benchmarks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import org.candlepin.config.Configuration;
+import org.candlepin.controller.util.PromotedContent;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.EntitlementCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+import org.candlepin.pki.X509ByteExtensionWrapper;
+import org.candlepin.util.X509V3ExtensionUtil;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Benchmarks for building and reading the v3 entitlement certificate payloads with the
+ * X509V3ExtensionUtil.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class X509V3ExtensionUtilBenchmark {
+
+    /** The content package OID, as read by clients from v3 entitlement certificates */
+    private static final String CONTENT_PACKAGE_OID = "1.3.6.1.4.1.2312.9.7";
+
+    @Param({"10", "50"})
+    public int contentPerProduct;
+
+    private X509V3ExtensionUtil util;
+    private Consumer consumer;
+    private Pool pool;
+    private List<org.candlepin.model.dto.Product> productModels;
+    private byte[] contentPackage;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(10, this.contentPerProduct, 1);
+
+        // Configured the same as the mapper provided to the util in CandlepinModule
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+        this.util = new X509V3ExtensionUtil(mock(Configuration.class, withSettings().stubOnly()),
+            mock(EntitlementCurator.class, withSettings().stubOnly()), mapper);
+
+        this.consumer = fixtures.getConsumer();
+        this.pool = fixtures.getPools().get(0);
+
+        Product sku = this.pool.getProduct();
+        this.productModels = this.util.createProducts(sku, new HashSet<>(sku.getProvidedProducts()),
+            new PromotedContent(envId -> ""), this.consumer, this.pool, new HashSet<>());
+
+        for (X509ByteExtensionWrapper extension : this.util.getByteExtensions(this.productModels)) {
+            if (CONTENT_PACKAGE_OID.equals(extension.getOid())) {
+                this.contentPackage = extension.getValue();
+            }
+        }
+
+        if (this.contentPackage == null) {
+            throw new IllegalStateException("No content package generated for the benchmark fixtures");
+        }
+    }
+
+    @Benchmark
+    public byte[] createEntitlementDataPayload() throws IOException {
+        return this.util.createEntitlementDataPayload(this.productModels, this.consumer, this.pool, 2);
+    }
+
+    @Benchmark
+    public List<String> hydrateContentPackage() throws IOException {
+        return this.util.hydrateContentPackage(this.contentPackage);
+    }
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.loadtest;
+
+import org.candlepin.dto.api.server.v1.ConsumerDTO;
+import org.candlepin.dto.api.server.v1.ConsumerInstalledProductDTO;
+import org.candlepin.dto.api.server.v1.ConsumerTypeDTO;
+import org.candlepin.dto.manifest.v1.SubscriptionDTO;
+import org.candlepin.guice.CandlepinRequestScope;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.Product;
+import org.candlepin.resource.ConsumerResource;
+import org.candlepin.resource.HypervisorResource;
+
+import com.google.inject.persist.UnitOfWork;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+
+
+
+/**
+ * The LoadTestDriver replays a weighted, random mix of client operations against a synthetic org
+ * through the real resource classes, recording the latency and number of SQL statements issued by
+ * each operation.
+ * <p></p>
+ * Operations are replayed serially, each in its own unit of work and request scope, so the
+ * statement counts collected from the Hibernate statistics can be attributed to a single operation.
+ */
+public class LoadTestDriver {
+    private static final Logger log = LoggerFactory.getLogger(LoadTestDriver.class);
+
+    private final ConsumerResource consumerResource;
+    private final HypervisorResource hypervisorResource;
+    private final SyntheticOrgGenerator generator;
+    private final UnitOfWork unitOfWork;
+    private final CandlepinRequestScope requestScope;
+    private final Provider<EntityManager> entityManagerProvider;
+    private final Statistics statistics;
+
+    private int registrations;
+
+    @Inject
+    public LoadTestDriver(ConsumerResource consumerResource, HypervisorResource hypervisorResource,
+        SyntheticOrgGenerator generator, UnitOfWork unitOfWork, CandlepinRequestScope requestScope,
+        Provider<EntityManager> entityManagerProvider, EntityManagerFactory entityManagerFactory) {
+
+        this.consumerResource = consumerResource;
+        this.hypervisorResource = hypervisorResource;
+        this.generator = generator;
+        this.unitOfWork = unitOfWork;
+        this.requestScope = requestScope;
+        this.entityManagerProvider = entityManagerProvider;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Replays the operations against the given org, as configured by the given options. The
+     * configured number of warmup operations are executed first, and are not included in the
+     * results.
+     *
+     * @param org
+     *  the org to run the operations against
+     *
+     * @param options
+     *  the load test options specifying the operation mix and counts
+     *
+     * @param rng
+     *  the random number generator to use for selecting operations and their targets
+     *
+     * @return
+     *  a map of the stats collected for each operation in the mix
+     */
+    public Map<LoadTestOperation, OperationStats> run(SyntheticOrg org, LoadTestOptions options, Random rng) {
+        Map<LoadTestOperation, Integer> mix = options.getMix();
+        int totalWeight = mix.values().stream()
+            .mapToInt(Integer::intValue)
+            .sum();
+
+        log.info("Executing {} warmup operations", options.getWarmupCount());
+        for (int i = 0; i < options.getWarmupCount(); ++i) {
+            this.execute(this.selectOperation(mix, totalWeight, rng), org, rng);
+        }
+
+        Map<LoadTestOperation, OperationStats> results = new EnumMap<>(LoadTestOperation.class);
+        for (LoadTestOperation operation : mix.keySet()) {
+            results.put(operation, new OperationStats(operation));
+        }
+
+        this.statistics.setStatisticsEnabled(true);
+
+        log.info("Executing {} operations", options.getOperationCount());
+        int step = Math.max(1, options.getOperationCount() / 10);
+
+        for (int i = 0; i < options.getOperationCount(); ++i) {
+            LoadTestOperation operation = this.selectOperation(mix, totalWeight, rng);
+
+            long statements = this.statistics.getPrepareStatementCount();
+            long start = System.nanoTime();
+
+            boolean success = this.execute(operation, org, rng);
+
+            long latency = System.nanoTime() - start;
+            statements = this.statistics.getPrepareStatementCount() - statements;
+
+            results.get(operation).record(latency, statements, !success);
+
+            if ((i + 1) % step == 0) {
+                log.info("Completed {} of {} operations", i + 1, options.getOperationCount());
+            }
+        }
+
+        return results;
+    }
+
+    private LoadTestOperation selectOperation(Map<LoadTestOperation, Integer> mix, int totalWeight,
+        Random rng) {
+
+        int selection = rng.nextInt(totalWeight);
+
+        for (Map.Entry<LoadTestOperation, Integer> entry : mix.entrySet()) {
+            selection -= entry.getValue();
+
+            if (selection < 0) {
+                return entry.getKey();
+            }
+        }
+
+        // This shouldn't be possible, as the selection is always less than the total weight
+        throw new IllegalStateException("Unable to select an operation from the mix: " + mix);
+    }
+
+    /**
+     * Executes a single operation in a new unit of work and request scope, as it would be executed
+     * for a request received by the server.
+     *
+     * @return
+     *  true if the operation completed successfully; false otherwise
+     */
+    private boolean execute(LoadTestOperation operation, SyntheticOrg org, Random rng) {
+        this.unitOfWork.begin();
+        this.requestScope.enter();
+
+        try {
+            switch (operation) {
+                case REGISTER:
+                    this.register(org, rng);
+                    break;
+
+                case CHECK_IN:
+                    this.checkIn(this.selectConsumer(org, rng));
+                    break;
+
+                case BIND:
+                    this.consumerResource.bind(this.selectConsumer(org, rng), null, null, null, null, null,
+                        false, null, null);
+                    break;
+
+                case SERIAL_POLL:
+                    this.consumerResource.getEntitlementCertificateSerials(this.selectConsumer(org, rng));
+                    break;
+
+                case HYPERVISOR_UPDATE:
+                    this.hypervisorUpdate(org, rng);
+                    break;
+
+                case REFRESH:
+                    this.refresh(org, rng);
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unexpected operation: " + operation);
+            }
+
+            return true;
+        }
+        catch (RuntimeException e) {
+            log.warn("Operation {} failed: {}", operation.getLabel(), e.getMessage());
+            log.debug("Operation failure", e);
+
+            EntityTransaction transaction = this.entityManagerProvider.get().getTransaction();
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            return false;
+        }
+        finally {
+            this.requestScope.exit();
+            this.unitOfWork.end();
+        }
+    }
+
+    private String selectConsumer(SyntheticOrg org, Random rng) {
+        List<String> uuids = org.getConsumerUuids();
+        return uuids.get(rng.nextInt(uuids.size()));
+    }
+
+    private void register(SyntheticOrg org, Random rng) {
+        ConsumerDTO dto = new ConsumerDTO()
+            .name(String.format("loadtest-registered-%06d", ++this.registrations))
+            .type(new ConsumerTypeDTO().label(ConsumerType.ConsumerTypeEnum.SYSTEM.getLabel()))
+            .putFactsItem("cpu.cpu_socket(s)", "4")
+            .putFactsItem("cpu.core(s)_per_socket", "8")
+            .putFactsItem("memory.memtotal", "16332804")
+            .putFactsItem("uname.machine", "x86_64")
+            .putFactsItem("system.certificate_version", "3.4")
+            .putFactsItem("virt.is_guest", "false");
+
+        List<Product> engProducts = org.getEngProducts();
+        Product product = engProducts.get(rng.nextInt(engProducts.size()));
+        dto.addInstalledProductsItem(new ConsumerInstalledProductDTO()
+            .productId(product.getId())
+            .productName(product.getName()));
+
+        ConsumerDTO created = this.consumerResource.createConsumer(dto, org.getUsername(), org.getOwnerKey(),
+            null, true);
+
+        org.getConsumerUuids().add(created.getUuid());
+    }
+
+    private void checkIn(String uuid) {
+        ConsumerDTO existing = this.consumerResource.getConsumer(uuid);
+
+        Map<String, String> facts = new HashMap<>(existing.getFacts());
+        facts.put("loadtest.last_checkin", String.valueOf(System.currentTimeMillis()));
+
+        this.consumerResource.updateConsumer(uuid, new ConsumerDTO().facts(facts));
+        this.consumerResource.getComplianceStatus(uuid, null);
+    }
+
+    private void hypervisorUpdate(SyntheticOrg org, Random rng) {
+        List<List<String>> hypervisors = org.getHypervisorGuests();
+        Map<String, List<String>> hostGuestMap;
+
+        if (!hypervisors.isEmpty()) {
+            int index = rng.nextInt(hypervisors.size());
+            hostGuestMap = Collections.singletonMap("loadtest-hypervisor-" + index, hypervisors.get(index));
+        }
+        else {
+            hostGuestMap = Collections.singletonMap("loadtest-hypervisor-0", Collections.emptyList());
+        }
+
+        this.hypervisorResource.hypervisorUpdate(org.getOwnerKey(), hostGuestMap, true);
+    }
+
+    private void refresh(SyntheticOrg org, Random rng) {
+        // Change one of the upstream subscriptions, so each refresh has some work to do beyond
+        // comparing the existing data
+        List<SubscriptionDTO> subscriptions = org.getSubscriptions();
+        SubscriptionDTO subscription = subscriptions.get(rng.nextInt(subscriptions.size()));
+
+        subscription.setQuantity(subscription.getQuantity() + 1);
+        subscription.setLastModified(new Date());
+
+        this.generator.refresh(org);
+    }
+}
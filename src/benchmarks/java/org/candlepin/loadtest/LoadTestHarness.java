@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.loadtest;
+
+import org.candlepin.TestingModules;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.Configuration;
+import org.candlepin.junit.LiquibaseExtension;
+import org.candlepin.policy.js.entitlement.Enforcer;
+import org.candlepin.policy.js.entitlement.EntitlementRules;
+import org.candlepin.service.EntitlementCertServiceAdapter;
+import org.candlepin.service.impl.DefaultEntitlementCertServiceAdapter;
+import org.candlepin.util.DateSource;
+import org.candlepin.util.DateSourceImpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.util.Modules;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+
+
+/**
+ * The LoadTestHarness is the entry point for running a database-backed load test. It generates a
+ * synthetic org of the configured size, replays the configured operation mix against it through
+ * the resource classes, and reports the latency percentiles and SQL statement counts for each
+ * operation. See {@link LoadTestOptions} for the available options.
+ * <p></p>
+ * The harness runs the resources on the same Guice configuration as the database-backed unit tests,
+ * with the JavaScript rules and the real entitlement certificate generation swapped back in, so the
+ * costs of rules execution and certificate signing are reflected in the results.
+ */
+public class LoadTestHarness {
+    private static final Logger log = LoggerFactory.getLogger(LoadTestHarness.class);
+
+    private LoadTestHarness() {
+        // Intentionally left empty
+    }
+
+    /**
+     * Guice module restoring the production implementations replaced with test implementations by
+     * the standard testing module.
+     */
+    private static class LoadTestModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(DateSource.class).to(DateSourceImpl.class).asEagerSingleton();
+            bind(Enforcer.class).to(EntitlementRules.class);
+            bind(EntitlementCertServiceAdapter.class).to(DefaultEntitlementCertServiceAdapter.class);
+        }
+    }
+
+    public static void main(String... args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        // When not using an external database, create a temporary HSQLDB database with the same
+        // schema used for the unit tests. This must be done before the JPA module is created, as it
+        // sets the location of the database.
+        LiquibaseExtension liquibase = null;
+        if (!options.useExternalDatabase()) {
+            liquibase = new LiquibaseExtension();
+            liquibase.beforeAll(null);
+        }
+
+        Injector injector = null;
+
+        try {
+            injector = createInjector(options);
+            Map<LoadTestOperation, OperationStats> results = run(injector, options);
+
+            printReport(results);
+
+            if (options.getReportFile() != null) {
+                writeReport(options, results, new File(options.getReportFile()));
+            }
+        }
+        finally {
+            if (injector != null) {
+                injector.getInstance(PersistService.class).stop();
+            }
+
+            if (liquibase != null) {
+                liquibase.afterAll(null);
+            }
+        }
+    }
+
+    private static Injector createInjector(LoadTestOptions options) {
+        Properties jpaProperties = new Properties();
+        jpaProperties.setProperty("hibernate.generate_statistics", "true");
+
+        if (options.useExternalDatabase()) {
+            jpaProperties.setProperty("hibernate.connection.url", options.getJdbcUrl());
+            jpaProperties.setProperty("hibernate.connection.driver_class", options.getJdbcDriver());
+            jpaProperties.setProperty("hibernate.dialect", options.getDialect());
+
+            if (options.getJdbcUser() != null) {
+                jpaProperties.setProperty("hibernate.connection.username", options.getJdbcUser());
+            }
+
+            if (options.getJdbcPassword() != null) {
+                jpaProperties.setProperty("hibernate.connection.password", options.getJdbcPassword());
+            }
+        }
+
+        Configuration config = new CandlepinCommonTestConfig();
+
+        Injector parent = Guice.createInjector(new TestingModules.JpaModule(jpaProperties));
+        return parent.createChildInjector(Modules.override(new TestingModules.StandardTest(config))
+            .with(new LoadTestModule()));
+    }
+
+    private static Map<LoadTestOperation, OperationStats> run(Injector injector, LoadTestOptions options) {
+        UnitOfWork unitOfWork = injector.getInstance(UnitOfWork.class);
+        Random rng = new Random(options.getSeed());
+
+        log.info("Generating synthetic org with {} consumers, {} pools and {} products",
+            options.getConsumerCount(), options.getPoolCount(), options.getProductCount());
+
+        SyntheticOrg org;
+
+        unitOfWork.begin();
+        try {
+            org = injector.getInstance(SyntheticOrgGenerator.class).generate(options, rng);
+        }
+        finally {
+            unitOfWork.end();
+        }
+
+        return injector.getInstance(LoadTestDriver.class).run(org, options, rng);
+    }
+
+    private static void printReport(Map<LoadTestOperation, OperationStats> results) {
+        StringBuilder builder = new StringBuilder()
+            .append(String.format("%n%-18s %8s %6s %10s %10s %10s %10s %10s %8s %8s%n",
+                "operation", "count", "fail", "mean(ms)", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)",
+                "sql/op", "sql max"));
+
+        for (OperationStats stats : results.values()) {
+            builder.append(String.format("%-18s %8d %6d %10.2f %10.2f %10.2f %10.2f %10.2f %8.1f %8d%n",
+                stats.getOperation().getLabel(), stats.getCount(), stats.getFailures(),
+                stats.getMeanLatency(), stats.getLatencyPercentile(50.0), stats.getLatencyPercentile(95.0),
+                stats.getLatencyPercentile(99.0), stats.getMaxLatency(), stats.getMeanStatements(),
+                stats.getMaxStatements()));
+        }
+
+        System.out.println(builder);
+    }
+
+    private static void writeReport(LoadTestOptions options, Map<LoadTestOperation, OperationStats> results,
+        File file) throws IOException {
+
+        Map<String, Object> scenario = new LinkedHashMap<>();
+        scenario.put("consumers", options.getConsumerCount());
+        scenario.put("pools", options.getPoolCount());
+        scenario.put("products", options.getProductCount());
+        scenario.put("content_per_product", options.getContentPerProduct());
+        scenario.put("operations", options.getOperationCount());
+        scenario.put("seed", options.getSeed());
+        scenario.put("database", options.useExternalDatabase() ? options.getJdbcUrl() : "hsqldb");
+
+        List<Map<String, Object>> operations = new ArrayList<>();
+        for (OperationStats stats : results.values()) {
+            operations.add(stats.toSummary());
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("scenario", scenario);
+        report.put("operations", operations);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+            .writeValue(file, report);
+
+        log.info("Wrote load test report to {}", file.getAbsolutePath());
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.loadtest;
+
+
+
+/**
+ * The operations replayed by the load test driver. Each operation corresponds to a client request
+ * commonly seen in production deployments.
+ */
+public enum LoadTestOperation {
+    /** Registration of a new system consumer */
+    REGISTER("register"),
+
+    /** A system check-in, updating the consumer's facts and fetching its compliance status */
+    CHECK_IN("checkin"),
+
+    /** An autobind (auto-attach) request for an existing consumer */
+    BIND("bind"),
+
+    /** A certificate serial poll, as performed periodically by rhsmcertd */
+    SERIAL_POLL("serial-poll"),
+
+    /** A synchronous hypervisor check-in reporting a host-to-guest mapping */
+    HYPERVISOR_UPDATE("hypervisor-update"),
+
+    /** A refresh of the organization's pools from upstream subscription data */
+    REFRESH("refresh");
+
+    private final String label;
+
+    LoadTestOperation(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Fetches the label used to refer to this operation in the operation mix and reports.
+     *
+     * @return
+     *  the label for this operation
+     */
+    public String getLabel() {
+        return this.label;
+    }
+
+    /**
+     * Fetches the operation with the given label.
+     *
+     * @param label
+     *  the label of the operation to fetch
+     *
+     * @return
+     *  the operation with the given label, or null if no such operation exists
+     */
+    public static LoadTestOperation fromLabel(String label) {
+        for (LoadTestOperation operation : values()) {
+            if (operation.label.equalsIgnoreCase(label)) {
+                return operation;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.loadtest;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+
+
+/**
+ * The LoadTestOptions class parses and holds the options for a load test run. Options are provided
+ * as command line arguments in the form of <tt>--name=value</tt>. Any option not provided uses the
+ * default value, which describes a small organization suitable for a quick local run; production
+ * scale runs should set the size options explicitly:
+ *
+ * <pre>
+ *  --consumers=100000 --pools=5000 --products=20000
+ * </pre>
+ *
+ * When no JDBC URL is provided, the load test is run against a temporary HSQLDB database created
+ * from the testing changelog. Otherwise, the database at the given URL is used as-is, and must
+ * already have the Candlepin schema deployed.
+ */
+public class LoadTestOptions {
+
+    /** The default operation mix, roughly resembling the traffic of a typical deployment */
+    public static final String DEFAULT_MIX =
+        "register=5,checkin=40,bind=10,serial-poll=40,hypervisor-update=4,refresh=1";
+
+    private static final String POSTGRESQL_DIALECT = "org.hibernate.dialect.PostgreSQL92Dialect";
+    private static final String POSTGRESQL_DRIVER = "org.postgresql.Driver";
+
+    private int consumers = 1000;
+    private int pools = 50;
+    private int products = 200;
+    private int contentPerProduct = 5;
+    private int providedPerSku = 10;
+    private int guestsPerHypervisor = 10;
+    private int operations = 1000;
+    private int warmup = 100;
+    private long seed = 42L;
+    private Map<LoadTestOperation, Integer> mix;
+
+    private String jdbcUrl;
+    private String jdbcUser;
+    private String jdbcPassword;
+    private String jdbcDriver = POSTGRESQL_DRIVER;
+    private String dialect = POSTGRESQL_DIALECT;
+
+    private String reportFile;
+
+    /**
+     * Parses the given command line arguments into a new LoadTestOptions instance.
+     *
+     * @param args
+     *  the command line arguments to parse
+     *
+     * @throws IllegalArgumentException
+     *  if any of the arguments are malformed, unknown, or have invalid values
+     *
+     * @return
+     *  a new LoadTestOptions instance populated from the given arguments
+     */
+    public static LoadTestOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+
+        for (String arg : args) {
+            if (arg == null || !arg.startsWith("--") || arg.indexOf('=') < 3) {
+                throw new IllegalArgumentException("Malformed argument: " + arg);
+            }
+
+            int offset = arg.indexOf('=');
+            values.put(arg.substring(2, offset), arg.substring(offset + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions();
+        options.mix = parseMix(values.getOrDefault("mix", DEFAULT_MIX));
+
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+
+            switch (entry.getKey()) {
+                case "consumers":
+                    options.consumers = parseInt(entry.getKey(), value, 1);
+                    break;
+
+                case "pools":
+                    options.pools = parseInt(entry.getKey(), value, 1);
+                    break;
+
+                case "products":
+                    options.products = parseInt(entry.getKey(), value, 2);
+                    break;
+
+                case "content-per-product":
+                    options.contentPerProduct = parseInt(entry.getKey(), value, 0);
+                    break;
+
+                case "provided-per-sku":
+                    options.providedPerSku = parseInt(entry.getKey(), value, 1);
+                    break;
+
+                case "guests-per-hypervisor":
+                    options.guestsPerHypervisor = parseInt(entry.getKey(), value, 0);
+                    break;
+
+                case "operations":
+                    options.operations = parseInt(entry.getKey(), value, 1);
+                    break;
+
+                case "warmup":
+                    options.warmup = parseInt(entry.getKey(), value, 0);
+                    break;
+
+                case "seed":
+                    options.seed = Long.parseLong(value);
+                    break;
+
+                case "mix":
+                    // Already parsed above
+                    break;
+
+                case "jdbc-url":
+                    options.jdbcUrl = value;
+                    break;
+
+                case "jdbc-user":
+                    options.jdbcUser = value;
+                    break;
+
+                case "jdbc-password":
+                    options.jdbcPassword = value;
+                    break;
+
+                case "jdbc-driver":
+                    options.jdbcDriver = value;
+                    break;
+
+                case "dialect":
+                    options.dialect = value;
+                    break;
+
+                case "report":
+                    options.reportFile = value;
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + entry.getKey());
+            }
+        }
+
+        return options;
+    }
+
+    private static int parseInt(String name, String value, int min) {
+        int result;
+
+        try {
+            result = Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid value for %s: %s", name, value), e);
+        }
+
+        if (result < min) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid value for %s: %d; must be %d or greater", name, result, min));
+        }
+
+        return result;
+    }
+
+    private static Map<LoadTestOperation, Integer> parseMix(String value) {
+        Map<LoadTestOperation, Integer> mix = new EnumMap<>(LoadTestOperation.class);
+
+        for (String chunk : value.split(",")) {
+            String[] pair = chunk.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Malformed operation mix entry: " + chunk);
+            }
+
+            LoadTestOperation operation = LoadTestOperation.fromLabel(pair[0].trim());
+            if (operation == null) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + pair[0]);
+            }
+
+            int weight = parseInt("mix weight of " + pair[0], pair[1].trim(), 0);
+            if (weight > 0) {
+                mix.put(operation, weight);
+            }
+        }
+
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix does not include any operations: " + value);
+        }
+
+        return mix;
+    }
+
+    public int getConsumerCount() {
+        return this.consumers;
+    }
+
+    public int getPoolCount() {
+        return this.pools;
+    }
+
+    public int getProductCount() {
+        return this.products;
+    }
+
+    public int getContentPerProduct() {
+        return this.contentPerProduct;
+    }
+
+    public int getProvidedPerSku() {
+        return this.providedPerSku;
+    }
+
+    public int getGuestsPerHypervisor() {
+        return this.guestsPerHypervisor;
+    }
+
+    public int getOperationCount() {
+        return this.operations;
+    }
+
+    public int getWarmupCount() {
+        return this.warmup;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public Map<LoadTestOperation, Integer> getMix() {
+        return Collections.unmodifiableMap(this.mix);
+    }
+
+    /**
+     * Checks if this load test should be run against an external database rather than a temporary
+     * HSQLDB database.
+     *
+     * @return
+     *  true if a JDBC URL for an external database has been provided; false otherwise
+     */
+    public boolean useExternalDatabase() {
+        return this.jdbcUrl != null && !this.jdbcUrl.isEmpty();
+    }
+
+    public String getJdbcUrl() {
+        return this.jdbcUrl;
+    }
+
+    public String getJdbcUser() {
+        return this.jdbcUser;
+    }
+
+    public String getJdbcPassword() {
+        return this.jdbcPassword;
+    }
+
+    public String getJdbcDriver() {
+        return this.jdbcDriver;
+    }
+
+    public String getDialect() {
+        return this.dialect;
+    }
+
+    public String getReportFile() {
+        return this.reportFile;
+    }
+}
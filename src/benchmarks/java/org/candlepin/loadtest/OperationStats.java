@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * The OperationStats class collects the latencies and statement counts of the executions of a
+ * single load test operation, and calculates the summary values reported for it.
+ */
+public class OperationStats {
+
+    private static final double[] PERCENTILES = { 50.0, 90.0, 95.0, 99.0 };
+
+    private final LoadTestOperation operation;
+
+    private long[] latencies;
+    private long[] statements;
+    private int count;
+    private int failures;
+
+    /**
+     * Creates a new, empty stats collector for the given operation.
+     *
+     * @param operation
+     *  the operation for which to collect stats
+     */
+    public OperationStats(LoadTestOperation operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("operation is null");
+        }
+
+        this.operation = operation;
+        this.latencies = new long[256];
+        this.statements = new long[256];
+        this.count = 0;
+        this.failures = 0;
+    }
+
+    /**
+     * Records a single execution of the operation.
+     *
+     * @param latency
+     *  the time taken by the execution, in nanoseconds
+     *
+     * @param statementCount
+     *  the number of SQL statements issued by the execution
+     *
+     * @param failed
+     *  whether or not the execution failed
+     */
+    public void record(long latency, long statementCount, boolean failed) {
+        if (this.count == this.latencies.length) {
+            this.latencies = Arrays.copyOf(this.latencies, this.count * 2);
+            this.statements = Arrays.copyOf(this.statements, this.count * 2);
+        }
+
+        this.latencies[this.count] = latency;
+        this.statements[this.count] = statementCount;
+        ++this.count;
+
+        if (failed) {
+            ++this.failures;
+        }
+    }
+
+    public LoadTestOperation getOperation() {
+        return this.operation;
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public int getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * Calculates the latency at the given percentile using the nearest-rank method.
+     *
+     * @param percentile
+     *  the percentile to calculate, in the range of (0, 100]
+     *
+     * @return
+     *  the latency at the given percentile in milliseconds, or zero if no executions were recorded
+     */
+    public double getLatencyPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0.0;
+        }
+
+        long[] sorted = Arrays.copyOf(this.latencies, this.count);
+        Arrays.sort(sorted);
+
+        int rank = (int) Math.ceil(percentile / 100.0 * this.count);
+        return toMillis(sorted[Math.max(rank, 1) - 1]);
+    }
+
+    public double getMeanLatency() {
+        if (this.count == 0) {
+            return 0.0;
+        }
+
+        return toMillis(Arrays.stream(this.latencies, 0, this.count).sum()) / this.count;
+    }
+
+    public double getMaxLatency() {
+        if (this.count == 0) {
+            return 0.0;
+        }
+
+        return toMillis(Arrays.stream(this.latencies, 0, this.count).max().getAsLong());
+    }
+
+    public double getMeanStatements() {
+        if (this.count == 0) {
+            return 0.0;
+        }
+
+        return (double) Arrays.stream(this.statements, 0, this.count).sum() / this.count;
+    }
+
+    public long getMaxStatements() {
+        if (this.count == 0) {
+            return 0L;
+        }
+
+        return Arrays.stream(this.statements, 0, this.count).max().getAsLong();
+    }
+
+    /**
+     * Builds a map of the summary values for this operation, suitable for serialization into the
+     * load test report.
+     *
+     * @return
+     *  a map of the summary values for this operation
+     */
+    public Map<String, Object> toSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+
+        summary.put("operation", this.operation.getLabel());
+        summary.put("count", this.count);
+        summary.put("failures", this.failures);
+        summary.put("latency_mean_ms", this.getMeanLatency());
+
+        for (double percentile : PERCENTILES) {
+            String key = String.format("latency_p%d_ms", (int) percentile);
+            summary.put(key, this.getLatencyPercentile(percentile));
+        }
+
+        summary.put("latency_max_ms", this.getMaxLatency());
+        summary.put("statements_mean", this.getMeanStatements());
+        summary.put("statements_max", this.getMaxStatements());
+
+        return summary;
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
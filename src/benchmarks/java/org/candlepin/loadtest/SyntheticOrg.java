@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.loadtest;
+
+import org.candlepin.dto.manifest.v1.SubscriptionDTO;
+import org.candlepin.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+
+/**
+ * The SyntheticOrg class holds the upstream data and the identifiers of the entities created by the
+ * SyntheticOrgGenerator, as needed by the load test driver to replay operations against the
+ * organization.
+ */
+public class SyntheticOrg {
+
+    private final String ownerKey;
+    private final String username;
+    private final List<Product> products;
+    private final List<Product> engProducts;
+    private final List<SubscriptionDTO> subscriptions;
+    private final List<String> consumerUuids;
+    private final List<List<String>> hypervisorGuests;
+
+    /**
+     * Creates a new synthetic org instance.
+     *
+     * @param ownerKey
+     *  the key of the generated organization
+     *
+     * @param username
+     *  the name of the user owning the generated consumers
+     *
+     * @param products
+     *  all of the upstream products, engineering products and SKUs alike
+     *
+     * @param engProducts
+     *  the upstream engineering products, which may be installed on consumers
+     *
+     * @param subscriptions
+     *  the upstream subscriptions for the organization
+     */
+    public SyntheticOrg(String ownerKey, String username, List<Product> products, List<Product> engProducts,
+        List<SubscriptionDTO> subscriptions) {
+
+        this.ownerKey = ownerKey;
+        this.username = username;
+        this.products = products;
+        this.engProducts = engProducts;
+        this.subscriptions = subscriptions;
+        this.consumerUuids = new ArrayList<>();
+        this.hypervisorGuests = new ArrayList<>();
+    }
+
+    public String getOwnerKey() {
+        return this.ownerKey;
+    }
+
+    public String getUsername() {
+        return this.username;
+    }
+
+    public List<Product> getProducts() {
+        return Collections.unmodifiableList(this.products);
+    }
+
+    public List<Product> getEngProducts() {
+        return Collections.unmodifiableList(this.engProducts);
+    }
+
+    /**
+     * Fetches the upstream subscriptions for this org. The returned list is the list backing the
+     * subscription service adapter used for refreshing the org, and may be modified to change the
+     * upstream data seen by the next refresh.
+     *
+     * @return
+     *  the upstream subscriptions for this org
+     */
+    public List<SubscriptionDTO> getSubscriptions() {
+        return this.subscriptions;
+    }
+
+    /**
+     * Fetches the UUIDs of the system consumers in this org. The returned list may be modified to
+     * add consumers registered during the load test.
+     *
+     * @return
+     *  the UUIDs of the system consumers in this org
+     */
+    public List<String> getConsumerUuids() {
+        return this.consumerUuids;
+    }
+
+    /**
+     * Fetches the virt UUIDs of the guests reported by each hypervisor. The hypervisor at a given
+     * index reports the guests in the list at that index.
+     *
+     * @return
+     *  the guest virt UUIDs for each hypervisor
+     */
+    public List<List<String>> getHypervisorGuests() {
+        return this.hypervisorGuests;
+    }
+}
@@ -0,0 +1,361 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.loadtest;
+
+import org.candlepin.controller.PoolManager;
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.manifest.v1.OwnerDTO;
+import org.candlepin.dto.manifest.v1.ProductDTO;
+import org.candlepin.dto.manifest.v1.SubscriptionDTO;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+import org.candlepin.model.ConsumerInstalledProduct;
+import org.candlepin.model.ConsumerType;
+import org.candlepin.model.ConsumerTypeCurator;
+import org.candlepin.model.Content;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+import org.candlepin.model.User;
+import org.candlepin.model.UserCurator;
+import org.candlepin.service.impl.ImportProductServiceAdapter;
+import org.candlepin.service.impl.ImportSubscriptionServiceAdapter;
+import org.candlepin.util.Util;
+
+import com.google.inject.persist.Transactional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+
+
+/**
+ * The SyntheticOrgGenerator populates the database with a synthetic organization of a given size:
+ * engineering products with yum content, SKUs providing random sets of the engineering products,
+ * subscriptions for the SKUs, and system consumers with some of the engineering products installed.
+ * A share of the consumers are guests, which are grouped under hypervisors for the load test's
+ * hypervisor check-ins.
+ * <p></p>
+ * The products and subscriptions are imported through the refresher, exactly as they would be
+ * received from upstream, while the consumers are bulk-inserted directly through the curator.
+ */
+public class SyntheticOrgGenerator {
+    private static final Logger log = LoggerFactory.getLogger(SyntheticOrgGenerator.class);
+
+    /** The number of consumers to create in a single transaction */
+    private static final int CONSUMER_BATCH_SIZE = 1000;
+
+    /** One in this many consumers is generated as a guest */
+    private static final int GUEST_RATIO = 5;
+
+    /** The fact carrying a guest's virt UUID, as reported by the guest and its hypervisor */
+    private static final String VIRT_UUID_FACT = "virt.uuid";
+
+    /** The maximum number of engineering products installed on each consumer */
+    private static final int MAX_INSTALLED_PRODUCTS = 3;
+
+    /** The number of products for each SKU; the remaining products are engineering products */
+    private static final int PRODUCTS_PER_SKU = 10;
+
+    private final OwnerCurator ownerCurator;
+    private final ConsumerCurator consumerCurator;
+    private final ConsumerTypeCurator consumerTypeCurator;
+    private final UserCurator userCurator;
+    private final PoolManager poolManager;
+    private final ModelTranslator translator;
+
+    @Inject
+    public SyntheticOrgGenerator(OwnerCurator ownerCurator, ConsumerCurator consumerCurator,
+        ConsumerTypeCurator consumerTypeCurator, UserCurator userCurator, PoolManager poolManager,
+        ModelTranslator translator) {
+
+        this.ownerCurator = ownerCurator;
+        this.consumerCurator = consumerCurator;
+        this.consumerTypeCurator = consumerTypeCurator;
+        this.userCurator = userCurator;
+        this.poolManager = poolManager;
+        this.translator = translator;
+    }
+
+    /**
+     * Generates a new synthetic organization sized according to the given options.
+     *
+     * @param options
+     *  the load test options specifying the size of the organization to generate
+     *
+     * @param rng
+     *  the random number generator to use for selecting products, quantities and the like
+     *
+     * @return
+     *  a SyntheticOrg instance describing the generated organization
+     */
+    public SyntheticOrg generate(LoadTestOptions options, Random rng) {
+        String suffix = Long.toString(System.currentTimeMillis(), 36);
+        String ownerKey = "loadtest_org-" + suffix;
+        String username = "loadtest_user-" + suffix;
+
+        Owner owner = this.createOwner(ownerKey, username);
+
+        int skuCount = Math.max(1, options.getProductCount() / PRODUCTS_PER_SKU);
+        int engCount = Math.max(1, options.getProductCount() - skuCount);
+
+        List<Product> engProducts = new ArrayList<>();
+        for (int i = 0; i < engCount; ++i) {
+            engProducts.add(this.buildEngProduct(i, options.getContentPerProduct()));
+        }
+
+        List<Product> skus = new ArrayList<>();
+        for (int i = 0; i < skuCount; ++i) {
+            skus.add(this.buildSku(i, engProducts, options.getProvidedPerSku(), rng));
+        }
+
+        List<Product> products = new ArrayList<>(engProducts);
+        products.addAll(skus);
+
+        // Give the pools enough capacity to keep autobind working for the whole run; each
+        // consumer consumes two entitlements of the two-socket SKUs.
+        long quantity = Math.max(100L, 4L * options.getConsumerCount() / options.getPoolCount());
+
+        List<SubscriptionDTO> subscriptions = new ArrayList<>();
+        for (int i = 0; i < options.getPoolCount(); ++i) {
+            subscriptions.add(this.buildSubscription(owner, skus.get(i % skus.size()), i, quantity));
+        }
+
+        SyntheticOrg org = new SyntheticOrg(ownerKey, username, products, engProducts, subscriptions);
+
+        long start = System.currentTimeMillis();
+        this.refresh(org);
+        log.info("Imported {} products and {} subscriptions in {}ms", products.size(),
+            subscriptions.size(), System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        this.createConsumers(org, options, rng);
+        log.info("Created {} consumers in {}ms", options.getConsumerCount(),
+            System.currentTimeMillis() - start);
+
+        return org;
+    }
+
+    /**
+     * Runs a full refresh of the given org from its upstream subscription data.
+     *
+     * @param org
+     *  the org to refresh
+     */
+    public void refresh(SyntheticOrg org) {
+        Owner owner = this.ownerCurator.getByKey(org.getOwnerKey());
+
+        this.poolManager.getRefresher(new ImportSubscriptionServiceAdapter(org.getSubscriptions()),
+            new ImportProductServiceAdapter(org.getOwnerKey(), org.getProducts()), true)
+            .add(owner)
+            .run();
+    }
+
+    @Transactional
+    protected Owner createOwner(String ownerKey, String username) {
+        this.getConsumerType(ConsumerType.ConsumerTypeEnum.SYSTEM);
+        this.getConsumerType(ConsumerType.ConsumerTypeEnum.HYPERVISOR);
+
+        this.userCurator.create(new User(username, Util.generateUUID()));
+
+        return this.ownerCurator.create(new Owner(ownerKey, "Load Test Organization " + ownerKey));
+    }
+
+    private ConsumerType getConsumerType(ConsumerType.ConsumerTypeEnum type) {
+        ConsumerType ctype = this.consumerTypeCurator.getByLabel(type.getLabel());
+        return ctype != null ? ctype : this.consumerTypeCurator.create(new ConsumerType(type));
+    }
+
+    private void createConsumers(SyntheticOrg org, LoadTestOptions options, Random rng) {
+        List<String> guests = new ArrayList<>();
+
+        for (int offset = 0; offset < options.getConsumerCount(); offset += CONSUMER_BATCH_SIZE) {
+            int count = Math.min(CONSUMER_BATCH_SIZE, options.getConsumerCount() - offset);
+            List<Consumer> consumers = this.createConsumerBatch(org, offset, count,
+                options.getGuestsPerHypervisor() > 0, rng);
+
+            for (Consumer consumer : consumers) {
+                org.getConsumerUuids().add(consumer.getUuid());
+
+                String virtUuid = consumer.getFact(VIRT_UUID_FACT);
+                if (virtUuid != null) {
+                    guests.add(virtUuid);
+                }
+            }
+
+            // Keep the persistence context from growing with every batch
+            this.consumerCurator.clear();
+        }
+
+        for (int offset = 0; offset < guests.size(); offset += options.getGuestsPerHypervisor()) {
+            int end = Math.min(offset + options.getGuestsPerHypervisor(), guests.size());
+            org.getHypervisorGuests().add(new ArrayList<>(guests.subList(offset, end)));
+        }
+    }
+
+    @Transactional
+    protected List<Consumer> createConsumerBatch(SyntheticOrg org, int offset, int count,
+        boolean includeGuests, Random rng) {
+
+        Owner owner = this.ownerCurator.getByKey(org.getOwnerKey());
+        ConsumerType ctype = this.consumerTypeCurator.getByLabel(
+            ConsumerType.ConsumerTypeEnum.SYSTEM.getLabel());
+
+        List<Consumer> consumers = new ArrayList<>();
+        for (int i = offset; i < offset + count; ++i) {
+            Consumer consumer = this.buildConsumer(org, owner, ctype, i, rng);
+
+            if (includeGuests && i % GUEST_RATIO == 0) {
+                consumer.setFact("virt.is_guest", "true");
+                consumer.setFact(VIRT_UUID_FACT, Util.generateUUID());
+            }
+
+            consumers.add(this.consumerCurator.create(consumer, false));
+        }
+
+        this.consumerCurator.flush();
+        return consumers;
+    }
+
+    /**
+     * Builds a new, unpersisted system consumer with typical facts and a random selection of the
+     * org's engineering products installed.
+     *
+     * @param org
+     *  the org in which to build the consumer
+     *
+     * @param owner
+     *  the owner of the consumer
+     *
+     * @param ctype
+     *  the type of the consumer
+     *
+     * @param index
+     *  the index of the consumer, used to generate its name
+     *
+     * @param rng
+     *  the random number generator to use for selecting installed products
+     *
+     * @return
+     *  a new, unpersisted consumer
+     */
+    public Consumer buildConsumer(SyntheticOrg org, Owner owner, ConsumerType ctype, int index, Random rng) {
+        Consumer consumer = new Consumer(String.format("loadtest-system-%06d", index), org.getUsername(),
+            owner, ctype);
+
+        consumer.setFact("cpu.cpu_socket(s)", "4");
+        consumer.setFact("cpu.core(s)_per_socket", "8");
+        consumer.setFact("memory.memtotal", "16332804");
+        consumer.setFact("uname.machine", "x86_64");
+        consumer.setFact("system.certificate_version", "3.4");
+        consumer.setFact("virt.is_guest", "false");
+        consumer.setFact("distribution.name", "Red Hat Enterprise Linux");
+        consumer.setFact("distribution.version", "8.6");
+
+        List<Product> engProducts = org.getEngProducts();
+        int installed = 1 + rng.nextInt(Math.min(MAX_INSTALLED_PRODUCTS, engProducts.size()));
+
+        Set<String> productIds = new HashSet<>();
+        for (int i = 0; i < installed; ++i) {
+            Product product = engProducts.get(rng.nextInt(engProducts.size()));
+
+            if (productIds.add(product.getId())) {
+                consumer.addInstalledProduct(new ConsumerInstalledProduct(product.getId(),
+                    product.getName()));
+            }
+        }
+
+        return consumer;
+    }
+
+    private Product buildEngProduct(int index, int contentCount) {
+        String productId = String.valueOf(100000 + index);
+        Product product = new Product(productId, "Load Test Engineering Product " + index);
+        product.setAttribute(Product.Attributes.ARCHITECTURE, "x86_64,ppc64le,aarch64,s390x");
+        product.setAttribute(Product.Attributes.VERSION, "8." + (index % 10));
+        product.setAttribute(Product.Attributes.BRANDING_TYPE, "OS");
+
+        for (int i = 0; i < contentCount; ++i) {
+            String contentId = String.format("%s%03d", productId, i);
+            String label = String.format("loadtest-%d-%d-rpms", index, i);
+
+            Content content = new Content(contentId, label, "yum", label, "Red Hat");
+            content.setContentUrl(String.format("/content/dist/loadtest/%d/%d/$basearch/os", index, i));
+            content.setGpgUrl("file:///etc/pki/rpm-gpg/RPM-GPG-KEY-redhat-release");
+            content.setArches("x86_64");
+            content.setMetadataExpiration(86400L);
+
+            product.addContent(content, i % 4 == 0);
+        }
+
+        return product;
+    }
+
+    private Product buildSku(int index, List<Product> engProducts, int providedCount, Random rng) {
+        Product sku = new Product("LT" + index, "Load Test SKU " + index);
+        sku.setAttribute(Product.Attributes.SOCKETS, "2");
+        sku.setAttribute(Product.Attributes.STACKING_ID, "loadtest_stack_" + index);
+        sku.setAttribute(Product.Attributes.SUPPORT_LEVEL, index % 2 == 0 ? "Premium" : "Standard");
+        sku.setAttribute(Product.Attributes.SUPPORT_TYPE, "L1-L3");
+        sku.setAttribute(Product.Attributes.WARNING_PERIOD, "30");
+        sku.setAttribute(Pool.Attributes.MULTI_ENTITLEMENT, "yes");
+        sku.setAttribute(Product.Attributes.MANAGEMENT_ENABLED, "1");
+
+        List<Product> provided = new ArrayList<>();
+        for (int i = 0; i < Math.min(providedCount, engProducts.size()); ++i) {
+            Product product = engProducts.get(rng.nextInt(engProducts.size()));
+
+            if (!provided.contains(product)) {
+                provided.add(product);
+            }
+        }
+
+        sku.setProvidedProducts(provided);
+        return sku;
+    }
+
+    private SubscriptionDTO buildSubscription(Owner owner, Product sku, int index, long quantity) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.YEAR, -1);
+        Date startDate = calendar.getTime();
+        calendar.add(Calendar.YEAR, 3);
+        Date endDate = calendar.getTime();
+
+        SubscriptionDTO subscription = new SubscriptionDTO();
+        subscription.setId(Util.generateDbUUID());
+        subscription.setOwner(this.translator.translate(owner, OwnerDTO.class));
+        subscription.setProduct(this.translator.translate(sku, ProductDTO.class));
+        subscription.setQuantity(quantity);
+        subscription.setStartDate(startDate);
+        subscription.setEndDate(endDate);
+        subscription.setLastModified(new Date());
+        subscription.setContractNumber(String.valueOf(10000000 + index));
+        subscription.setAccountNumber("5000000");
+        subscription.setOrderNumber("order-" + index);
+
+        return subscription;
+    }
+}
@@ -46,4 +46,28 @@ public interface JobConstraint {
      */
     Collection<String> test(AsyncJobStatusCurator jobCurator, AsyncJobStatus inbound);
 
+    /**
+     * Generates the constraint key for the given inbound job. The constraint key is stored with the
+     * job when it is queued, and is used to enforce uniqueness of non-terminal jobs in the database.
+     * Constraints which do not enforce uniqueness, or cannot generate a key for the given job, should
+     * return null. By default, this method returns null.
+     *
+     * @param inbound
+     *  the inbound job status for which to generate a constraint key
+     *
+     * @throws IllegalArgumentException
+     *  if the inbound job is null
+     *
+     * @return
+     *  the constraint key for the inbound job, or null if this constraint does not provide a key
+     *  for the job
+     */
+    default String generateConstraintKey(AsyncJobStatus inbound) {
+        if (inbound == null) {
+            throw new IllegalArgumentException("inbound is null");
+        }
+
+        return null;
+    }
+
 }
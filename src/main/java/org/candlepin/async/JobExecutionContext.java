@@ -16,6 +16,8 @@ package org.candlepin.async;
 
 import org.candlepin.model.AsyncJobStatus;
 
+import java.util.function.Consumer;
+
 
 
 /**
@@ -24,6 +26,10 @@ import org.candlepin.model.AsyncJobStatus;
  */
 public class JobExecutionContext {
     private final AsyncJobStatus job;
+    private final Consumer<AsyncJobStatus> heartbeatHandler;
+    private final long heartbeatInterval;
+
+    private long lastHeartbeat;
 
     /**
      * Creates a new job execution context for the given job
@@ -35,11 +41,36 @@ public class JobExecutionContext {
      *  if job is null
      */
     public JobExecutionContext(AsyncJobStatus job) {
+        this(job, null, 0);
+    }
+
+    /**
+     * Creates a new job execution context for the given job, which will pass progress heartbeats
+     * to the provided handler no more often than the specified interval.
+     *
+     * @param job
+     *  the job for this execution context
+     *
+     * @param heartbeatHandler
+     *  the handler to receive progress heartbeats for the job, or null to ignore heartbeats
+     *
+     * @param heartbeatInterval
+     *  the minimum amount of time, in milliseconds, between heartbeats passed to the handler
+     *
+     * @throws IllegalArgumentException
+     *  if job is null
+     */
+    public JobExecutionContext(AsyncJobStatus job, Consumer<AsyncJobStatus> heartbeatHandler,
+        long heartbeatInterval) {
+
         if (job == null) {
             throw new IllegalArgumentException("job is null");
         }
 
         this.job = job;
+        this.heartbeatHandler = heartbeatHandler;
+        this.heartbeatInterval = Math.max(0, heartbeatInterval);
+        this.lastHeartbeat = System.currentTimeMillis();
     }
 
     /**
@@ -89,4 +120,25 @@ public class JobExecutionContext {
         this.setJobResult(String.format(format, args));
     }
 
+    /**
+     * Reports that the job is still making progress. Long-running jobs should call this method
+     * periodically, such as once per batch of work. Heartbeats are rate limited, so calling this
+     * method frequently is cheap.
+     * <p></p>
+     * For jobs executing with coalesced state updates, the first heartbeat to pass the rate limit
+     * persists the job's RUNNING state, allowing the job to be identified as running and recovered
+     * should this node terminate abnormally.
+     */
+    public void heartbeat() {
+        if (this.heartbeatHandler == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - this.lastHeartbeat >= this.heartbeatInterval) {
+            this.lastHeartbeat = now;
+            this.heartbeatHandler.accept(this.job);
+        }
+    }
+
 }
@@ -25,18 +25,26 @@ import org.candlepin.controller.mode.CandlepinModeManager.Mode;
 import org.candlepin.controller.mode.ModeChangeListener;
 import org.candlepin.guice.CandlepinRequestScope;
 import org.candlepin.guice.PrincipalProvider;
+import org.candlepin.hibernate.QueryStatistics;
 import org.candlepin.logging.LoggingUtil;
+import org.candlepin.metrics.CandlepinMeters;
 import org.candlepin.model.AsyncJobStatus;
 import org.candlepin.model.AsyncJobStatus.JobState;
 import org.candlepin.model.AsyncJobStatusCurator;
 import org.candlepin.model.AsyncJobStatusCurator.AsyncJobStatusQueryArguments;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
+import org.candlepin.tracing.Span;
+import org.candlepin.tracing.Tracer;
 import org.candlepin.util.Util;
 
 import com.google.inject.Injector;
 import com.google.inject.persist.Transactional;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.resource.transaction.spi.TransactionStatus;
@@ -105,6 +113,10 @@ public class JobManager implements ModeChangeListener {
     private static final String QRTZ_GROUP_MANUAL = "cp_async_manual";
     private static final String QRTZ_GROUP_PINSETTER = "cron group";
 
+    private static final Collection<JobState> NON_TERMINAL_JOB_STATES = Arrays.stream(JobState.values())
+        .filter(state -> !state.isTerminal())
+        .collect(Collectors.toList());
+
     private static final Object SUSPEND_KEY_DEFAULT = "default_suspend_key";
     private static final Object SUSPEND_KEY_TRIGGERED = "triggered_suspend_key";
 
@@ -338,6 +350,7 @@ public class JobManager implements ModeChangeListener {
     private final CandlepinRequestScope candlepinRequestScope;
     private final PrincipalProvider principalProvider;
     private final Injector injector;
+    private final MeterRegistry meterRegistry;
 
     private ManagerState state;
     private JobMessageSynchronizer synchronizer;
@@ -348,6 +361,9 @@ public class JobManager implements ModeChangeListener {
 
     private boolean clustered;
     private Map<String, Configuration> jobConfig;
+    private long heartbeatInterval;
+    private int statementThreshold;
+    private int repeatThreshold;
 
 
     /**
@@ -364,7 +380,8 @@ public class JobManager implements ModeChangeListener {
         JobMessageReceiver receiver,
         PrincipalProvider principalProvider,
         CandlepinRequestScope scope,
-        Injector injector) {
+        Injector injector,
+        MeterRegistry meterRegistry) {
 
         this.configuration = Objects.requireNonNull(configuration);
         this.schedulerFactory = Objects.requireNonNull(schedulerFactory);
@@ -376,6 +393,7 @@ public class JobManager implements ModeChangeListener {
         this.candlepinRequestScope = Objects.requireNonNull(scope);
         this.principalProvider = Objects.requireNonNull(principalProvider);
         this.injector = Objects.requireNonNull(injector);
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
 
         this.state = ManagerState.CREATED;
         this.qrtzExecutor = new QuartzJobExecutor(this);
@@ -397,6 +415,13 @@ public class JobManager implements ModeChangeListener {
         // Check if our scheduler is running in "clustered" mode
         this.clustered = config.getBoolean(ConfigProperties.QUARTZ_CLUSTERED_MODE, false);
 
+        // Read the minimum interval between persisted job heartbeats
+        this.heartbeatInterval = 1000L * config.getLong(ConfigProperties.ASYNC_JOBS_HEARTBEAT_INTERVAL, 30L);
+
+        // Read the SQL statement thresholds above which job executions are reported
+        this.statementThreshold = config.getInt(ConfigProperties.QUERY_STATS_STATEMENT_THRESHOLD, 0);
+        this.repeatThreshold = config.getInt(ConfigProperties.QUERY_STATS_REPEAT_THRESHOLD, 0);
+
         // Read the per-job configuration
         this.jobConfig = new HashMap<>();
         String prefix = ConfigProperties.ASYNC_JOBS_PREFIX;
@@ -504,6 +529,10 @@ public class JobManager implements ModeChangeListener {
      * while executing jobs. Any jobs in the RUNNING state with an executor set to this node
      * will have their state forcefully rewound to QUEUED in an attempt to allow the task to be
      * rerun.
+     * <p></p>
+     * Jobs executing with coalesced state updates remain in the QUEUED state in the database until
+     * they complete or report a heartbeat, so an abandoned job which never reported a heartbeat
+     * does not need recovery; it will be rerun when its message is redelivered.
      */
     private void recoverAbandonedJobs() {
         AsyncJobStatusQueryArguments queryArgs = new AsyncJobStatusQueryArguments()
@@ -976,6 +1005,23 @@ public class JobManager implements ModeChangeListener {
         return status.setState(state);
     }
 
+    /**
+     * Checks if the specified job is configured to coalesce its state updates. Jobs coalescing their
+     * state updates are persisted directly in the QUEUED state, and keep the RUNNING state in memory
+     * until a terminal state or a progress heartbeat is written.
+     *
+     * @param jobKey
+     *  the key of the job to check
+     *
+     * @return
+     *  true if the job is configured to coalesce its state updates; false otherwise
+     */
+    private boolean coalesceStateUpdates(String jobKey) {
+        Configuration config = jobKey != null ? this.jobConfig.get(jobKey) : null;
+        return config != null &&
+            config.getBoolean(ConfigProperties.ASYNC_JOBS_JOB_COALESCE_STATE_UPDATES, false);
+    }
+
     /**
      * Fetches the job status associated with the specified job ID. If no such job status could be
      * found, this method returns null.
@@ -1055,6 +1101,7 @@ public class JobManager implements ModeChangeListener {
             // Check if the queueing is blocked by constraints
             Collection<JobConstraint> constraints = config.getConstraints();
             Set<String> blockingJobIds = new HashSet<>();
+            String constraintKey = null;
 
             if (constraints != null && !constraints.isEmpty()) {
                 for (JobConstraint constraint : constraints) {
@@ -1063,13 +1110,39 @@ public class JobManager implements ModeChangeListener {
                     if (blocking != null) {
                         blockingJobIds.addAll(blocking);
                     }
+
+                    // Only a single constraint key can be stored with a job; if the job has multiple
+                    // keyed constraints, the first one to provide a key claims it.
+                    if (constraintKey == null) {
+                        constraintKey = constraint.generateConstraintKey(status);
+                    }
                 }
             }
 
-            // Persist the job status so that the ID will be generated.
+            boolean blocked = !blockingJobIds.isEmpty();
+
+            // If we're coalescing state updates, persist the job directly in the QUEUED state. The
+            // job message is not sent until the transaction commits, so nothing can observe the job
+            // in this state before the message is dispatched.
+            if (!blocked && this.coalesceStateUpdates(status.getJobKey())) {
+                this.setJobState(status, JobState.QUEUED);
+            }
+
+            // Persist the job status so that the ID will be generated
             status = this.jobCurator.create(status);
 
-            if (blockingJobIds.isEmpty()) {
+            // Only claim the constraint key if we're actually going to queue the job; aborted jobs
+            // must not hold it. If another node has queued a job with the same constraint key since
+            // we tested our constraints, the unique index on the key rejects the claim, and this job
+            // is blocked by that one exactly as if our constraints had found it.
+            if (!blocked && constraintKey != null &&
+                !this.jobCurator.claimConstraintKey(status, constraintKey)) {
+
+                blockingJobIds.addAll(this.jobCurator.fetchJobIdsByConstraintKey(constraintKey));
+                blocked = true;
+            }
+
+            if (!blocked) {
                 // Build and send the job message and update the job state accordingly
                 status = this.postJobStatusMessage(status);
                 log.info("Job queued: {}", status);
@@ -1077,8 +1150,10 @@ public class JobManager implements ModeChangeListener {
             else {
                 // TODO: Add support for the WAITING option. For now, always default to ABORTED
 
-                String jobIds = blockingJobIds.stream()
-                    .collect(Collectors.joining(", "));
+                // The job holding a concurrently claimed key may have finished before we looked it up
+                String jobIds = !blockingJobIds.isEmpty() ?
+                    blockingJobIds.stream().collect(Collectors.joining(", ")) :
+                    "a concurrently queued job";
 
                 StringBuilder errmsg = new StringBuilder("Job blocked by the following existing jobs: ")
                     .append(jobIds);
@@ -1165,8 +1240,10 @@ public class JobManager implements ModeChangeListener {
             JobMessage message = new JobMessage(status.getId(), status.getJobKey());
             this.dispatcher.postJobMessage(message);
 
-            // Update the job's status
-            status = this.updateJobStatus(status, JobState.QUEUED, null);
+            // Update the job's status, unless it was already persisted in the QUEUED state
+            if (status.getState() != JobState.QUEUED) {
+                status = this.updateJobStatus(status, JobState.QUEUED, null);
+            }
 
             // Register our synchronizer to commit or rollback the dispatcher based on whether
             // or not the current DB transaction completes
@@ -1253,11 +1330,30 @@ public class JobManager implements ModeChangeListener {
                 throw new JobInitializationException(errmsg);
             }
 
+            boolean coalesce = this.coalesceStateUpdates(status.getJobKey());
+
             status.setExecutor(Util.getHostname());
             status.incrementAttempts();
             status.setStartTime(new Date());
             status.setEndTime(null);
-            status = this.updateJobStatus(status, JobState.RUNNING, null);
+
+            if (coalesce) {
+                // Keep the RUNNING state in memory; it will be written along with the job's terminal
+                // state, or by the first heartbeat the job reports. The job is detached so the
+                // transactions it runs don't flush the in-memory state on its behalf.
+                status.setJobResult(null);
+                this.setJobState(status, JobState.RUNNING);
+                status = this.jobCurator.detachJob(status);
+            }
+            else {
+                status = this.updateJobStatus(status, JobState.RUNNING, null);
+
+                // The job may have been canceled after we fetched it
+                if (status.getState() == JobState.CANCELED) {
+                    log.debug("Skipping canceled job: {} ({})", status.getJobKey(), status.getId());
+                    return status;
+                }
+            }
 
             // Impl note: We need to be sure we do not have a transaction open at this point
             EntityTransaction transaction = this.jobCurator.getTransaction();
@@ -1269,33 +1365,57 @@ public class JobManager implements ModeChangeListener {
                 log.info("Starting job \"{}\" using class: {}", status.getName(), jobClass.getName());
             }
 
+            // Count the SQL statements issued while executing the job, tagged with its job key
+            QueryStatistics stats = QueryStatistics.start(status.getJobKey());
+            Timer.Sample sample = Timer.start(this.meterRegistry);
+            String outcome = "FAILED";
+
+            // The job ID is in the MDC at this point, and doubles as the ID of the job's trace
+            Span span = Tracer.startSpan("job." + status.getJobKey())
+                .tag("job_id", status.getId())
+                .tag("attempt", status.getAttempts());
+
             try {
-                job.execute(new JobExecutionContext(status));
+                job.execute(
+                    new JobExecutionContext(status, this::recordJobHeartbeat, this.heartbeatInterval));
 
                 // If a transaction was left open, we should scream about it. Note that this will
                 // cause the job to fail if the session cannot be terminated cleanly.
                 this.checkPostJobExecutionTransactionStatus(status);
+                outcome = "SUCCESS";
             }
             catch (JobExecutionException e) {
+                span.error(e);
+
                 boolean retry = !e.isTerminal() && status.getAttempts() < status.getMaxAttempts();
                 status = this.processJobFailure(status, eventSink, e, retry);
 
                 throw e;
             }
             catch (Throwable e) {
+                span.error(e);
+
                 boolean retry = !(e instanceof Error) &&
                     status.getAttempts() < status.getMaxAttempts();
 
                 status = this.processJobFailure(status, eventSink, e, retry);
                 throw new JobExecutionException(e);
             }
+            finally {
+                span.close();
+                QueryStatistics.stop();
+                stats.report(log, this.statementThreshold, this.repeatThreshold);
+                this.recordJobMetrics(status.getJobKey(), outcome, sample, stats);
+            }
 
             eventSink.sendEvents();
             status.setEndTime(new Date());
             status = this.updateJobStatus(status, JobState.FINISHED);
 
             if (status.logExecutionDetails()) {
-                log.info("Job \"{}\" completed in {}ms", status.getName(), this.getJobRuntime(status));
+                log.info("Job \"{}\" completed in {}ms; queries={}, query_time={}, entities={}",
+                    status.getName(), this.getJobRuntime(status), stats.getStatementCount(),
+                    stats.getExecutionTime(), stats.getEntityLoadCount());
             }
 
             return status;
@@ -1305,6 +1425,36 @@ public class JobManager implements ModeChangeListener {
         }
     }
 
+    /**
+     * Records the execution time and SQL statement count of a job execution.
+     *
+     * @param jobKey
+     *  the key of the job which was executed
+     *
+     * @param outcome
+     *  the outcome of the execution
+     *
+     * @param sample
+     *  the timer sample started when the job began executing
+     *
+     * @param stats
+     *  the query statistics collected during the execution
+     */
+    private void recordJobMetrics(String jobKey, String outcome, Timer.Sample sample, QueryStatistics stats) {
+        sample.stop(Timer.builder(CandlepinMeters.JOB_EXECUTIONS)
+            .description("Execution time of async jobs")
+            .tag(CandlepinMeters.TAG_JOB, jobKey)
+            .tag(CandlepinMeters.TAG_OUTCOME, outcome)
+            .publishPercentileHistogram()
+            .register(this.meterRegistry));
+
+        DistributionSummary.builder(CandlepinMeters.JOB_STATEMENTS)
+            .description("SQL statements issued per async job execution")
+            .tag(CandlepinMeters.TAG_JOB, jobKey)
+            .register(this.meterRegistry)
+            .record(stats.getStatementCount());
+    }
+
     /**
      * Configures the job's runtime environment, performing the following operations:
      *
@@ -1564,7 +1714,25 @@ public class JobManager implements ModeChangeListener {
 
         try {
             this.setJobState(status, state);
-            return this.jobCurator.merge(status);
+
+            if (initState == JobState.CREATED) {
+                return this.jobCurator.merge(status);
+            }
+
+            // Once the job has been queued, its state may be changed concurrently by another node, such
+            // as by a cancellation. Only update the job if it has not been concluded in the meantime;
+            // otherwise we'd silently clobber its terminal state.
+            AsyncJobStatus updated = this.jobCurator.compareAndSetJobStatus(status, NON_TERMINAL_JOB_STATES);
+            if (updated == null) {
+                AsyncJobStatus current = this.jobCurator.get(status.getId());
+
+                log.warn("Job \"{}\" was concluded concurrently; discarding state change: {} -> {}",
+                    status.getName(), current.getState(), state);
+
+                return current;
+            }
+
+            return updated;
         }
         catch (Exception e) {
             String errmsg = String.format("Unable to update job state for job \"%s\": %s -> %s",
@@ -1575,6 +1743,23 @@ public class JobManager implements ModeChangeListener {
         }
     }
 
+    /**
+     * Records a progress heartbeat for the given running job, persisting its RUNNING state, executor
+     * and start time, and refreshing its last-updated time. Failures to record a heartbeat are
+     * logged but otherwise ignored, as they do not affect the outcome of the job.
+     *
+     * @param status
+     *  the AsyncJobStatus of the running job
+     */
+    private void recordJobHeartbeat(AsyncJobStatus status) {
+        try {
+            this.jobCurator.recordJobHeartbeat(status);
+        }
+        catch (Exception e) {
+            log.warn("Unable to record heartbeat for job: {}", status.getName(), e);
+        }
+    }
+
     /**
      * Calculates the runtime of the given job. If the job has not completed its execution attempt,
      * this method returns -1;
@@ -1671,7 +1856,13 @@ public class JobManager implements ModeChangeListener {
             }
 
             if (status.getState() != JobState.RUNNING) {
+                // Only cancel the job if it's still in the state we read; it may have been started or
+                // concluded by another node since. If so, re-evaluate the job in its current state.
+                List<JobState> expected = List.of(status.getState());
                 this.setJobState(status, JobState.CANCELED);
+
+                AsyncJobStatus updated = this.jobCurator.compareAndSetJobStatus(status, expected);
+                return updated != null ? updated : this.cancelJob(jobId);
             }
             else {
                 // Impl note: With the locking, we probably shouldn't cancel a job that's in a
@@ -19,26 +19,42 @@ import org.candlepin.async.JobConstraint;
 import org.candlepin.model.AsyncJobStatus;
 import org.candlepin.model.AsyncJobStatusCurator;
 
+import org.apache.commons.codec.binary.Hex;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
  * The UniqueByArgConstraint constrains queuing of a job if another job with same same key and
  * value of a given parameter, or set of parameters, already exists in a non-terminal state.
+ * <p></p>
+ * Rather than matching against the stored arguments of every non-terminal job, this constraint
+ * hashes the job key and the values of the targeted parameters into a constraint key, which is
+ * stored with the job at queue time. Collisions are then detected with a single lookup against the
+ * indexed constraint key column. Jobs queued before constraint keys were stored have no key, and
+ * are still matched against their stored arguments until they reach a terminal state.
  */
 public class UniqueByArgConstraint implements JobConstraint {
 
+    /** The digest algorithm used to generate constraint keys */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
     private final List<String> params;
 
     /**
      * Creates a new UniqueByArgConstraint using the specified parameters as the target. If multiple
-     * parameters are provided, they are checked in the order provided.
+     * parameters are provided, the order in which they are provided is not significant.
      *
      * @param params
      *  The parameter, or parameters, to target with this constraint
@@ -52,7 +68,7 @@ public class UniqueByArgConstraint implements JobConstraint {
 
     /**
      * Creates a new UniqueByArgConstraint using the specified parameters as the target. If multiple
-     * parameters are provided, they are checked in the order provided.
+     * parameters are provided, the order in which they are provided is not significant.
      *
      * @param params
      *  A list of parameters to target with this constraint
@@ -74,9 +90,72 @@ public class UniqueByArgConstraint implements JobConstraint {
             plist.add(param);
         }
 
+        // Sort the params so the generated key does not depend on the order in which they were
+        // provided
+        Collections.sort(plist);
         this.params = Collections.<String>unmodifiableList(plist);
     }
 
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public String generateConstraintKey(AsyncJobStatus inbound) {
+        if (inbound == null) {
+            throw new IllegalArgumentException("inbound is null");
+        }
+
+        String jobKey = inbound.getJobKey();
+        JobArguments jobArgs = inbound.getJobArguments();
+
+        if (jobKey == null) {
+            return null;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        this.updateDigest(digest, jobKey);
+
+        for (String param : this.params) {
+            String value = jobArgs.getSerializedValue(param);
+
+            // Jobs lacking a value for any targeted parameter are never considered to collide, as
+            // null arguments do not match anything
+            if (value == null) {
+                return null;
+            }
+
+            this.updateDigest(digest, param);
+            this.updateDigest(digest, value);
+        }
+
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Updates the given digest with a length-prefixed representation of the specified value, such
+     * that the boundaries between values are unambiguous.
+     *
+     * @param digest
+     *  the digest to update
+     *
+     * @param value
+     *  the value to add to the digest
+     */
+    private void updateDigest(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
     /**
      * @{inheritDoc}
      */
@@ -90,15 +169,24 @@ public class UniqueByArgConstraint implements JobConstraint {
             throw new IllegalArgumentException("inbound is null");
         }
 
-        String jobKey = inbound.getJobKey();
-        JobArguments jobArgs = inbound.getJobArguments();
+        String constraintKey = this.generateConstraintKey(inbound);
+        if (constraintKey == null) {
+            return Collections.emptyList();
+        }
+
+        Set<String> jobIds = new HashSet<>(jobCurator.fetchJobIdsByConstraintKey(constraintKey));
 
+        // Jobs queued before the upgrade which introduced constraint keys have none, and must be
+        // matched by their arguments instead
         Map<String, String> argMap = new HashMap<>();
+        JobArguments jobArgs = inbound.getJobArguments();
 
         for (String param : this.params) {
             argMap.put(param, jobArgs.getSerializedValue(param));
         }
 
-        return jobCurator.fetchJobIdsByArguments(jobKey, argMap);
+        jobIds.addAll(jobCurator.fetchUnkeyedJobIdsByArguments(inbound.getJobKey(), argMap));
+
+        return jobIds;
     }
 }
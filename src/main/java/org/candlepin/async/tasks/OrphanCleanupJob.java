@@ -17,15 +17,16 @@ package org.candlepin.async.tasks;
 import org.candlepin.async.AsyncJob;
 import org.candlepin.async.JobExecutionContext;
 import org.candlepin.async.JobExecutionException;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.controller.ContentManager;
 import org.candlepin.controller.ProductManager;
-import org.candlepin.model.CandlepinQuery;
-import org.candlepin.model.Content;
 import org.candlepin.model.ContentCurator;
 import org.candlepin.model.OwnerContentCurator;
 import org.candlepin.model.OwnerProductCurator;
 import org.candlepin.model.ProductCurator;
 
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
@@ -33,7 +34,10 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.persistence.LockModeType;
@@ -43,6 +47,11 @@ import javax.persistence.LockModeType;
 /**
  * The OrphanCleanupJob searches for orphaned entities (products and content and the time of
  * writing) and removes them.
+ * <p></p>
+ * Orphaned entities are found without holding any locks, and are then deleted in chunks. Each chunk
+ * is processed in its own transaction, which obtains the product and content system locks, verifies
+ * the entities in the chunk are still orphaned, and removes them with bulk deletes. This keeps the
+ * windows in which other product and content operations are blocked short.
  */
 public class OrphanCleanupJob implements AsyncJob  {
     private static Logger log = LoggerFactory.getLogger(OrphanCleanupJob.class);
@@ -53,15 +62,22 @@ public class OrphanCleanupJob implements AsyncJob  {
     // Every Sunday at 3:00am
     public static final String DEFAULT_SCHEDULE = "0 0 3 ? * 1";
 
+    // The maximum number of entities to delete while holding the system locks
+    public static final String CFG_CHUNK_SIZE = "chunk_size";
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private Configuration config;
     private ContentCurator contentCurator;
     private OwnerContentCurator ownerContentCurator;
     private ProductCurator productCurator;
     private OwnerProductCurator ownerProductCurator;
 
     @Inject
-    public OrphanCleanupJob(ContentCurator contentCurator, OwnerContentCurator ownerContentCurator,
-        ProductCurator productCurator, OwnerProductCurator ownerProductCurator) {
+    public OrphanCleanupJob(Configuration config, ContentCurator contentCurator,
+        OwnerContentCurator ownerContentCurator, ProductCurator productCurator,
+        OwnerProductCurator ownerProductCurator) {
 
+        this.config = Objects.requireNonNull(config);
         this.ownerContentCurator = ownerContentCurator;
         this.contentCurator = contentCurator;
         this.ownerProductCurator = ownerProductCurator;
@@ -69,15 +85,29 @@ public class OrphanCleanupJob implements AsyncJob  {
     }
 
     @Override
-    @Transactional
     public void execute(JobExecutionContext context) throws JobExecutionException {
-        log.debug("Obtaining system locks...");
-        this.contentCurator.getSystemLock(ContentManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_WRITE);
-        this.productCurator.getSystemLock(ProductManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_WRITE);
+        int chunkSize = this.getChunkSize();
 
         log.debug("Deleting orphaned entities...");
-        int orphanedContent = this.deleteOrphanedContent();
-        int orphanedProducts = this.deleteOrphanedProducts();
+        int orphanedContent = 0;
+        for (List<String> chunk : Iterables.partition(this.ownerContentCurator.getOrphanedContentUuids(),
+            chunkSize)) {
+
+            orphanedContent += this.deleteOrphanedContent(chunk);
+            context.heartbeat();
+        }
+
+        log.debug("{} orphaned content entities deleted", orphanedContent);
+
+        int orphanedProducts = 0;
+        for (List<String> chunk : Iterables.partition(this.ownerProductCurator.getOrphanedProductUuids(),
+            chunkSize)) {
+
+            orphanedProducts += this.deleteOrphanedProducts(chunk);
+            context.heartbeat();
+        }
+
+        log.debug("{} orphaned product entities deleted", orphanedProducts);
 
         String format = "Orphan cleanup completed;" +
             "\n  %d orphaned content deleted" +
@@ -86,23 +116,45 @@ public class OrphanCleanupJob implements AsyncJob  {
         context.setJobResult(format, orphanedContent, orphanedProducts);
     }
 
-    private int deleteOrphanedContent() {
-        int count = 0;
-        CandlepinQuery<Content> contentQuery = this.ownerContentCurator.getOrphanedContent();
-
-        for (Content content : contentQuery) {
-            this.contentCurator.delete(content);
-            ++count;
-        }
+    /**
+     * Obtains the system locks for the current transaction, blocking any other product or content
+     * operations until it completes.
+     */
+    private void lockSystem() {
+        log.debug("Obtaining system locks...");
+        this.contentCurator.getSystemLock(ContentManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_WRITE);
+        this.productCurator.getSystemLock(ProductManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_WRITE);
+    }
 
-        this.productCurator.flush();
-        log.debug("{} orphaned content entities deleted", count);
+    /**
+     * Deletes a single chunk of orphaned content in its own transaction. Content which has been
+     * linked to an owner since the chunk was built is skipped.
+     *
+     * @param contentUuids - the UUIDs of the content previously found to be orphaned.
+     * @return the number of content entities deleted.
+     */
+    @Transactional
+    protected int deleteOrphanedContent(Collection<String> contentUuids) {
+        this.lockSystem();
 
-        return count;
+        Set<String> orphanedContentUuids = this.ownerContentCurator.filterOrphanedContentUuids(contentUuids);
+        return this.contentCurator.bulkDeleteByUuids(orphanedContentUuids);
     }
 
-    private int deleteOrphanedProducts() {
-        List<String> orphanedProductUuids = this.ownerProductCurator.getOrphanedProductUuids();
+    /**
+     * Deletes a single chunk of orphaned products in its own transaction. Products which have been
+     * linked to an owner since the chunk was built, or which are still referenced by pools or other
+     * products, are skipped.
+     *
+     * @param productUuids - the UUIDs of the products previously found to be orphaned.
+     * @return the number of product entities deleted.
+     */
+    @Transactional
+    protected int deleteOrphanedProducts(Collection<String> productUuids) {
+        this.lockSystem();
+
+        Set<String> orphanedProductUuids = new HashSet<>(this.ownerProductCurator
+            .filterOrphanedProductUuids(productUuids));
 
         Set<Pair<String, String>> activePoolProducts = this.productCurator
             .getPoolsReferencingProducts(orphanedProductUuids);
@@ -129,9 +181,27 @@ public class OrphanCleanupJob implements AsyncJob  {
             }
         }
 
-        int count = this.productCurator.bulkDeleteByUuids(orphanedProductUuids);
-        log.debug("{} orphaned product entities deleted", count);
+        return this.productCurator.bulkDeleteByUuids(orphanedProductUuids);
+    }
+
+    /**
+     * Retrieves the configured number of entities to delete per chunk.
+     *
+     * @return the chunk size.
+     * @throws JobExecutionException when the configured value is not a positive integer.
+     */
+    private int getChunkSize() throws JobExecutionException {
+        String configuration = ConfigProperties.jobConfig(JOB_KEY, CFG_CHUNK_SIZE);
+        int value = this.config.getInt(configuration, DEFAULT_CHUNK_SIZE);
+        if (value < 1) {
+            String errorMessage = String.format(
+                "Invalid value for configuration \"%s\", must be a positive integer: %s",
+                configuration, value);
+
+            log.error(errorMessage);
+            throw new JobExecutionException(errorMessage, true);
+        }
 
-        return count;
+        return value;
     }
 }
@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.tasks;
+
+import org.candlepin.async.AsyncJob;
+import org.candlepin.async.JobExecutionContext;
+import org.candlepin.async.JobExecutionException;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.controller.ContentAccessManager;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+import org.candlepin.model.Content;
+import org.candlepin.model.ContentAccessCertificateCurator;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerContentCurator;
+import org.candlepin.model.OwnerCurator;
+
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+
+
+/**
+ * The RegenContentAccessCertsJob periodically regenerates the content access certificates of
+ * consumers in simple content access organizations whose content has changed since the certificates
+ * were last generated. Pre-generating the certificates spares clients from regenerating them
+ * synchronously on their next check-in, which otherwise happens for every consumer of the
+ * organization shortly after its content changes.
+ */
+public class RegenContentAccessCertsJob implements AsyncJob {
+    private static final Logger log = LoggerFactory.getLogger(RegenContentAccessCertsJob.class);
+
+    public static final String JOB_KEY = "RegenContentAccessCertsJob";
+    public static final String JOB_NAME = "Regenerate Content Access Certificates";
+    public static final String DEFAULT_SCHEDULE = "0 0/15 * * * ?"; // Every 15 minutes
+
+    public static final String CFG_BATCH_SIZE = "batch_size";
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // The maximum number of certificates to regenerate per second; zero disables the limit
+    public static final String CFG_MAX_CERTS_PER_SECOND = "max_certs_per_second";
+    public static final int DEFAULT_MAX_CERTS_PER_SECOND = 100;
+
+    private final Configuration config;
+    private final OwnerCurator ownerCurator;
+    private final OwnerContentCurator ownerContentCurator;
+    private final ConsumerCurator consumerCurator;
+    private final ContentAccessCertificateCurator caCertCurator;
+    private final ContentAccessManager contentAccessManager;
+
+    @Inject
+    public RegenContentAccessCertsJob(Configuration config,
+        OwnerCurator ownerCurator,
+        OwnerContentCurator ownerContentCurator,
+        ConsumerCurator consumerCurator,
+        ContentAccessCertificateCurator caCertCurator,
+        ContentAccessManager contentAccessManager) {
+        this.config = Objects.requireNonNull(config);
+        this.ownerCurator = Objects.requireNonNull(ownerCurator);
+        this.ownerContentCurator = Objects.requireNonNull(ownerContentCurator);
+        this.consumerCurator = Objects.requireNonNull(consumerCurator);
+        this.caCertCurator = Objects.requireNonNull(caCertCurator);
+        this.contentAccessManager = Objects.requireNonNull(contentAccessManager);
+    }
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        int batchSize = this.getIntConfig(CFG_BATCH_SIZE, DEFAULT_BATCH_SIZE, false);
+        int maxCertsPerSecond = this.getIntConfig(CFG_MAX_CERTS_PER_SECOND,
+            DEFAULT_MAX_CERTS_PER_SECOND, true);
+
+        int regenerated = 0;
+        for (String ownerId : this.caCertCurator.getOwnerIdsWithStaleContent()) {
+            Owner owner = this.ownerCurator.get(ownerId);
+            if (owner == null) {
+                continue;
+            }
+
+            // The active content is shared by every consumer in the org, so we only look it up once
+            Map<Content, Boolean> activeContent = this.ownerContentCurator
+                .getActiveContentByOwner(owner.getId());
+
+            log.debug("Regenerating content access certificates for consumers of owner: {}",
+                owner.getKey());
+
+            // Page through the stale consumers rather than loading them all at once, as large orgs
+            // may have hundreds of thousands of them
+            List<String> batch = this.caCertCurator.getConsumerIdsWithStaleContent(ownerId, null, batchSize);
+            while (!batch.isEmpty()) {
+                long start = System.currentTimeMillis();
+                int count = this.regenerateCertificates(owner, batch, activeContent);
+                regenerated += count;
+
+                context.heartbeat();
+                this.throttle(start, count, maxCertsPerSecond);
+
+                // The session was cleared after the batch, so the owner must be fetched again
+                owner = this.ownerCurator.get(ownerId);
+                if (owner == null) {
+                    break;
+                }
+
+                String lastConsumerId = batch.get(batch.size() - 1);
+                batch = this.caCertCurator.getConsumerIdsWithStaleContent(ownerId, lastConsumerId, batchSize);
+            }
+        }
+
+        log.info("RegenContentAccessCertsJob has run! {} content access certificates regenerated.",
+            regenerated);
+        context.setJobResult(JOB_NAME + " completed successfully. %d certificates regenerated.",
+            regenerated);
+    }
+
+    /**
+     * Regenerates the content access certificates of a single batch of consumers in its own
+     * transaction. The session is flushed and cleared once the batch is complete, to keep the
+     * consumers and certificates of previous batches from accumulating in it.
+     *
+     * @param owner - the owner of the consumers.
+     * @param consumerIds - the ids of the consumers for which to regenerate certificates.
+     * @param activeContent - the active content of the owner.
+     * @return the number of certificates regenerated.
+     */
+    @Transactional
+    protected int regenerateCertificates(Owner owner, Collection<String> consumerIds,
+        Map<Content, Boolean> activeContent) {
+
+        Collection<Consumer> consumers = this.consumerCurator.getConsumers(consumerIds);
+        int regenerated = this.contentAccessManager.regenerateCertificates(owner, consumers, activeContent);
+
+        this.consumerCurator.flush();
+        this.consumerCurator.clear();
+
+        return regenerated;
+    }
+
+    /**
+     * Sleeps as long as necessary to keep the regeneration rate below the configured maximum.
+     *
+     * @param start - the time, in milliseconds, at which the last batch was started.
+     * @param count - the number of certificates regenerated by the last batch.
+     * @param maxCertsPerSecond - the maximum number of certificates to regenerate per second.
+     * @throws JobExecutionException when the job is interrupted while waiting.
+     */
+    private void throttle(long start, int count, int maxCertsPerSecond) throws JobExecutionException {
+        if (maxCertsPerSecond <= 0 || count <= 0) {
+            return;
+        }
+
+        long wait = (count * 1000L / maxCertsPerSecond) - (System.currentTimeMillis() - start);
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JobExecutionException("Interrupted while regenerating certificates", e, false);
+            }
+        }
+    }
+
+    /**
+     * Retrieves a positive, or optionally zero, integer configuration value for this job.
+     *
+     * @param configurationName - the name of the configuration to retrieve.
+     * @param defaultValue - the default value for the configuration.
+     * @param allowZero - whether or not zero is a valid value for the configuration.
+     * @return the value of the configuration.
+     * @throws JobExecutionException when the configured value is invalid.
+     */
+    private int getIntConfig(String configurationName, int defaultValue, boolean allowZero)
+        throws JobExecutionException {
+
+        String configuration = ConfigProperties.jobConfig(JOB_KEY, configurationName);
+        int value = this.config.getInt(configuration, defaultValue);
+        if (value < 0 || (value == 0 && !allowZero)) {
+            String errorMessage = String.format(
+                "Invalid value for configuration \"%s\", must be a %s integer: %s", configuration,
+                allowZero ? "non-negative" : "positive", value);
+
+            log.error(errorMessage);
+            throw new JobExecutionException(errorMessage, true);
+        }
+
+        return value;
+    }
+}
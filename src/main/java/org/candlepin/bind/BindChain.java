@@ -19,6 +19,8 @@ import org.candlepin.model.Consumer;
 import org.candlepin.model.Entitlement;
 import org.candlepin.policy.EntitlementRefusedException;
 import org.candlepin.policy.js.entitlement.Enforcer;
+import org.candlepin.tracing.Span;
+import org.candlepin.tracing.Tracer;
 
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
@@ -66,7 +68,13 @@ public class BindChain {
     private boolean preProcess(BindContext context) {
         for (BindOperation operation : operations) {
             log.debug("Starting preprocess of {}", operation.getClass().getSimpleName());
-            if (operation.preProcess(context)) {
+
+            boolean proceed;
+            try (Span span = Tracer.startSpan("bind.preprocess." + operation.getClass().getSimpleName())) {
+                proceed = operation.preProcess(context);
+            }
+
+            if (proceed) {
                 log.debug("Finished preprocess of {}", operation.getClass().getSimpleName());
             }
             else {
@@ -80,14 +88,16 @@ public class BindChain {
 
     private void lock(BindContext context) {
         log.debug("Requesting locks");
-        context.lockPools();
+        try (Span span = Tracer.startSpan("bind.lock_pools")) {
+            context.lockPools();
+        }
         log.debug("Successfully achieved locks");
     }
 
     private boolean execute(BindContext context) {
         for (BindOperation operation : operations) {
             log.debug("Starting execute of {}", operation.getClass().getSimpleName());
-            try {
+            try (Span span = Tracer.startSpan("bind.execute." + operation.getClass().getSimpleName())) {
                 if (operation.execute(context)) {
                     log.debug("Finished execute of {}", operation.getClass().getSimpleName());
                 }
@@ -105,12 +115,21 @@ public class BindChain {
     }
 
     public Collection<Entitlement> run() throws EntitlementRefusedException {
-        if (preProcess(context)) {
-            lock(context);
-            if (execute(context)) {
-                return context.getEntitlementMap().values();
+        try (Span span = Tracer.startSpan("bind")) {
+            if (span.isSampled()) {
+                span.tag("consumer", context.getConsumer().getUuid());
             }
+
+            if (preProcess(context)) {
+                lock(context);
+                if (execute(context)) {
+                    return context.getEntitlementMap().values();
+                }
+            }
+
+            EntitlementRefusedException exception = context.getException();
+            span.error(exception);
+            throw exception;
         }
-        throw context.getException();
     }
 }
@@ -0,0 +1,497 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+import org.candlepin.util.Util;
+
+import com.google.inject.Inject;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * The AutobindCandidateIndex maps the products, stacking IDs, addons and roles of each
+ * organization's pools to the IDs of the pools carrying them. It allows autobind to select its
+ * candidate pools without scanning and filtering every pool in the organization, and is shared by
+ * every request on this node.
+ * <p></p>
+ * Organizations are indexed on their first lookup and evicted least recently used first. Pool
+ * changes made on this node are reported to the index as they are flushed and committed, and are
+ * resolved incrementally on the next lookup of the organization. Changes made on other nodes are
+ * not seen until the organization's index expires, and until then, pools created or changed
+ * elsewhere may be missing from the candidates returned. The index only narrows the set of pools
+ * to consider: it does not track pool consumption, and callers must still verify availability of
+ * any candidate pools against the database.
+ * <p></p>
+ * The index only serves lookups once change tracking has been enabled, as it would otherwise never
+ * learn of local pool changes.
+ */
+@Singleton
+public class AutobindCandidateIndex {
+
+    /**
+     * Loads the candidate details of an organization's pools.
+     */
+    @FunctionalInterface
+    public interface CandidateLoader {
+        /**
+         * Loads the candidate details of the pools with the given IDs belonging to the specified
+         * organization. If the pool IDs are null, the details of every pool in the organization
+         * are loaded. Pools which do not exist are omitted from the output.
+         *
+         * @param ownerId
+         *  the ID of the organization owning the pools
+         *
+         * @param poolIds
+         *  the IDs of the pools to load, or null to load every pool of the organization
+         *
+         * @return
+         *  a collection of candidates for the pools found
+         */
+        Collection<Candidate> load(String ownerId, Collection<String> poolIds);
+    }
+
+    /**
+     * The autobind-relevant details of a single pool.
+     */
+    public static class Candidate {
+        private final String poolId;
+        private final Set<String> productIds;
+        private final String stackingId;
+        private final Set<String> addons;
+        private final Set<String> roles;
+        private final Date startDate;
+        private final Date endDate;
+
+        /**
+         * Creates a new candidate for the pool with the given ID.
+         *
+         * @param poolId
+         *  the ID of the pool
+         *
+         * @param productId
+         *  the ID of the pool's product
+         *
+         * @param providedProductIds
+         *  the IDs of the products provided by the pool's product
+         *
+         * @param productAttributes
+         *  the attributes of the pool's product; only the stacking ID, addons and roles are retained
+         *
+         * @param startDate
+         *  the start date of the pool
+         *
+         * @param endDate
+         *  the end date of the pool
+         */
+        public Candidate(String poolId, String productId, Collection<String> providedProductIds,
+            Map<String, String> productAttributes, Date startDate, Date endDate) {
+
+            if (poolId == null) {
+                throw new IllegalArgumentException("poolId is null");
+            }
+
+            Map<String, String> attributes = productAttributes != null ?
+                productAttributes :
+                Collections.emptyMap();
+
+            Set<String> products = new HashSet<>();
+            if (productId != null) {
+                products.add(productId);
+            }
+
+            if (providedProductIds != null) {
+                products.addAll(providedProductIds);
+            }
+
+            this.poolId = poolId;
+            this.productIds = Collections.unmodifiableSet(products);
+            this.stackingId = attributes.get(Product.Attributes.STACKING_ID);
+            this.addons = normalize(attributes.get(Product.Attributes.ADDONS));
+            this.roles = normalize(attributes.get(Product.Attributes.ROLES));
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        private static Set<String> normalize(String list) {
+            return Util.toList(list).stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toUnmodifiableSet());
+        }
+
+        public String getPoolId() {
+            return this.poolId;
+        }
+
+        public Set<String> getProductIds() {
+            return this.productIds;
+        }
+
+        public String getStackingId() {
+            return this.stackingId;
+        }
+
+        public Set<String> getAddons() {
+            return this.addons;
+        }
+
+        public Set<String> getRoles() {
+            return this.roles;
+        }
+
+        public boolean isActiveOn(Date date) {
+            if (date == null) {
+                return true;
+            }
+
+            return (this.startDate == null || !this.startDate.after(date)) &&
+                (this.endDate == null || !this.endDate.before(date));
+        }
+    }
+
+    /**
+     * The index of a single organization. An owner index is created, without candidates, before
+     * its organization is first loaded, so that pool changes made while the load is in progress
+     * are not lost.
+     */
+    private static class OwnerIndex {
+        private final Map<String, Candidate> candidates = new HashMap<>();
+        private final Map<String, Set<String>> byProduct = new HashMap<>();
+        private final Map<String, Set<String>> byStackingId = new HashMap<>();
+        private final Map<String, Set<String>> byAddon = new HashMap<>();
+        private final Map<String, Set<String>> byRole = new HashMap<>();
+
+        // Pool IDs changed since they were last resolved, mapped to the version of their change
+        private final Map<String, Long> changed = new HashMap<>();
+
+        private long version = 0;
+        private long loaded = -1;
+
+        public boolean isLoaded(long now, long ttl) {
+            return this.loaded >= 0 && now - this.loaded < ttl;
+        }
+
+        public void markChanged(String poolId) {
+            this.changed.put(poolId, ++this.version);
+        }
+
+        public void load(Collection<Candidate> loaded, long now) {
+            this.candidates.clear();
+            this.byProduct.clear();
+            this.byStackingId.clear();
+            this.byAddon.clear();
+            this.byRole.clear();
+
+            loaded.forEach(this::add);
+            this.changed.clear();
+            this.loaded = now;
+        }
+
+        public void resolve(Map<String, Long> resolved, Collection<Candidate> loaded) {
+            resolved.keySet().forEach(this::remove);
+            loaded.forEach(this::add);
+
+            // Only clear the changes which have not been reported again since they were resolved
+            resolved.forEach((poolId, version) -> this.changed.remove(poolId, version));
+        }
+
+        private void add(Candidate candidate) {
+            String poolId = candidate.getPoolId();
+
+            this.remove(poolId);
+            this.candidates.put(poolId, candidate);
+
+            candidate.getProductIds().forEach(productId -> put(this.byProduct, productId, poolId));
+            candidate.getAddons().forEach(addon -> put(this.byAddon, addon, poolId));
+            candidate.getRoles().forEach(role -> put(this.byRole, role, poolId));
+
+            if (candidate.getStackingId() != null) {
+                put(this.byStackingId, candidate.getStackingId(), poolId);
+            }
+        }
+
+        private void remove(String poolId) {
+            Candidate candidate = this.candidates.remove(poolId);
+            if (candidate == null) {
+                return;
+            }
+
+            candidate.getProductIds().forEach(productId -> remove(this.byProduct, productId, poolId));
+            candidate.getAddons().forEach(addon -> remove(this.byAddon, addon, poolId));
+            candidate.getRoles().forEach(role -> remove(this.byRole, role, poolId));
+
+            if (candidate.getStackingId() != null) {
+                remove(this.byStackingId, candidate.getStackingId(), poolId);
+            }
+        }
+
+        private static void put(Map<String, Set<String>> index, String key, String poolId) {
+            index.computeIfAbsent(key, k -> new HashSet<>()).add(poolId);
+        }
+
+        private static void remove(Map<String, Set<String>> index, String key, String poolId) {
+            Set<String> poolIds = index.get(key);
+            if (poolIds != null && poolIds.remove(poolId) && poolIds.isEmpty()) {
+                index.remove(key);
+            }
+        }
+
+        public Set<String> match(Date activeOn, Collection<String> productIds,
+            Collection<String> stackingIds, Collection<String> addons, String role) {
+
+            Set<String> matches = new HashSet<>();
+
+            matchAll(matches, this.byProduct, productIds);
+            matchAll(matches, this.byStackingId, stackingIds);
+
+            if (addons != null) {
+                for (String addon : addons) {
+                    if (addon != null) {
+                        matches.addAll(this.byAddon.getOrDefault(addon.trim().toLowerCase(), Set.of()));
+                    }
+                }
+            }
+
+            if (role != null) {
+                matches.addAll(this.byRole.getOrDefault(role.toLowerCase(), Set.of()));
+            }
+
+            matches.removeIf(poolId -> !this.candidates.get(poolId).isActiveOn(activeOn));
+
+            // Pools with unresolved changes may match; include them and let the caller verify them
+            matches.addAll(this.changed.keySet());
+
+            return matches;
+        }
+
+        private static void matchAll(Set<String> matches, Map<String, Set<String>> index,
+            Collection<String> keys) {
+
+            if (keys != null) {
+                for (String key : keys) {
+                    matches.addAll(index.getOrDefault(key, Set.of()));
+                }
+            }
+        }
+    }
+
+    private final int maxOwners;
+    private final long ttl;
+    private final Map<String, OwnerIndex> owners;
+    private volatile boolean tracking;
+
+    @Inject
+    public AutobindCandidateIndex(Configuration config) {
+        this(config.getInt(ConfigProperties.AUTOBIND_INDEX_MAX_OWNERS),
+            config.getLong(ConfigProperties.AUTOBIND_INDEX_TTL) * 1000);
+    }
+
+    /**
+     * Creates a new autobind candidate index for at most the given number of organizations. If the
+     * maximum is less than one, the index is disabled and lookups will never return candidates.
+     *
+     * @param maxOwners
+     *  the maximum number of organizations to index
+     *
+     * @param ttl
+     *  the number of milliseconds after which an organization's index is rebuilt
+     */
+    public AutobindCandidateIndex(int maxOwners, long ttl) {
+        this.maxOwners = maxOwners;
+        this.ttl = ttl;
+        this.tracking = false;
+
+        this.owners = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OwnerIndex> eldest) {
+                return this.size() > maxOwners;
+            }
+        };
+    }
+
+    /**
+     * Enables or disables change tracking for this index. While change tracking is disabled, the
+     * index is disabled and all indexed organizations are discarded.
+     *
+     * @param tracking
+     *  whether or not pool changes are being reported to this index
+     */
+    public void setTracking(boolean tracking) {
+        this.tracking = tracking;
+
+        if (!tracking) {
+            this.clear();
+        }
+    }
+
+    /**
+     * Checks whether or not this index is enabled.
+     *
+     * @return
+     *  true if this index will serve candidate lookups; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.maxOwners > 0 && this.tracking;
+    }
+
+    /**
+     * Fetches the IDs of the pools of the given organization which are active on the given date
+     * and may be used to autobind the specified products. A pool is a candidate if it provides any
+     * of the products, belongs to any of the stacks, or has a product listing any of the addons or
+     * the role specified. The organization is loaded or resolved through the given loader as
+     * necessary.
+     * <p></p>
+     * The returned set may include pools which are no longer candidates, or which no longer exist;
+     * callers must verify the pools they use. If the index is disabled, this method returns null.
+     *
+     * @param ownerId
+     *  the ID of the organization for which to fetch candidate pools
+     *
+     * @param activeOn
+     *  the date on which the pools must be active, or null to ignore pool dates
+     *
+     * @param productIds
+     *  the IDs of the products to autobind
+     *
+     * @param stackingIds
+     *  the stacking IDs of any stacks to complete
+     *
+     * @param addons
+     *  the addons of the consumer
+     *
+     * @param role
+     *  the role of the consumer
+     *
+     * @param loader
+     *  the loader to use to fetch the candidate details of the organization's pools
+     *
+     * @return
+     *  a mutable set of candidate pool IDs, or null if the index is disabled
+     */
+    public Set<String> getCandidatePoolIds(String ownerId, Date activeOn, Collection<String> productIds,
+        Collection<String> stackingIds, Collection<String> addons, String role, CandidateLoader loader) {
+
+        if (!this.isEnabled() || ownerId == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        OwnerIndex index;
+        Map<String, Long> unresolved = null;
+        long version;
+
+        synchronized (this) {
+            index = this.owners.computeIfAbsent(ownerId, key -> new OwnerIndex());
+
+            if (index.isLoaded(now, this.ttl)) {
+                if (index.changed.isEmpty()) {
+                    return index.match(activeOn, productIds, stackingIds, addons, role);
+                }
+
+                unresolved = new HashMap<>(index.changed);
+            }
+
+            version = index.version;
+        }
+
+        if (unresolved != null) {
+            Collection<Candidate> resolved = loader.load(ownerId, unresolved.keySet());
+
+            synchronized (this) {
+                index.resolve(unresolved, resolved);
+                return index.match(activeOn, productIds, stackingIds, addons, role);
+            }
+        }
+
+        Collection<Candidate> candidates = loader.load(ownerId, null);
+        OwnerIndex loaded = new OwnerIndex();
+        loaded.load(candidates, now);
+
+        Set<String> matches = loaded.match(activeOn, productIds, stackingIds, addons, role);
+
+        synchronized (this) {
+            // Only keep the load if no pools were changed while it was in progress, and the index
+            // is still ours; otherwise, it will be loaded again on the next lookup. Any pools
+            // changed during the load may match, and are included in this lookup regardless.
+            if (index.version == version && this.owners.get(ownerId) == index) {
+                index.load(candidates, now);
+            }
+            else {
+                index.changed.forEach((poolId, changeVersion) -> {
+                    if (changeVersion > version) {
+                        matches.add(poolId);
+                    }
+                });
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Reports a change to the pool with the given ID. The change is resolved on the next lookup of
+     * the pool's organization.
+     *
+     * @param pool
+     *  the created, updated or deleted pool
+     */
+    public void poolChanged(Pool pool) {
+        if (pool == null || pool.getId() == null || pool.getOwner() == null) {
+            return;
+        }
+
+        String ownerId = pool.getOwner().getId();
+
+        synchronized (this) {
+            OwnerIndex index = ownerId != null ? this.owners.get(ownerId) : null;
+            if (index != null) {
+                index.markChanged(pool.getId());
+            }
+        }
+    }
+
+    /**
+     * Discards the index of the given organization, if present.
+     *
+     * @param ownerId
+     *  the ID of the organization to evict
+     */
+    public synchronized void evict(String ownerId) {
+        this.owners.remove(ownerId);
+    }
+
+    /**
+     * Discards the indexes of all organizations.
+     */
+    public synchronized void clear() {
+        this.owners.clear();
+    }
+
+}
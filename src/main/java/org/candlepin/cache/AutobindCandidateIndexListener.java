@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.model.Pool;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Objects;
+import java.util.Set;
+
+
+
+/**
+ * Hibernate event listener which reports pool changes to the {@link AutobindCandidateIndex}.
+ * <p></p>
+ * The listener is expected to be registered for both the post and post-commit insert, update and
+ * delete events. Changes are reported as they are flushed, so they are visible to lookups made
+ * later in the same transaction, and again once committed, so that an organization indexed by
+ * another transaction in the meantime does not miss them. If a transaction fails to commit, the
+ * organization of the affected pool is evicted from the index entirely.
+ */
+public class AutobindCandidateIndexListener implements PostCommitInsertEventListener,
+    PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    // The pool properties carried by autobind candidates. Updates which do not change any of these,
+    // such as changes to the pool's consumption, are ignored.
+    private static final Set<String> INDEXED_PROPERTIES = Set.of("owner", "product", "startDate",
+        "endDate");
+
+    private final transient AutobindCandidateIndex index;
+
+    public AutobindCandidateIndexListener(AutobindCandidateIndex index) {
+        this.index = Objects.requireNonNull(index);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Pool.class.equals(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Pool) {
+            this.index.poolChanged((Pool) event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        this.evict(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Pool && this.isIndexedPropertyDirty(event)) {
+            this.index.poolChanged((Pool) event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        this.evict(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Pool) {
+            this.index.poolChanged((Pool) event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        this.evict(event.getEntity());
+    }
+
+    private boolean isIndexedPropertyDirty(PostUpdateEvent event) {
+        int[] dirty = event.getDirtyProperties();
+
+        // Without dirty property tracking, we have to assume the worst
+        if (dirty == null) {
+            return true;
+        }
+
+        String[] names = event.getPersister().getPropertyNames();
+        for (int property : dirty) {
+            if (INDEXED_PROPERTIES.contains(names[property])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void evict(Object entity) {
+        if (entity instanceof Pool && ((Pool) entity).getOwner() != null) {
+            this.index.evict(((Pool) entity).getOwner().getId());
+        }
+    }
+}
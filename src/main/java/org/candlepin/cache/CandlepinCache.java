@@ -16,8 +16,18 @@ package org.candlepin.cache;
 
 import com.google.inject.Inject;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.cache.CacheManager;
 import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * Wrapper that makes it easier to retrieve various caches in Candlepin
@@ -26,6 +36,8 @@ import javax.inject.Singleton;
  */
 @Singleton
 public class CandlepinCache {
+    private static final Logger log = LoggerFactory.getLogger(CandlepinCache.class);
+
     /**
      * Cache manager for Ehcache configured caches.
      */
@@ -56,4 +68,41 @@ public class CandlepinCache {
         return this.statusCache;
     }
 
+    /**
+     * Fetches the hit percentage of each of the second-level cache regions used for entities and
+     * natural ID lookups, as reported by the JCache statistics of the region. Regions which have not
+     * yet been created, or do not have statistics enabled, are omitted from the output.
+     *
+     * @return
+     *  a map of region names to the percentage of lookups in the region which were cache hits
+     */
+    public Map<String, Float> getEntityCacheHitPercentages() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String manager = sanitize(this.cacheManager.getURI().toString());
+        Map<String, Float> percentages = new LinkedHashMap<>();
+
+        for (String region : CandlepinCacheRegions.ENTITY_REGIONS) {
+            try {
+                ObjectName name = new ObjectName(String.format(
+                    "javax.cache:type=CacheStatistics,CacheManager=%s,Cache=%s", manager, sanitize(region)));
+
+                if (server.isRegistered(name)) {
+                    percentages.put(region, (Float) server.getAttribute(name, "CacheHitPercentage"));
+                }
+            }
+            catch (JMException e) {
+                log.debug("Unable to fetch statistics for cache region: {}", region, e);
+            }
+        }
+
+        return percentages;
+    }
+
+    /**
+     * Converts the given string to the form used in the object names of JCache management beans.
+     */
+    private static String sanitize(String value) {
+        return value == null ? "" : value.replaceAll(",|:|=|\\n", ".");
+    }
+
 }
@@ -14,6 +14,8 @@
  */
 package org.candlepin.cache;
 
+import java.util.List;
+
 /**
  * Make sure that constants in this file are in sync with what is
  * in ehcache*xml
@@ -21,6 +23,16 @@ package org.candlepin.cache;
 public class CandlepinCacheRegions {
     public static final String FIVE_SECONDS_QUERY_CACHE = "query-5-seconds";
 
+    /**
+     * Second-level cache regions of the entities and natural ID lookups cached by Hibernate. These
+     * use the Hibernate default region names, which are derived from the entity class names.
+     */
+    public static final String CONSUMER_TYPE = "org.candlepin.model.ConsumerType";
+    public static final String CONSUMER_TYPE_NATURAL_ID = CONSUMER_TYPE + "##NaturalId";
+    public static final String CDN = "org.candlepin.model.Cdn";
+
+    public static final List<String> ENTITY_REGIONS = List.of(CONSUMER_TYPE, CONSUMER_TYPE_NATURAL_ID, CDN);
+
     private CandlepinCacheRegions() {
 
     }
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.util.DeflateSegment;
+
+import com.google.inject.Inject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * The CompressedCertificateCache holds the compressed, serialized bodies of certificates served to
+ * clients, keyed by the representation type and the certificate serial. It allows repeat downloads
+ * of unchanged certificates to be served without serializing or compressing them again.
+ * <p></p>
+ * Each entry is stored along with a version object describing the state of the certificate from
+ * which it was built, such as its last update time. An entry is only served for an equal version;
+ * otherwise it is rebuilt. The cache is bounded, evicting the least recently used entries first, and
+ * is not shared between nodes.
+ */
+@Singleton
+public class CompressedCertificateCache {
+
+    /**
+     * The key of a cached body: the representation type and the certificate serial
+     */
+    private static final class Key {
+        private final Class<?> type;
+        private final long serial;
+
+        public Key(Class<?> type, long serial) {
+            this.type = type;
+            this.serial = serial;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) obj;
+            return this.type == that.type && this.serial == that.serial;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.type.hashCode() + Long.hashCode(this.serial);
+        }
+    }
+
+    /**
+     * A cached body and the version of the certificate it was built from
+     */
+    private static final class Entry {
+        private final Object version;
+        private final DeflateSegment segment;
+
+        public Entry(Object version, DeflateSegment segment) {
+            this.version = version;
+            this.segment = segment;
+        }
+    }
+
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+
+    @Inject
+    public CompressedCertificateCache(Configuration config) {
+        this(config.getInt(ConfigProperties.COMPRESSED_CERT_CACHE_SIZE));
+    }
+
+    /**
+     * Creates a new cache holding at most the given number of compressed certificate bodies. If the
+     * maximum is less than one, the cache is disabled and every lookup builds a new body.
+     *
+     * @param maxEntries
+     *  the maximum number of compressed bodies to cache
+     */
+    public CompressedCertificateCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return this.size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Checks whether or not this cache is enabled.
+     *
+     * @return
+     *  true if this cache will store compressed bodies; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.maxEntries > 0;
+    }
+
+    /**
+     * Fetches the compressed body of the certificate with the given serial, as represented by the
+     * specified type. If no body has been cached for the certificate, or the cached body was built
+     * from a different version of it, a new body is built with the given supplier and cached.
+     *
+     * @param type
+     *  the class of the certificate representation the body was serialized from
+     *
+     * @param serial
+     *  the ID of the certificate serial
+     *
+     * @param version
+     *  an object describing the current state of the certificate, compared by equality; may be null
+     *
+     * @param supplier
+     *  the supplier to build the compressed body of the certificate
+     *
+     * @throws IllegalArgumentException
+     *  if either type or supplier are null
+     *
+     * @return
+     *  the compressed body of the certificate
+     */
+    public DeflateSegment get(Class<?> type, long serial, Object version, Supplier<DeflateSegment> supplier) {
+        if (type == null) {
+            throw new IllegalArgumentException("type is null");
+        }
+
+        if (supplier == null) {
+            throw new IllegalArgumentException("supplier is null");
+        }
+
+        if (!this.isEnabled()) {
+            return supplier.get();
+        }
+
+        Key key = new Key(type, serial);
+
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(key);
+            if (entry != null && Objects.equals(entry.version, version)) {
+                return entry.segment;
+            }
+        }
+
+        // Build the body outside of the lock; concurrent requests for the same certificate may
+        // build it more than once, but never block one another.
+        DeflateSegment segment = supplier.get();
+
+        synchronized (this.entries) {
+            this.entries.put(key, new Entry(version, segment));
+        }
+
+        return segment;
+    }
+
+    /**
+     * Fetches the number of compressed bodies currently cached.
+     *
+     * @return
+     *  the number of cached bodies
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * Removes all cached bodies.
+     */
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+
+import com.google.inject.Inject;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * The EntityVersionIndex maps the entity versions of versioned entities, such as products and
+ * content, to the UUIDs of the entities carrying that version. It allows version convergence to
+ * resolve candidate entities by primary key rather than by scanning for the version, and is shared
+ * by every organization on this node.
+ * <p></p>
+ * The index is bounded per entity type, evicting the least recently used versions first. It only
+ * ever contains positive mappings, and is not synchronized across nodes; callers must still verify
+ * any candidate entities resolved through it, and should evict versions which no longer resolve.
+ */
+@Singleton
+public class EntityVersionIndex {
+
+    /**
+     * A bounded version index for a single entity type, with a reverse mapping to allow eviction by
+     * UUID.
+     */
+    private static class TypeIndex {
+        private final Map<Long, Set<String>> versions;
+        private final Map<String, Long> uuids;
+
+        public TypeIndex(int maxEntries) {
+            this.uuids = new HashMap<>();
+            this.versions = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Set<String>> eldest) {
+                    if (this.size() > maxEntries) {
+                        eldest.getValue().forEach(uuids::remove);
+                        return true;
+                    }
+
+                    return false;
+                }
+            };
+        }
+
+        public synchronized Set<String> get(long version) {
+            return this.versions.get(version);
+        }
+
+        public synchronized void put(long version, Collection<String> entityUuids) {
+            Set<String> merged = new HashSet<>(this.versions.getOrDefault(version, Set.of()));
+            merged.addAll(entityUuids);
+
+            this.versions.put(version, Set.copyOf(merged));
+            entityUuids.forEach(uuid -> this.uuids.put(uuid, version));
+        }
+
+        public synchronized void add(long version, String uuid) {
+            if (this.versions.containsKey(version)) {
+                this.put(version, Set.of(uuid));
+            }
+        }
+
+        public synchronized void evictVersion(long version) {
+            Set<String> removed = this.versions.remove(version);
+
+            if (removed != null) {
+                removed.forEach(this.uuids::remove);
+            }
+        }
+
+        public synchronized void evictUuid(String uuid) {
+            Long version = this.uuids.remove(uuid);
+
+            if (version != null) {
+                this.evictVersion(version);
+            }
+        }
+
+        public synchronized void clear() {
+            this.versions.clear();
+            this.uuids.clear();
+        }
+    }
+
+    private final int maxEntries;
+    private final Map<Class<?>, TypeIndex> indexes;
+
+    @Inject
+    public EntityVersionIndex(Configuration config) {
+        this(config.getInt(ConfigProperties.ENTITY_VERSION_INDEX_SIZE));
+    }
+
+    /**
+     * Creates a new entity version index holding at most the given number of versions for each
+     * entity type. If the maximum is less than one, the index is disabled and will never contain
+     * any mappings.
+     *
+     * @param maxEntries
+     *  the maximum number of versions to index for each entity type
+     */
+    public EntityVersionIndex(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.indexes = new HashMap<>();
+    }
+
+    private synchronized TypeIndex getTypeIndex(Class<?> type) {
+        return this.indexes.computeIfAbsent(type, key -> new TypeIndex(this.maxEntries));
+    }
+
+    /**
+     * Checks whether or not this index is enabled.
+     *
+     * @return
+     *  true if this index will store version mappings; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.maxEntries > 0;
+    }
+
+    /**
+     * Fetches the UUIDs of the entities of the given type known to have the specified entity
+     * version. If the version has not been indexed, this method returns null.
+     *
+     * @param type
+     *  the class of the versioned entity
+     *
+     * @param version
+     *  the entity version to look up
+     *
+     * @return
+     *  an immutable set of UUIDs of entities with the given version, or null if the version has not
+     *  been indexed
+     */
+    public Set<String> get(Class<?> type, long version) {
+        return this.isEnabled() ? this.getTypeIndex(type).get(version) : null;
+    }
+
+    /**
+     * Indexes the given entity UUIDs under the specified entity version, in addition to any UUIDs
+     * already indexed for the version.
+     *
+     * @param type
+     *  the class of the versioned entity
+     *
+     * @param version
+     *  the entity version of the entities
+     *
+     * @param uuids
+     *  the UUIDs of the entities with the given version
+     */
+    public void put(Class<?> type, long version, Collection<String> uuids) {
+        if (this.isEnabled() && uuids != null && !uuids.isEmpty()) {
+            this.getTypeIndex(type).put(version, uuids);
+        }
+    }
+
+    /**
+     * Adds the UUID of a newly persisted entity to the UUIDs indexed under its entity version. If
+     * the version has not been indexed, it is left unindexed, as the next lookup of the version
+     * will find the entity along with any others carrying the version.
+     *
+     * @param type
+     *  the class of the versioned entity
+     *
+     * @param version
+     *  the entity version of the entity
+     *
+     * @param uuid
+     *  the UUID of the entity
+     */
+    public void add(Class<?> type, long version, String uuid) {
+        if (this.isEnabled() && uuid != null) {
+            this.getTypeIndex(type).add(version, uuid);
+        }
+    }
+
+    /**
+     * Removes the specified entity version from the index.
+     *
+     * @param type
+     *  the class of the versioned entity
+     *
+     * @param version
+     *  the entity version to evict
+     */
+    public void evict(Class<?> type, long version) {
+        if (this.isEnabled()) {
+            this.getTypeIndex(type).evictVersion(version);
+        }
+    }
+
+    /**
+     * Removes the version to which the entity with the given UUID is indexed. Any other entities
+     * indexed under the same version are removed as well.
+     *
+     * @param type
+     *  the class of the versioned entity
+     *
+     * @param uuid
+     *  the UUID of the entity to evict
+     */
+    public void evict(Class<?> type, String uuid) {
+        if (this.isEnabled() && uuid != null) {
+            this.getTypeIndex(type).evictUuid(uuid);
+        }
+    }
+
+    /**
+     * Removes all mappings from this index.
+     */
+    public synchronized void clear() {
+        this.indexes.values().forEach(TypeIndex::clear);
+    }
+
+}
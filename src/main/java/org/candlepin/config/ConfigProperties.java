@@ -20,11 +20,13 @@ import static org.candlepin.config.ConfigurationPrefixes.JPA_CONFIG_PREFIX;
 import org.candlepin.async.tasks.ActiveEntitlementJob;
 import org.candlepin.async.tasks.CertificateCleanupJob;
 import org.candlepin.async.tasks.ExpiredPoolsCleanupJob;
+import org.candlepin.async.tasks.HypervisorHeartbeatUpdateJob;
 import org.candlepin.async.tasks.ImportRecordCleanerJob;
 import org.candlepin.async.tasks.InactiveConsumerCleanerJob;
 import org.candlepin.async.tasks.JobCleaner;
 import org.candlepin.async.tasks.ManifestCleanerJob;
 import org.candlepin.async.tasks.OrphanCleanupJob;
+import org.candlepin.async.tasks.RegenContentAccessCertsJob;
 import org.candlepin.async.tasks.UnmappedGuestEntitlementCleanerJob;
 
 import java.util.HashMap;
@@ -176,6 +178,62 @@ public class ConfigProperties {
     public static final String CACHE_JMX_STATS = "cache.jmx.statistics";
     public static final String CACHE_CONFIG_FILE_URI = JPA_CONFIG_PREFIX + "hibernate.javax.cache.uri";
 
+    // The maximum number of entity versions to index per entity type for product and content
+    // convergence. Values less than one disable the index.
+    public static final String ENTITY_VERSION_INDEX_SIZE = "cache.entity_version_index.max_entries";
+
+    // The maximum number of pools for which serialized rules JSON is cached. Values less than one
+    // disable the cache.
+    public static final String RULES_JSON_CACHE_SIZE = "cache.rules_json.max_entries";
+
+    // The maximum number of compressed certificate bodies cached for repeat downloads. Values less
+    // than one disable the cache.
+    public static final String COMPRESSED_CERT_CACHE_SIZE = "cache.compressed_certificates.max_entries";
+
+    // The maximum number of organizations for which autobind candidate pools are indexed, and the
+    // number of seconds after which an organization's index is rebuilt to pick up pool changes made
+    // on other nodes. A maximum less than one disables the index, which is the default. The index
+    // only sees pool changes committed on its own node, so on multi-node deployments autobind may
+    // miss pools created or changed elsewhere until the TTL expires.
+    public static final String AUTOBIND_INDEX_MAX_OWNERS = "cache.autobind_index.max_owners";
+    public static final String AUTOBIND_INDEX_TTL = "cache.autobind_index.ttl";
+
+    // The engine selecting pools during autobind: "js" runs the select_pools rules function, "java"
+    // runs its native port, and "verify" runs both, using the selection of the rules and logging any
+    // difference between the two.
+    public static final String AUTOBIND_ENGINE = "candlepin.autobind.engine";
+
+    // Whether list endpoints supporting it, such as the pool listings, serialize their results
+    // directly from the model entities rather than through the API DTOs
+    public static final String API_DIRECT_JSON_STREAMING = "candlepin.api.direct_json_streaming";
+
+    // The JDBC fetch size applied to queries streamed to API clients, and the number of streamed rows
+    // after which the streaming session is cleared of the entities already written. Values less than
+    // one leave the driver's default fetch size in place and disable clearing, respectively.
+    public static final String DB_STREAM_FETCH_SIZE = "candlepin.db.stream.fetch_size";
+    public static final String DB_STREAM_CLEAR_INTERVAL = "candlepin.db.stream.clear_interval";
+
+    // Whether responses are compressed with gzip or deflate for clients accepting either encoding
+    public static final String API_RESPONSE_COMPRESSION = "candlepin.api.response_compression";
+
+    // Requests and jobs issuing more SQL statements than the statement threshold, or issuing a single
+    // statement at least as many times as the repeat threshold (a likely N+1 select), are logged.
+    // Values less than one disable the respective check.
+    public static final String QUERY_STATS_STATEMENT_THRESHOLD =
+        "candlepin.db.query_stats.statement_threshold";
+    public static final String QUERY_STATS_REPEAT_THRESHOLD = "candlepin.db.query_stats.repeat_threshold";
+
+    // Metrics export. When enabled, meters are published over JMX, and in the Prometheus text format
+    // from the /admin/metrics endpoint.
+    public static final String METRICS_JMX_ENABLED = "candlepin.metrics.jmx.enabled";
+    public static final String METRICS_HTTP_ENABLED = "candlepin.metrics.http.enabled";
+
+    // Tracing. Sampled spans are written to the span log, or sent to a Zipkin-compatible collector
+    public static final String TRACING_ENABLED = "candlepin.tracing.enabled";
+    public static final String TRACING_SAMPLE_RATE = "candlepin.tracing.sample_rate";
+    public static final String TRACING_EXPORTER = "candlepin.tracing.exporter";
+    public static final String TRACING_COLLECTOR_URL = "candlepin.tracing.collector_url";
+
     public static final String[] ENCRYPTED_PROPERTIES = new String[] {
         DB_PASSWORD,
     };
@@ -271,6 +329,11 @@ public class ConfigProperties {
     public static final String ASYNC_JOBS_PREFIX = "candlepin.async.jobs.";
     public static final String ASYNC_JOBS_JOB_SCHEDULE = "schedule";
 
+    // Per-job flag to coalesce job state updates. When enabled, the intermediate RUNNING state is
+    // kept in memory and only the QUEUED and terminal states are written as separate updates. Jobs
+    // may still persist the RUNNING state through progress heartbeats.
+    public static final String ASYNC_JOBS_JOB_COALESCE_STATE_UPDATES = "coalesce_state_updates";
+
     // Special value used to denote a job's schedule should be manual rather than automatic.
     public static final String ASYNC_JOBS_MANUAL_SCHEDULE = "manual";
 
@@ -286,9 +349,13 @@ public class ConfigProperties {
         ManifestCleanerJob.JOB_KEY,
         OrphanCleanupJob.JOB_KEY,
         UnmappedGuestEntitlementCleanerJob.JOB_KEY,
-        InactiveConsumerCleanerJob.JOB_KEY
+        InactiveConsumerCleanerJob.JOB_KEY,
+        RegenContentAccessCertsJob.JOB_KEY
     };
 
+    // The minimum interval (in seconds) between persisted job progress heartbeats
+    public static final String ASYNC_JOBS_HEARTBEAT_INTERVAL = "candlepin.async.heartbeat_interval";
+
     // How long (in seconds) to wait for job threads to finish during a graceful Tomcat shutdown
     public static final String ASYNC_JOBS_THREAD_SHUTDOWN_TIMEOUT = "candlepin.async.thread.shutdown.timeout";
 
@@ -296,6 +363,10 @@ public class ConfigProperties {
     // manifest import. Default: 30 days
     public static final String ORPHANED_ENTITY_GRACE_PERIOD = "candlepin.refresh.orphan_entity_grace_period";
 
+    // How many threads to use when comparing and merging entities during a refresh or manifest
+    // import. Values less than one use the number of available processors. Default: 1 (sequential)
+    public static final String REFRESH_PROCESSING_THREADS = "candlepin.refresh.processing_threads";
+
     /**
      * Fetches a string representing the prefix for all per-job configuration for the specified job.
      * The job key or class name may be used, but the usage must be consistent.
@@ -418,6 +489,24 @@ public class ConfigProperties {
 
             this.put(CACHE_JMX_STATS, "false");
             this.put(CACHE_CONFIG_FILE_URI, "ehcache.xml");
+            this.put(ENTITY_VERSION_INDEX_SIZE, "100000");
+            this.put(RULES_JSON_CACHE_SIZE, "20000");
+            this.put(COMPRESSED_CERT_CACHE_SIZE, "5000");
+            this.put(AUTOBIND_INDEX_MAX_OWNERS, "0");
+            this.put(AUTOBIND_INDEX_TTL, "60");
+            this.put(AUTOBIND_ENGINE, "js");
+            this.put(API_DIRECT_JSON_STREAMING, "false");
+            this.put(DB_STREAM_FETCH_SIZE, "500");
+            this.put(DB_STREAM_CLEAR_INTERVAL, "500");
+            this.put(API_RESPONSE_COMPRESSION, "true");
+            this.put(QUERY_STATS_STATEMENT_THRESHOLD, "100");
+            this.put(QUERY_STATS_REPEAT_THRESHOLD, "20");
+            this.put(METRICS_JMX_ENABLED, "true");
+            this.put(METRICS_HTTP_ENABLED, "true");
+            this.put(TRACING_ENABLED, "false");
+            this.put(TRACING_SAMPLE_RATE, "0.1");
+            this.put(TRACING_EXPORTER, "log");
+            this.put(TRACING_COLLECTOR_URL, "http://localhost:9411/api/v2/spans");
 
             this.put(SUSPEND_MODE_ENABLED, "true");
 
@@ -473,6 +562,7 @@ public class ConfigProperties {
             this.put(ASYNC_JOBS_QUEUE_WHILE_SUSPENDED, "true");
             this.put(ASYNC_JOBS_SCHEDULER_ENABLED, "true");
             this.put(ASYNC_JOBS_THREAD_SHUTDOWN_TIMEOUT, "600"); // 10 minutes
+            this.put(ASYNC_JOBS_HEARTBEAT_INTERVAL, "30");
 
             this.put(ASYNC_JOBS_DISPATCH_ADDRESS, "job");
             this.put(ASYNC_JOBS_RECEIVE_ADDRESS, "jobs");
@@ -496,11 +586,17 @@ public class ConfigProperties {
                 UnmappedGuestEntitlementCleanerJob.DEFAULT_SCHEDULE);
             this.put(jobConfig(InactiveConsumerCleanerJob.JOB_KEY, ASYNC_JOBS_JOB_SCHEDULE),
                 ConfigProperties.ASYNC_JOBS_MANUAL_SCHEDULE);
+            this.put(jobConfig(RegenContentAccessCertsJob.JOB_KEY, ASYNC_JOBS_JOB_SCHEDULE),
+                RegenContentAccessCertsJob.DEFAULT_SCHEDULE);
+
+            this.put(jobConfig(HypervisorHeartbeatUpdateJob.JOB_KEY, ASYNC_JOBS_JOB_COALESCE_STATE_UPDATES),
+                "true");
 
             // Set the triggerable jobs list
             this.put(ASYNC_JOBS_TRIGGERABLE_JOBS, String.join(", ", ASYNC_JOBS_TRIGGERABLE_JOBS_LIST));
 
             this.put(ORPHANED_ENTITY_GRACE_PERIOD, "30");
+            this.put(REFRESH_PROCESSING_THREADS, "1");
         }
     };
 }
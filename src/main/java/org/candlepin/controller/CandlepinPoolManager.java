@@ -22,6 +22,7 @@ import org.candlepin.audit.EventFactory;
 import org.candlepin.audit.EventSink;
 import org.candlepin.bind.BindChainFactory;
 import org.candlepin.bind.PoolOperationCallback;
+import org.candlepin.cache.AutobindCandidateIndex;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.refresher.RefreshResult;
@@ -73,8 +74,11 @@ import org.candlepin.service.SubscriptionServiceAdapter;
 import org.candlepin.service.model.CdnInfo;
 import org.candlepin.service.model.CertificateInfo;
 import org.candlepin.service.model.CertificateSerialInfo;
+import org.candlepin.service.model.OwnerInfo;
 import org.candlepin.service.model.ProductInfo;
 import org.candlepin.service.model.SubscriptionInfo;
+import org.candlepin.tracing.Span;
+import org.candlepin.tracing.Tracer;
 import org.candlepin.util.Traceable;
 import org.candlepin.util.TraceableParam;
 import org.candlepin.util.Util;
@@ -92,6 +96,7 @@ import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -142,6 +147,7 @@ public class CandlepinPoolManager implements PoolManager {
     private final OwnerManager ownerManager;
     private final BindChainFactory bindChainFactory;
     private final JsonProvider jsonProvider;
+    private final AutobindCandidateIndex candidateIndex;
     private Provider<RefreshWorker> refreshWorkerProvider;
 
     /**
@@ -175,7 +181,8 @@ public class CandlepinPoolManager implements PoolManager {
         I18n i18n,
         BindChainFactory bindChainFactory,
         JsonProvider jsonProvider,
-        Provider<RefreshWorker> refreshWorkerProvider) {
+        Provider<RefreshWorker> refreshWorkerProvider,
+        AutobindCandidateIndex candidateIndex) {
 
         this.poolCurator = Objects.requireNonNull(poolCurator);
         this.sink = Objects.requireNonNull(sink);
@@ -201,6 +208,7 @@ public class CandlepinPoolManager implements PoolManager {
         this.bindChainFactory = Objects.requireNonNull(bindChainFactory);
         this.jsonProvider = Objects.requireNonNull(jsonProvider);
         this.refreshWorkerProvider = Objects.requireNonNull(refreshWorkerProvider);
+        this.candidateIndex = Objects.requireNonNull(candidateIndex);
     }
 
     /*
@@ -218,7 +226,8 @@ public class CandlepinPoolManager implements PoolManager {
         log.info("Refreshing pools for owner: {}", resolvedOwner);
 
         RefreshWorker refresher = this.refreshWorkerProvider.get()
-            .setOrphanedEntityGracePeriod(this.config.getInt(ConfigProperties.ORPHANED_ENTITY_GRACE_PERIOD));
+            .setOrphanedEntityGracePeriod(this.config.getInt(ConfigProperties.ORPHANED_ENTITY_GRACE_PERIOD))
+            .setProcessingThreads(this.config.getInt(ConfigProperties.REFRESH_PROCESSING_THREADS));
 
         log.debug("Fetching subscriptions from adapter...");
         refresher.addSubscriptions(subAdapter.getSubscriptions(resolvedOwner.getKey()));
@@ -368,6 +377,107 @@ public class CandlepinPoolManager implements PoolManager {
         .execute();
     }
 
+    /**
+     * Refreshes only the given subscriptions for the specified owner, rather than every
+     * subscription defined upstream. The subscriptions are expected to be the change set received
+     * from upstream; products and content attached to them are refreshed incrementally, and only
+     * the pools for the given subscriptions are updated. Pools for subscriptions absent from the
+     * change set are left as-is, and entitlements of other pools referencing an updated product are
+     * flagged dirty. A full refresh remains necessary to remove pools for subscriptions which no
+     * longer exist upstream, and to clean up orphaned products and content. Once refreshed, the
+     * consumed and exported quantities of the owner's pools are recalculated.
+     *
+     * @param owner
+     *  the owner for which to refresh the given subscriptions; resolved by its key
+     *
+     * @param subscriptions
+     *  the changed subscriptions to refresh
+     *
+     * @param lazy
+     *  whether or not entitlement certificates should be regenerated lazily
+     */
+    @Traceable
+    void refreshChangedSubscriptions(@TraceableParam("owner") OwnerInfo owner,
+        Collection<? extends SubscriptionInfo> subscriptions, boolean lazy) {
+
+        if (owner == null || owner.getKey() == null) {
+            throw new IllegalArgumentException(
+                i18n.tr("No owner specified, or owner lacks identifying information"));
+        }
+
+        Date now = new Date();
+        Owner resolvedOwner = this.ownerCurator.getByKey(owner.getKey());
+        if (resolvedOwner == null) {
+            throw new IllegalStateException(
+                i18n.tr("Unable to find an owner with the key \"{0}\"", owner.getKey()));
+        }
+        log.info("Refreshing {} changed subscription(s) for owner: {}",
+            subscriptions != null ? subscriptions.size() : 0, resolvedOwner);
+
+        RefreshWorker refresher = this.refreshWorkerProvider.get()
+            .setProcessingThreads(this.config.getInt(ConfigProperties.REFRESH_PROCESSING_THREADS))
+            .setIncremental(true)
+            .addSubscriptions(subscriptions);
+
+        Map<String, ? extends SubscriptionInfo> subMap = refresher.getSubscriptions();
+        RefreshResult refreshResult = refresher.execute(resolvedOwner);
+
+        List<EntityState> existingStates = List.of(
+            EntityState.CREATED, EntityState.UPDATED, EntityState.UNCHANGED);
+
+        List<EntityState> mutatedStates = List.of(
+            EntityState.CREATED, EntityState.UPDATED, EntityState.DELETED);
+
+        Map<String, Product> existingProducts = refreshResult.getEntities(Product.class, existingStates);
+        Map<String, Product> updatedProducts = refreshResult.getEntities(Product.class, EntityState.UPDATED);
+
+        this.poolCurator.transactional((args) -> {
+            Map<String, List<Pool>> subscriptionPools = this.poolCurator
+                .mapPoolsBySubscriptionIds(subMap.keySet());
+
+            for (SubscriptionInfo sub : subMap.values()) {
+                if (now.after(sub.getEndDate())) {
+                    log.info("Skipping expired subscription: {}", sub);
+                    continue;
+                }
+
+                log.debug("Processing subscription: {}", sub);
+                Pool pool = this.convertToMasterPoolImpl(sub, resolvedOwner, existingProducts);
+                pool.setLocked(true);
+
+                List<Pool> subPools = subscriptionPools.getOrDefault(sub.getId(), Collections.emptyList());
+                this.refreshPoolsForMasterPool(pool, false, lazy, updatedProducts, subPools);
+            }
+
+            this.poolCurator.flush();
+
+            if (!updatedProducts.isEmpty()) {
+                // Pools outside of the change set may still reference a product which was versioned
+                // as part of this refresh. Their product references have already been updated by the
+                // refresher, but their entitlement certificates need to be regenerated.
+                this.poolCurator.markCertificatesDirtyForPoolsWithProducts(resolvedOwner,
+                    updatedProducts.keySet());
+
+                log.debug("Updating floating pools...");
+                List<Pool> floatingPools = this.poolCurator.getOwnersFloatingPools(resolvedOwner);
+                this.updateFloatingPools(floatingPools, lazy, updatedProducts);
+            }
+
+            if (!subMap.isEmpty() && refreshResult.hasEntity(Product.class, mutatedStates)) {
+                resolvedOwner.setLastContentUpdate(now);
+                this.ownerCurator.merge(resolvedOwner);
+            }
+
+            this.recalculatePoolQuantitiesForOwner(resolvedOwner);
+
+            log.info("Refresh of changed subscriptions for owner: {} completed in: {}ms",
+                resolvedOwner.getKey(), System.currentTimeMillis() - now.getTime());
+
+            return null;
+        }).allowExistingTransactions()
+        .execute();
+    }
+
     private Owner resolveOwner(Owner owner) {
         if (owner == null || (owner.getKey() == null && owner.getId() == null)) {
             throw new IllegalArgumentException(
@@ -522,15 +632,100 @@ public class CandlepinPoolManager implements PoolManager {
             }
         }
 
+        // Pools without active entitlements or dependents can be removed with bulk deletes; the
+        // remainder need the full deletion process to revoke their entitlements, and update or
+        // remove the pools depending on them.
+        List<Pool> remaining = this.bulkDeleteExpiredPools(pools);
+
         // Delete the block of pools & flush the results to tell Hibernate to evict the objects
         // (we hope). Even if it doesn't, and even if the transaction completion is going to
         // flush the objects anyway, it should not hurt and is an explicit call.
-        this.deletePools(pools);
+        this.deletePools(remaining);
         this.poolCurator.flush();
 
         return pools.size();
     }
 
+    /**
+     * Deletes the given expired pools which have neither active entitlements nor dependent pools
+     * using bulk deletes. The entitlements of such pools have all expired, so they no longer count
+     * towards the compliance or system purpose status of their consumers, and there are no pools
+     * which must be updated along with them. The per-entitlement processing performed by
+     * deletePools can therefore be skipped: the entitlement serials are revoked, the certificates,
+     * entitlements and pools are deleted in blocks, and the consumers' entitlement counts are
+     * updated. A deletion event is emitted for each deleted pool.
+     *
+     * @param pools
+     *  the expired pools to delete
+     *
+     * @return
+     *  a list containing the pools which have active entitlements or dependent pools, and were not
+     *  deleted
+     */
+    private List<Pool> bulkDeleteExpiredPools(List<Pool> pools) {
+        if (pools == null || pools.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> expiredPoolIds = pools.stream()
+            .map(Pool::getId)
+            .collect(Collectors.toSet());
+
+        Set<String> retainedPoolIds = new HashSet<>();
+        retainedPoolIds.addAll(this.poolCurator.getPoolIdsWithActiveEntitlements(expiredPoolIds, new Date()));
+        retainedPoolIds.addAll(this.poolCurator.getPoolIdsWithDependents(expiredPoolIds));
+
+        List<Pool> remaining = new ArrayList<>();
+        List<Pool> deletable = new ArrayList<>();
+        for (Pool pool : pools) {
+            if (retainedPoolIds.contains(pool.getId())) {
+                remaining.add(pool);
+            }
+            else {
+                deletable.add(pool);
+            }
+        }
+
+        if (deletable.isEmpty()) {
+            return remaining;
+        }
+
+        Set<String> poolIds = deletable.stream()
+            .map(Pool::getId)
+            .collect(Collectors.toSet());
+
+        // Build the events while we still have the pool data, as the pools are detached and
+        // removed out from under the session below
+        List<Event> events = deletable.stream()
+            .map(this.eventFactory::poolDeleted)
+            .collect(Collectors.toList());
+
+        this.poolCurator.flush();
+        this.poolCurator.batchDetach(deletable);
+
+        // Entitlement rows reference the pools, and certificates reference the entitlements, so
+        // they must be removed first
+        Collection<String> entitlementIds = this.poolCurator.getEntitlementIdsForPools(poolIds);
+        if (!entitlementIds.isEmpty()) {
+            Map<String, Long> quantities = this.entitlementCurator
+                .getEntitlementQuantitiesByConsumer(entitlementIds);
+
+            this.entitlementCurator.markDependentEntitlementsDirty(entitlementIds);
+
+            // Deleting the certificates also revokes their serials
+            this.entitlementCertificateCurator.deleteByEntitlementIds(entitlementIds);
+            this.entitlementCurator.batchDeleteByIds(entitlementIds);
+            this.consumerCurator.decrementEntitlementCounts(quantities);
+        }
+
+        int deleted = this.poolCurator.bulkDeleteByIds(poolIds);
+        log.info("Bulk deleted {} expired pools and {} expired entitlements", deleted, entitlementIds.size());
+
+        events.forEach(this.sink::queueEvent);
+
+        return remaining;
+    }
+
     /**
      * Update pool for master pool.
      *
@@ -1177,7 +1372,9 @@ public class CandlepinPoolManager implements PoolManager {
             bestPools.add(pq);
         }
         else {
-            bestPools = getBestPools(consumer, productIds, entitleDate, ownerId, null, fromPools);
+            try (Span span = Tracer.startSpan("autobind.get_best_pools")) {
+                bestPools = getBestPools(consumer, productIds, entitleDate, ownerId, null, fromPools);
+            }
         }
 
         if (bestPools == null) {
@@ -1218,8 +1415,10 @@ public class CandlepinPoolManager implements PoolManager {
             entitleDate = new Date();
         }
 
-        List<PoolQuantity> bestPools = getBestPoolsForHost(guest, host, entitleDate, host.getOwnerId(),
-            null, possiblePools);
+        List<PoolQuantity> bestPools;
+        try (Span span = Tracer.startSpan("autobind.get_best_pools_for_host")) {
+            bestPools = getBestPoolsForHost(guest, host, entitleDate, host.getOwnerId(), null, possiblePools);
+        }
 
         if (bestPools == null) {
             log.info("No entitlements for host: {}", host.getUuid());
@@ -1285,6 +1484,7 @@ public class CandlepinPoolManager implements PoolManager {
             allOwnerPools.remove(ent.getPool());
         }
         List<Pool> filteredPools = new LinkedList<>();
+        List<Pool> candidatePools = new ArrayList<>();
 
         ComplianceStatus guestCompliance = complianceRules.getStatus(guest, entitleDate, false);
         Set<String> tmpSet = new HashSet<>();
@@ -1369,21 +1569,28 @@ public class CandlepinPoolManager implements PoolManager {
             }
 
             if (providesProduct || matchesAddOns || matchesRole) {
-                ValidationResult result = enforcer.preEntitlement(host, pool, 1, CallerType.BEST_POOLS);
-
-                if (result.hasErrors() || result.hasWarnings()) {
-                    // Just keep the last one around, if we need it
-                    failedResults.put(pool.getId(), result);
-                    if (log.isDebugEnabled()) {
-                        log.debug("Pool filtered from candidates due to failed rule(s): {}", pool);
-                        log.debug("  warnings: {}", Util.collectionToString(result.getWarnings()));
-                        log.debug("  errors: {}", Util.collectionToString(result.getErrors()));
-                    }
-                }
-                else {
-                    filteredPools.add(pool);
+                candidatePools.add(pool);
+            }
+        }
+
+        // Validate all of the candidates with a single rules invocation
+        Map<String, ValidationResult> validationResults = this.validateCandidatePools(host, candidatePools);
+
+        for (Pool pool : candidatePools) {
+            ValidationResult result = validationResults.get(pool.getId());
+
+            if (result != null && (result.hasErrors() || result.hasWarnings())) {
+                // Just keep the last one around, if we need it
+                failedResults.put(pool.getId(), result);
+                if (log.isDebugEnabled()) {
+                    log.debug("Pool filtered from candidates due to failed rule(s): {}", pool);
+                    log.debug("  warnings: {}", Util.collectionToString(result.getWarnings()));
+                    log.debug("  errors: {}", Util.collectionToString(result.getErrors()));
                 }
             }
+            else {
+                filteredPools.add(pool);
+            }
         }
 
         // Only throw refused exception if we actually hit the rules:
@@ -1541,12 +1748,8 @@ public class CandlepinPoolManager implements PoolManager {
             activePoolDate = new Date();
         }
 
-        PoolFilterBuilder poolFilter = new PoolFilterBuilder();
-        poolFilter.addIdFilters(fromPools);
-        List<Pool> allOwnerPools = this.listAvailableEntitlementPools(
-            consumer, null, ownerId, null, null, activePoolDate, false,
-            poolFilter, null, false, false, null).getPageData();
         List<Pool> filteredPools = new LinkedList<>();
+        List<Pool> candidatePools = new ArrayList<>();
 
         // We have to check compliance status here so we can replace an empty
         // array of product IDs with the array the consumer actually needs. (i.e. during
@@ -1560,6 +1763,9 @@ public class CandlepinPoolManager implements PoolManager {
             productIds = tmpSet.toArray(new String [] {});
         }
 
+        List<Pool> allOwnerPools = this.listAutobindPools(consumer, ownerId, productIds, compliance,
+            activePoolDate, fromPools);
+
         if (log.isDebugEnabled()) {
             log.debug("Attempting for products on date: {}", entitleDate);
             for (String productId : productIds) {
@@ -1614,15 +1820,23 @@ public class CandlepinPoolManager implements PoolManager {
             }
 
             if (providesProduct || matchesAddOns || matchesRole) {
-                ValidationResult result = enforcer.preEntitlement(consumer, pool, 1, CallerType.BEST_POOLS);
+                candidatePools.add(pool);
+            }
+        }
 
-                if (result.hasErrors() || result.hasWarnings()) {
-                    failedResults.put(pool.getId(), result);
-                    log.debug("Pool filtered from candidates due to rules failure: {}", pool.getId());
-                }
-                else {
-                    filteredPools.add(pool);
-                }
+        // Validate all of the candidates with a single rules invocation
+        Map<String, ValidationResult> validationResults = this.validateCandidatePools(consumer,
+            candidatePools);
+
+        for (Pool pool : candidatePools) {
+            ValidationResult result = validationResults.get(pool.getId());
+
+            if (result != null && (result.hasErrors() || result.hasWarnings())) {
+                failedResults.put(pool.getId(), result);
+                log.debug("Pool filtered from candidates due to rules failure: {}", pool.getId());
+            }
+            else {
+                filteredPools.add(pool);
             }
         }
 
@@ -1639,6 +1853,91 @@ public class CandlepinPoolManager implements PoolManager {
         return enforced;
     }
 
+    /**
+     * Lists the pools available to the given consumer which may be used to autobind the specified
+     * products. If the autobind candidate index is enabled, only the available pools it resolves as
+     * candidates are fetched; otherwise every pool available to the consumer is fetched. In either
+     * case, the pools returned must still be matched against the products.
+     *
+     * @param consumer
+     *  the consumer for which to list pools
+     *
+     * @param ownerId
+     *  the ID of the consumer's owner
+     *
+     * @param productIds
+     *  the IDs of the products to autobind
+     *
+     * @param compliance
+     *  the compliance status of the consumer
+     *
+     * @param activeOn
+     *  the date on which the pools must be active
+     *
+     * @param fromPools
+     *  the IDs of the pools to which the search should be limited, or null to search all pools
+     *
+     * @return
+     *  a list of pools available to the consumer
+     */
+    private List<Pool> listAutobindPools(Consumer consumer, String ownerId, String[] productIds,
+        ComplianceStatus compliance, Date activeOn, Collection<String> fromPools) {
+
+        PoolFilterBuilder poolFilter = new PoolFilterBuilder();
+
+        Set<String> candidateIds = null;
+        if (this.candidateIndex.isEnabled()) {
+            candidateIds = this.candidateIndex.getCandidatePoolIds(ownerId, activeOn,
+                Arrays.asList(productIds), compliance.getPartialStacks().keySet(), consumer.getAddOns(),
+                consumer.getRole(), this.poolCurator::getAutobindCandidates);
+        }
+
+        if (candidateIds != null) {
+            if (fromPools != null && !fromPools.isEmpty()) {
+                candidateIds.retainAll(fromPools);
+            }
+
+            if (candidateIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            poolFilter.addIdFilters(candidateIds);
+        }
+        else {
+            poolFilter.addIdFilters(fromPools);
+        }
+
+        return this.listAvailableEntitlementPools(consumer, null, ownerId, null, null, activeOn, false,
+            poolFilter, null, false, false, null).getPageData();
+    }
+
+    /**
+     * Runs the pre-entitlement rules against each of the given autobind candidate pools, using a
+     * quantity of one. The candidates are validated in a single rules invocation, so the consumer,
+     * its host and its entitlements are only translated and serialized once per autobind, rather
+     * than once per candidate.
+     *
+     * @param consumer
+     *  the consumer for which the candidate pools are being validated
+     *
+     * @param candidates
+     *  the candidate pools to validate
+     *
+     * @return
+     *  a mapping of pool IDs to the validation results of the respective pools
+     */
+    private Map<String, ValidationResult> validateCandidatePools(Consumer consumer, List<Pool> candidates) {
+        if (candidates.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<PoolQuantity> poolQuantities = candidates.stream()
+            .map(pool -> new PoolQuantity(pool, 1))
+            .collect(Collectors.toList());
+
+        return this.enforcer.preEntitlement(consumer, poolQuantities, CallerType.BEST_POOLS);
+    }
+
     private Map<String, Integer> convertToMap(List<PoolQuantity> poolQuantities) {
         Map<String, Integer> result = new HashMap<>();
         for (PoolQuantity poolQuantity : poolQuantities) {
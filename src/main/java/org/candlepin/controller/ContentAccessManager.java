@@ -21,6 +21,7 @@ import org.candlepin.controller.util.ContentPrefix;
 import org.candlepin.controller.util.PromotedContent;
 import org.candlepin.controller.util.ScaContainerContentPrefix;
 import org.candlepin.controller.util.ScaContentPrefix;
+import org.candlepin.metrics.CandlepinMeters;
 import org.candlepin.model.CertificateSerial;
 import org.candlepin.model.CertificateSerialCurator;
 import org.candlepin.model.Consumer;
@@ -50,6 +51,9 @@ import org.candlepin.util.X509V3ExtensionUtil;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -63,11 +67,14 @@ import java.security.KeyPair;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.naming.ldap.Rdn;
 
@@ -201,6 +208,8 @@ public class ContentAccessManager {
     private final EnvironmentCurator environmentCurator;
     private final ContentAccessCertificateCurator contentAccessCertCurator;
     private final EventSink eventSink;
+    private final MeterRegistry meterRegistry;
+    private final Timer certificateTimer;
     private final boolean standalone;
 
     @Inject
@@ -216,7 +225,8 @@ public class ContentAccessManager {
         ConsumerTypeCurator consumerTypeCurator,
         EnvironmentCurator environmentCurator,
         ContentAccessCertificateCurator contentAccessCertCurator,
-        EventSink eventSink) {
+        EventSink eventSink,
+        MeterRegistry meterRegistry) {
 
         this.config = Objects.requireNonNull(config);
         this.pki = Objects.requireNonNull(pki);
@@ -230,6 +240,8 @@ public class ContentAccessManager {
         this.environmentCurator = Objects.requireNonNull(environmentCurator);
         this.contentAccessCertCurator = Objects.requireNonNull(contentAccessCertCurator);
         this.eventSink = Objects.requireNonNull(eventSink);
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
+        this.certificateTimer = CandlepinMeters.certificateTimer(meterRegistry, "content_access");
         this.standalone = this.config.getBoolean(ConfigProperties.STANDALONE, true);
     }
 
@@ -256,9 +268,12 @@ public class ContentAccessManager {
                 .onRollback(status -> log.error("Rolling back SCA cert (re)generation transaction"))
                 .execute(args -> {
                     ContentAccessCertificate existing = consumer.getContentAccessCert();
+                    Supplier<Map<org.candlepin.model.Content, Boolean>> activeContent =
+                        () -> this.ownerContentCurator.getActiveContentByOwner(owner.getId());
+
                     return existing == null ?
-                        createNewScaCertificate(consumer, owner) :
-                        updateScaCertificate(consumer, owner, existing);
+                        createNewScaCertificate(consumer, owner, activeContent) :
+                        updateScaCertificate(consumer, owner, existing, activeContent);
                 });
 
             return this.wrap(result);
@@ -271,7 +286,75 @@ public class ContentAccessManager {
         return null;
     }
 
-    private ContentAccessCertificate createNewScaCertificate(Consumer consumer, Owner owner)
+    /**
+     * Regenerates the existing SCA certificates of the given consumers if their content predates the
+     * last content update of the owner, or their X509 certificate has expired. Unlike the lazy
+     * regeneration performed by {@link #getCertificate(Consumer)}, the active content of the owner
+     * is not looked up per certificate; the provided content is reused for every payload built by
+     * this call. Consumers which do not yet have an SCA certificate, or are not capable of using v3
+     * certificates, are skipped.
+     *
+     * @param owner
+     *  the owner of the consumers; must be operating in simple content access mode
+     *
+     * @param consumers
+     *  the consumers for which to regenerate SCA certificates
+     *
+     * @param activeContent
+     *  the active content of the owner, as returned by
+     *  {@link OwnerContentCurator#getActiveContentByOwner(String)}
+     *
+     * @throws IllegalArgumentException
+     *  if owner or activeContent are null
+     *
+     * @return
+     *  the number of certificates regenerated
+     */
+    @Transactional
+    public int regenerateCertificates(Owner owner, Collection<Consumer> consumers,
+        Map<org.candlepin.model.Content, Boolean> activeContent) {
+
+        if (owner == null) {
+            throw new IllegalArgumentException("owner is null");
+        }
+
+        if (activeContent == null) {
+            throw new IllegalArgumentException("activeContent is null");
+        }
+
+        if (!owner.isUsingSimpleContentAccess() || consumers == null) {
+            return 0;
+        }
+
+        Date contentUpdate = owner.getLastContentUpdate();
+        Date now = new Date();
+        int regenerated = 0;
+
+        for (Consumer consumer : consumers) {
+            ContentAccessCertificate existing = consumer.getContentAccessCert();
+            if (existing == null || !this.consumerIsCertV3Capable(consumer)) {
+                continue;
+            }
+
+            boolean stale = !contentUpdate.before(existing.getUpdated()) ||
+                existing.getSerial().getExpiration().before(now);
+
+            if (stale) {
+                try {
+                    this.updateScaCertificate(consumer, owner, existing, () -> activeContent);
+                    ++regenerated;
+                }
+                catch (IOException | GeneralSecurityException e) {
+                    log.error("Unable to regenerate SCA certificate for consumer: {}", consumer, e);
+                }
+            }
+        }
+
+        return regenerated;
+    }
+
+    private ContentAccessCertificate createNewScaCertificate(Consumer consumer, Owner owner,
+        Supplier<Map<org.candlepin.model.Content, Boolean>> activeContent)
         throws IOException, GeneralSecurityException {
         log.info("Generating new SCA certificate for consumer: \"{}\"", consumer.getUuid());
         Validity oneYearValidity = Validity.oneYear();
@@ -286,7 +369,7 @@ public class ContentAccessManager {
         existing.setConsumer(consumer);
 
         existing.setCert(createX509Cert(consumer, owner, serial, keyPair, oneYearValidity));
-        existing.setContent(this.createPayloadAndSignature(owner, consumer));
+        existing.setContent(this.createPayloadAndSignature(owner, consumer, activeContent.get()));
         ContentAccessCertificate savedCert = this.contentAccessCertificateCurator.create(existing);
         consumer.setContentAccessCert(savedCert);
         this.consumerCurator.merge(consumer);
@@ -294,7 +377,8 @@ public class ContentAccessManager {
     }
 
     private ContentAccessCertificate updateScaCertificate(Consumer consumer, Owner owner,
-        ContentAccessCertificate existing) throws GeneralSecurityException, IOException {
+        ContentAccessCertificate existing, Supplier<Map<org.candlepin.model.Content, Boolean>> activeContent)
+        throws GeneralSecurityException, IOException {
         Date now = new Date();
         Date expiration = existing.getSerial().getExpiration();
         boolean isX509CertExpired = expiration.before(now);
@@ -312,7 +396,7 @@ public class ContentAccessManager {
         Date contentUpdate = owner.getLastContentUpdate();
         boolean shouldUpdateContent = !contentUpdate.before(existing.getUpdated());
         if (shouldUpdateContent || isX509CertExpired) {
-            existing.setContent(this.createPayloadAndSignature(owner, consumer));
+            existing.setContent(this.createPayloadAndSignature(owner, consumer, activeContent.get()));
             this.contentAccessCertificateCurator.saveOrUpdate(existing);
         }
 
@@ -377,6 +461,8 @@ public class ContentAccessManager {
         KeyPair keyPair, Validity validity) throws GeneralSecurityException, IOException {
 
         log.info("Generating X509 certificate for consumer \"{}\"...", consumer.getUuid());
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+
         // fake a product dto as a container for the org content
         org.candlepin.model.dto.Product container = new org.candlepin.model.dto.Product();
         List<org.candlepin.model.dto.Content> dtoContents = new ArrayList<>();
@@ -401,6 +487,8 @@ public class ContentAccessManager {
             createDN(consumer, owner), extensions, byteExtensions, validity.start(),
             validity.end(), keyPair, BigInteger.valueOf(serial.getId()), null);
         byte[] encodedCert = this.pki.getPemEncoded(x509Cert);
+        sample.stop(this.certificateTimer);
+
         return new String(encodedCert);
     }
 
@@ -410,11 +498,11 @@ public class ContentAccessManager {
         return dContent;
     }
 
-    private String createPayloadAndSignature(Owner owner, Consumer consumer)
-        throws IOException {
+    private String createPayloadAndSignature(Owner owner, Consumer consumer,
+        Map<org.candlepin.model.Content, Boolean> activeContent) throws IOException {
 
         log.info("Generating SCA payload for consumer \"{}\"...", consumer.getUuid());
-        byte[] payloadBytes = createContentAccessDataPayload(owner, consumer);
+        byte[] payloadBytes = createContentAccessDataPayload(owner, consumer, activeContent);
 
         String payload = "-----BEGIN ENTITLEMENT DATA-----\n";
         payload += Util.toBase64(payloadBytes);
@@ -482,14 +570,13 @@ public class ContentAccessManager {
         return v3extensionUtil.getByteExtensions(products);
     }
 
-    private byte[] createContentAccessDataPayload(Owner owner, Consumer consumer)
-        throws IOException {
+    private byte[] createContentAccessDataPayload(Owner owner, Consumer consumer,
+        Map<org.candlepin.model.Content, Boolean> activeContent) throws IOException {
         Product container = new Product();
         container.setId("content_access");
         container.setName(" Content Access");
 
-        this.ownerContentCurator.getActiveContentByOwner(owner.getId())
-            .forEach(container::addContent);
+        activeContent.forEach(container::addContent);
 
         Product skuProduct = new Product();
         skuProduct.setName("Content Access");
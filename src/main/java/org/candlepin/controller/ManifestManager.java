@@ -54,13 +54,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.StreamingOutput;
 
 /**
  * This class serves as a controller layer for manifest export and import and encapsulates
@@ -281,20 +282,16 @@ public class ManifestManager {
                     exportedConsumer.getUuid()));
         }
 
-        BufferedOutputStream output = null;
-        InputStream input = null;
         try {
             response.setContentType("application/zip");
             response.setHeader("Content-Disposition", "attachment; filename=" + manifest.getName());
 
             // NOTE: Input and output streams are expected to be closed by their creators.
-            input = manifest.getInputStream();
-            output = new BufferedOutputStream(response.getOutputStream());
-            int data = input.read();
-            while (data != -1) {
-                output.write(data);
-                data = input.read();
-            }
+            //       The blob is copied through a single buffer, so the manifest is never held
+            //       in memory regardless of its size.
+            InputStream input = manifest.getInputStream();
+            OutputStream output = response.getOutputStream();
+            input.transferTo(output);
             output.flush();
         }
         catch (Exception e) {
@@ -388,20 +385,32 @@ public class ManifestManager {
     }
 
     /**
-     * Generates an archive of the specified consumer's entitlements.
+     * Generates an archive of the specified consumer's entitlements. Dirty entitlements are
+     * regenerated and the certificates to export are looked up immediately, but the archive itself
+     * is only built as the returned output is written, directly to the stream it is written to.
      *
      * @param consumer the target consumer
      * @param serials the entitlement serials to export.
-     * @return an archive to the specified consumer's entitlements.
-     * @throws ExportCreationException if the archive could not be created.
+     * @return an output which writes an archive of the specified consumer's entitlements.
      */
-    public File generateEntitlementArchive(Consumer consumer, Set<Long> serials)
-        throws ExportCreationException {
-
+    public StreamingOutput generateEntitlementArchive(Consumer consumer, Set<Long> serials) {
         log.debug("Getting client certificate zip file for consumer: {}", consumer.getUuid());
         poolManager.regenerateDirtyEntitlements(consumer);
 
-        return exporter.getEntitlementExport(consumer, serials);
+        // Look up the certificates now, while failures can still be reported with an error status
+        Exporter.ExportTask export = exporter.prepareEntitlementExport(consumer, serials);
+
+        return output -> {
+            try {
+                export.write(output);
+            }
+            catch (ExportCreationException e) {
+                // The response has already been committed, so an error status can no longer be
+                // sent. Failing the write aborts the response, leaving the client with a truncated
+                // archive rather than one which appears complete.
+                throw new IOException("Unable to create entitlement certificate archive", e);
+            }
+        };
     }
 
     /**
@@ -15,7 +15,6 @@
 package org.candlepin.controller;
 
 import org.candlepin.model.Owner;
-import org.candlepin.model.Pool;
 import org.candlepin.model.Product;
 import org.candlepin.service.ProductServiceAdapter;
 import org.candlepin.service.SubscriptionServiceAdapter;
@@ -48,6 +47,8 @@ public class Refresher {
 
     private Map<String, Owner> owners = new HashMap<>();
     private Set<Product> products = new HashSet<>();
+    private Map<String, OwnerInfo> changedOwners = new HashMap<>();
+    private Map<String, Map<String, SubscriptionInfo>> changedSubscriptions = new HashMap<>();
 
     Refresher(CandlepinPoolManager poolManager, SubscriptionServiceAdapter subAdapter,
         ProductServiceAdapter prodAdapter, OwnerManager ownerManager, boolean lazy) {
@@ -68,11 +69,45 @@ public class Refresher {
         return this;
     }
 
+    /**
+     * Adds a change set of subscriptions to be refreshed for the given owner. Unlike owners added
+     * via add(Owner), only the given subscriptions (and their products and content) are refreshed;
+     * pools for subscriptions which are not part of the change set are left as-is. If the owner is
+     * also added for a full refresh, the change set is ignored.
+     *
+     * @param owner
+     *  the owner to which the changed subscriptions belong
+     *
+     * @param subscriptions
+     *  the subscriptions which have changed upstream
+     *
+     * @return this Refresher instance
+     */
+    public Refresher add(OwnerInfo owner, Collection<? extends SubscriptionInfo> subscriptions) {
+        if (owner == null || owner.getKey() == null) {
+            throw new IllegalArgumentException("Owner is null or lacks identifying information");
+        }
+
+        this.changedOwners.put(owner.getKey(), owner);
+        Map<String, SubscriptionInfo> changeSet = this.changedSubscriptions
+            .computeIfAbsent(owner.getKey(), key -> new HashMap<>());
+
+        if (subscriptions != null) {
+            subscriptions.stream()
+                .filter(sub -> sub != null && sub.getId() != null)
+                .forEach(sub -> changeSet.put(sub.getId(), sub));
+        }
+
+        return this;
+    }
+
     /**
      * Add a product that has been changed to be refreshed globally.
      *
      * Will be used to lookup any subscription using the product, either as a SKU or a
-     * provided product, and trigger a refresh for that specific subscription.
+     * provided product, and trigger a refresh for that specific subscription. The subscriptions
+     * found are refreshed as a change set for their owner, refreshing the changed product and its
+     * content along with the pools of the subscriptions.
      *
      * WARNING: Should only be used in upstream production environments, downstream should
      * always be driven by manifest import, which should never trigger a global refresh
@@ -136,18 +171,9 @@ public class Refresher {
                 continue;
             }
 
-            /*
-             * on the off chance that this is actually a new subscription, make
-             * the required pools. this shouldn't happen; we should really get a
-             * refresh pools by owner call for it, but why not handle it, just
-             * in case!
-             *
-             * Regenerate certificates here, that way if it fails, the whole
-             * thing rolls back. We don't want to refresh without marking ents
-             * dirty, they will never get regenerated
-             */
-            Pool masterPool = poolManager.convertToMasterPool(subscription);
-            poolManager.refreshPoolsForMasterPool(masterPool, true, lazy, Collections.emptyMap());
+            // The subscriptions using the changed products are exactly the change set for their
+            // owner; refresh them incrementally, along with the changed products and content.
+            this.add(so, Collections.singletonList(subscription));
         }
 
         for (Owner owner : this.owners.values()) {
@@ -155,6 +181,21 @@ public class Refresher {
             poolManager.recalculatePoolQuantitiesForOwner(owner);
             ownerManager.updateRefreshDate(owner);
         }
+
+        // Change sets are applied incrementally and don't count as a full refresh, so we leave the
+        // refresh date alone; the periodic full refresh will reconcile anything missed here.
+        for (Map.Entry<String, OwnerInfo> entry : this.changedOwners.entrySet()) {
+            if (this.owners.containsKey(entry.getKey())) {
+                log.debug("Skipping change set for owner \"{}\"; owner is being fully refreshed",
+                    entry.getKey());
+                continue;
+            }
+
+            Collection<SubscriptionInfo> changeSet = this.changedSubscriptions.get(entry.getKey())
+                .values();
+
+            poolManager.refreshChangedSubscriptions(entry.getValue(), changeSet, this.lazy);
+        }
     }
 
 }
@@ -29,17 +29,21 @@ import org.candlepin.controller.refresher.visitors.NodeProcessor;
 import org.candlepin.controller.refresher.visitors.PoolNodeVisitor;
 import org.candlepin.controller.refresher.visitors.ProductNodeVisitor;
 import org.candlepin.controller.util.EntityVersioningRetryWrapper;
+import org.candlepin.model.Content;
 import org.candlepin.model.ContentCurator;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerContentCurator;
 import org.candlepin.model.OwnerProductCurator;
 import org.candlepin.model.Pool.PoolType;
 import org.candlepin.model.PoolCurator;
+import org.candlepin.model.Product;
 import org.candlepin.model.ProductCurator;
 import org.candlepin.service.model.ContentInfo;
 import org.candlepin.service.model.ProductContentInfo;
 import org.candlepin.service.model.ProductInfo;
 import org.candlepin.service.model.SubscriptionInfo;
+import org.candlepin.tracing.Span;
+import org.candlepin.tracing.Tracer;
 import org.candlepin.util.Transactional;
 
 import com.google.inject.Inject;
@@ -49,8 +53,16 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityTransaction;
 import javax.persistence.LockModeType;
@@ -84,6 +96,8 @@ public class RefreshWorker {
     private ContentMapper contentMapper;
 
     private int orphanedEntityGracePeriod;
+    private int processingThreads;
+    private boolean incremental;
 
 
     /**
@@ -105,6 +119,8 @@ public class RefreshWorker {
         this.contentMapper = new ContentMapper();
 
         this.orphanedEntityGracePeriod = ORPHANED_ENTITY_DEFAULT_GRACE_PERIOD;
+        this.processingThreads = 1;
+        this.incremental = false;
     }
 
     /**
@@ -145,6 +161,58 @@ public class RefreshWorker {
         return this;
     }
 
+    /**
+     * Sets the number of threads to use while comparing and merging the imported entities with
+     * their existing versions. Persistence is always performed on the calling thread. If the value
+     * provided is less than one, the number of available processors will be used.
+     *
+     * @param threads
+     *  the number of threads to use for processing entity nodes
+     *
+     * @return
+     *  a reference to this refresh worker
+     */
+    public RefreshWorker setProcessingThreads(int threads) {
+        this.processingThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return this;
+    }
+
+    /**
+     * Sets whether or not this refresh worker should operate on a change set rather than the
+     * complete state of the organization. When operating incrementally, the added subscriptions,
+     * products and content are assumed to be only those which have changed upstream, and the
+     * refresh is limited to the subgraph of existing entities affected by them:
+     * <ul>
+     *  <li>the existing versions of the added products and content</li>
+     *  <li>any existing products which reference an affected product or content, recursively</li>
+     *  <li>the existing children of any of the above</li>
+     * </ul>
+     * Since the organization's complete entity graph is not known, orphaned entities are neither
+     * flagged nor removed during an incremental refresh; a full refresh is still required to
+     * reconcile entities which are no longer defined upstream.
+     *
+     * @param incremental
+     *  whether or not to perform an incremental refresh
+     *
+     * @return
+     *  a reference to this refresh worker
+     */
+    public RefreshWorker setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * Checks whether or not this refresh worker will perform an incremental refresh. See the
+     * documentation associated with the setIncremental method for details.
+     *
+     * @return
+     *  true if this refresh worker will perform an incremental refresh; false otherwise
+     */
+    public boolean isIncremental() {
+        return this.incremental;
+    }
+
     /**
      * Adds the specified subscriptions to this refresher. If a given subscription has already
      * been added, but differs from the existing version, a warning will be generated and the
@@ -495,12 +563,18 @@ public class RefreshWorker {
                 .addVisitor(new PoolNodeVisitor(this.poolCurator))
                 .addVisitor(new ProductNodeVisitor(this.productCurator, this.ownerProductCurator,
                     this.orphanedEntityGracePeriod))
-                .addVisitor(new ContentNodeVisitor(this.contentCurator, this.ownerContentCurator));
+                .addVisitor(new ContentNodeVisitor(this.contentCurator, this.ownerContentCurator))
+                .setPruneNodes(!this.incremental)
+                .setParallelism(this.processingThreads);
 
             // Obtain system locks on products and content so we don't need to worry about
             // orphan cleanup deleting stuff out from under us
-            this.ownerContentCurator.getSystemLock(ContentManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_READ);
-            this.ownerProductCurator.getSystemLock(ProductManager.SYSTEM_LOCK, LockModeType.PESSIMISTIC_READ);
+            try (Span span = Tracer.startSpan("refresh.lock")) {
+                this.ownerContentCurator.getSystemLock(ContentManager.SYSTEM_LOCK,
+                    LockModeType.PESSIMISTIC_READ);
+                this.ownerProductCurator.getSystemLock(ProductManager.SYSTEM_LOCK,
+                    LockModeType.PESSIMISTIC_READ);
+            }
 
             // Clear existing entities in the event this isn't the first run of this refresher
             this.poolMapper.clearExistingEntities();
@@ -508,34 +582,125 @@ public class RefreshWorker {
             this.contentMapper.clearExistingEntities();
 
             // Add in our existing entities
-            this.poolMapper.addExistingEntities(
-                this.poolCurator.listByOwnerAndTypes(owner.getId(), PoolType.NORMAL, PoolType.DEVELOPMENT));
-
-            this.productMapper.addExistingEntities(this.ownerProductCurator.getProductsByOwner(owner).list());
-            this.contentMapper.addExistingEntities(this.ownerContentCurator.getContentByOwner(owner).list());
+            try (Span span = Tracer.startSpan("refresh.map_existing")) {
+                if (this.incremental) {
+                    this.addAffectedExistingEntities(owner);
+                }
+                else {
+                    this.poolMapper.addExistingEntities(this.poolCurator.listByOwnerAndTypes(owner.getId(),
+                        PoolType.NORMAL, PoolType.DEVELOPMENT));
+
+                    this.productMapper.addExistingEntities(
+                        this.ownerProductCurator.getProductsByOwner(owner).list());
+                    this.contentMapper.addExistingEntities(
+                        this.ownerContentCurator.getContentByOwner(owner).list());
+                }
+            }
 
             // Have our node factory build the node trees
-            nodeFactory.buildNodes(owner);
+            try (Span span = Tracer.startSpan("refresh.build_nodes")) {
+                nodeFactory.buildNodes(owner);
+            }
 
             // Process our nodes, starting at the roots, letting the processors build up any persistence
             // state necessary to finalize everything
-            return nodeProcessor.processNodes();
+            try (Span span = Tracer.startSpan("refresh.process_nodes")) {
+                return nodeProcessor.processNodes();
+            }
         });
 
-        // Attempt to retry if we're not already in a transaction
-        // Impl note: at the time of writing, nested transactions are not supported in Hibernate
-        EntityTransaction transaction = this.poolCurator.getTransaction();
-        if (transaction == null || !transaction.isActive()) {
-            // Retry this operation if we hit a constraint violation on the entity version constraint
-            return new EntityVersioningRetryWrapper()
-                .retries(VERSIONING_CONSTRAINT_VIOLATION_RETRIES)
-                .execute(() -> block.execute());
+        try (Span span = Tracer.startSpan("refresh")) {
+            if (span.isSampled()) {
+                span.tag("owner", owner.getKey())
+                    .tag("incremental", this.incremental);
+            }
+
+            // Attempt to retry if we're not already in a transaction
+            // Impl note: at the time of writing, nested transactions are not supported in Hibernate
+            EntityTransaction transaction = this.poolCurator.getTransaction();
+            if (transaction == null || !transaction.isActive()) {
+                // Retry this operation if we hit a constraint violation on the entity version constraint
+                return new EntityVersioningRetryWrapper()
+                    .retries(VERSIONING_CONSTRAINT_VIOLATION_RETRIES)
+                    .execute(() -> block.execute());
+            }
+            else {
+                // A transaction is already active, just run the block as-is
+                return block.allowExistingTransactions()
+                    .execute();
+            }
         }
-        else {
-            // A transaction is already active, just run the block as-is
-            return block.allowExistingTransactions()
-                .execute();
+    }
+
+    /**
+     * Maps the existing entities affected by the imported change set, rather than every entity in
+     * the organization. Existing pools are not mapped, as they are never paired with upstream
+     * subscriptions by the refresher, and are instead reconciled by the caller after the refresh.
+     *
+     * @param owner
+     *  the organization being refreshed
+     */
+    private void addAffectedExistingEntities(Owner owner) {
+        Map<String, Product> products = new HashMap<>();
+        Map<String, Content> contents = new HashMap<>();
+
+        // Fetch the existing versions of the changed entities
+        Collection<Product> changedProducts = this.ownerProductCurator
+            .getProductsByIds(owner, this.productMapper.getImportedEntities().keySet())
+            .list();
+
+        Collection<Content> changedContent = this.ownerContentCurator
+            .getContentByIds(owner, this.contentMapper.getImportedEntities().keySet())
+            .list();
+
+        changedProducts.forEach(elem -> products.put(elem.getId(), elem));
+        changedContent.forEach(elem -> contents.put(elem.getId(), elem));
+
+        // Walk up the graph, collecting every product which references a changed entity. These
+        // need to be versioned along with their children, even though they are not changing
+        // themselves.
+        Set<String> productUuids = changedProducts.stream()
+            .map(Product::getUuid)
+            .collect(Collectors.toSet());
+
+        Set<String> contentUuids = changedContent.stream()
+            .map(Content::getUuid)
+            .collect(Collectors.toSet());
+
+        while (!productUuids.isEmpty() || !contentUuids.isEmpty()) {
+            Set<Product> parents = this.ownerProductCurator
+                .getProductsReferencingEntities(owner.getId(), productUuids, contentUuids);
+
+            productUuids = new HashSet<>();
+            contentUuids = Collections.emptySet();
+
+            for (Product parent : parents) {
+                if (products.putIfAbsent(parent.getId(), parent) == null) {
+                    productUuids.add(parent.getUuid());
+                }
+            }
         }
+
+        // Walk down the graph, collecting the existing children of every mapped product, as the
+        // node builders fall back to them when the imported entity does not define its children.
+        Deque<Product> pending = new LinkedList<>(products.values());
+        while (!pending.isEmpty()) {
+            Product product = pending.poll();
+
+            Stream.concat(Stream.of(product.getDerivedProduct()), product.getProvidedProducts().stream())
+                .filter(Objects::nonNull)
+                .filter(child -> products.putIfAbsent(child.getId(), child) == null)
+                .forEach(pending::add);
+
+            product.getProductContent()
+                .forEach(pc -> contents.putIfAbsent(pc.getContent().getId(), pc.getContent()));
+        }
+
+        log.debug("Mapped {} existing product(s) and {} existing content affected by the change set",
+            products.size(), contents.size());
+
+        this.productMapper.addExistingEntities(products.values());
+        this.contentMapper.addExistingEntities(contents.values());
     }
 
 }
@@ -33,6 +33,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 
@@ -80,7 +81,7 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
         this.ownerContentEntities = new HashSet<>();
         this.ownerContentUuidMap = new HashMap<>();
         this.deletedContentUuids = new HashMap<>();
-        this.ownerEntityVersions = new HashMap<>();
+        this.ownerEntityVersions = new ConcurrentHashMap<>();
         this.ownerVersionedEntityMap = new HashMap<>();
     }
 
@@ -92,6 +93,19 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
         return Content.class;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepareNode(EntityNode<Content, ContentInfo> node) {
+        Content existingEntity = node.getExistingEntity();
+
+        if (existingEntity != null && node.getImportedEntity() != null) {
+            existingEntity.getModifiedProductIds().size();
+            existingEntity.getEntityVersion();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -354,7 +368,7 @@ public class ContentNodeVisitor implements NodeVisitor<Content, ContentInfo> {
         }
 
         // Save entity version for later version resolution
-        this.ownerEntityVersions.computeIfAbsent(node.getOwner(), key -> new HashSet<>())
+        this.ownerEntityVersions.computeIfAbsent(node.getOwner(), key -> ConcurrentHashMap.newKeySet())
             .add(updatedEntity.getEntityVersion());
 
         return updatedEntity;
@@ -23,12 +23,16 @@ import org.candlepin.controller.refresher.nodes.EntityNode.NodeState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 
@@ -48,12 +52,16 @@ public class NodeProcessor {
 
     private NodeMapper mapper;
     private Map<Class, NodeVisitor<?, ?>> visitors;
+    private boolean pruneNodes;
+    private int parallelism;
 
     /**
      * Creates a new NodeProcessor, without any mappers or visitors.
      */
     public NodeProcessor() {
         this.visitors = new HashMap<>();
+        this.pruneNodes = true;
+        this.parallelism = 1;
     }
 
     /**
@@ -77,6 +85,48 @@ public class NodeProcessor {
         return this;
     }
 
+    /**
+     * Sets whether or not the pruning step should be performed while processing nodes. Pruning
+     * relies on the node mapper containing every existing entity in the organization, as an entity
+     * is only considered unused if no parent node references it. When only a partial node graph has
+     * been mapped, pruning should be disabled to avoid removing entities referenced by unmapped
+     * parents. Pruning is enabled by default.
+     *
+     * @param pruneNodes
+     *  whether or not unused nodes should be pruned
+     *
+     * @return
+     *  a reference to this node processor
+     */
+    public NodeProcessor setPruneNodes(boolean pruneNodes) {
+        this.pruneNodes = pruneNodes;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads to use while processing nodes. When greater than one, nodes are
+     * processed level by level, from the leaves upward, with the nodes of each level processed
+     * concurrently. The pruning and change application steps are always performed on the calling
+     * thread. Defaults to one, processing nodes serially.
+     *
+     * @param parallelism
+     *  the number of threads to use for processing nodes
+     *
+     * @throws IllegalArgumentException
+     *  if the provided parallelism is less than one
+     *
+     * @return
+     *  a reference to this node processor
+     */
+    public NodeProcessor setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism is less than one");
+        }
+
+        this.parallelism = parallelism;
+        return this;
+    }
+
     /**
      * Adds a visitor to this processor. The visitor will be used to process nodes for the entity
      * class returned by the visitor's <tt>getEntityClass</tt> method.
@@ -143,17 +193,24 @@ public class NodeProcessor {
         Set<EntityNode<?, ?>> visited = new HashSet<>();
 
         // Process our root nodes
-        visited.clear();
-        this.mapper.getRootNodeStream()
-            .forEach(elem -> this.processNodeImpl(visited, elem));
+        if (this.parallelism > 1) {
+            this.processNodesConcurrently();
+        }
+        else {
+            visited.clear();
+            this.mapper.getRootNodeStream()
+                .forEach(elem -> this.processNodeImpl(visited, elem));
+        }
 
         // Prune our unused nodes
         // Impl note: it's probably not strictly necessary to reverse the ordering of processing here,
         // but it does give us a nice, warm and fuzzy guarantee that all the parents will be checked
         // before checking if a specific node can be pruned
-        visited.clear();
-        this.mapper.getLeafNodeStream()
-            .forEach(elem -> this.pruneNodeImpl(visited, elem));
+        if (this.pruneNodes) {
+            visited.clear();
+            this.mapper.getLeafNodeStream()
+                .forEach(elem -> this.pruneNodeImpl(visited, elem));
+        }
 
         // Apply changes
         visited.clear();
@@ -187,6 +244,62 @@ public class NodeProcessor {
         }
     }
 
+    /**
+     * Processes all mapped nodes level by level, using a fork-join pool sized to the configured
+     * parallelism. A node's level is one greater than the deepest level of its children, ensuring
+     * every child has been processed before any of its parents.
+     */
+    @SuppressWarnings("unchecked")
+    private void processNodesConcurrently() {
+        Map<EntityNode<?, ?>, Integer> depths = new HashMap<>();
+        List<List<EntityNode<?, ?>>> levels = new ArrayList<>();
+
+        this.mapper.getNodeStream()
+            .filter(Objects::nonNull)
+            .forEach(node -> {
+                int depth = this.getNodeDepth(depths, node);
+
+                while (levels.size() <= depth) {
+                    levels.add(new ArrayList<>());
+                }
+
+                levels.get(depth).add(node);
+            });
+
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+
+        try {
+            for (List<EntityNode<?, ?>> level : levels) {
+                log.trace("Processing {} node(s) concurrently", level.size());
+
+                // Let the visitors load anything they'll need while we're still on a thread with
+                // access to the persistence context
+                level.forEach(node -> this.getVisitor(node).prepareNode(node));
+
+                pool.invoke(ForkJoinTask.adapt(() -> level.parallelStream()
+                    .forEach(node -> this.getVisitor(node).processNode(node))));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    private int getNodeDepth(Map<EntityNode<?, ?>, Integer> depths, EntityNode<?, ?> node) {
+        Integer depth = depths.get(node);
+
+        if (depth == null) {
+            depth = node.getChildrenNodes()
+                .mapToInt(child -> this.getNodeDepth(depths, child))
+                .max()
+                .orElse(-1) + 1;
+
+            depths.put(node, depth);
+        }
+
+        return depth;
+    }
+
     /**
      * Internal implementation that avoids repeating unnecessary input and state validation
      */
@@ -42,9 +42,26 @@ public interface NodeVisitor<E extends AbstractHibernateObject, I extends Servic
      */
     Class<E> getEntityClass();
 
+    /**
+     * Prepares the specified node for processing. When nodes are processed concurrently, this
+     * method is called on the processing thread for each node before it is processed, after all of
+     * its children have been processed. Visitors should use it to load any lazily-fetched state the
+     * processing step will need, as the processing step may be invoked from threads which cannot
+     * access the persistence context. By default, this method does nothing.
+     *
+     * @param node
+     *  the EntityNode instance to prepare
+     */
+    default void prepareNode(EntityNode<E, I> node) {
+        // Intentionally left empty
+    }
+
     /**
      * Processes (visits) a the specified node. The node processor and mapper provided can be used
      * for performing processing and lookup of children nodes.
+     * <p></p>
+     * This method may be called concurrently for nodes which do not share a parent-child
+     * relationship, and must not access the persistence context.
      *
      * @param node
      *  the EntityNode instance to process
@@ -23,6 +23,7 @@ import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerProduct;
 import org.candlepin.model.OwnerProductCurator;
 import org.candlepin.model.Product;
+import org.candlepin.model.ProductContent;
 import org.candlepin.model.ProductCurator;
 import org.candlepin.service.model.BrandingInfo;
 import org.candlepin.service.model.ContentInfo;
@@ -41,6 +42,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 
@@ -102,11 +104,11 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
         this.ownerProductEntities = new HashSet<>();
         this.ownerProductUuidMap = new HashMap<>();
         this.deletedProductUuids = new HashMap<>();
-        this.ownerEntityVersions = new HashMap<>();
+        this.ownerEntityVersions = new ConcurrentHashMap<>();
         this.ownerVersionedEntityMap = new HashMap<>();
 
         this.ownerOrphanedDateMap = new HashMap<>();
-        this.ownerOrphanEntityIdPrecache = new HashMap<>();
+        this.ownerOrphanEntityIdPrecache = new ConcurrentHashMap<>();
         this.ownerOrphanedEntities = new HashMap<>();
         this.ownerUnorphanedEntities = new HashMap<>();
     }
@@ -122,6 +124,24 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
     /**
      * {@inheritDoc}
      */
+    @Override
+    public void prepareNode(EntityNode<Product, ProductInfo> node) {
+        Product existingEntity = node.getExistingEntity();
+
+        // We only need the existing entity's collections if we're going to compare or clone it
+        boolean mergeable = node.getImportedEntity() != null || node.getChildrenNodes()
+            .anyMatch(EntityNode::changed);
+
+        if (existingEntity != null && mergeable) {
+            existingEntity.getAttributes().size();
+            existingEntity.getDependentProductIds().size();
+            existingEntity.getBranding().size();
+            existingEntity.getProvidedProducts().size();
+            existingEntity.getProductContent().forEach(ProductContent::getContent);
+            existingEntity.getEntityVersion();
+        }
+    }
+
     @Override
     public void processNode(EntityNode<Product, ProductInfo> node) {
         // If this node already has a state, we don't need to reprocess it (probably)
@@ -143,7 +163,8 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
 
         if (existingEntity != null) {
             // Cache the ID of any existing entities for later bulk fetching orphan dates
-            this.ownerOrphanEntityIdPrecache.computeIfAbsent(node.getOwner(), key -> new HashSet<>())
+            this.ownerOrphanEntityIdPrecache.computeIfAbsent(node.getOwner(),
+                key -> ConcurrentHashMap.newKeySet())
                 .add(node.getEntityId());
 
             if (importedEntity != null) {
@@ -583,7 +604,7 @@ public class ProductNodeVisitor implements NodeVisitor<Product, ProductInfo> {
         this.resolveChildren(updatedEntity, node);
 
         // Save entity version for later version resolution
-        this.ownerEntityVersions.computeIfAbsent(node.getOwner(), key -> new HashSet<>())
+        this.ownerEntityVersions.computeIfAbsent(node.getOwner(), key -> ConcurrentHashMap.newKeySet())
             .add(updatedEntity.getEntityVersion());
 
         return updatedEntity;
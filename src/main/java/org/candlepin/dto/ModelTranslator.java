@@ -212,6 +212,17 @@ public interface ModelTranslator {
      */
     <I, O> CandlepinQuery<O> translateQuery(CandlepinQuery<I> query, Class<O> outputClass);
 
+    /**
+     * Creates a new translation context backed by this ModelTranslator. The context translates
+     * each distinct model instance at most once per output type, sharing the resultant DTO with
+     * any other objects referencing the same instance. Contexts are intended to be scoped to a
+     * single request or stream, and the DTOs they produce must be treated as read-only.
+     *
+     * @return
+     *  a new translation context backed by this ModelTranslator
+     */
+    ModelTranslator createTranslationContext();
+
     // /**
     //  * Populates the given destination object with data from the source object, using the specified
     //  * ModelTranslator to populate nested objects and object collections. If a ModelTranslator is
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 
@@ -39,12 +40,15 @@ public class SimpleModelTranslator implements ModelTranslator {
     // output => input => translator
     protected Map<Class, Map<Class, ObjectTranslator>> translators;
 
+    // output => runtime input class => nearest translator; cleared whenever the mappings change
+    private final Map<Class, Map<Class, ObjectTranslator>> resolved;
 
     /**
      * Initializes a new ModelTranslator instance.
      */
     public SimpleModelTranslator() {
         this.translators = new HashMap<>();
+        this.resolved = new ConcurrentHashMap<>();
     }
 
     /**
@@ -74,6 +78,7 @@ public class SimpleModelTranslator implements ModelTranslator {
 
         ObjectTranslator<I, O> existing = (ObjectTranslator<I, O>) inputMappings.get(inputClass);
         inputMappings.put(inputClass, translator);
+        this.resolved.clear();
 
         return existing;
     }
@@ -92,7 +97,13 @@ public class SimpleModelTranslator implements ModelTranslator {
         }
 
         Map<Class, ObjectTranslator> inputMappings = this.translators.get(outputClass);
-        return inputMappings != null ? (ObjectTranslator<I, O>) inputMappings.remove(inputClass) : null;
+        ObjectTranslator<I, O> existing = inputMappings != null ?
+            (ObjectTranslator<I, O>) inputMappings.remove(inputClass) :
+            null;
+
+        this.resolved.clear();
+
+        return existing;
     }
 
     /**
@@ -118,6 +129,7 @@ public class SimpleModelTranslator implements ModelTranslator {
             }
         }
 
+        this.resolved.clear();
         return mappings;
     }
 
@@ -214,6 +226,9 @@ public class SimpleModelTranslator implements ModelTranslator {
      * 7. If C is not null, go to step 2
      * 8. Return T
      * </pre>
+     * The translator resolved for a given class mapping is cached until the registered mappings
+     * change, so the hierarchy walk is only performed once for each runtime class, including
+     * the proxy classes generated by Hibernate.
      *
      * @param inputClass
      *  The input class for which to find a translator
@@ -240,6 +255,29 @@ public class SimpleModelTranslator implements ModelTranslator {
             throw new IllegalArgumentException("outputClass is null");
         }
 
+        Map<Class, ObjectTranslator> resolvedMappings = this.resolved
+            .computeIfAbsent(outputClass, key -> new ConcurrentHashMap<>());
+
+        ObjectTranslator<I, O> translator = (ObjectTranslator<I, O>) resolvedMappings.get(inputClass);
+        if (translator == null) {
+            translator = this.resolveTranslator(inputClass, outputClass);
+            resolvedMappings.put(inputClass, translator);
+        }
+
+        return translator;
+    }
+
+    /**
+     * Resolves the translator for the given class mapping by walking the class hierarchy of the
+     * input and output classes, as described by the <tt>findTranslatorByClass</tt> method.
+     *
+     * #throws TranslationException
+     *  if a translator cannot be found for the given class map
+     *
+     * @return
+     *  the nearest translator for the given class mapping
+     */
+    private <I, O> ObjectTranslator<I, O> resolveTranslator(Class<I> inputClass, Class<O> outputClass) {
         ObjectTranslator<I, O> translator = null;
 
         // TODO: This is broken for finding nearest output. Output cannot be less specific than
@@ -330,8 +368,11 @@ public class SimpleModelTranslator implements ModelTranslator {
             throw new IllegalArgumentException("outputClass is null");
         }
 
+        // Nested objects repeated across the stream's elements are translated once per stream
         ObjectTranslator<I, O> translator = this.findTranslatorByClass(inputClass, outputClass);
-        return (input) -> translator.translate(this, input);
+        ModelTranslator context = this.createTranslationContext();
+
+        return (input) -> translator.translate(context, input);
     }
 
     /**
@@ -352,6 +393,7 @@ public class SimpleModelTranslator implements ModelTranslator {
 
         return query.transform(new ElementTransformer<I, O>() {
             private ModelTranslator modelTranslator;
+            private ModelTranslator context;
             private Class<O> outputClass;
 
             // This should be fine for now, but if we ever have queries that return multiple
@@ -360,6 +402,7 @@ public class SimpleModelTranslator implements ModelTranslator {
 
             public ElementTransformer<I, O> init(ModelTranslator modelTranslator, Class<O> outputClass) {
                 this.modelTranslator = modelTranslator;
+                this.context = modelTranslator.createTranslationContext();
                 this.outputClass = outputClass;
 
                 return this;
@@ -376,7 +419,7 @@ public class SimpleModelTranslator implements ModelTranslator {
                     }
 
                     // Translate our output
-                    output = this.translator.translate(this.modelTranslator, source);
+                    output = this.translator.translate(this.context, source);
                 }
 
                 return output;
@@ -384,4 +427,12 @@ public class SimpleModelTranslator implements ModelTranslator {
         }.init(this, outputClass));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ModelTranslator createTranslationContext() {
+        return new TranslationContext(this);
+    }
+
 }
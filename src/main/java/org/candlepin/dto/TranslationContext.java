@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.dto;
+
+import org.candlepin.model.CandlepinQuery;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+
+
+/**
+ * The TranslationContext is a ModelTranslator scoped to a single request or stream. It delegates
+ * translator resolution to its parent translator, but remembers the output of each translation by
+ * the identity of its input, so a model instance referenced repeatedly within a single response,
+ * such as the owner of every pool in a listing, is only translated once and its output shared.
+ * <p></p>
+ * Since outputs are shared, DTOs fetched from a translation context must be treated as read-only.
+ * Translation contexts are not thread-safe, and should not outlive the request or stream for which
+ * they were created.
+ */
+public class TranslationContext implements ModelTranslator {
+
+    /** The default number of translated outputs a context will retain before it is reset */
+    public static final int DEFAULT_CACHE_LIMIT = 4096;
+
+    private final ModelTranslator parent;
+    private final int cacheLimit;
+
+    // output => input (by identity) => translated output
+    private final Map<Class, Map<Object, Object>> outputs;
+    private int cached;
+
+    /**
+     * Creates a new translation context backed by the given model translator, using the default
+     * cache limit.
+     *
+     * @param parent
+     *  The model translator to use for resolving translators
+     *
+     * @throws IllegalArgumentException
+     *  if parent is null
+     */
+    public TranslationContext(ModelTranslator parent) {
+        this(parent, DEFAULT_CACHE_LIMIT);
+    }
+
+    /**
+     * Creates a new translation context backed by the given model translator. Once the context
+     * holds the specified number of translated outputs, it is reset, keeping the memory used by
+     * long-running streams bounded.
+     *
+     * @param parent
+     *  The model translator to use for resolving translators
+     *
+     * @param cacheLimit
+     *  The maximum number of translated outputs to retain
+     *
+     * @throws IllegalArgumentException
+     *  if parent is null, or cacheLimit is not a positive integer
+     */
+    public TranslationContext(ModelTranslator parent, int cacheLimit) {
+        if (parent == null) {
+            throw new IllegalArgumentException("parent is null");
+        }
+
+        if (cacheLimit < 1) {
+            throw new IllegalArgumentException("cacheLimit is not a positive integer");
+        }
+
+        this.parent = parent;
+        this.cacheLimit = cacheLimit;
+        this.outputs = new HashMap<>();
+        this.cached = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <I, O> ObjectTranslator<I, O> registerTranslator(ObjectTranslator<I, O> translator,
+        Class<I> inputClass, Class<O> outputClass) {
+
+        return this.parent.registerTranslator(translator, inputClass, outputClass);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <I, O> ObjectTranslator<I, O> unregisterTranslator(Class<I> inputClass, Class<O> outputClass) {
+        return this.parent.unregisterTranslator(inputClass, outputClass);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int unregisterTranslator(ObjectTranslator translator) {
+        return this.parent.unregisterTranslator(translator);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <I, O> ObjectTranslator<I, O> getTranslator(Class<I> inputClass, Class<O> outputClass) {
+        return this.parent.getTranslator(inputClass, outputClass);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <I, O> ObjectTranslator<I, O> findTranslatorByClass(Class<I> inputClass, Class<O> outputClass) {
+        return this.parent.findTranslatorByClass(inputClass, outputClass);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <I, O> ObjectTranslator<I, O> findTranslatorByInstance(I instance, Class<O> outputClass) {
+        return this.parent.findTranslatorByInstance(instance, outputClass);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p></p>
+     * If the given input instance has already been translated to the given output class within
+     * this context, the previously translated output is returned instead.
+     */
+    @Override
+    public <I, O> O translate(I input, Class<O> outputClass) {
+        if (outputClass == null) {
+            throw new IllegalArgumentException("outputClass is null");
+        }
+
+        if (input == null) {
+            return null;
+        }
+
+        O output = this.getCachedOutput(input, outputClass);
+        if (output == null) {
+            ObjectTranslator<I, O> translator = this.findTranslatorByClass(
+                (Class<I>) input.getClass(), outputClass);
+
+            output = this.translate(translator, input, outputClass);
+        }
+
+        return output;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p></p>
+     * The mapping function shares previously translated outputs in the same way as the
+     * <tt>translate</tt> method.
+     */
+    @Override
+    public <I, O> Function<I, O> getStreamMapper(Class<I> inputClass, Class<O> outputClass) {
+        if (inputClass == null) {
+            throw new IllegalArgumentException("inputClass is null");
+        }
+
+        if (outputClass == null) {
+            throw new IllegalArgumentException("outputClass is null");
+        }
+
+        ObjectTranslator<I, O> translator = this.findTranslatorByClass(inputClass, outputClass);
+
+        return (input) -> {
+            if (input == null) {
+                return null;
+            }
+
+            O output = this.getCachedOutput(input, outputClass);
+            return output != null ? output : this.translate(translator, input, outputClass);
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <I, O> CandlepinQuery<O> translateQuery(CandlepinQuery<I> query, Class<O> outputClass) {
+        return this.parent.translateQuery(query, outputClass);
+    }
+
+    /**
+     * Returns this context, as it is already scoped to the current request or stream.
+     *
+     * @return
+     *  this translation context
+     */
+    @Override
+    public ModelTranslator createTranslationContext() {
+        return this;
+    }
+
+    /**
+     * Fetches the output previously translated from the given input within this context.
+     *
+     * @return
+     *  the previously translated output, or null if the input has not yet been translated
+     */
+    private <O> O getCachedOutput(Object input, Class<O> outputClass) {
+        Map<Object, Object> translated = this.outputs.get(outputClass);
+        return translated != null ? (O) translated.get(input) : null;
+    }
+
+    /**
+     * Translates the given input with the specified translator and stores the output in this
+     * context. Nested objects are translated through this context.
+     *
+     * @return
+     *  the translated output
+     */
+    private <I, O> O translate(ObjectTranslator<I, O> translator, I input, Class<O> outputClass) {
+        O output = translator.translate(this, input);
+
+        if (output != null) {
+            // Nested translations may have reset the context, so the output map is fetched only
+            // once the translation is complete
+            if (this.cached >= this.cacheLimit) {
+                this.outputs.clear();
+                this.cached = 0;
+            }
+
+            this.outputs.computeIfAbsent(outputClass, key -> new IdentityHashMap<>())
+                .put(input, output);
+
+            ++this.cached;
+        }
+
+        return output;
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.dto.api.v1;
+
+import org.candlepin.jackson.EntityJsonWriter;
+import org.candlepin.jackson.FilteredJsonWriter;
+import org.candlepin.model.Branding;
+import org.candlepin.model.Entitlement;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+
+
+/**
+ * The PoolJsonWriter writes Pool model objects directly as JSON, following the field contract
+ * of the PoolDTO produced by the PoolTranslator. Any change to either must be reflected in the
+ * other.
+ */
+public class PoolJsonWriter implements EntityJsonWriter<Pool> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(FilteredJsonWriter writer, Pool source) throws IOException {
+        JsonGenerator generator = writer.getGenerator();
+        generator.writeStartObject();
+
+        writer.writeDateField("created", source.getCreated());
+        writer.writeDateField("updated", source.getUpdated());
+        writer.writeStringField("id", source.getId());
+        writer.writeStringField("type", source.getType() != null ? source.getType().name() : null);
+        this.writeOwner(writer, source.getOwner());
+        writer.writeBooleanField("activeSubscription", source.getActiveSubscription());
+        this.writeSourceEntitlement(writer, source.getSourceEntitlement());
+        writer.writeNumberField("quantity", source.getQuantity());
+        writer.writeDateField("startDate", source.getStartDate());
+        writer.writeDateField("endDate", source.getEndDate());
+        this.writeAttributes(writer, "attributes", source.getAttributes());
+        writer.writeStringField("restrictedToUsername", source.getRestrictedToUsername());
+        writer.writeStringField("contractNumber", source.getContractNumber());
+        writer.writeStringField("accountNumber", source.getAccountNumber());
+        writer.writeStringField("orderNumber", source.getOrderNumber());
+        writer.writeNumberField("consumed", source.getConsumed());
+        writer.writeNumberField("exported", source.getExported());
+
+        Product product = source.getProduct();
+        Product derived = product != null ? product.getDerivedProduct() : null;
+
+        this.writeBranding(writer, product != null ? product.getBranding() : null);
+        writer.writeStringMapField("calculatedAttributes", source.getCalculatedAttributes());
+        writer.writeStringField("upstreamPoolId", source.getUpstreamPoolId());
+        writer.writeStringField("upstreamEntitlementId", source.getUpstreamEntitlementId());
+        writer.writeStringField("upstreamConsumerId", source.getUpstreamConsumerId());
+        writer.writeStringField("productName", product != null ? product.getName() : null);
+        writer.writeStringField("productId", product != null ? product.getId() : null);
+        this.writeAttributes(writer, "productAttributes", product != null ? product.getAttributes() : null);
+        writer.writeStringField("stackId", source.getStackId());
+        writer.writeBooleanField("stacked", source.isStacked());
+        writer.writeStringField("sourceStackId", source.getSourceStackId());
+        writer.writeBooleanField("developmentPool", source.isDevelopmentPool());
+        writer.writeStringField("href", source.getId() != null ? "/pools/" + source.getId() : null);
+        this.writeAttributes(writer, "derivedProductAttributes",
+            derived != null ? derived.getAttributes() : null);
+        writer.writeStringField("derivedProductId", derived != null ? derived.getId() : null);
+        writer.writeStringField("derivedProductName", derived != null ? derived.getName() : null);
+        this.writeProvidedProducts(writer, "providedProducts",
+            product != null ? product.getProvidedProducts() : null);
+        this.writeProvidedProducts(writer, "derivedProvidedProducts",
+            derived != null ? derived.getProvidedProducts() : null);
+        writer.writeStringField("subscriptionSubKey", source.getSubscriptionSubKey());
+        writer.writeStringField("subscriptionId", source.getSubscriptionId());
+        writer.writeBooleanField("locked", source.isLocked());
+
+        generator.writeEndObject();
+    }
+
+    private void writeOwner(FilteredJsonWriter writer, Owner owner) throws IOException {
+        if (owner == null) {
+            writer.writeNullField("owner");
+        }
+        else if (writer.writeObjectFieldStart("owner")) {
+            writer.writeStringField("id", owner.getId());
+            writer.writeStringField("key", owner.getKey());
+            writer.writeStringField("displayName", owner.getDisplayName());
+            writer.writeStringField("href", owner.getHref());
+            writer.writeStringField("contentAccessMode", owner.getContentAccessMode());
+            writer.writeEndObject();
+        }
+    }
+
+    private void writeSourceEntitlement(FilteredJsonWriter writer, Entitlement entitlement)
+        throws IOException {
+
+        if (entitlement == null) {
+            writer.writeNullField("sourceEntitlement");
+        }
+        else if (writer.writeObjectFieldStart("sourceEntitlement")) {
+            writer.writeStringField("id", entitlement.getId());
+            writer.writeStringField("href", entitlement.getHref());
+            writer.writeEndObject();
+        }
+    }
+
+    private void writeAttributes(FilteredJsonWriter writer, String name, Map<String, String> attributes)
+        throws IOException {
+
+        if (writer.writeArrayFieldStart(name)) {
+            if (attributes != null) {
+                JsonGenerator generator = writer.getGenerator();
+
+                for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                    generator.writeStartObject();
+                    writer.writeStringField("name", entry.getKey());
+                    writer.writeStringField("value", entry.getValue());
+                    generator.writeEndObject();
+                }
+            }
+
+            writer.writeEndArray();
+        }
+    }
+
+    private void writeBranding(FilteredJsonWriter writer, Collection<Branding> branding) throws IOException {
+        if (writer.writeArrayFieldStart("branding")) {
+            if (branding != null) {
+                JsonGenerator generator = writer.getGenerator();
+
+                for (Branding brand : branding) {
+                    if (brand != null) {
+                        generator.writeStartObject();
+                        writer.writeDateField("created", brand.getCreated());
+                        writer.writeDateField("updated", brand.getUpdated());
+                        writer.writeStringField("productId", brand.getProductId());
+                        writer.writeStringField("name", brand.getName());
+                        writer.writeStringField("type", brand.getType());
+                        generator.writeEndObject();
+                    }
+                }
+            }
+
+            writer.writeEndArray();
+        }
+    }
+
+    private void writeProvidedProducts(FilteredJsonWriter writer, String name, Collection<Product> provided)
+        throws IOException {
+
+        if (writer.writeArrayFieldStart(name)) {
+            if (provided != null) {
+                JsonGenerator generator = writer.getGenerator();
+
+                // Impl note: like the PoolTranslator, this does not handle n-tier products
+                for (Product product : provided) {
+                    generator.writeStartObject();
+                    writer.writeStringField("productId", product.getId());
+                    writer.writeStringField("productName", product.getName());
+                    generator.writeEndObject();
+                }
+            }
+
+            writer.writeEndArray();
+        }
+    }
+
+}
@@ -18,17 +18,26 @@ import static org.candlepin.config.ConfigProperties.*;
 
 import org.candlepin.async.JobManager;
 import org.candlepin.audit.ActiveMQContextListener;
+import org.candlepin.cache.AutobindCandidateIndex;
+import org.candlepin.cache.AutobindCandidateIndexListener;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.config.ConfigurationException;
 import org.candlepin.config.DatabaseConfigFactory;
 import org.candlepin.config.EncryptedConfiguration;
 import org.candlepin.config.MapConfiguration;
+import org.candlepin.hibernate.QueryStatisticsLoadListener;
 import org.candlepin.logging.LoggerContextListener;
 import org.candlepin.logging.LoggingConfigurator;
 import org.candlepin.messaging.CPMContextListener;
+import org.candlepin.metrics.CacheMetrics;
+import org.candlepin.metrics.DatabasePoolMetrics;
+import org.candlepin.metrics.EventQueueMetrics;
 import org.candlepin.resteasy.MethodLocator;
 import org.candlepin.resteasy.ResourceLocatorMap;
+import org.candlepin.tracing.LogSpanExporter;
+import org.candlepin.tracing.Tracer;
+import org.candlepin.tracing.ZipkinSpanExporter;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
@@ -37,6 +46,11 @@ import com.google.inject.Stage;
 import com.google.inject.persist.PersistService;
 import com.google.inject.util.Modules;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+
 import liquibase.Liquibase;
 import liquibase.changelog.ChangeSet;
 import liquibase.database.Database;
@@ -183,6 +197,7 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
     private void initializeSubsystems(Injector injector) throws Exception {
         // Must call super.contextInitialized() before accessing injector
         insertValidationEventListeners(injector);
+        insertAutobindCandidateIndexListener(injector);
 
         MethodLocator methodLocator = injector.getInstance(MethodLocator.class);
         methodLocator.init();
@@ -210,6 +225,9 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
             });
         }
 
+        this.initializeMetrics(injector);
+        this.initializeTracing();
+
         // Setup the job manager
         this.jobManager = injector.getInstance(JobManager.class);
         this.jobManager.initialize();
@@ -270,6 +288,64 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
         this.cpmContextListener.destroy();
 
         this.loggerListener.contextDestroyed();
+
+        injector.getInstance(MeterRegistry.class).close();
+        Tracer.shutdown();
+    }
+
+    private void initializeTracing() throws ConfigurationException {
+        if (!config.getBoolean(ConfigProperties.TRACING_ENABLED)) {
+            return;
+        }
+
+        String rate = config.getString(ConfigProperties.TRACING_SAMPLE_RATE);
+        double sampleRate;
+
+        try {
+            sampleRate = Double.parseDouble(rate);
+        }
+        catch (NumberFormatException e) {
+            throw new ConfigurationException("Invalid tracing sample rate: " + rate, e);
+        }
+
+        if (sampleRate < 0.0 || sampleRate > 1.0) {
+            throw new ConfigurationException("Tracing sample rate must be between 0.0 and 1.0: " + rate);
+        }
+
+        String exporter = config.getString(ConfigProperties.TRACING_EXPORTER);
+        if ("log".equalsIgnoreCase(exporter)) {
+            Tracer.configure(new LogSpanExporter(), sampleRate);
+        }
+        else if ("zipkin".equalsIgnoreCase(exporter)) {
+            String url = config.getString(ConfigProperties.TRACING_COLLECTOR_URL);
+
+            try {
+                Tracer.configure(new ZipkinSpanExporter(url), sampleRate);
+            }
+            catch (IllegalArgumentException e) {
+                throw new ConfigurationException(e.getMessage(), e);
+            }
+        }
+        else {
+            throw new ConfigurationException("Unknown tracing exporter: " + exporter);
+        }
+
+        log.info("Tracing enabled; sampling {} of traces to the {} exporter", sampleRate, exporter);
+    }
+
+    private void initializeMetrics(Injector injector) {
+        MeterRegistry registry = injector.getInstance(MeterRegistry.class);
+
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        new ProcessorMetrics().bindTo(registry);
+
+        injector.getInstance(DatabasePoolMetrics.class).bindTo(registry);
+        injector.getInstance(CacheMetrics.class).bindTo(registry);
+
+        if (config.getBoolean(ACTIVEMQ_ENABLED)) {
+            injector.getInstance(EventQueueMetrics.class).bindTo(registry);
+        }
     }
 
     protected void setCapabilities(Configuration config) {
@@ -374,24 +450,52 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
     /**
      * There's no way to really get Guice to perform injections on stuff that
      * the JpaPersistModule is creating, so we resort to grabbing the EntityManagerFactory
-     * after the fact and adding the Validation EventListener ourselves.
+     * after the fact and adding the Validation EventListener ourselves. The query statistics
+     * load listener is added here as well, as it cannot be configured through persistence
+     * properties.
      * @param injector
      */
-    private void insertValidationEventListeners(Injector injector) {
+    private EventListenerRegistry getEventListenerRegistry(Injector injector) {
         javax.inject.Provider<EntityManagerFactory> emfProvider =
             injector.getProvider(EntityManagerFactory.class);
         HibernateEntityManagerFactory hibernateEntityManagerFactory =
             (HibernateEntityManagerFactory) emfProvider.get();
         SessionFactoryImpl sessionFactoryImpl =
             (SessionFactoryImpl) hibernateEntityManagerFactory.getSessionFactory();
-        EventListenerRegistry registry =
-            sessionFactoryImpl.getServiceRegistry().getService(EventListenerRegistry.class);
+
+        return sessionFactoryImpl.getServiceRegistry().getService(EventListenerRegistry.class);
+    }
+
+    private void insertValidationEventListeners(Injector injector) {
+        EventListenerRegistry registry = this.getEventListenerRegistry(injector);
 
         javax.inject.Provider<BeanValidationEventListener> listenerProvider =
             injector.getProvider(BeanValidationEventListener.class);
         registry.getEventListenerGroup(EventType.PRE_INSERT).appendListener(listenerProvider.get());
         registry.getEventListenerGroup(EventType.PRE_UPDATE).appendListener(listenerProvider.get());
         registry.getEventListenerGroup(EventType.PRE_DELETE).appendListener(listenerProvider.get());
+
+        registry.getEventListenerGroup(EventType.POST_LOAD).appendListener(new QueryStatisticsLoadListener());
+    }
+
+    private void insertAutobindCandidateIndexListener(Injector injector) {
+        if (config.getInt(ConfigProperties.AUTOBIND_INDEX_MAX_OWNERS) < 1) {
+            return;
+        }
+
+        AutobindCandidateIndex index = injector.getInstance(AutobindCandidateIndex.class);
+        AutobindCandidateIndexListener listener = new AutobindCandidateIndexListener(index);
+
+        // Pool changes are reported both as they are flushed and once they are committed
+        EventListenerRegistry registry = this.getEventListenerRegistry(injector);
+        registry.getEventListenerGroup(EventType.POST_INSERT).appendListener(listener);
+        registry.getEventListenerGroup(EventType.POST_UPDATE).appendListener(listener);
+        registry.getEventListenerGroup(EventType.POST_DELETE).appendListener(listener);
+        registry.getEventListenerGroup(EventType.POST_COMMIT_INSERT).appendListener(listener);
+        registry.getEventListenerGroup(EventType.POST_COMMIT_UPDATE).appendListener(listener);
+        registry.getEventListenerGroup(EventType.POST_COMMIT_DELETE).appendListener(listener);
+
+        index.setTracking(true);
     }
 
     /**
@@ -43,6 +43,10 @@ public class CandlepinFilterModule extends ServletModule {
     protected void configureServlets() {
         Map<String, String> loggingFilterConfig = new HashMap<>();
         loggingFilterConfig.put("header.name", "x-candlepin-request-uuid");
+        loggingFilterConfig.put("query.statement_threshold",
+            config.getString(ConfigProperties.QUERY_STATS_STATEMENT_THRESHOLD));
+        loggingFilterConfig.put("query.repeat_threshold",
+            config.getString(ConfigProperties.QUERY_STATS_REPEAT_THRESHOLD));
 
         String regex = ".*";
 
@@ -34,6 +34,7 @@ import org.candlepin.async.tasks.ManifestCleanerJob;
 import org.candlepin.async.tasks.OrphanCleanupJob;
 import org.candlepin.async.tasks.RefreshPoolsForProductJob;
 import org.candlepin.async.tasks.RefreshPoolsJob;
+import org.candlepin.async.tasks.RegenContentAccessCertsJob;
 import org.candlepin.async.tasks.RegenEnvEntitlementCertsJob;
 import org.candlepin.async.tasks.RegenProductEntitlementCertsJob;
 import org.candlepin.async.tasks.UndoImportsJob;
@@ -90,6 +91,7 @@ import org.candlepin.messaging.impl.artemis.ArtemisSessionFactory;
 import org.candlepin.messaging.impl.artemis.ArtemisUtil;
 import org.candlepin.messaging.impl.noop.NoopContextListener;
 import org.candlepin.messaging.impl.noop.NoopSessionFactory;
+import org.candlepin.metrics.CandlepinMeterRegistry;
 import org.candlepin.model.CPRestrictions;
 import org.candlepin.model.UeberCertificateGenerator;
 import org.candlepin.pki.CertificateReader;
@@ -146,8 +148,12 @@ import org.candlepin.resteasy.filter.CandlepinQueryInterceptor;
 import org.candlepin.resteasy.filter.CandlepinSuspendModeFilter;
 import org.candlepin.resteasy.filter.ConsumerCheckInFilter;
 import org.candlepin.resteasy.filter.DynamicJsonFilter;
+import org.candlepin.resteasy.filter.EntityJsonStreamingFilter;
 import org.candlepin.resteasy.filter.LinkHeaderResponseFilter;
 import org.candlepin.resteasy.filter.PageRequestFilter;
+import org.candlepin.resteasy.filter.QueryStatisticsFilter;
+import org.candlepin.resteasy.filter.ResourceMetricsFilter;
+import org.candlepin.resteasy.filter.ResponseCompressionInterceptor;
 import org.candlepin.resteasy.filter.SecurityHoleAuthorizationFilter;
 import org.candlepin.resteasy.filter.StoreFactory;
 import org.candlepin.resteasy.filter.SuperAdminAuthorizationFilter;
@@ -193,6 +199,8 @@ import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.google.inject.persist.jpa.JpaPersistModule;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import org.hibernate.cfg.beanvalidation.BeanValidationEventListener;
 import org.hibernate.validator.HibernateValidator;
 import org.quartz.SchedulerFactory;
@@ -347,6 +355,7 @@ public class CandlepinModule extends AbstractModule {
         configureAsyncJobs();
         configureExporter();
         configureBindFactories();
+        configureMetrics();
     }
 
     @Provides @Named("ValidationProperties")
@@ -389,6 +398,11 @@ public class CandlepinModule extends AbstractModule {
         install(new FactoryModuleBuilder().build(PreEntitlementRulesCheckOpFactory.class));
     }
 
+    private void configureMetrics() {
+        bind(MeterRegistry.class).to(CandlepinMeterRegistry.class);
+        bind(ResourceMetricsFilter.class);
+    }
+
     private void configureAuth() {
         bind(AuthorizationFeature.class);
         bind(StoreFactory.class).asEagerSingleton();
@@ -400,8 +414,11 @@ public class CandlepinModule extends AbstractModule {
 
     private void configureInterceptors() {
         bind(ConsumerCheckInFilter.class);
+        bind(QueryStatisticsFilter.class);
         bind(PageRequestFilter.class);
         bind(CandlepinQueryInterceptor.class);
+        bind(EntityJsonStreamingFilter.class);
+        bind(ResponseCompressionInterceptor.class);
         bind(VersionResponseFilter.class);
         bind(LinkHeaderResponseFilter.class);
         bind(DynamicJsonFilter.class);
@@ -443,6 +460,7 @@ public class CandlepinModule extends AbstractModule {
         JobManager.registerJob(UnmappedGuestEntitlementCleanerJob.JOB_KEY,
             UnmappedGuestEntitlementCleanerJob.class);
         JobManager.registerJob(InactiveConsumerCleanerJob.JOB_KEY, InactiveConsumerCleanerJob.class);
+        JobManager.registerJob(RegenContentAccessCertsJob.JOB_KEY, RegenContentAccessCertsJob.class);
     }
 
     private void configureExporter() {
@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * The QueryStatistics class collects the number of SQL statements, the time spent executing them,
+ * and the number of entities loaded over the course of a single unit of work, such as a request or
+ * an async job. Statistics are gathered for the current thread between calls to
+ * {@link #start(String)} and {@link #stop()}, and are fed by the
+ * {@link QueryStatisticsInspector}, {@link QueryStatisticsSessionListener} and
+ * {@link QueryStatisticsLoadListener} hooks.
+ * <p></p>
+ * Since Hibernate prepares its statements with bind parameters, identical statement text issued
+ * many times over a single unit of work is a strong indication of an N+1 select pattern; such
+ * statements can be retrieved with {@link #getRepeatedStatements(int)}.
+ */
+public class QueryStatistics {
+
+    /**
+     * The maximum number of distinct statements to track per unit of work. Statements seen after
+     * this limit is reached are still counted, but are not considered for repeat detection.
+     */
+    private static final int MAX_DISTINCT_STATEMENTS = 500;
+
+    /** The maximum length of statement text to include in log output */
+    private static final int MAX_LOGGED_STATEMENT_LENGTH = 256;
+
+    private static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private String tag;
+    private int statementCount;
+    private long executionTime;
+    private long entityLoadCount;
+    private final Map<String, Integer> statementCounts;
+
+    /**
+     * Creates a new QueryStatistics instance using the specified tag.
+     *
+     * @param tag
+     *  the tag identifying the unit of work for which statistics are collected; may be null
+     */
+    public QueryStatistics(String tag) {
+        this.tag = tag;
+        this.statementCounts = new HashMap<>();
+    }
+
+    /**
+     * Begins collecting statistics for the current thread, replacing any statistics already being
+     * collected.
+     *
+     * @param tag
+     *  the tag identifying the unit of work, such as a resource method or job key
+     *
+     * @return
+     *  the QueryStatistics instance collecting statistics for the current thread
+     */
+    public static QueryStatistics start(String tag) {
+        QueryStatistics stats = new QueryStatistics(tag);
+        CURRENT.set(stats);
+
+        return stats;
+    }
+
+    /**
+     * Fetches the statistics being collected for the current thread.
+     *
+     * @return
+     *  the QueryStatistics instance for the current thread, or null if statistics are not being
+     *  collected
+     */
+    public static QueryStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops collecting statistics for the current thread.
+     *
+     * @return
+     *  the statistics collected for the current thread, or null if statistics were not being
+     *  collected
+     */
+    public static QueryStatistics stop() {
+        QueryStatistics stats = CURRENT.get();
+        CURRENT.remove();
+
+        return stats;
+    }
+
+    /**
+     * Records the preparation of the given SQL statement.
+     *
+     * @param sql
+     *  the SQL statement being prepared
+     */
+    public void recordStatement(String sql) {
+        ++this.statementCount;
+
+        if (sql == null) {
+            return;
+        }
+
+        Integer count = this.statementCounts.get(sql);
+        if (count != null) {
+            this.statementCounts.put(sql, count + 1);
+        }
+        else if (this.statementCounts.size() < MAX_DISTINCT_STATEMENTS) {
+            this.statementCounts.put(sql, 1);
+        }
+    }
+
+    /**
+     * Records time spent executing a statement or batch of statements.
+     *
+     * @param nanos
+     *  the execution time, in nanoseconds
+     */
+    public void recordExecutionTime(long nanos) {
+        this.executionTime += nanos;
+    }
+
+    /**
+     * Records the loading of a single entity.
+     */
+    public void recordEntityLoad() {
+        ++this.entityLoadCount;
+    }
+
+    public String getTag() {
+        return this.tag;
+    }
+
+    public QueryStatistics setTag(String tag) {
+        this.tag = tag;
+        return this;
+    }
+
+    public int getStatementCount() {
+        return this.statementCount;
+    }
+
+    /**
+     * Fetches the total time spent executing statements.
+     *
+     * @return
+     *  the total statement execution time, in milliseconds
+     */
+    public long getExecutionTime() {
+        return TimeUnit.NANOSECONDS.toMillis(this.executionTime);
+    }
+
+    public long getEntityLoadCount() {
+        return this.entityLoadCount;
+    }
+
+    /**
+     * Fetches the statements which were prepared at least the given number of times, mapped to the
+     * number of times each was prepared. The returned map is ordered by descending count.
+     *
+     * @param threshold
+     *  the minimum number of times a statement must have been prepared to be included
+     *
+     * @return
+     *  a map of repeated statements to their counts; never null
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+
+        this.statementCounts.entrySet().stream()
+            .filter(entry -> entry.getValue() >= threshold)
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+
+        return repeated;
+    }
+
+    /**
+     * Logs a warning if the number of statements exceeds the given statement threshold, and for
+     * each statement repeated at least as many times as the given repeat threshold. Thresholds
+     * less than one disable their respective check.
+     *
+     * @param log
+     *  the logger to which any warnings should be written
+     *
+     * @param statementThreshold
+     *  the number of statements above which a warning is logged
+     *
+     * @param repeatThreshold
+     *  the number of times a single statement must be repeated to be reported as a likely N+1
+     *  select
+     *
+     * @return
+     *  true if any warnings were logged; false otherwise
+     */
+    public boolean report(Logger log, int statementThreshold, int repeatThreshold) {
+        boolean flagged = false;
+
+        if (statementThreshold > 0 && this.statementCount > statementThreshold) {
+            log.warn("{} issued {} SQL statements (threshold: {}); {}ms executing, {} entities loaded",
+                this.tag, this.statementCount, statementThreshold, this.getExecutionTime(),
+                this.entityLoadCount);
+
+            flagged = true;
+        }
+
+        if (repeatThreshold > 0) {
+            for (Map.Entry<String, Integer> entry : this.getRepeatedStatements(repeatThreshold).entrySet()) {
+                String sql = entry.getKey();
+                if (sql.length() > MAX_LOGGED_STATEMENT_LENGTH) {
+                    sql = sql.substring(0, MAX_LOGGED_STATEMENT_LENGTH) + "...";
+                }
+
+                log.warn("{} issued an identical SQL statement {} times; possible N+1 select: {}",
+                    this.tag, entry.getValue(), sql);
+
+                flagged = true;
+            }
+        }
+
+        return flagged;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryStatistics [tag: %s, statements: %d, time: %dms, entities: %d]",
+            this.tag, this.statementCount, this.getExecutionTime(), this.entityLoadCount);
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+
+
+/**
+ * StatementInspector which counts the SQL statements prepared by Hibernate against the
+ * {@link QueryStatistics} collected for the current thread. Statements are passed through
+ * unmodified.
+ */
+public class QueryStatisticsInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryStatistics stats = QueryStatistics.current();
+        if (stats != null) {
+            stats.recordStatement(sql);
+        }
+
+        return sql;
+    }
+}
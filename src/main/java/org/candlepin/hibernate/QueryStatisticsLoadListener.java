@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+
+
+/**
+ * Post-load event listener which counts the entities loaded by Hibernate against the
+ * {@link QueryStatistics} collected for the current thread. Since every row hydrated into an
+ * entity triggers a post-load event, this serves as the row count for entity queries.
+ */
+public class QueryStatisticsLoadListener implements PostLoadEventListener {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        QueryStatistics stats = QueryStatistics.current();
+        if (stats != null) {
+            stats.recordEntityLoad();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import org.hibernate.BaseSessionEventListener;
+
+
+
+/**
+ * Session event listener which records the time spent executing JDBC statements against the
+ * {@link QueryStatistics} collected for the current thread. Hibernate creates a new instance of
+ * this listener for each session.
+ */
+public class QueryStatisticsSessionListener extends BaseSessionEventListener {
+    private static final long serialVersionUID = 1L;
+
+    private long executionStart = -1;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        this.executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        this.recordExecution();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        this.executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        this.recordExecution();
+    }
+
+    private void recordExecution() {
+        if (this.executionStart < 0) {
+            return;
+        }
+
+        QueryStatistics stats = QueryStatistics.current();
+        if (stats != null) {
+            stats.recordExecutionTime(System.nanoTime() - this.executionStart);
+        }
+
+        this.executionStart = -1;
+    }
+}
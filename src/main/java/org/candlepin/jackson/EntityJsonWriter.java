@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.jackson;
+
+import java.io.IOException;
+
+
+
+/**
+ * An EntityJsonWriter serializes model entities directly to JSON, producing the same output as
+ * translating the entity to its API DTO and serializing the DTO, without allocating the DTO
+ * object graph.
+ *
+ * @param <E>
+ *  The entity type written by this writer
+ */
+public interface EntityJsonWriter<E> {
+
+    /**
+     * Writes the given entity as a JSON object.
+     *
+     * @param writer
+     *  the writer to which the entity is written
+     *
+     * @param entity
+     *  the entity to write; never null
+     *
+     * @throws IOException
+     *  if the entity cannot be written
+     */
+    void write(FilteredJsonWriter writer, E entity) throws IOException;
+
+}
@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+
+
+/**
+ * FilteredJsonWriter
+ *
+ * Writes JSON fields to a generator while applying the same attribute filtering the
+ * DynamicPropertyFilter applies to serialized DTOs. Writers which stream entities directly to
+ * JSON use it to honor the include and exclude filters of the current request.
+ */
+public class FilteredJsonWriter {
+
+    private final JsonGenerator generator;
+    private final DynamicFilterData filterData;
+    private final DateSerializer dateSerializer;
+
+    // The names of the enclosing object and array fields of the field being written
+    private final List<String> path;
+
+    /**
+     * Creates a new writer for the given generator and filter data.
+     *
+     * @param generator
+     *  the generator to which the JSON is written
+     *
+     * @param filterData
+     *  the attribute filters of the current request, or null if no filtering is to be applied
+     */
+    public FilteredJsonWriter(JsonGenerator generator, DynamicFilterData filterData) {
+        if (generator == null) {
+            throw new IllegalArgumentException("generator is null");
+        }
+
+        this.generator = generator;
+        this.filterData = filterData;
+        this.dateSerializer = new DateSerializer();
+        this.path = new ArrayList<>(10);
+    }
+
+    /**
+     * Fetches the generator backing this writer.
+     *
+     * @return
+     *  the generator backing this writer
+     */
+    public JsonGenerator getGenerator() {
+        return this.generator;
+    }
+
+    /**
+     * Checks if the given field of the current object is excluded by the attribute filters.
+     *
+     * @param name
+     *  the name of the field to check
+     *
+     * @return
+     *  true if the field should be omitted from the output; false otherwise
+     */
+    public boolean isExcluded(String name) {
+        if (this.filterData == null) {
+            return false;
+        }
+
+        List<String> fieldPath = new ArrayList<>(this.path.size() + 1);
+        fieldPath.addAll(this.path);
+        fieldPath.add(name);
+
+        return this.filterData.isAttributeExcluded(fieldPath);
+    }
+
+    /**
+     * Writes the name of the given field, unless it is excluded by the attribute filters.
+     *
+     * @param name
+     *  the name of the field to write
+     *
+     * @return
+     *  true if the field name was written and its value must follow; false if the field is
+     *  excluded
+     */
+    public boolean writeFieldName(String name) throws IOException {
+        if (this.isExcluded(name)) {
+            return false;
+        }
+
+        this.generator.writeFieldName(name);
+        return true;
+    }
+
+    public void writeStringField(String name, String value) throws IOException {
+        if (this.writeFieldName(name)) {
+            this.generator.writeString(value);
+        }
+    }
+
+    public void writeNumberField(String name, Long value) throws IOException {
+        if (this.writeFieldName(name)) {
+            if (value != null) {
+                this.generator.writeNumber(value);
+            }
+            else {
+                this.generator.writeNull();
+            }
+        }
+    }
+
+    public void writeBooleanField(String name, Boolean value) throws IOException {
+        if (this.writeFieldName(name)) {
+            if (value != null) {
+                this.generator.writeBoolean(value);
+            }
+            else {
+                this.generator.writeNull();
+            }
+        }
+    }
+
+    public void writeDateField(String name, Date value) throws IOException {
+        if (this.writeFieldName(name)) {
+            if (value != null) {
+                this.dateSerializer.serialize(value, this.generator, null);
+            }
+            else {
+                this.generator.writeNull();
+            }
+        }
+    }
+
+    public void writeNullField(String name) throws IOException {
+        if (this.writeFieldName(name)) {
+            this.generator.writeNull();
+        }
+    }
+
+    /**
+     * Writes the given map as an object field. Since maps are not bean properties, the entries of
+     * the map are not subject to attribute filtering.
+     *
+     * @param name
+     *  the name of the field to write
+     *
+     * @param value
+     *  the map to write, or null to write a null value
+     */
+    public void writeStringMapField(String name, Map<String, String> value) throws IOException {
+        if (this.writeFieldName(name)) {
+            if (value != null) {
+                this.generator.writeStartObject();
+
+                for (Map.Entry<String, String> entry : value.entrySet()) {
+                    this.generator.writeStringField(entry.getKey(), entry.getValue());
+                }
+
+                this.generator.writeEndObject();
+            }
+            else {
+                this.generator.writeNull();
+            }
+        }
+    }
+
+    /**
+     * Starts writing an object field, unless it is excluded by the attribute filters. Fields
+     * written until the matching call to <tt>writeEndObject</tt> are filtered as fields of the
+     * nested object.
+     *
+     * @param name
+     *  the name of the object field to start
+     *
+     * @return
+     *  true if the object was started; false if the field is excluded
+     */
+    public boolean writeObjectFieldStart(String name) throws IOException {
+        if (!this.writeFieldName(name)) {
+            return false;
+        }
+
+        this.generator.writeStartObject();
+        this.path.add(name);
+
+        return true;
+    }
+
+    /**
+     * Ends the object started by the last successful call to <tt>writeObjectFieldStart</tt>.
+     */
+    public void writeEndObject() throws IOException {
+        this.path.remove(this.path.size() - 1);
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Starts writing an array field, unless it is excluded by the attribute filters. Fields of
+     * objects written as elements of the array are filtered as fields of the array field, which
+     * matches the paths built by the DynamicPropertyFilter.
+     *
+     * @param name
+     *  the name of the array field to start
+     *
+     * @return
+     *  true if the array was started; false if the field is excluded
+     */
+    public boolean writeArrayFieldStart(String name) throws IOException {
+        if (!this.writeFieldName(name)) {
+            return false;
+        }
+
+        this.generator.writeStartArray();
+        this.path.add(name);
+
+        return true;
+    }
+
+    /**
+     * Ends the array started by the last successful call to <tt>writeArrayFieldStart</tt>.
+     */
+    public void writeEndArray() throws IOException {
+        this.path.remove(this.path.size() - 1);
+        this.generator.writeEndArray();
+    }
+
+}
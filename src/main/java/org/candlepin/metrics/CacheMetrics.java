@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import org.candlepin.cache.CandlepinCache;
+import org.candlepin.cache.CandlepinCacheRegions;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Objects;
+
+import javax.inject.Inject;
+
+
+
+/**
+ * Publishes the hit ratio of each of the second-level cache regions used for entities and natural
+ * ID lookups. The ratios are only available when cache statistics are enabled; otherwise the
+ * gauges report NaN.
+ */
+public class CacheMetrics implements MeterBinder {
+
+    private final CandlepinCache candlepinCache;
+
+    @Inject
+    public CacheMetrics(CandlepinCache candlepinCache) {
+        this.candlepinCache = Objects.requireNonNull(candlepinCache);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : CandlepinCacheRegions.ENTITY_REGIONS) {
+            Gauge.builder(CandlepinMeters.CACHE_HIT_RATIO, this, metrics -> metrics.getHitRatio(region))
+                .description("Ratio of second-level cache lookups which were cache hits")
+                .tag("region", region)
+                .register(registry);
+        }
+    }
+
+    private double getHitRatio(String region) {
+        Float percentage = this.candlepinCache.getEntityCacheHitPercentages().get(region);
+        return percentage != null ? percentage / 100.0 : Double.NaN;
+    }
+}
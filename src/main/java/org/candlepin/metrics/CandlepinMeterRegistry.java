@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.jmx.JmxConfig;
+import io.micrometer.jmx.JmxMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+
+
+/**
+ * The meter registry used throughout Candlepin. Meters registered here are published to each of
+ * the export registries enabled in the configuration: JMX, and a Prometheus registry which backs
+ * the metrics endpoint. If no export is enabled, registered meters are no-ops.
+ */
+@Singleton
+public class CandlepinMeterRegistry extends CompositeMeterRegistry {
+
+    /** The JMX domain under which meters are published */
+    public static final String JMX_DOMAIN = "candlepin";
+
+    private final PrometheusMeterRegistry prometheusRegistry;
+    private final List<MeterRegistry> exportRegistries;
+
+    @Inject
+    public CandlepinMeterRegistry(Configuration config) {
+        super(Clock.SYSTEM);
+
+        this.exportRegistries = new ArrayList<>();
+
+        if (config.getBoolean(ConfigProperties.METRICS_HTTP_ENABLED)) {
+            this.prometheusRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+            this.exportRegistries.add(this.prometheusRegistry);
+        }
+        else {
+            this.prometheusRegistry = null;
+        }
+
+        if (config.getBoolean(ConfigProperties.METRICS_JMX_ENABLED)) {
+            JmxConfig jmxConfig = new JmxConfig() {
+                @Override
+                public String get(String key) {
+                    return null;
+                }
+
+                @Override
+                public String domain() {
+                    return JMX_DOMAIN;
+                }
+            };
+
+            this.exportRegistries.add(new JmxMeterRegistry(jmxConfig, Clock.SYSTEM));
+        }
+
+        this.exportRegistries.forEach(this::add);
+    }
+
+    /**
+     * Checks whether or not meters are published over HTTP in the Prometheus text format.
+     *
+     * @return
+     *  true if the HTTP export is enabled; false otherwise
+     */
+    public boolean isScrapeEnabled() {
+        return this.prometheusRegistry != null;
+    }
+
+    /**
+     * Renders the current value of every registered meter in the Prometheus text exposition
+     * format.
+     *
+     * @throws IllegalStateException
+     *  if the HTTP export is not enabled
+     *
+     * @return
+     *  the current meter values in the Prometheus text format
+     */
+    public String scrape() {
+        if (this.prometheusRegistry == null) {
+            throw new IllegalStateException("HTTP metrics export is not enabled");
+        }
+
+        return this.prometheusRegistry.scrape();
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        this.exportRegistries.forEach(MeterRegistry::close);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+
+
+/**
+ * Names of the meters published by Candlepin, and factory methods for the meters which are shared
+ * between components.
+ */
+public final class CandlepinMeters {
+
+    /** Latency of REST API requests, tagged by resource method and outcome */
+    public static final String HTTP_REQUESTS = "candlepin.http.requests";
+
+    /** Number of REST API requests currently being processed */
+    public static final String HTTP_REQUESTS_ACTIVE = "candlepin.http.requests.active";
+
+    /** SQL statements issued per REST API request, tagged by resource method */
+    public static final String HTTP_REQUEST_STATEMENTS = "candlepin.http.requests.statements";
+
+    /** Execution time of async jobs, tagged by job key and outcome */
+    public static final String JOB_EXECUTIONS = "candlepin.jobs.executions";
+
+    /** SQL statements issued per async job execution, tagged by job key */
+    public static final String JOB_STATEMENTS = "candlepin.jobs.statements";
+
+    /** Time spent generating certificates, tagged by certificate type */
+    public static final String CERTIFICATE_GENERATION = "candlepin.certificates.generation";
+
+    /** Time spent invoking rules engine functions, tagged by function */
+    public static final String RULES_INVOCATIONS = "candlepin.rules.invocations";
+
+    /** Autobind selections for which the native engine differed from the rules in verify mode */
+    public static final String AUTOBIND_ENGINE_MISMATCHES = "candlepin.autobind.engine.mismatches";
+
+    /** Connections in the database connection pool, tagged by state */
+    public static final String DB_POOL_CONNECTIONS = "candlepin.db.pool.connections";
+
+    /** Threads waiting to check out a connection from the database connection pool */
+    public static final String DB_POOL_PENDING = "candlepin.db.pool.pending";
+
+    /** Messages pending in each event queue */
+    public static final String QUEUE_DEPTH = "candlepin.messaging.queue.depth";
+
+    /** Ratio of lookups in each second-level cache region which were cache hits */
+    public static final String CACHE_HIT_RATIO = "candlepin.cache.hit.ratio";
+
+    public static final String TAG_RESOURCE = "resource";
+    public static final String TAG_OUTCOME = "outcome";
+    public static final String TAG_JOB = "job";
+    public static final String TAG_TYPE = "type";
+    public static final String TAG_FUNCTION = "function";
+
+    private CandlepinMeters() {
+        // Intentionally left empty
+    }
+
+    /**
+     * Fetches the timer for the generation of the given type of certificate, creating it as
+     * necessary.
+     *
+     * @param registry
+     *  the registry in which to register the timer
+     *
+     * @param type
+     *  the type of certificate generated, such as "entitlement" or "identity"
+     *
+     * @return
+     *  the certificate generation timer for the given type
+     */
+    public static Timer certificateTimer(MeterRegistry registry, String type) {
+        return Timer.builder(CERTIFICATE_GENERATION)
+            .description("Time spent generating certificates")
+            .tag(TAG_TYPE, type)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import com.mchange.v2.c3p0.C3P0Registry;
+import com.mchange.v2.c3p0.PooledDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+
+
+
+/**
+ * Publishes the usage of the c3p0 database connection pools: the number of busy, idle and total
+ * connections, and the number of threads waiting for a connection. Values are summed over every
+ * pool registered with c3p0, which is normally only the pool backing the persistence unit.
+ */
+public class DatabasePoolMetrics implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(DatabasePoolMetrics.class);
+
+    /**
+     * Function which reads a single value from a c3p0 pool
+     */
+    @FunctionalInterface
+    private interface PoolReader {
+        int read(PooledDataSource source) throws SQLException;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registerConnectionGauge(registry, "busy", PooledDataSource::getNumBusyConnectionsDefaultUser);
+        this.registerConnectionGauge(registry, "idle", PooledDataSource::getNumIdleConnectionsDefaultUser);
+        this.registerConnectionGauge(registry, "total", PooledDataSource::getNumConnectionsDefaultUser);
+
+        Gauge.builder(CandlepinMeters.DB_POOL_PENDING, this,
+            metrics -> metrics.sum(PooledDataSource::getNumThreadsAwaitingCheckoutDefaultUser))
+            .description("Threads waiting to check out a database connection")
+            .register(registry);
+    }
+
+    private void registerConnectionGauge(MeterRegistry registry, String state, PoolReader reader) {
+        Gauge.builder(CandlepinMeters.DB_POOL_CONNECTIONS, this, metrics -> metrics.sum(reader))
+            .description("Connections in the database connection pool")
+            .tag("state", state)
+            .register(registry);
+    }
+
+    private double sum(PoolReader reader) {
+        double total = 0;
+
+        for (Object source : C3P0Registry.getPooledDataSources()) {
+            try {
+                total += reader.read((PooledDataSource) source);
+            }
+            catch (SQLException e) {
+                log.debug("Unable to read database connection pool statistics", e);
+                return Double.NaN;
+            }
+        }
+
+        return total;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import org.candlepin.async.impl.ActiveMQSessionFactory;
+import org.candlepin.audit.ActiveMQContextListener;
+import org.candlepin.config.Configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+
+import javax.inject.Inject;
+
+
+
+/**
+ * Publishes the number of messages pending in each of the Artemis event queues. The queues are
+ * queried each time the gauges are read.
+ */
+public class EventQueueMetrics implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(EventQueueMetrics.class);
+
+    private final Configuration config;
+    private final ActiveMQSessionFactory sessionFactory;
+
+    @Inject
+    public EventQueueMetrics(Configuration config, ActiveMQSessionFactory sessionFactory) {
+        this.config = Objects.requireNonNull(config);
+        this.sessionFactory = Objects.requireNonNull(sessionFactory);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String listenerClassName : ActiveMQContextListener.getActiveMQListeners(this.config)) {
+            String queueName = "event." + listenerClassName;
+
+            Gauge.builder(CandlepinMeters.QUEUE_DEPTH, this, metrics -> metrics.getMessageCount(queueName))
+                .description("Messages pending in the event queue")
+                .tag("queue", queueName)
+                .register(registry);
+        }
+    }
+
+    private double getMessageCount(String queueName) {
+        try (ClientSession session = this.sessionFactory.getEgressSession(false)) {
+            session.start();
+            return session.queueQuery(SimpleString.toSimpleString(queueName)).getMessageCount();
+        }
+        catch (Exception e) {
+            log.debug("Unable to look up message count for queue: {}", queueName, e);
+            return Double.NaN;
+        }
+    }
+}
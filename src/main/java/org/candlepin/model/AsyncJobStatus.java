@@ -120,6 +120,9 @@ public class AsyncJobStatus extends AbstractHibernateObject {
     @Column(name = "job_group")
     private String group;
 
+    @Column(name = "constraint_key", unique = true)
+    private String constraintKey;
+
     @NotNull
     private String name;
     private String origin;
@@ -319,6 +322,34 @@ public class AsyncJobStatus extends AbstractHibernateObject {
         return this;
     }
 
+    /**
+     * Fetches the constraint key for this job. The constraint key is a hash generated from the job's
+     * keyed queuing constraint at the time the job was queued, and is cleared once the job reaches a
+     * terminal state. If the job was not queued with a keyed constraint, or the job has reached a
+     * terminal state, this method returns null.
+     *
+     * @return
+     *  the constraint key for this job, or null if the job does not have a constraint key
+     */
+    public String getConstraintKey() {
+        return this.constraintKey;
+    }
+
+    /**
+     * Sets the constraint key for this job. If the constraint key is null or empty, any existing
+     * constraint key will be cleared.
+     *
+     * @param constraintKey
+     *  the constraint key to set for this job, or null to clear it
+     *
+     * @return
+     *  this job status instance
+     */
+    public AsyncJobStatus setConstraintKey(String constraintKey) {
+        this.constraintKey = (constraintKey != null && !constraintKey.isEmpty()) ? constraintKey : null;
+        return this;
+    }
+
     /**
      * Fetches the origin of this job status. If the origin has not yet been set, this method
      * returns null.
@@ -594,6 +625,12 @@ public class AsyncJobStatus extends AbstractHibernateObject {
             this.previousState = this.state;
         }
 
+        // Terminal jobs no longer participate in queuing constraints, so release the constraint key
+        // to allow new jobs with the same key to be queued
+        if (state.isTerminal()) {
+            this.constraintKey = null;
+        }
+
         this.state = state;
         return this;
     }
@@ -19,6 +19,9 @@ import org.candlepin.model.AsyncJobStatus.JobState;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -29,6 +32,7 @@ import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaDelete;
@@ -410,6 +414,11 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
         update.set(job.get(AsyncJobStatus_.previousState), job.get(AsyncJobStatus_.state))
             .set(job.get(AsyncJobStatus_.state), state);
 
+        // Terminal jobs release their constraint keys; see AsyncJobStatus.setState
+        if (state != null && state.isTerminal()) {
+            update.set(job.get(AsyncJobStatus_.constraintKey), (String) null);
+        }
+
         // Sanity check: Don't execute a state change if we haven't provided at least *some* restrictions.
         List<Predicate> predicates = this.buildJobQueryPredicates(criteriaBuilder, job, queryArgs);
         if (predicates.size() > 0) {
@@ -522,6 +531,37 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
      *  arguments
      */
     public List<String> fetchJobIdsByArguments(String jobKey, Map<String, String> arguments) {
+        return this.fetchJobIdsByArguments(jobKey, arguments, false);
+    }
+
+    /**
+     * Fetches a collection of job IDs for jobs in non-terminal states which have no constraint key,
+     * match the given job key and have all of the provided job arguments with the specified values.
+     * <p></p>
+     * This method is designed specifically for the unique-by-argument constraint family, to find
+     * colliding jobs which were queued before constraint keys were stored with jobs.
+     *
+     * @param jobKey
+     *  the job key to restrict
+     *
+     * @param arguments
+     *  a map containing the arguments to use for filtering jobs; cannot contain more than
+     *  10 entries
+     *
+     * @throws IllegalArgumentException
+     *  if jobKey is null or empty, or the arguments map is too large
+     *
+     * @return
+     *  A collection of IDs of non-terminal jobs without a constraint key, matching the given job
+     *  key and using the specified arguments
+     */
+    public List<String> fetchUnkeyedJobIdsByArguments(String jobKey, Map<String, String> arguments) {
+        return this.fetchJobIdsByArguments(jobKey, arguments, true);
+    }
+
+    private List<String> fetchJobIdsByArguments(String jobKey, Map<String, String> arguments,
+        boolean unkeyed) {
+
         if (jobKey == null || jobKey.isEmpty()) {
             throw new IllegalArgumentException("jobKey is null or empty");
         }
@@ -543,6 +583,10 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
 
         predicates.add(job.get(AsyncJobStatus_.state).in(states));
 
+        if (unkeyed) {
+            predicates.add(criteriaBuilder.isNull(job.get(AsyncJobStatus_.constraintKey)));
+        }
+
         // Add the argument restrictions if necessary
         if (arguments != null) {
             // Sanity check: make sure we don't have too many arguments for the backend to handle
@@ -572,4 +616,258 @@ public class AsyncJobStatusCurator extends AbstractHibernateCurator<AsyncJobStat
             .getResultList();
     }
 
+    /**
+     * Fetches a collection of job IDs for jobs in non-terminal states having the specified
+     * constraint key. Since constraint keys are cleared when a job reaches a terminal state, this
+     * lookup is a single probe against the constraint key index.
+     * <p></p>
+     * This method is designed specifically for the keyed constraint family, such as the
+     * unique-by-argument constraint.
+     *
+     * @param constraintKey
+     *  the constraint key to look up
+     *
+     * @throws IllegalArgumentException
+     *  if constraintKey is null or empty
+     *
+     * @return
+     *  A collection of IDs of non-terminal jobs having the given constraint key
+     */
+    public List<String> fetchJobIdsByConstraintKey(String constraintKey) {
+        if (constraintKey == null || constraintKey.isEmpty()) {
+            throw new IllegalArgumentException("constraintKey is null or empty");
+        }
+
+        String jpql = "SELECT aj.id FROM AsyncJobStatus aj WHERE aj.constraintKey = :constraint_key";
+
+        return this.getEntityManager()
+            .createQuery(jpql, String.class)
+            .setParameter("constraint_key", constraintKey)
+            .getResultList();
+    }
+
+    /**
+     * Attempts to claim the given constraint key for a persisted job. The claim is written within a
+     * savepoint, so if the unique index on the constraint key rejects it because another
+     * non-terminal job already holds the key, the claim alone is rolled back and the current
+     * transaction remains usable. If the claim succeeds, the constraint key is also set on the given
+     * job status.
+     *
+     * @param status
+     *  the persisted job for which to claim the constraint key
+     *
+     * @param constraintKey
+     *  the constraint key to claim
+     *
+     * @throws IllegalArgumentException
+     *  if status is null or has not yet been persisted, or constraintKey is null or empty
+     *
+     * @return
+     *  true if the constraint key was claimed for the job; false if another job already holds it
+     */
+    public boolean claimConstraintKey(AsyncJobStatus status, String constraintKey) {
+        if (status == null || status.getId() == null) {
+            throw new IllegalArgumentException("status is null or has not been persisted");
+        }
+
+        if (constraintKey == null || constraintKey.isEmpty()) {
+            throw new IllegalArgumentException("constraintKey is null or empty");
+        }
+
+        // Make sure the job row exists before we attempt to claim the key for it
+        this.flush();
+
+        String sql = String.format("UPDATE %s SET constraint_key = ? WHERE id = ?", AsyncJobStatus.DB_TABLE);
+
+        // Impl note: this is done directly against the connection so that the constraint violation
+        // never reaches Hibernate, which would otherwise mark the entire transaction for rollback.
+        boolean claimed = this.currentSession().doReturningWork(connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, constraintKey);
+                statement.setString(2, status.getId());
+                statement.executeUpdate();
+            }
+            catch (SQLException e) {
+                connection.rollback(savepoint);
+
+                // SQL state class 23 is an integrity constraint violation; anything else is unexpected
+                if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                    return false;
+                }
+
+                throw e;
+            }
+
+            connection.releaseSavepoint(savepoint);
+            return true;
+        });
+
+        if (claimed) {
+            status.setConstraintKey(constraintKey);
+        }
+
+        return claimed;
+    }
+
+    /**
+     * Atomically writes the state and execution details of the given job, provided its current
+     * state in the database is one of the expected states. The job's state, executor, attempts,
+     * start and end times and result are written with a single update, and if the new state is
+     * terminal, the job's constraint key is also released.
+     * <p></p>
+     * The given job is evicted from the session before the update is issued, so none of its pending
+     * changes are flushed separately. If the update succeeds, the job is reloaded in its updated
+     * state and returned; otherwise this method returns null, and the job must be fetched again to
+     * determine its current state.
+     *
+     * @param status
+     *  the job to write, with its new state and execution details set
+     *
+     * @param expected
+     *  the states the job is expected to be in; if the job is in any other state, it will not be
+     *  updated
+     *
+     * @throws IllegalArgumentException
+     *  if status is null or has not yet been persisted, or if expected is null or empty
+     *
+     * @return
+     *  the updated job if it was in one of the expected states; null otherwise
+     */
+    public AsyncJobStatus compareAndSetJobStatus(AsyncJobStatus status, Collection<JobState> expected) {
+        if (status == null || status.getId() == null) {
+            throw new IllegalArgumentException("status is null or has not been persisted");
+        }
+
+        if (expected == null || expected.isEmpty()) {
+            throw new IllegalArgumentException("expected is null or empty");
+        }
+
+        JobState state = status.getState();
+
+        String jpql = "UPDATE AsyncJobStatus aj SET aj.previousState = aj.state, aj.state = :state, " +
+            "aj.executor = :executor, aj.attempts = :attempts, aj.startTime = :start_time, " +
+            "aj.endTime = :end_time, aj.result = :result, " +
+            (state.isTerminal() ? "aj.constraintKey = NULL, " : "") +
+            "aj.updated = :updated, aj.version = aj.version + 1 " +
+            "WHERE aj.id = :job_id AND aj.state IN (:expected)";
+
+        // Evict the job first, or its pending changes would be flushed ahead of the update
+        EntityManager entityManager = this.getEntityManager();
+        this.evict(status);
+
+        int count = entityManager.createQuery(jpql)
+            .setParameter("state", state)
+            .setParameter("executor", status.getExecutor())
+            .setParameter("attempts", status.getAttempts())
+            .setParameter("start_time", status.getStartTime())
+            .setParameter("end_time", status.getEndTime())
+            .setParameter("result", status.getJobResult())
+            .setParameter("updated", new Date())
+            .setParameter("job_id", status.getId())
+            .setParameter("expected", expected)
+            .executeUpdate();
+
+        if (count < 1) {
+            return null;
+        }
+
+        // Another copy of the job may already be in the session, so make sure it reflects the update
+        AsyncJobStatus updated = entityManager.find(AsyncJobStatus.class, status.getId());
+        entityManager.refresh(updated);
+
+        return updated;
+    }
+
+    /**
+     * Detaches the given job from the session, so changes made to it are not written when the
+     * session is flushed. The job's arguments are loaded beforehand, so they remain available
+     * while it is detached.
+     *
+     * @param status
+     *  the job to detach
+     *
+     * @return
+     *  the detached job
+     */
+    public AsyncJobStatus detachJob(AsyncJobStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("status is null");
+        }
+
+        // Touching the arguments initializes the lazily loaded collection
+        status.getJobArguments().size();
+        this.evict(status);
+
+        return status;
+    }
+
+    /**
+     * Records a progress heartbeat for the given running job. The job's state, previous state,
+     * executor, attempts and start time are written directly to the database, and its last-updated
+     * time is refreshed, without merging any other pending changes to the job.
+     * <p></p>
+     * The heartbeat is written and committed using its own entity manager, independent of any
+     * transaction the job is running in, so that it is visible to other nodes while the job is still
+     * running. Jobs which have already reached a terminal state, such as those canceled while
+     * running, are not updated.
+     *
+     * @param status
+     *  the running job for which to record a heartbeat
+     *
+     * @throws IllegalArgumentException
+     *  if status is null or has not yet been persisted
+     *
+     * @return
+     *  the number of jobs updated as a result of a call to this method
+     */
+    public int recordJobHeartbeat(AsyncJobStatus status) {
+        if (status == null || status.getId() == null) {
+            throw new IllegalArgumentException("status is null or has not been persisted");
+        }
+
+        String jpql = "UPDATE AsyncJobStatus aj SET aj.state = :state, aj.previousState = :prev_state, " +
+            "aj.executor = :executor, aj.attempts = :attempts, aj.startTime = :start_time, " +
+            "aj.updated = :updated " +
+            "WHERE aj.id = :job_id AND aj.state NOT IN (:terminal_states)";
+
+        List<JobState> terminalStates = Arrays.stream(JobState.values())
+            .filter(JobState::isTerminal)
+            .collect(Collectors.toList());
+
+        EntityManager manager = this.getEntityManager()
+            .getEntityManagerFactory()
+            .createEntityManager();
+
+        try {
+            EntityTransaction transaction = manager.getTransaction();
+            transaction.begin();
+
+            try {
+                int count = manager.createQuery(jpql)
+                    .setParameter("state", status.getState())
+                    .setParameter("prev_state", status.getPreviousState())
+                    .setParameter("executor", status.getExecutor())
+                    .setParameter("attempts", status.getAttempts())
+                    .setParameter("start_time", status.getStartTime())
+                    .setParameter("updated", new Date())
+                    .setParameter("job_id", status.getId())
+                    .setParameter("terminal_states", terminalStates)
+                    .executeUpdate();
+
+                transaction.commit();
+                return count;
+            }
+            finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            }
+        }
+        finally {
+            manager.close();
+        }
+    }
+
 }
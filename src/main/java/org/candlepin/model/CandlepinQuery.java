@@ -100,6 +100,21 @@ public interface CandlepinQuery<T> extends Iterable<T> {
      */
     CandlepinQuery<T> setLockMode(LockModeType lockMode);
 
+    /**
+     * Sets the JDBC fetch size hint for the query; that is, the number of rows the driver should
+     * retrieve from the database per round trip while iterating over the results. Drivers which
+     * otherwise buffer the entire result set, such as PostgreSQL's, will only use a cursor when a
+     * fetch size is set and the query runs in a transaction.
+     *
+     * @param fetchSize
+     *  The number of rows to fetch per round trip. Values less than one will clear any previously
+     *  set fetch size.
+     *
+     * @return
+     *  this query instance
+     */
+    CandlepinQuery<T> setFetchSize(int fetchSize);
+
     /**
      * Returns a CandlepinQuery instance that transforms the results using the given element
      * transformer.
@@ -16,6 +16,8 @@ package org.candlepin.model;
 
 import org.candlepin.service.model.CdnInfo;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.CascadeType;
@@ -42,6 +44,7 @@ import javax.xml.bind.annotation.XmlRootElement;
 @XmlAccessorType(XmlAccessType.PROPERTY)
 @Entity
 @Table(name = Cdn.DB_TABLE, uniqueConstraints = {@UniqueConstraint(columnNames = {"label"})})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Cdn extends AbstractHibernateObject implements CdnInfo {
 
     /** Name of the table backing this object in the database */
@@ -1095,6 +1095,44 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
         return serialIds;
     }
 
+    /**
+     * Reduces the entitlement counts of the given consumers by the specified amounts, using a SQL
+     * update. Consumers loaded in the current session are not updated by this method.
+     *
+     * @param quantities
+     *  a map of consumer IDs to the amount by which to reduce their entitlement counts
+     *
+     * @return
+     *  the number of consumers updated
+     */
+    public int decrementEntitlementCounts(Map<String, Long> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return 0;
+        }
+
+        // Group consumers by quantity so consumers sharing an amount can be updated together
+        Map<Long, List<String>> consumerIdsByQuantity = new HashMap<>();
+        quantities.forEach((consumerId, quantity) -> consumerIdsByQuantity
+            .computeIfAbsent(quantity, key -> new ArrayList<>())
+            .add(consumerId));
+
+        String jpql = "UPDATE Consumer c SET c.entitlementCount = c.entitlementCount - :quantity " +
+            "WHERE c.id IN (:consumer_ids)";
+
+        javax.persistence.Query query = this.getEntityManager().createQuery(jpql);
+
+        int updated = 0;
+        for (Map.Entry<Long, List<String>> entry : consumerIdsByQuantity.entrySet()) {
+            for (List<String> block : this.partition(entry.getValue())) {
+                updated += query.setParameter("quantity", entry.getKey())
+                    .setParameter("consumer_ids", block)
+                    .executeUpdate();
+            }
+        }
+
+        return updated;
+    }
+
     /**
      * Deletes {@link Consumer}s based on the provided consumer ids.
      *
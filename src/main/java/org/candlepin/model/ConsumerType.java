@@ -14,7 +14,11 @@
  */
 package org.candlepin.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.Type;
 
 import javax.persistence.Column;
@@ -35,6 +39,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 @XmlAccessorType(XmlAccessType.PROPERTY)
 @Entity
 @Table(name = ConsumerType.DB_TABLE)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class ConsumerType extends AbstractHibernateObject<ConsumerType> {
 
     /** Name of the table backing this object in the database */
@@ -83,6 +89,7 @@ public class ConsumerType extends AbstractHibernateObject<ConsumerType> {
     @Column(nullable = false, unique = true)
     @Size(max = 255)
     @NotNull
+    @NaturalId(mutable = true)
     private String label;
 
     @Column(nullable = false, length = 1)
@@ -22,7 +22,6 @@ import java.util.Collection;
 import java.util.List;
 
 import javax.inject.Singleton;
-import javax.persistence.NoResultException;
 
 
 
@@ -100,28 +99,21 @@ public class ConsumerTypeCurator extends AbstractHibernateCurator<ConsumerType>
             throw new IllegalArgumentException("label is null or empty");
         }
 
-        String jpql = "SELECT t FROM ConsumerType t WHERE t.label = :label";
-        ConsumerType ctype = null;
+        // Labels are the natural ID of consumer types, so this lookup can be served from the
+        // natural ID cache rather than querying for the type each time
+        ConsumerType ctype = this.currentSession()
+            .bySimpleNaturalId(ConsumerType.class)
+            .load(label);
 
-        try {
-            // Note: this will throw an exception if we return anything other than one result. In the case
-            // of two or more results, we've got DB problems, so we don't catch that exception.
-            ctype = this.getEntityManager()
-                .createQuery(jpql, ConsumerType.class)
-                .setParameter("label", label)
-                .getSingleResult();
-        }
-        catch (NoResultException e) {
-            if (createIfAbsent) {
-                try {
-                    ctype = new ConsumerType(ConsumerTypeEnum.valueOf(label));
-                }
-                catch (IllegalArgumentException e2) {
-                    ctype = new ConsumerType(label);
-                }
-
-                ctype = this.create(ctype);
+        if (ctype == null && createIfAbsent) {
+            try {
+                ctype = new ConsumerType(ConsumerTypeEnum.valueOf(label));
+            }
+            catch (IllegalArgumentException e) {
+                ctype = new ConsumerType(label);
             }
+
+            ctype = this.create(ctype);
         }
 
         return ctype;
@@ -14,6 +14,8 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.controller.ContentAccessManager.ContentAccessMode;
+
 import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
@@ -30,6 +32,7 @@ import java.util.Set;
 
 import javax.inject.Singleton;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 
 @Singleton
@@ -151,6 +154,79 @@ public class ContentAccessCertificateCurator extends AbstractHibernateCurator<Co
             .getResultList();
     }
 
+    /**
+     * Fetches the IDs of organizations operating in simple content access mode which have at least
+     * one consumer whose content access certificate was last generated before, or at, the last
+     * content update of the organization.
+     *
+     * @return a list of IDs of owners with stale content access certificates, in ascending order
+     */
+    public List<String> getOwnerIdsWithStaleContent() {
+        String hql = "SELECT DISTINCT o.id" +
+            " FROM Consumer c JOIN c.contentAccessCert cac, Owner o" +
+            " WHERE o.id = c.ownerId" +
+            "   AND o.contentAccessMode = :sca_mode" +
+            "   AND cac.updated <= o.lastContentUpdate" +
+            " ORDER BY o.id";
+
+        return this.getEntityManager()
+            .createQuery(hql, String.class)
+            .setParameter("sca_mode", ContentAccessMode.ORG_ENVIRONMENT.toDatabaseValue())
+            .getResultList();
+    }
+
+    /**
+     * Fetches a page of the IDs of consumers of the given organization whose content access
+     * certificate was last generated before, or at, the last content update of the organization.
+     * The consumer IDs are returned in ascending order, starting after the given consumer ID, such
+     * that the IDs can be paged through by passing the last ID of each page to the next call.
+     * Organizations not operating in simple content access mode never have stale consumers.
+     *
+     * @param ownerId
+     *  the ID of the owner for which to fetch stale consumer IDs
+     *
+     * @param lastConsumerId
+     *  the last consumer ID of the previous page, or null to fetch the first page
+     *
+     * @param limit
+     *  the maximum number of consumer IDs to fetch
+     *
+     * @throws IllegalArgumentException
+     *  if ownerId is null, or limit is not a positive integer
+     *
+     * @return a list of IDs of consumers with stale content access certificates
+     */
+    public List<String> getConsumerIdsWithStaleContent(String ownerId, String lastConsumerId, int limit) {
+        if (ownerId == null) {
+            throw new IllegalArgumentException("ownerId is null");
+        }
+
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit is not a positive integer: " + limit);
+        }
+
+        String hql = "SELECT c.id" +
+            " FROM Consumer c JOIN c.contentAccessCert cac, Owner o" +
+            " WHERE o.id = :owner_id" +
+            "   AND o.id = c.ownerId" +
+            "   AND o.contentAccessMode = :sca_mode" +
+            "   AND cac.updated <= o.lastContentUpdate" +
+            (lastConsumerId != null ? "   AND c.id > :last_consumer_id" : "") +
+            " ORDER BY c.id";
+
+        TypedQuery<String> query = this.getEntityManager()
+            .createQuery(hql, String.class)
+            .setParameter("owner_id", ownerId)
+            .setParameter("sca_mode", ContentAccessMode.ORG_ENVIRONMENT.toDatabaseValue())
+            .setMaxResults(limit);
+
+        if (lastConsumerId != null) {
+            query.setParameter("last_consumer_id", lastConsumerId);
+        }
+
+        return query.getResultList();
+    }
+
     /**
      * Deletes content access certificates with the given ids
      *
@@ -14,6 +14,8 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.cache.EntityVersionIndex;
+
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
@@ -21,6 +23,7 @@ import org.hibernate.Session;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.query.NativeQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +31,7 @@ import java.util.Collection;
 import java.util.List;
 
 import javax.inject.Singleton;
+import javax.persistence.Query;
 
 
 
@@ -40,12 +44,24 @@ public class ContentCurator extends AbstractHibernateCurator<Content> {
     private static Logger log = LoggerFactory.getLogger(ContentCurator.class);
 
     private ProductCurator productCurator;
+    private EntityVersionIndex entityVersionIndex;
 
     @Inject
-    public ContentCurator(ProductCurator productCurator) {
+    public ContentCurator(ProductCurator productCurator, EntityVersionIndex entityVersionIndex) {
         super(Content.class);
 
         this.productCurator = productCurator;
+        this.entityVersionIndex = entityVersionIndex;
+    }
+
+    @Override
+    public Content create(Content entity, boolean flush) {
+        Content newContent = super.create(entity, flush);
+
+        // Lookups of an already indexed version must also find the new content
+        this.entityVersionIndex.add(Content.class, newContent.getEntityVersion(), newContent.getUuid());
+
+        return newContent;
     }
 
     // Needs an override due to the use of UUID as db identifier.
@@ -56,6 +72,46 @@ public class ContentCurator extends AbstractHibernateCurator<Content> {
         currentSession().delete(toDelete);
     }
 
+    /**
+     * Deletes the content entities with the specified UUIDs using bulk delete queries, bypassing
+     * the session entirely. Content deleted in this way will not be evicted from the session or any
+     * caches, and should not be referenced after this method returns. Product-content mappings
+     * referencing the deleted content are removed by the database.
+     *
+     * @param contentUuids
+     *  a collection of UUIDs of the content to delete
+     *
+     * @return
+     *  the number of content entities deleted as a result of this operation
+     */
+    public int bulkDeleteByUuids(Collection<String> contentUuids) {
+        int count = 0;
+
+        if (contentUuids != null && !contentUuids.isEmpty()) {
+            // The modified product collection is not cascaded by the database, so it must be
+            // cleared out before the content itself can be removed. The query space must be
+            // declared, or Hibernate will invalidate every second-level cache region on execution.
+            Query collectionQuery = this.getEntityManager()
+                .createNativeQuery("DELETE FROM cp2_content_modified_products " +
+                    "WHERE content_uuid IN (:content_uuids)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("cp2_content_modified_products");
+
+            Query contentQuery = this.getEntityManager()
+                .createQuery("DELETE Content c WHERE c.uuid IN (:content_uuids)");
+
+            for (List<String> block : this.partition(contentUuids)) {
+                collectionQuery.setParameter("content_uuids", block)
+                    .executeUpdate();
+
+                count += contentQuery.setParameter("content_uuids", block)
+                    .executeUpdate();
+            }
+        }
+
+        return count;
+    }
+
     /**
      * Retrieves a Content instance for the specified content UUID. If no matching content could be
      * be found, this method returns null.
@@ -64,6 +64,7 @@ public class DetachedCandlepinQuery<T> implements CandlepinQuery<T> {
     protected int offset;
     protected int limit;
     protected LockMode lockMode;
+    protected int fetchSize;
 
     /**
      * Creates a new DetachedCandlepinQuery instance using the specified criteria and session.
@@ -97,6 +98,7 @@ public class DetachedCandlepinQuery<T> implements CandlepinQuery<T> {
         this.offset = -1;
         this.limit = -1;
         this.lockMode = null;
+        this.fetchSize = -1;
     }
 
     /**
@@ -174,6 +176,10 @@ public class DetachedCandlepinQuery<T> implements CandlepinQuery<T> {
             executable.setLockMode(this.lockMode);
         }
 
+        if (this.fetchSize > 0) {
+            executable.setFetchSize(this.fetchSize);
+        }
+
         // TODO: Add read-only when we have a requirement to do so.
 
         return executable;
@@ -239,6 +245,15 @@ public class DetachedCandlepinQuery<T> implements CandlepinQuery<T> {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CandlepinQuery<T> setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize > 0 ? fetchSize : -1;
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
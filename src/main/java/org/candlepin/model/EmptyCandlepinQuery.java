@@ -134,6 +134,19 @@ public class EmptyCandlepinQuery<T> implements CandlepinQuery<T> {
         return this;
     }
 
+    /**
+     * Returns a reference to this CandlepinQuery instance.
+     *
+     * @param fetchSize
+     *
+     * @return
+     *  this query instance
+     */
+    @Override
+    public CandlepinQuery<T> setFetchSize(int fetchSize) {
+        return this;
+    }
+
     /**
      * Returns a reference to this CandlepinQuery instance.
      *
@@ -47,6 +47,7 @@ import java.util.Set;
 import javax.inject.Singleton;
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
@@ -916,6 +917,37 @@ public class EntitlementCurator extends AbstractHibernateCurator<Entitlement> {
         }
     }
 
+    /**
+     * Sums the quantities of the entitlements with the given IDs for each consumer to which they are
+     * attached. Entitlements with no quantity are ignored. If none of the entitlements have a
+     * quantity, this method returns an empty map.
+     *
+     * @param entitlementIds
+     *  A collection of IDs of the entitlements for which to sum quantities
+     *
+     * @return
+     *  a map of consumer IDs to the total quantity of the given entitlements attached to them
+     */
+    public Map<String, Long> getEntitlementQuantitiesByConsumer(Collection<String> entitlementIds) {
+        Map<String, Long> quantities = new HashMap<>();
+
+        if (entitlementIds != null && !entitlementIds.isEmpty()) {
+            String jpql = "SELECT e.consumer.id, SUM(e.quantity) FROM Entitlement e " +
+                "WHERE e.id IN (:eids) AND e.quantity IS NOT NULL AND e.quantity != 0 " +
+                "GROUP BY e.consumer.id";
+
+            TypedQuery<Object[]> query = this.getEntityManager().createQuery(jpql, Object[].class);
+
+            for (List<String> block : this.partition(entitlementIds)) {
+                for (Object[] row : query.setParameter("eids", block).getResultList()) {
+                    quantities.merge((String) row[0], (Long) row[1], Long::sum);
+                }
+            }
+        }
+
+        return quantities;
+    }
+
     /**
      * Deletes the entitlements with the given collection of ids, using a SQL delete.
      *
@@ -14,6 +14,9 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.cache.EntityVersionIndex;
+
+import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
 import org.hibernate.Session;
@@ -24,6 +27,7 @@ import org.hibernate.criterion.Restrictions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -32,6 +36,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.inject.Singleton;
@@ -49,11 +54,20 @@ import javax.persistence.TypedQuery;
 public class OwnerContentCurator extends AbstractHibernateCurator<OwnerContent> {
     private static Logger log = LoggerFactory.getLogger(OwnerContentCurator.class);
 
+    private final EntityVersionIndex entityVersionIndex;
+
     /**
-     * Default constructor
+     * Creates a new OwnerContentCurator using the given entity version index for content version
+     * convergence lookups
+     *
+     * @param entityVersionIndex
+     *  the entity version index to use for content version lookups
      */
-    public OwnerContentCurator() {
+    @Inject
+    public OwnerContentCurator(EntityVersionIndex entityVersionIndex) {
         super(OwnerContent.class);
+
+        this.entityVersionIndex = Objects.requireNonNull(entityVersionIndex);
     }
 
     public Content getContentById(Owner owner, String contentId) {
@@ -345,18 +359,73 @@ public class OwnerContentCurator extends AbstractHibernateCurator<OwnerContent>
     public Map<String, List<Content>> getContentByVersions(Collection<Long> versions) {
         Map<String, List<Content>> result = new HashMap<>();
 
-        if (versions != null && !versions.isEmpty()) {
+        if (versions == null || versions.isEmpty()) {
+            return result;
+        }
+
+        // Resolve what we can through the version index, falling back to a version lookup for any
+        // versions not indexed, or which no longer resolve to an existing entity
+        Set<Long> unindexed = new HashSet<>();
+        Map<String, Long> indexed = new HashMap<>();
+
+        for (Long version : versions) {
+            Set<String> uuids = this.entityVersionIndex.get(Content.class, version);
+
+            if (uuids != null) {
+                uuids.forEach(uuid -> indexed.put(uuid, version));
+            }
+            else {
+                unindexed.add(version);
+            }
+        }
+
+        if (!indexed.isEmpty()) {
+            List<String> uuids = new ArrayList<>(indexed.keySet());
+            List<Content> entities = this.currentSession()
+                .byMultipleIds(Content.class)
+                .enableSessionCheck(true)
+                .multiLoad(uuids);
+
+            for (int i = 0; i < uuids.size(); ++i) {
+                Content element = entities.get(i);
+
+                if (element != null) {
+                    result.computeIfAbsent(element.getId(), k -> new LinkedList<>())
+                        .add(element);
+                }
+                else {
+                    Long version = indexed.get(uuids.get(i));
+
+                    this.entityVersionIndex.evict(Content.class, version);
+                    unindexed.add(version);
+                }
+            }
+        }
+
+        if (!unindexed.isEmpty()) {
             String jpql = "SELECT c FROM Content c WHERE c.entityVersion IN (:vblock)";
 
             TypedQuery<Content> query = this.getEntityManager()
                 .createQuery(jpql, Content.class);
 
-            for (Collection<Long> block : this.partition(versions)) {
+            Map<Long, Set<String>> found = new HashMap<>();
+
+            for (Collection<Long> block : this.partition(unindexed)) {
                 for (Content element : query.setParameter("vblock", block).getResultList()) {
+                    // Avoid duplicating anything we already resolved through the index
+                    if (indexed.containsKey(element.getUuid())) {
+                        continue;
+                    }
+
                     result.computeIfAbsent(element.getId(), k -> new LinkedList<>())
                         .add(element);
+
+                    found.computeIfAbsent(element.getEntityVersion(), k -> new HashSet<>())
+                        .add(element.getUuid());
                 }
             }
+
+            found.forEach((version, uuids) -> this.entityVersionIndex.put(Content.class, version, uuids));
         }
 
         return result;
@@ -375,13 +444,7 @@ public class OwnerContentCurator extends AbstractHibernateCurator<OwnerContent>
         // we need to start from content and do a left join back to owner content, we have to use
         // a native query instead of any of the ORM query languages
 
-        String sql = "SELECT c.uuid " +
-            "FROM cp2_content c LEFT JOIN cp2_owner_content oc ON c.uuid = oc.content_uuid " +
-            "WHERE oc.owner_id IS NULL";
-
-        List<String> uuids = this.getEntityManager()
-            .createNativeQuery(sql)
-            .getResultList();
+        List<String> uuids = this.getOrphanedContentUuids();
 
         if (uuids != null && !uuids.isEmpty()) {
             DetachedCriteria criteria = DetachedCriteria.forClass(Content.class)
@@ -394,6 +457,55 @@ public class OwnerContentCurator extends AbstractHibernateCurator<OwnerContent>
         return this.cpQueryFactory.<Content>buildQuery();
     }
 
+    /**
+     * Fetches a list of content UUIDs representing content which is no longer used by any owner.
+     * If no such content exists, this method returns an empty list.
+     *
+     * @return
+     *  a list of UUIDs of content no longer used by any organization
+     */
+    public List<String> getOrphanedContentUuids() {
+        String sql = "SELECT c.uuid " +
+            "FROM cp2_content c LEFT JOIN cp2_owner_content oc ON c.uuid = oc.content_uuid " +
+            "WHERE oc.owner_id IS NULL";
+
+        return this.getEntityManager()
+            .createNativeQuery(sql)
+            .getResultList();
+    }
+
+    /**
+     * Filters the given collection of content UUIDs down to those which are still not used by any
+     * owner. This is intended to re-verify a previously fetched list of orphaned content once the
+     * appropriate locks have been obtained, as the content may have been linked to an owner in the
+     * interim. If the provided collection is null or empty, this method returns an empty set.
+     *
+     * @param contentUuids
+     *  a collection of content UUIDs to filter
+     *
+     * @return
+     *  a set containing the UUIDs of the given content which are still orphaned
+     */
+    public Set<String> filterOrphanedContentUuids(Collection<String> contentUuids) {
+        Set<String> orphaned = new HashSet<>();
+
+        if (contentUuids != null && !contentUuids.isEmpty()) {
+            orphaned.addAll(contentUuids);
+
+            String jpql = "SELECT DISTINCT oc.contentUuid FROM OwnerContent oc " +
+                "WHERE oc.contentUuid IN (:content_uuids)";
+
+            TypedQuery<String> query = this.getEntityManager()
+                .createQuery(jpql, String.class);
+
+            for (List<String> block : this.partition(contentUuids)) {
+                orphaned.removeAll(query.setParameter("content_uuids", block).getResultList());
+            }
+        }
+
+        return orphaned;
+    }
+
 
     /**
      * Updates the content references currently pointing to the original content to instead point to
@@ -685,6 +797,8 @@ public class OwnerContentCurator extends AbstractHibernateCurator<OwnerContent>
             .createQuery("UPDATE Content SET entityVersion = NULL WHERE uuid = :content_uuid")
             .setParameter("content_uuid", contentUuid)
             .executeUpdate();
+
+        this.entityVersionIndex.evict(Content.class, contentUuid);
     }
 
 }
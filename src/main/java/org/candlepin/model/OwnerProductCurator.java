@@ -14,9 +14,11 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.cache.EntityVersionIndex;
 import org.candlepin.model.Pool.PoolType;
 import org.candlepin.util.Util;
 
+import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
 import org.hibernate.Session;
@@ -28,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -35,6 +38,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.inject.Singleton;
@@ -54,11 +58,20 @@ import javax.persistence.TypedQuery;
 public class OwnerProductCurator extends AbstractHibernateCurator<OwnerProduct> {
     private static Logger log = LoggerFactory.getLogger(OwnerProductCurator.class);
 
+    private final EntityVersionIndex entityVersionIndex;
+
     /**
-     * Default constructor
+     * Creates a new OwnerProductCurator using the given entity version index for product version
+     * convergence lookups
+     *
+     * @param entityVersionIndex
+     *  the entity version index to use for product version lookups
      */
-    public OwnerProductCurator() {
+    @Inject
+    public OwnerProductCurator(EntityVersionIndex entityVersionIndex) {
         super(OwnerProduct.class);
+
+        this.entityVersionIndex = Objects.requireNonNull(entityVersionIndex);
     }
 
     /**
@@ -637,6 +650,38 @@ public class OwnerProductCurator extends AbstractHibernateCurator<OwnerProduct>
             .getResultList();
     }
 
+    /**
+     * Filters the given collection of product UUIDs down to those which are still not used by any
+     * owner. This is intended to re-verify a previously fetched list of orphaned products once the
+     * appropriate locks have been obtained, as the products may have been linked to an owner in the
+     * interim. If the provided collection is null or empty, this method returns an empty set.
+     *
+     * @param productUuids
+     *  a collection of product UUIDs to filter
+     *
+     * @return
+     *  a set containing the UUIDs of the given products which are still orphaned
+     */
+    public Set<String> filterOrphanedProductUuids(Collection<String> productUuids) {
+        Set<String> orphaned = new HashSet<>();
+
+        if (productUuids != null && !productUuids.isEmpty()) {
+            orphaned.addAll(productUuids);
+
+            String jpql = "SELECT DISTINCT op.productUuid FROM OwnerProduct op " +
+                "WHERE op.productUuid IN (:product_uuids)";
+
+            TypedQuery<String> query = this.getEntityManager()
+                .createQuery(jpql, String.class);
+
+            for (List<String> block : this.partition(productUuids)) {
+                orphaned.removeAll(query.setParameter("product_uuids", block).getResultList());
+            }
+        }
+
+        return orphaned;
+    }
+
     /**
      * Fetches a list of products within the given organization which directly reference the
      * specified product. Indirect references, such as a product which has a derived product that
@@ -695,6 +740,66 @@ public class OwnerProductCurator extends AbstractHibernateCurator<OwnerProduct>
             .getResultList();
     }
 
+    /**
+     * Fetches the products within the given organization which directly reference any of the
+     * specified products or content, either as a derived product, a provided product or as
+     * product content. Like the single-entity variants, indirect references are not included.
+     *
+     * @param ownerId
+     *  the ID of the owner/organization in which to search for referencing products
+     *
+     * @param productUuids
+     *  a collection of UUIDs of the products for which to fetch product references; may be null
+     *
+     * @param contentUuids
+     *  a collection of UUIDs of the content for which to fetch product references; may be null
+     *
+     * @return
+     *  a set of products directly referencing one or more of the specified products or content
+     */
+    public Set<Product> getProductsReferencingEntities(String ownerId, Collection<String> productUuids,
+        Collection<String> contentUuids) {
+
+        Set<Product> output = new HashSet<>();
+
+        if (productUuids != null && !productUuids.isEmpty()) {
+            String jpql = "SELECT DISTINCT prod FROM OwnerProduct op " +
+                "JOIN op.product prod " +
+                "LEFT JOIN prod.derivedProduct derivedProd " +
+                "LEFT JOIN prod.providedProducts providedProd " +
+                "WHERE op.owner.id = :owner_id " +
+                "  AND (derivedProd.uuid IN (:product_uuids) OR providedProd.uuid IN (:product_uuids))";
+
+            TypedQuery<Product> query = this.getEntityManager()
+                .createQuery(jpql, Product.class)
+                .setParameter("owner_id", ownerId);
+
+            for (List<String> block : this.partition(productUuids)) {
+                output.addAll(query.setParameter("product_uuids", block)
+                    .getResultList());
+            }
+        }
+
+        if (contentUuids != null && !contentUuids.isEmpty()) {
+            String jpql = "SELECT DISTINCT prod FROM OwnerProduct op " +
+                "JOIN op.product prod " +
+                "JOIN prod.productContent pc " +
+                "WHERE op.owner.id = :owner_id " +
+                "  AND pc.content.uuid IN (:content_uuids)";
+
+            TypedQuery<Product> query = this.getEntityManager()
+                .createQuery(jpql, Product.class)
+                .setParameter("owner_id", ownerId);
+
+            for (List<String> block : this.partition(contentUuids)) {
+                output.addAll(query.setParameter("content_uuids", block)
+                    .getResultList());
+            }
+        }
+
+        return output;
+    }
+
     /**
      * Fetches all products having an entity version equal to one of the versions provided.
      *
@@ -707,18 +812,73 @@ public class OwnerProductCurator extends AbstractHibernateCurator<OwnerProduct>
     public Map<String, List<Product>> getProductsByVersions(Collection<Long> versions) {
         Map<String, List<Product>> result = new HashMap<>();
 
-        if (versions != null && !versions.isEmpty()) {
+        if (versions == null || versions.isEmpty()) {
+            return result;
+        }
+
+        // Resolve what we can through the version index, falling back to a version lookup for any
+        // versions not indexed, or which no longer resolve to an existing entity
+        Set<Long> unindexed = new HashSet<>();
+        Map<String, Long> indexed = new HashMap<>();
+
+        for (Long version : versions) {
+            Set<String> uuids = this.entityVersionIndex.get(Product.class, version);
+
+            if (uuids != null) {
+                uuids.forEach(uuid -> indexed.put(uuid, version));
+            }
+            else {
+                unindexed.add(version);
+            }
+        }
+
+        if (!indexed.isEmpty()) {
+            List<String> uuids = new ArrayList<>(indexed.keySet());
+            List<Product> entities = this.currentSession()
+                .byMultipleIds(Product.class)
+                .enableSessionCheck(true)
+                .multiLoad(uuids);
+
+            for (int i = 0; i < uuids.size(); ++i) {
+                Product element = entities.get(i);
+
+                if (element != null) {
+                    result.computeIfAbsent(element.getId(), k -> new LinkedList<>())
+                        .add(element);
+                }
+                else {
+                    Long version = indexed.get(uuids.get(i));
+
+                    this.entityVersionIndex.evict(Product.class, version);
+                    unindexed.add(version);
+                }
+            }
+        }
+
+        if (!unindexed.isEmpty()) {
             String jpql = "SELECT p FROM Product p WHERE p.entityVersion IN (:vblock)";
 
             TypedQuery<Product> query = this.getEntityManager()
                 .createQuery(jpql, Product.class);
 
-            for (Collection<Long> block : this.partition(versions)) {
+            Map<Long, Set<String>> found = new HashMap<>();
+
+            for (Collection<Long> block : this.partition(unindexed)) {
                 for (Product element : query.setParameter("vblock", block).getResultList()) {
+                    // Avoid duplicating anything we already resolved through the index
+                    if (indexed.containsKey(element.getUuid())) {
+                        continue;
+                    }
+
                     result.computeIfAbsent(element.getId(), k -> new LinkedList<>())
                         .add(element);
+
+                    found.computeIfAbsent(element.getEntityVersion(), k -> new HashSet<>())
+                        .add(element.getUuid());
                 }
             }
+
+            found.forEach((version, uuids) -> this.entityVersionIndex.put(Product.class, version, uuids));
         }
 
         return result;
@@ -1126,6 +1286,8 @@ public class OwnerProductCurator extends AbstractHibernateCurator<OwnerProduct>
             .createQuery("UPDATE Product SET entityVersion = NULL WHERE uuid = :product_uuid")
             .setParameter("product_uuid", productUuid)
             .executeUpdate();
+
+        this.entityVersionIndex.evict(Product.class, productUuid);
     }
 
 }
@@ -14,6 +14,7 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.cache.AutobindCandidateIndex;
 import org.candlepin.model.Pool.PoolType;
 import org.candlepin.model.activationkeys.ActivationKey;
 import org.candlepin.model.activationkeys.ActivationKeyPool;
@@ -1733,6 +1734,95 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         return dppMap;
     }
 
+    /**
+     * Fetches the autobind candidate details of the pools belonging to the given owner, without
+     * loading the pools themselves. If a collection of pool IDs is provided, only the details of
+     * the specified pools are fetched; otherwise the details of every pool of the owner are
+     * fetched.
+     *
+     * @param ownerId
+     *  the ID of the owner for which to fetch autobind candidates
+     *
+     * @param poolIds
+     *  the IDs of the pools to fetch, or null to fetch every pool of the owner
+     *
+     * @return
+     *  a list containing the autobind candidates of the pools found
+     */
+    public List<AutobindCandidateIndex.Candidate> getAutobindCandidates(String ownerId,
+        Collection<String> poolIds) {
+
+        String jpql = "SELECT pool.id, prod.uuid, prod.id, pool.startDate, pool.endDate " +
+            "FROM Pool pool JOIN pool.product prod " +
+            "WHERE pool.owner.id = :owner_id";
+
+        List<Object[]> rows = new ArrayList<>();
+
+        if (poolIds == null) {
+            rows.addAll(this.getEntityManager()
+                .createQuery(jpql, Object[].class)
+                .setParameter("owner_id", ownerId)
+                .getResultList());
+        }
+        else if (!poolIds.isEmpty()) {
+            TypedQuery<Object[]> query = this.getEntityManager()
+                .createQuery(jpql + " AND pool.id IN (:pool_ids)", Object[].class)
+                .setParameter("owner_id", ownerId);
+
+            for (List<String> block : this.partition(poolIds)) {
+                rows.addAll(query.setParameter("pool_ids", block).getResultList());
+            }
+        }
+
+        Set<String> productUuids = rows.stream()
+            .map(row -> (String) row[1])
+            .collect(Collectors.toSet());
+
+        // FIXME: This does not properly handle true N-tier; update as necessary
+        String providedSql = "SELECT ppp.product_uuid, prod.product_id " +
+            "FROM cp2_product_provided_products ppp " +
+            "JOIN cp2_products prod ON prod.uuid = ppp.provided_product_uuid " +
+            "WHERE ppp.product_uuid IN (:product_uuids)";
+
+        String attributeSql = "SELECT attr.product_uuid, attr.name, attr.value " +
+            "FROM cp2_product_attributes attr " +
+            "WHERE attr.product_uuid IN (:product_uuids) AND attr.name IN (:attribute_names)";
+
+        Map<String, Set<String>> providedProductIds = new HashMap<>();
+        Map<String, Map<String, String>> attributes = new HashMap<>();
+
+        if (!productUuids.isEmpty()) {
+            javax.persistence.Query providedQuery = this.getEntityManager()
+                .createNativeQuery(providedSql);
+
+            javax.persistence.Query attributeQuery = this.getEntityManager()
+                .createNativeQuery(attributeSql)
+                .setParameter("attribute_names", List.of(Product.Attributes.STACKING_ID,
+                    Product.Attributes.ADDONS, Product.Attributes.ROLES));
+
+            for (List<String> block : this.partition(productUuids)) {
+                providedQuery.setParameter("product_uuids", block);
+                attributeQuery.setParameter("product_uuids", block);
+
+                for (Object[] cols : (List<Object[]>) providedQuery.getResultList()) {
+                    providedProductIds.computeIfAbsent((String) cols[0], key -> new HashSet<>())
+                        .add((String) cols[1]);
+                }
+
+                for (Object[] cols : (List<Object[]>) attributeQuery.getResultList()) {
+                    attributes.computeIfAbsent((String) cols[0], key -> new HashMap<>())
+                        .put((String) cols[1], (String) cols[2]);
+                }
+            }
+        }
+
+        return rows.stream()
+            .map(row -> new AutobindCandidateIndex.Candidate((String) row[0], (String) row[2],
+                providedProductIds.get((String) row[1]), attributes.get((String) row[1]),
+                (Date) row[3], (Date) row[4]))
+            .collect(Collectors.toList());
+    }
+
     @Transactional
     public void removeCdn(Cdn cdn) {
         if (cdn == null) {
@@ -1902,6 +1992,175 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         return output;
     }
 
+    /**
+     * Fetches the IDs of the pools in the given collection which have other pools depending on them,
+     * and therefore cannot be deleted without also updating or deleting the dependent pools. A pool
+     * is considered to have dependents if any of the following are true:
+     * <ul>
+     *  <li>it is a master pool with derived pools sharing its subscription</li>
+     *  <li>one of its entitlements is the source entitlement of another pool</li>
+     *  <li>one of its entitlements contributes to the stack of a stack derived pool</li>
+     * </ul>
+     * If none of the given pools have dependents, this method returns an empty set.
+     *
+     * @param poolIds
+     *  A collection of pool IDs to check for dependent pools
+     *
+     * @return
+     *  a set containing the IDs of the given pools which have dependent pools
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getPoolIdsWithDependents(Collection<String> poolIds) {
+        Set<String> output = new HashSet<>();
+
+        if (poolIds != null && !poolIds.isEmpty()) {
+            String derivedSql = "SELECT DISTINCT ss1.pool_id " +
+                "FROM cp2_pool_source_sub ss1 " +
+                "JOIN cp2_pool_source_sub ss2 ON ss2.subscription_id = ss1.subscription_id " +
+                "WHERE ss1.subscription_sub_key = 'master' " +
+                "  AND ss2.subscription_sub_key != 'master' " +
+                "  AND ss1.pool_id IN (:pool_ids)";
+
+            String sourceEntSql = "SELECT DISTINCT e.pool_id " +
+                "FROM cp_entitlement e " +
+                "JOIN cp_pool p ON p.sourceentitlement_id = e.id " +
+                "WHERE e.pool_id IN (:pool_ids)";
+
+            String stackSql = "SELECT DISTINCT e.pool_id " +
+                "FROM cp_entitlement e " +
+                "JOIN cp_pool p ON p.id = e.pool_id " +
+                "JOIN cp2_product_attributes ppa ON ppa.product_uuid = p.product_uuid " +
+                "JOIN cp_pool_source_stack ss ON ss.sourceconsumer_id = e.consumer_id " +
+                "  AND ss.sourcestackid = ppa.value " +
+                "WHERE ppa.name = :stackid_attrib_name " +
+                "  AND e.pool_id IN (:pool_ids)";
+
+            javax.persistence.Query derivedQuery = this.getEntityManager()
+                .createNativeQuery(derivedSql);
+
+            javax.persistence.Query sourceEntQuery = this.getEntityManager()
+                .createNativeQuery(sourceEntSql);
+
+            javax.persistence.Query stackQuery = this.getEntityManager()
+                .createNativeQuery(stackSql)
+                .setParameter("stackid_attrib_name", Product.Attributes.STACKING_ID);
+
+            int blockSize = Math.min(this.getQueryParameterLimit() - 1, this.getInBlockSize());
+            for (List<String> block : Iterables.partition(poolIds, blockSize)) {
+                output.addAll(derivedQuery.setParameter("pool_ids", block).getResultList());
+                output.addAll(sourceEntQuery.setParameter("pool_ids", block).getResultList());
+                output.addAll(stackQuery.setParameter("pool_ids", block).getResultList());
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Fetches the IDs of the pools in the given collection which have one or more entitlements that
+     * are still active on the given date. An entitlement is active until its end date override if
+     * it has one, or until its pool's end date otherwise. If none of the given pools have active
+     * entitlements, this method returns an empty set.
+     *
+     * @param poolIds
+     *  A collection of pool IDs to check for active entitlements
+     *
+     * @param date
+     *  The date on which to check for active entitlements
+     *
+     * @return
+     *  a set containing the IDs of the given pools which have active entitlements
+     */
+    public Set<String> getPoolIdsWithActiveEntitlements(Collection<String> poolIds, Date date) {
+        Set<String> output = new HashSet<>();
+
+        if (poolIds != null && !poolIds.isEmpty()) {
+            String jpql = "SELECT DISTINCT e.pool.id FROM Entitlement e " +
+                "WHERE e.pool.id IN (:pool_ids) " +
+                "  AND COALESCE(e.endDateOverride, e.pool.endDate) >= :date";
+
+            TypedQuery<String> query = this.getEntityManager()
+                .createQuery(jpql, String.class)
+                .setParameter("date", date);
+
+            for (List<String> block : this.partition(poolIds)) {
+                output.addAll(query.setParameter("pool_ids", block).getResultList());
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Deletes the pools with the given IDs using bulk delete queries, along with their attributes
+     * and upstream certificates. Source subscriptions, source stacks and other rows owned by the
+     * pools are removed by the database.
+     * <p></p>
+     * <strong>WARNING</strong>: This method bypasses the session entirely. The entitlements of the
+     * pools must already have been deleted, and any pools loaded in the current session should be
+     * detached beforehand and not used afterward.
+     *
+     * @param poolIds
+     *  A collection of IDs of the pools to delete
+     *
+     * @return
+     *  the number of pools deleted as a result of this operation
+     */
+    public int bulkDeleteByIds(Collection<String> poolIds) {
+        int count = 0;
+
+        if (poolIds != null && !poolIds.isEmpty()) {
+            TypedQuery<Object[]> certQuery = this.getEntityManager()
+                .createQuery("SELECT c.id, s.id FROM Pool p JOIN p.cert c LEFT JOIN c.serial s " +
+                    "WHERE p.id IN (:pool_ids)", Object[].class);
+
+            javax.persistence.Query attribQuery = this.getEntityManager()
+                .createNativeQuery("DELETE FROM cp_pool_attribute WHERE pool_id IN (:pool_ids)");
+
+            javax.persistence.Query poolQuery = this.getEntityManager()
+                .createQuery("DELETE Pool p WHERE p.id IN (:pool_ids)");
+
+            javax.persistence.Query certDeleteQuery = this.getEntityManager()
+                .createQuery("DELETE SubscriptionsCertificate c WHERE c.id IN (:cert_ids)");
+
+            javax.persistence.Query serialDeleteQuery = this.getEntityManager()
+                .createQuery("DELETE CertificateSerial s WHERE s.id IN (:serial_ids)");
+
+            for (List<String> block : this.partition(poolIds)) {
+                List<String> certIds = new ArrayList<>();
+                List<Long> serialIds = new ArrayList<>();
+
+                for (Object[] row : certQuery.setParameter("pool_ids", block).getResultList()) {
+                    certIds.add((String) row[0]);
+
+                    if (row[1] != null) {
+                        serialIds.add((Long) row[1]);
+                    }
+                }
+
+                attribQuery.setParameter("pool_ids", block)
+                    .executeUpdate();
+
+                count += poolQuery.setParameter("pool_ids", block)
+                    .executeUpdate();
+
+                // Upstream certificates are referenced by the pools, so they can only be removed
+                // once the pools themselves are gone
+                if (!certIds.isEmpty()) {
+                    certDeleteQuery.setParameter("cert_ids", certIds)
+                        .executeUpdate();
+                }
+
+                if (!serialIds.isEmpty()) {
+                    serialDeleteQuery.setParameter("serial_ids", serialIds)
+                        .executeUpdate();
+                }
+            }
+        }
+
+        return count;
+    }
+
     /**
      * Fetches a list of pool IDs for pools that are referencing products which are no longer linked
      * to the pool's owning organization. If no such pools exist, this method returns an empty list.
@@ -14,6 +14,7 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.cache.EntityVersionIndex;
 import org.candlepin.config.Configuration;
 import org.candlepin.util.AttributeValidator;
 
@@ -52,16 +53,19 @@ public class ProductCurator extends AbstractHibernateCurator<Product> {
 
     private Configuration config;
     private AttributeValidator attributeValidator;
+    private EntityVersionIndex entityVersionIndex;
 
     /**
      * default ctor
      */
     @Inject
-    public ProductCurator(Configuration config, AttributeValidator attributeValidator) {
+    public ProductCurator(Configuration config, AttributeValidator attributeValidator,
+        EntityVersionIndex entityVersionIndex) {
         super(Product.class);
 
         this.config = config;
         this.attributeValidator = attributeValidator;
+        this.entityVersionIndex = entityVersionIndex;
     }
 
     /**
@@ -248,7 +252,7 @@ public class ProductCurator extends AbstractHibernateCurator<Product> {
 
         this.validateProductReferences(entity);
 
-        Product newProduct = super.create(entity, false);
+        Product newProduct = this.create(entity, false);
 
         for (ProductContent productContent : entity.getProductContent()) {
             if (productContent.getId() == null) {
@@ -259,6 +263,16 @@ public class ProductCurator extends AbstractHibernateCurator<Product> {
         return newProduct;
     }
 
+    @Override
+    public Product create(Product entity, boolean flush) {
+        Product newProduct = super.create(entity, flush);
+
+        // Lookups of an already indexed version must also find the new product
+        this.entityVersionIndex.add(Product.class, newProduct.getEntityVersion(), newProduct.getUuid());
+
+        return newProduct;
+    }
+
     @Transactional
     public Product merge(Product entity) {
         log.debug("Merging product entity: {}", entity);
@@ -164,6 +164,15 @@ public class TransformedCandlepinQuery<I, O> implements CandlepinQuery<O> {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CandlepinQuery<O> setFetchSize(int fetchSize) {
+        this.query.setFetchSize(fetchSize);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
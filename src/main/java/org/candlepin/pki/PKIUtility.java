@@ -54,9 +54,35 @@ public interface PKIUtility {
 
     byte[] getSHA256WithRSAHash(InputStream input);
 
+    /**
+     * Creates a signer which makes SHA256withRSA signatures with the CA key. Unlike
+     * getSHA256WithRSAHash, the data to sign is fed to the signer as it is written, so it need not
+     * be stored before it is signed.
+     *
+     * @return
+     *  a new SignatureSigner for the CA key
+     */
+    SignatureSigner getSHA256WithRSASigner();
+
     boolean verifySHA256WithRSAHashAgainstCACerts(File input, byte[] signedHash)
         throws CertificateException, IOException;
 
+    /**
+     * Creates a verifier for SHA256withRSA signatures made by the CA certificate or any of the
+     * upstream CA certificates. Unlike verifySHA256WithRSAHashAgainstCACerts, the data to verify is
+     * fed to the verifier as it is read, so it need not be stored or read more than once.
+     *
+     * @throws CertificateException
+     *  if the CA certificates cannot be read
+     *
+     * @throws IOException
+     *  if the CA certificates cannot be loaded
+     *
+     * @return
+     *  a new SignatureVerifier for the CA certificates
+     */
+    SignatureVerifier getSHA256WithRSACAVerifier() throws CertificateException, IOException;
+
     /**
      * Generates a new, unassociated key pair consisting of a public and private key.
      *
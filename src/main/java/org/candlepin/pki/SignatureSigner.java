@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+
+
+
+/**
+ * Signs data which is fed to the signer incrementally, such as data written to a stream, so the
+ * data need not be stored or read more than once before it is signed.
+ */
+public class SignatureSigner {
+
+    private final Signature signature;
+
+    /**
+     * Creates a new signer which signs data with the given algorithm and private key.
+     *
+     * @param algorithm
+     *  the name of the signature algorithm, such as "SHA256withRSA"
+     *
+     * @param key
+     *  the private key with which to sign the data
+     *
+     * @throws IllegalArgumentException
+     *  if algorithm is null or empty, or key is null
+     *
+     * @throws GeneralSecurityException
+     *  if the algorithm is not supported, or the key cannot be used to make signatures with the
+     *  algorithm
+     */
+    public SignatureSigner(String algorithm, PrivateKey key) throws GeneralSecurityException {
+        if (algorithm == null || algorithm.isEmpty()) {
+            throw new IllegalArgumentException("algorithm is null or empty");
+        }
+
+        if (key == null) {
+            throw new IllegalArgumentException("key is null");
+        }
+
+        this.signature = Signature.getInstance(algorithm);
+        this.signature.initSign(key);
+    }
+
+    /**
+     * Updates the data to be signed with the specified portion of the given buffer.
+     *
+     * @param data
+     *  the buffer containing the data to add
+     *
+     * @param offset
+     *  the offset of the first byte to add
+     *
+     * @param length
+     *  the number of bytes to add
+     */
+    public void update(byte[] data, int offset, int length) {
+        try {
+            this.signature.update(data, offset, length);
+        }
+        catch (SignatureException e) {
+            // This can only happen if the signature has not been initialized, which we always do
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Signs the data provided so far. Once this method has been invoked, the signer is reset and
+     * any further data is signed separately.
+     *
+     * @return
+     *  the signature of the data
+     */
+    public byte[] sign() {
+        try {
+            return this.signature.sign();
+        }
+        catch (SignatureException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Wraps the given stream in a stream which adds all of the data written through it to this
+     * signer.
+     *
+     * @param output
+     *  the stream to wrap
+     *
+     * @throws IllegalArgumentException
+     *  if output is null
+     *
+     * @return
+     *  a stream which writes to the given stream and updates this signer
+     */
+    public OutputStream wrap(OutputStream output) {
+        if (output == null) {
+            throw new IllegalArgumentException("output is null");
+        }
+
+        return new FilterOutputStream(output) {
+            @Override
+            public void write(int value) throws IOException {
+                this.out.write(value);
+                update(new byte[] { (byte) value }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                this.out.write(buffer, offset, length);
+                update(buffer, offset, length);
+            }
+        };
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+
+
+/**
+ * Verifies a signature against data which is fed to the verifier incrementally, such as data read
+ * from a stream. The signature may have been made by any one of a number of certificates; the data
+ * is only read once regardless of how many certificates are checked.
+ */
+public class SignatureVerifier {
+
+    private final List<Signature> signatures;
+
+    /**
+     * Creates a new verifier for signatures made with the given algorithm by any of the provided
+     * certificates.
+     *
+     * @param algorithm
+     *  the name of the signature algorithm, such as "SHA256withRSA"
+     *
+     * @param certificates
+     *  the certificates whose public keys may have been used to make the signature
+     *
+     * @throws IllegalArgumentException
+     *  if algorithm is null or empty, or certificates is null or empty
+     *
+     * @throws GeneralSecurityException
+     *  if the algorithm is not supported, or any of the certificates cannot be used to verify
+     *  signatures made with the algorithm
+     */
+    public SignatureVerifier(String algorithm, Collection<? extends Certificate> certificates)
+        throws GeneralSecurityException {
+
+        if (algorithm == null || algorithm.isEmpty()) {
+            throw new IllegalArgumentException("algorithm is null or empty");
+        }
+
+        if (certificates == null || certificates.isEmpty()) {
+            throw new IllegalArgumentException("certificates is null or empty");
+        }
+
+        this.signatures = new ArrayList<>();
+        for (Certificate certificate : certificates) {
+            Signature signature = Signature.getInstance(algorithm);
+            signature.initVerify(certificate);
+
+            this.signatures.add(signature);
+        }
+    }
+
+    /**
+     * Updates the data to be verified with the specified portion of the given buffer.
+     *
+     * @param data
+     *  the buffer containing the data to add
+     *
+     * @param offset
+     *  the offset of the first byte to add
+     *
+     * @param length
+     *  the number of bytes to add
+     */
+    public void update(byte[] data, int offset, int length) {
+        try {
+            for (Signature signature : this.signatures) {
+                signature.update(data, offset, length);
+            }
+        }
+        catch (SignatureException e) {
+            // This can only happen if the signature has not been initialized, which we always do
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Verifies the given signature against the data provided so far. Once this method has been
+     * invoked, the verifier is reset and may not be used to verify the same data again.
+     *
+     * @param signature
+     *  the signature to verify
+     *
+     * @return
+     *  true if the signature was made over the data by any of the certificates; false otherwise
+     */
+    public boolean verify(byte[] signature) {
+        if (signature == null || signature.length == 0) {
+            return false;
+        }
+
+        boolean verified = false;
+        for (Signature verifier : this.signatures) {
+            try {
+                // Verify against every certificate so that all of the signatures are reset
+                verified |= verifier.verify(signature);
+            }
+            catch (SignatureException e) {
+                // Malformed signature for this key; try the next one
+            }
+        }
+
+        return verified;
+    }
+
+    /**
+     * Wraps the given stream in a stream which adds all of the data read through it to this
+     * verifier.
+     *
+     * @param input
+     *  the stream to wrap
+     *
+     * @throws IllegalArgumentException
+     *  if input is null
+     *
+     * @return
+     *  a stream which reads from the given stream and updates this verifier
+     */
+    public InputStream wrap(InputStream input) {
+        if (input == null) {
+            throw new IllegalArgumentException("input is null");
+        }
+
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int value = super.read();
+                if (value != -1) {
+                    update(new byte[] { (byte) value }, 0, 1);
+                }
+
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    update(buffer, offset, count);
+                }
+
+                return count;
+            }
+
+            @Override
+            public long skip(long count) throws IOException {
+                // Skipped bytes must still be verified, so read them through the verifier instead
+                byte[] buffer = new byte[4096];
+                long skipped = 0;
+
+                while (skipped < count) {
+                    int read = this.read(buffer, 0, (int) Math.min(buffer.length, count - skipped));
+                    if (read < 0) {
+                        break;
+                    }
+
+                    skipped += read;
+                }
+
+                return skipped;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+}
@@ -18,6 +18,8 @@ import org.candlepin.config.Configuration;
 import org.candlepin.model.Consumer;
 import org.candlepin.pki.CertificateReader;
 import org.candlepin.pki.PKIUtility;
+import org.candlepin.pki.SignatureSigner;
+import org.candlepin.pki.SignatureVerifier;
 import org.candlepin.pki.SubjectKeyIdentifierWriter;
 import org.candlepin.pki.X509ByteExtensionWrapper;
 import org.candlepin.pki.X509ExtensionWrapper;
@@ -38,7 +40,9 @@ import java.security.SignatureException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 
 
@@ -100,6 +104,16 @@ public abstract class ProviderBasedPKIUtility implements PKIUtility {
         }
     }
 
+    @Override
+    public SignatureSigner getSHA256WithRSASigner() {
+        try {
+            return new SignatureSigner("SHA256withRSA", reader.getCaKey());
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public boolean verifySHA256WithRSAHashAgainstCACerts(File input, byte[] signedHash)
         throws CertificateException, IOException {
@@ -124,6 +138,20 @@ public abstract class ProviderBasedPKIUtility implements PKIUtility {
         return false;
     }
 
+    @Override
+    public SignatureVerifier getSHA256WithRSACAVerifier() throws CertificateException, IOException {
+        List<X509Certificate> certs = new ArrayList<>();
+        certs.add(reader.getCACert());
+        certs.addAll(reader.getUpstreamCACerts());
+
+        try {
+            return new SignatureVerifier("SHA256withRSA", certs);
+        }
+        catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Verify a digital signature.  The method calculates a digital signature using the SHA256withRSA
      * algorithm (and the public key from the certificate parameter) and then compares it with the signature
@@ -14,6 +14,11 @@
  */
 package org.candlepin.policy.js;
 
+import org.candlepin.metrics.CandlepinMeters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Function;
 import org.mozilla.javascript.RhinoException;
@@ -36,11 +41,13 @@ public class JsRunner {
     private Object rulesNameSpace;
     private String namespace;
     private Scriptable scope;
+    private MeterRegistry meterRegistry;
 
     private boolean initialized = false;
 
-    public JsRunner(Scriptable scope) {
+    public JsRunner(Scriptable scope, MeterRegistry meterRegistry) {
         this.scope = scope;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -95,6 +102,7 @@ public class JsRunner {
         if (!(func instanceof Function)) {
             throw new NoSuchMethodException("no such javascript method: " + method);
         }
+        Timer.Sample sample = Timer.start(this.meterRegistry);
         Context context = Context.enter();
         try {
             return (T) unwrapReturnValue(((Function) func).call(context, scope,
@@ -102,6 +110,8 @@ public class JsRunner {
         }
         finally {
             Context.exit();
+            sample.stop(this.meterRegistry.timer(CandlepinMeters.RULES_INVOCATIONS,
+                CandlepinMeters.TAG_FUNCTION, this.namespace + "." + method));
         }
     }
 
@@ -21,6 +21,8 @@ import org.candlepin.model.RulesCurator;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Script;
@@ -43,6 +45,7 @@ public class JsRunnerProvider implements Provider<JsRunner> {
 
     private RulesCurator rulesCurator;
     private Provider<JsRunnerRequestCache> cacheProvider;
+    private MeterRegistry meterRegistry;
     private Script script;
     private Scriptable scope;
     /**
@@ -82,9 +85,11 @@ public class JsRunnerProvider implements Provider<JsRunner> {
     }
 
     @Inject
-    public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider) {
+    public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider,
+        MeterRegistry meterRegistry) {
         this.rulesCurator = rulesCurator;
         this.cacheProvider = cacheProvider;
+        this.meterRegistry = meterRegistry;
 
         log.debug("Compiling rules for initial load");
         this.rulesCurator.updateDbRules();
@@ -168,7 +173,7 @@ public class JsRunnerProvider implements Provider<JsRunner> {
             scriptLock.readLock().unlock();
         }
 
-        return new JsRunner(rulesScope);
+        return new JsRunner(rulesScope, this.meterRegistry);
     }
 
     public String getRulesVersion() {
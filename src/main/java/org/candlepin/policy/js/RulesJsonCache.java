@@ -0,0 +1,257 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.exceptions.IseException;
+import org.candlepin.model.Pool;
+import org.candlepin.model.PoolQuantity;
+import org.candlepin.model.Product;
+import org.candlepin.util.LongHashCodeBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.google.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * The RulesJsonCache holds the rules JSON of recently serialized pools, so the pools of an
+ * organization are not translated and re-serialized for every consumer which lists, binds or
+ * autobinds against them. Cached fragments are handed to a {@link JsonJsContext} as raw JSON
+ * values, and are spliced into the context document as-is.
+ * <p></p>
+ * Fragments are keyed by pool ID and stamped with a version built from the pool's last update
+ * time, the pool fields read by the rules, and the entity version of its product. Since the rules
+ * pool DTO flattens the pool's product, derived product and provided products into the pool
+ * itself, any change to those products changes the version of the pools using them. A fragment
+ * whose version no longer matches its pool is replaced on the next lookup.
+ * <p></p>
+ * The cache is bounded, evicting the least recently used pools first, and is not shared across
+ * nodes.
+ */
+@Singleton
+public class RulesJsonCache {
+
+    private final ModelTranslator translator;
+    private final RulesObjectMapper mapper;
+    private final int maxEntries;
+    private final Map<String, Fragment> fragments;
+
+    /**
+     * A serialized pool, along with the version of the pool at the time it was serialized
+     */
+    private static class Fragment {
+        private final long version;
+        private final RawValue json;
+
+        public Fragment(long version, RawValue json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+
+    @Inject
+    public RulesJsonCache(Configuration config, ModelTranslator translator, RulesObjectMapper mapper) {
+        this(translator, mapper, config.getInt(ConfigProperties.RULES_JSON_CACHE_SIZE));
+    }
+
+    /**
+     * Creates a new cache holding the rules JSON of at most the given number of pools. If the
+     * maximum is less than one, caching is disabled and pools are serialized on every lookup.
+     *
+     * @param translator
+     *  the translator to use to convert pools to rules DTOs
+     *
+     * @param mapper
+     *  the mapper to use to serialize rules DTOs
+     *
+     * @param maxEntries
+     *  the maximum number of pools to cache
+     */
+    public RulesJsonCache(ModelTranslator translator, RulesObjectMapper mapper, int maxEntries) {
+        this.translator = Objects.requireNonNull(translator);
+        this.mapper = Objects.requireNonNull(mapper);
+        this.maxEntries = maxEntries;
+
+        this.fragments = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Fragment> eldest) {
+                return this.size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Fetches the rules JSON for the given pool, serializing it if it is not cached or the cached
+     * JSON is out of date.
+     *
+     * @param pool
+     *  the pool for which to fetch the rules JSON
+     *
+     * @return
+     *  the rules JSON of the pool, or null if the pool is null
+     */
+    public RawValue getPool(Pool pool) {
+        if (pool == null) {
+            return null;
+        }
+
+        String id = pool.getId();
+        if (id == null || this.maxEntries < 1) {
+            return this.serialize(pool);
+        }
+
+        long version = this.getPoolVersion(pool);
+
+        synchronized (this.fragments) {
+            Fragment fragment = this.fragments.get(id);
+            if (fragment != null && fragment.version == version) {
+                return fragment.json;
+            }
+        }
+
+        RawValue json = this.serialize(pool);
+
+        synchronized (this.fragments) {
+            this.fragments.put(id, new Fragment(version, json));
+        }
+
+        return json;
+    }
+
+    /**
+     * Fetches the rules JSON for each of the given pools, in the order provided. Null pools are
+     * silently skipped.
+     *
+     * @param pools
+     *  the pools for which to fetch the rules JSON
+     *
+     * @return
+     *  a list containing the rules JSON of the given pools
+     */
+    public List<RawValue> getPools(Collection<Pool> pools) {
+        List<RawValue> output = new ArrayList<>();
+
+        if (pools != null) {
+            for (Pool pool : pools) {
+                if (pool != null) {
+                    output.add(this.getPool(pool));
+                }
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Builds the rules representation of the given pool quantities, using the cached rules JSON
+     * of each pool. The output mirrors the serialized form of the rules pool quantity DTO.
+     *
+     * @param poolQuantities
+     *  the pool quantities for which to build the rules representation
+     *
+     * @return
+     *  a list containing the rules representation of the given pool quantities
+     */
+    public List<Map<String, Object>> getPoolQuantities(Collection<PoolQuantity> poolQuantities) {
+        List<Map<String, Object>> output = new ArrayList<>();
+
+        if (poolQuantities != null) {
+            for (PoolQuantity poolQuantity : poolQuantities) {
+                if (poolQuantity == null) {
+                    continue;
+                }
+
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("quantity", poolQuantity.getQuantity());
+                entry.put("pool", this.getPool(poolQuantity.getPool()));
+
+                output.add(entry);
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Evicts all cached rules JSON.
+     */
+    public void clear() {
+        synchronized (this.fragments) {
+            this.fragments.clear();
+        }
+    }
+
+    /**
+     * Fetches the number of pools for which rules JSON is currently cached.
+     *
+     * @return
+     *  the number of cached pools
+     */
+    public int size() {
+        synchronized (this.fragments) {
+            return this.fragments.size();
+        }
+    }
+
+    /**
+     * Calculates the version of the given pool's rules JSON. The version covers every field read
+     * by the pool translator, in addition to the pool's last update time, so in-memory changes
+     * which have not yet been flushed are detected as well.
+     *
+     * @param pool
+     *  the pool for which to calculate the version
+     *
+     * @return
+     *  the version of the pool's rules JSON
+     */
+    private long getPoolVersion(Pool pool) {
+        Product product = pool.getProduct();
+
+        return new LongHashCodeBuilder(37, 7)
+            .append(pool.getUpdated())
+            .append(pool.getQuantity())
+            .append(pool.getConsumed())
+            .append(pool.getStartDate())
+            .append(pool.getEndDate())
+            .append(pool.getRestrictedToUsername())
+            .append(pool.getAttributes())
+            .append(product != null ? product.getUuid() : null)
+            .append(product != null ? product.getEntityVersion() : null)
+            .toHashCode();
+    }
+
+    private RawValue serialize(Pool pool) {
+        try {
+            return new RawValue(this.mapper.toJsonString(this.translator.translate(pool, PoolDTO.class)));
+        }
+        catch (JsonProcessingException e) {
+            throw new IseException("Unable to serialize pool to JSON.", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.autobind;
+
+
+
+/**
+ * An entitlement considered by the native autobind engine; either an entitlement the consumer
+ * already has, or a mock entitlement representing the quantity which could be taken from a pool.
+ */
+class AutobindEntitlement {
+
+    private final String id;
+    private final AutobindPool pool;
+    private long quantity;
+
+    /**
+     * Creates a new entitlement from the given pool.
+     *
+     * @param id
+     *  the ID of the entitlement, or null for a mock entitlement
+     *
+     * @param pool
+     *  the pool from which the entitlement is taken
+     *
+     * @param quantity
+     *  the quantity of the entitlement
+     */
+    public AutobindEntitlement(String id, AutobindPool pool, long quantity) {
+        this.id = id;
+        this.pool = pool;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Creates a mock entitlement taking all of the quantity currently available from the given
+     * pool.
+     *
+     * @param pool
+     *  the pool from which to create the mock entitlement
+     *
+     * @return
+     *  the mock entitlement
+     */
+    public static AutobindEntitlement mock(AutobindPool pool) {
+        return new AutobindEntitlement(null, pool, pool.getCurrentlyAvailable());
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public AutobindPool getPool() {
+        return this.pool;
+    }
+
+    public long getQuantity() {
+        return this.quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+}
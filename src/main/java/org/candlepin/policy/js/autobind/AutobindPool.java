@@ -0,0 +1,291 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.autobind;
+
+import org.candlepin.dto.rules.v1.PoolDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+
+/**
+ * The view of a pool used by the native autobind engine. Attribute lookups follow the rules: pool
+ * attributes and product attributes fall back to each other, and attributes with a value of "0"
+ * are considered unset.
+ */
+class AutobindPool {
+
+    public static final String SOCKETS_ATTRIBUTE = "sockets";
+    public static final String CORES_ATTRIBUTE = "cores";
+    public static final String ARCH_ATTRIBUTE = "arch";
+    public static final String RAM_ATTRIBUTE = "ram";
+    public static final String INSTANCE_ATTRIBUTE = "instance_multiplier";
+    public static final String REQUIRES_HOST_ATTRIBUTE = "requires_host";
+    public static final String VIRT_ONLY_ATTRIBUTE = "virt_only";
+    public static final String GUEST_LIMIT_ATTRIBUTE = "guest_limit";
+    public static final String VCPU_ATTRIBUTE = "vcpu";
+    public static final String MULTI_ENTITLEMENT_ATTRIBUTE = "multi-entitlement";
+    public static final String STACKING_ID_ATTRIBUTE = "stacking_id";
+    public static final String STORAGE_BAND_ATTRIBUTE = "storage_band";
+
+    private final PoolDTO pool;
+    private final int index;
+    private final Map<String, String> attributes;
+    private final Map<String, String> productAttributes;
+    private final List<String> products;
+    private final List<String> derivedProducts;
+
+    private long currentlyAvailable;
+    private Double priority;
+
+    /**
+     * Creates a view of the given pool.
+     *
+     * @param pool
+     *  the pool to view
+     *
+     * @param index
+     *  the index of the pool in the selection, used to identify it in memoized calculations
+     *
+     * @param guest
+     *  whether or not the consumer for which pools are being selected is a guest
+     */
+    public AutobindPool(PoolDTO pool, int index, boolean guest) {
+        this.pool = pool;
+        this.index = index;
+        this.attributes = pool.getAttributes() != null ?
+            new HashMap<>(pool.getAttributes()) :
+            new HashMap<>();
+        this.productAttributes = pool.getProductAttributes() != null ?
+            pool.getProductAttributes() :
+            Collections.emptyMap();
+
+        this.products = new ArrayList<>();
+        this.products.add(pool.getProductId());
+        addProductIds(this.products, pool.getProvidedProducts());
+
+        this.derivedProducts = new ArrayList<>();
+        if (this.hasDerived()) {
+            this.derivedProducts.add(pool.getDerivedProductId());
+            addProductIds(this.derivedProducts, pool.getDerivedProvidedProducts());
+        }
+
+        // Guests are covered by the vcpu attribute, which falls back to the cores attribute when a
+        // pool does not define it
+        if (guest && !this.hasAttribute(VCPU_ATTRIBUTE) && !this.attributes.containsKey(VCPU_ATTRIBUTE)) {
+            double cores = RulesValues.parseInt(this.getAttribute(CORES_ATTRIBUTE));
+            if (RulesValues.isTruthy(cores)) {
+                this.attributes.put(VCPU_ATTRIBUTE, String.valueOf((long) cores));
+            }
+        }
+    }
+
+    private static void addProductIds(List<String> output, Collection<PoolDTO.ProvidedProductDTO> provided) {
+        if (provided != null) {
+            for (PoolDTO.ProvidedProductDTO product : provided) {
+                output.add(product.getProductId());
+            }
+        }
+    }
+
+    private static String findAttributeIn(String name, Map<String, String> attributes) {
+        String value = attributes.get(name);
+        return "0".equals(value) ? null : value;
+    }
+
+    public String getId() {
+        return this.pool.getId();
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public Date getEndDate() {
+        return this.pool.getEndDate();
+    }
+
+    public long getQuantity() {
+        return this.pool.getQuantity() != null ? this.pool.getQuantity() : 0;
+    }
+
+    public long getAvailable() {
+        long consumed = this.pool.getConsumed() != null ? this.pool.getConsumed() : 0;
+        return this.getQuantity() - consumed;
+    }
+
+    public boolean isUnlimited() {
+        return this.getQuantity() < 0;
+    }
+
+    public long getCurrentlyAvailable() {
+        return this.currentlyAvailable;
+    }
+
+    public void setCurrentlyAvailable(long currentlyAvailable) {
+        this.currentlyAvailable = currentlyAvailable;
+    }
+
+    public Double getPriority() {
+        return this.priority;
+    }
+
+    public void setPriority(Double priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Fetches the value of the given attribute, preferring the pool attribute over the product
+     * attribute.
+     *
+     * @param name
+     *  the name of the attribute to fetch
+     *
+     * @return
+     *  the value of the attribute, or null if it is not set
+     */
+    public String getAttribute(String name) {
+        String value = findAttributeIn(name, this.attributes);
+        return value != null ? value : findAttributeIn(name, this.productAttributes);
+    }
+
+    public boolean hasAttribute(String name) {
+        return this.getAttribute(name) != null;
+    }
+
+    /**
+     * Fetches the value of the given attribute, preferring the product attribute over the pool
+     * attribute.
+     *
+     * @param name
+     *  the name of the attribute to fetch
+     *
+     * @return
+     *  the value of the attribute, or null if it is not set
+     */
+    public String getProductAttribute(String name) {
+        String value = findAttributeIn(name, this.productAttributes);
+        return value != null ? value : findAttributeIn(name, this.attributes);
+    }
+
+    public boolean hasProductAttribute(String name) {
+        return this.getProductAttribute(name) != null;
+    }
+
+    /**
+     * Checks whether the pool belongs to a stack. Unlike the attribute lookups, this considers the
+     * stacking ID product attribute regardless of its value.
+     *
+     * @return
+     *  true if the pool's product defines a stacking ID; false otherwise
+     */
+    public boolean isStacked() {
+        return this.productAttributes.containsKey(STACKING_ID_ATTRIBUTE);
+    }
+
+    public boolean isMultiEnt() {
+        return RulesValues.equalsIgnoreCase(this.getProductAttribute(MULTI_ENTITLEMENT_ATTRIBUTE), "yes");
+    }
+
+    public boolean isVirtOnly() {
+        return RulesValues.equalsIgnoreCase(this.getProductAttribute(VIRT_ONLY_ATTRIBUTE), "true");
+    }
+
+    public boolean isHostSpecific() {
+        return this.getAttribute(REQUIRES_HOST_ATTRIBUTE) != null;
+    }
+
+    public double getInstanceMulti() {
+        double multi = RulesValues.parseInt(this.getAttribute(INSTANCE_ATTRIBUTE));
+        return RulesValues.isTruthy(multi) ? multi : 1;
+    }
+
+    public boolean hasDerived() {
+        return this.pool.getDerivedProductId() != null;
+    }
+
+    /**
+     * Fetches the IDs of the pool's product and provided products
+     *
+     * @return
+     *  the IDs of the products provided by this pool
+     */
+    public List<String> products() {
+        return this.products;
+    }
+
+    /**
+     * Fetches the IDs of the pool's derived product and derived provided products.
+     *
+     * @return
+     *  the IDs of the derived products provided by this pool, or an empty list if the pool does not
+     *  have a derived product
+     */
+    public List<String> derivedProducts() {
+        return this.derivedProducts;
+    }
+
+    /**
+     * Fetches the values the pool has for the given system purpose attribute, or the products it
+     * provides for the "products" attribute. System purpose values are trimmed and lower case.
+     *
+     * @param attribute
+     *  the system purpose attribute for which to fetch values
+     *
+     * @return
+     *  a list containing the values of the attribute
+     */
+    public List<String> retrievePoolAttributeValues(String attribute) {
+        List<String> values = new ArrayList<>();
+
+        if ("products".equals(attribute)) {
+            for (String productId : this.hasDerived() ? this.derivedProducts : this.products) {
+                if (productId != null) {
+                    values.add(productId);
+                }
+            }
+
+            return values;
+        }
+
+        String value = this.getProductAttribute(attribute);
+        if (!RulesValues.isTruthy(value)) {
+            return values;
+        }
+
+        if ("addons".equals(attribute) || "roles".equals(attribute)) {
+            values.addAll(Arrays.asList(value.trim().split("\\s*,[\\s,]*", -1)));
+        }
+        else if ("support_level".equals(attribute) || "usage".equals(attribute) ||
+            "support_type".equals(attribute)) {
+            values.add(value);
+        }
+
+        values.replaceAll(elem -> RulesValues.lower(elem).trim());
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AutobindPool [id: %s]", this.getId());
+    }
+}
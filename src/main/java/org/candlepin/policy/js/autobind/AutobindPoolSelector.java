@@ -0,0 +1,1338 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.autobind;
+
+import static org.candlepin.policy.js.autobind.AutobindPool.ARCH_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.CORES_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.INSTANCE_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.RAM_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.SOCKETS_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.STACKING_ID_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.VCPU_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.VIRT_ONLY_ATTRIBUTE;
+
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+import org.candlepin.dto.rules.v1.ConsumerDTO;
+import org.candlepin.dto.rules.v1.EntitlementDTO;
+import org.candlepin.dto.rules.v1.GuestIdDTO;
+import org.candlepin.dto.rules.v1.PoolDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+
+
+/**
+ * A native implementation of the pool selection performed by the select_pools function of the
+ * autobind rules. Pools are grouped into stacks and individual entitlements, which are validated
+ * against the consumer, pruned down to the pools required for compliance, and picked in order of
+ * preference until the consumer's products, role and addons are covered.
+ * <p></p>
+ * The selection is a faithful port of the rules, down to the order in which pools are compared and
+ * sorted, so both engines pick the same pools and quantities. Pool priorities and stack coverage
+ * checks are memoized for the duration of the selection, and quantity searches over stacks are
+ * bisected whenever coverage is known to grow with the quantity of the pool being sized.
+ * <p></p>
+ * Selectors are single use: the selection state is kept on the selector, and some of it, like the
+ * consumer's addons, is modified during the selection as it is by the rules.
+ */
+public class AutobindPoolSelector {
+    private static Logger log = LoggerFactory.getLogger(AutobindPoolSelector.class);
+
+    // The system purpose attributes considered when prioritizing pools, and their weights. Each
+    // weight is larger than all of the weights below it combined.
+    private static final Map<String, Integer> PRIORITY_WEIGHTS = new LinkedHashMap<>();
+    static {
+        PRIORITY_WEIGHTS.put("products", 11200);
+        PRIORITY_WEIGHTS.put("roles", 5600);
+        PRIORITY_WEIGHTS.put("addons", 2800);
+        PRIORITY_WEIGHTS.put("support_level", 1400);
+        PRIORITY_WEIGHTS.put("usage", 700);
+        PRIORITY_WEIGHTS.put("support_type", 350);
+    }
+
+    private static final List<String> PRIORITY_ATTRIBUTES = List.of(SOCKETS_ATTRIBUTE, CORES_ATTRIBUTE,
+        RAM_ATTRIBUTE, VCPU_ATTRIBUTE);
+
+    // The size at which the rules stop using insertion sort in favor of quicksort
+    private static final int SMALL_SORT = 16;
+
+    private final ConsumerDTO consumer;
+    private final ComplianceStatusDTO compliance;
+    private final List<PoolDTO> pools;
+    private final String[] productIds;
+    private final boolean considerDerived;
+    private final CoverageCalculator calculator;
+
+    private final String consumerRole;
+    private final List<String> consumerAddons;
+    private final Map<EntitlementDTO, AutobindEntitlement> entitlements;
+    private final Map<String, List<String>> satisfiedValues;
+    private List<AutobindEntitlement> attachedEnts;
+    private boolean selected;
+
+    /**
+     * An entitlement group is either a stack, or a single non-stackable pool, which can be checked
+     * and picked uniformly.
+     */
+    private class EntitlementGroup {
+        private final boolean stackable;
+        private final String stackId;
+        private List<AutobindPool> pools;
+        private List<String> installed;
+        private Map<String, Long> poolQuantity;
+        private Double averagePriority;
+        private final Map<List<Integer>, Boolean> coverage;
+
+        public EntitlementGroup(boolean stackable, String stackId, List<String> installed) {
+            this.stackable = stackable;
+            this.stackId = stackId;
+            this.installed = installed;
+            this.pools = new ArrayList<>();
+            this.coverage = new HashMap<>();
+        }
+
+        public String getIdentifier() {
+            if (this.stackable) {
+                return "stack_id: " + this.stackId;
+            }
+
+            return this.pools.isEmpty() ? "unknown" : "pool: " + this.pools.get(0).getId();
+        }
+
+        /*
+         * Checks whether the stack, with the full quantity of each of its pools, covers the
+         * consumer. Results are memoized by the pools included.
+         */
+        private boolean isStackCovered(List<AutobindPool> pools) {
+            List<Integer> key = new ArrayList<>(pools.size());
+            for (AutobindPool pool : pools) {
+                key.add(pool.getIndex());
+            }
+
+            return this.coverage.computeIfAbsent(key, k -> calculator
+                .getStackCoverage(this.stackId, withAttached(mockEntitlements(pools)))
+                .isCovered());
+        }
+
+        /*
+         * Checks whether the group can fully cover the consumer. Stackable groups drop the pools
+         * carrying attributes the stack cannot cover.
+         */
+        public boolean validate() {
+            log.debug("Running validate for {}", this.getIdentifier());
+            List<AutobindEntitlement> allEnts = withAttached(mockEntitlements(this.pools));
+
+            if (allEnts.isEmpty()) {
+                log.debug("No entitlements");
+                return false;
+            }
+
+            if (!this.stackable) {
+                return calculator.getEntitlementCoverage(allEnts.get(0), allEnts).isCovered();
+            }
+
+            CoverageCalculator.Coverage stackCoverage = calculator.getStackCoverage(this.stackId, allEnts);
+            if (stackCoverage.isCovered()) {
+                return true;
+            }
+
+            // Remove all pools with attributes the stack cannot support. As in the rules, the
+            // remaining pools end up in reverse order.
+            List<String> badAttributes = stackCoverage.getReasons();
+            List<AutobindPool> remaining = new ArrayList<>();
+
+            for (int i = this.pools.size() - 1; i >= 0; --i) {
+                AutobindPool pool = this.pools.get(i);
+
+                boolean valid = badAttributes.stream()
+                    .noneMatch(attr -> RulesValues.isTruthy(pool.getProductAttribute(attr)));
+
+                if (valid) {
+                    remaining.add(pool);
+                }
+            }
+
+            log.debug("Removed {} of {} pools from stack {}", this.pools.size() - remaining.size(),
+                this.pools.size(), this.stackId);
+
+            this.pools = remaining;
+            return this.isStackCovered(this.pools);
+        }
+
+        public int numMatchingPools(Predicate<AutobindPool> predicate) {
+            return (int) this.pools.stream().filter(predicate).count();
+        }
+
+        /*
+         * Removes parallel stacks, so we don't bind two stacks which would each be compliant on
+         * their own. For each additive stack attribute, checks whether the stack remains compliant
+         * without the pools enforcing it, and keeps the set of pools with the best priority.
+         */
+        public void removeExtraAttrs() {
+            log.debug("Running removeExtraAttrs for {}", this.getIdentifier());
+            List<List<AutobindPool>> candidates = new ArrayList<>();
+            candidates.add(this.pools);
+
+            // The rules also compare the role and addons covered, but those are always checked
+            // against the group's current pools, which do not change here
+            int satisfiableProducts = this.getProvidedProducts(this.pools).size();
+
+            for (List<String> attributes : this.getAttributeSets(this.pools)) {
+                for (String attribute : attributes) {
+                    List<AutobindPool> without = new ArrayList<>();
+                    for (AutobindPool pool : this.pools) {
+                        if (!RulesValues.isTruthy(pool.getProductAttribute(attribute))) {
+                            without.add(pool);
+                        }
+                    }
+
+                    if (this.isStackCovered(without) &&
+                        this.getProvidedProducts(without).size() == satisfiableProducts) {
+                        candidates.add(without);
+                    }
+                }
+            }
+
+            int best = 0;
+            double bestPriority = 0.0;
+            int numPools = this.pools.size();
+
+            for (int i = 0; i < candidates.size(); ++i) {
+                List<AutobindPool> pools = candidates.get(i);
+                double priority = 0;
+
+                for (AutobindPool pool : pools) {
+                    // Prefer virt-only pools, and host-specific pools even more
+                    if (pool.isVirtOnly()) {
+                        priority += 100;
+                    }
+
+                    if (pool.isHostSpecific()) {
+                        priority += 150;
+                    }
+                }
+
+                // Priority per pool, so we don't tend towards stacks with more pools
+                priority /= pools.size();
+
+                if (priority > bestPriority) {
+                    bestPriority = priority;
+                    best = i;
+                    numPools = pools.size();
+                }
+                else if (priority == bestPriority && numPools > pools.size()) {
+                    best = i;
+                    numPools = pools.size();
+                }
+            }
+
+            this.pools = candidates.get(best);
+        }
+
+        /*
+         * Generates the sets of additive stack attributes used by the group's pools to attempt to
+         * remove.
+         */
+        private List<List<String>> getAttributeSets(List<AutobindPool> pools) {
+            List<String> attributes = new ArrayList<>();
+
+            for (String attribute : calculator.getComplianceAttributes()) {
+                if (!ARCH_ATTRIBUTE.equals(attribute) &&
+                    pools.stream().anyMatch(pool -> pool.hasProductAttribute(attribute))) {
+                    attributes.add(attribute);
+                }
+            }
+
+            List<List<String>> sets = getSets(attributes, attributes.size() - 1);
+            sets.removeIf(List::isEmpty);
+
+            return sets;
+        }
+
+        /*
+         * Removes all pools which aren't necessary for compliance. Pools are sorted by priority,
+         * and each is removed in turn, from the lowest priority up, unless the group no longer
+         * covers the consumer, its products, role and addons without it.
+         */
+        public void prunePools() {
+            log.debug("Running prunePools for {}", this.getIdentifier());
+
+            // We know this group is required, so we cannot remove the one non-stackable pool
+            if (!this.stackable) {
+                return;
+            }
+
+            // Sort pools such that we preserve virt-only and host-specific pools if possible
+            rulesSort(this.pools, this::comparePools);
+
+            int priorSize = this.pools.size();
+            int satisfiableProducts = this.getProvidedProducts(this.pools).size();
+            String satisfiableRole = this.getCommonRole(consumerRole);
+            int satisfiableAddons = this.getCommonAddons(consumerAddons).size();
+
+            for (int i = this.pools.size() - 1; i >= 0; --i) {
+                AutobindPool pool = this.pools.remove(i);
+
+                if (this.pools.isEmpty() || !this.isStackCovered(this.pools) ||
+                    this.getProvidedProducts(this.pools).size() != satisfiableProducts ||
+                    !Objects.equals(this.getCommonRole(consumerRole), satisfiableRole) ||
+                    this.getCommonAddons(consumerAddons).size() != satisfiableAddons) {
+
+                    // Something broke, add the pool back
+                    this.pools.add(pool);
+                }
+                else {
+                    log.debug("Removing redundant pool {} from {}", pool.getId(), this.getIdentifier());
+                }
+            }
+
+            log.debug("Removed {} of {} pools", priorSize - this.pools.size(), priorSize);
+        }
+
+        /*
+         * Sorts pools by descending priority, preferring pools which expire first when pools are
+         * otherwise equal.
+         */
+        private int comparePools(AutobindPool pool0, AutobindPool pool1) {
+            double priority0 = getPoolPriority(pool0);
+            double priority1 = getPoolPriority(pool1);
+
+            // The rules compare the serialized dates, where a missing end date compares as zero
+            long end0 = pool0.getEndDate() != null ? pool0.getEndDate().getTime() : 0;
+            long end1 = pool1.getEndDate() != null ? pool1.getEndDate().getTime() : 0;
+
+            if (end0 > end1) {
+                priority1 += 1;
+            }
+            else if (end0 < end1) {
+                priority0 += 1;
+            }
+
+            double result = priority1 - priority0;
+            return result < 0 ? -1 : (result > 0 ? 1 : 0);
+        }
+
+        public long getTotalQuantity() {
+            long total = 0;
+            for (long quantity : this.getPoolQuantity().values()) {
+                total += quantity;
+            }
+
+            return total;
+        }
+
+        /*
+         * Must not be used before the pools have been pruned, as it is memoized
+         */
+        public double getAveragePriority() {
+            if (this.averagePriority == null) {
+                double total = 0;
+                for (AutobindPool pool : this.pools) {
+                    total += getPoolPriority(pool);
+                }
+
+                this.averagePriority = total / this.pools.size();
+            }
+
+            return this.averagePriority;
+        }
+
+        /*
+         * Determines the quantity required from each of the group's pools. Must not be used before
+         * the pools have been pruned, as it is memoized.
+         */
+        public Map<String, Long> getPoolQuantity() {
+            if (this.poolQuantity != null) {
+                return this.poolQuantity;
+            }
+
+            Map<String, Long> result = new LinkedHashMap<>();
+            List<AutobindEntitlement> ents = mockEntitlements(this.pools);
+            List<AutobindEntitlement> allEnts = withAttached(ents);
+
+            for (int i = 0; i < this.pools.size(); ++i) {
+                AutobindPool pool = this.pools.get(i);
+                AutobindEntitlement current = ents.get(i);
+
+                double increment = 1;
+                if (pool.hasProductAttribute(INSTANCE_ATTRIBUTE) && !calculator.isGuest()) {
+                    increment = RulesValues.parseInt(pool.getProductAttribute(INSTANCE_ATTRIBUTE));
+                }
+
+                // The rules never pick a quantity from a pool with an invalid instance multiplier
+                if (!(increment >= 1)) {
+                    continue;
+                }
+
+                long step = (long) increment;
+                long steps = pool.getCurrentlyAvailable() / step;
+                if (steps < 1) {
+                    continue;
+                }
+
+                long quantity = this.stackable ?
+                    this.findStackQuantity(current, allEnts, step, steps) :
+                    this.findEntitlementQuantity(current, allEnts, step, steps);
+
+                if (quantity > 0) {
+                    result.put(pool.getId(), quantity);
+                }
+            }
+
+            this.poolQuantity = result;
+            return result;
+        }
+
+        /*
+         * Non-stacked entitlements cover the consumer as a single entitlement, regardless of their
+         * quantity, so the smallest quantity either covers the consumer or none does.
+         */
+        private long findEntitlementQuantity(AutobindEntitlement current, List<AutobindEntitlement> allEnts,
+            long step, long steps) {
+
+            current.setQuantity(step);
+            boolean covered = calculator.getEntitlementCoverage(current, allEnts).isCovered();
+            current.setQuantity(step * steps);
+
+            if (covered) {
+                current.setQuantity(step);
+                return step;
+            }
+
+            return 0;
+        }
+
+        /*
+         * Finds the smallest quantity of the current entitlement, in multiples of the step, for
+         * which the stack covers the consumer. If no quantity does, the entitlement keeps the
+         * largest quantity tried.
+         */
+        private long findStackQuantity(AutobindEntitlement current, List<AutobindEntitlement> allEnts,
+            long step, long steps) {
+
+            current.setQuantity(step * steps);
+            boolean monotonic = calculator.isMonotonic(current.getPool(),
+                calculator.getAccumulationBound(allEnts));
+
+            if (!monotonic) {
+                for (long i = 1; i <= steps; ++i) {
+                    current.setQuantity(step * i);
+
+                    if (calculator.getStackCoverage(this.stackId, allEnts).isCovered()) {
+                        return step * i;
+                    }
+                }
+
+                return 0;
+            }
+
+            // Coverage only improves as the quantity grows, so we can bisect
+            if (!calculator.getStackCoverage(this.stackId, allEnts).isCovered()) {
+                return 0;
+            }
+
+            long low = 1;
+            long high = steps;
+            while (low < high) {
+                long mid = low + (high - low) / 2;
+                current.setQuantity(step * mid);
+
+                if (calculator.getStackCoverage(this.stackId, allEnts).isCovered()) {
+                    high = mid;
+                }
+                else {
+                    low = mid + 1;
+                }
+            }
+
+            current.setQuantity(step * low);
+            return step * low;
+        }
+
+        public void addPool(AutobindPool pool) {
+            this.pools.add(pool);
+        }
+
+        public List<String> getProvidedProducts() {
+            return this.getProvidedProducts(this.pools);
+        }
+
+        /*
+         * Returns the installed products provided by the given pools
+         */
+        private List<String> getProvidedProducts(List<AutobindPool> pools) {
+            List<String> provided = new ArrayList<>();
+
+            for (AutobindPool pool : pools) {
+                // When considering derived products, use those of pools which have them instead
+                List<String> products = considerDerived && pool.hasDerived() ?
+                    pool.derivedProducts() :
+                    pool.products();
+
+                for (String productId : products) {
+                    if (!provided.contains(productId) && this.installed.contains(productId)) {
+                        provided.add(productId);
+                    }
+                }
+            }
+
+            return provided;
+        }
+
+        /*
+         * Returns the addons the group covers, out of the given addons
+         */
+        public List<String> getCommonAddons(List<String> addons) {
+            List<String> common = new ArrayList<>();
+
+            for (String groupAddon : getPoolValues(this.pools, "addons")) {
+                boolean isCommon = false;
+
+                for (String addon : addons) {
+                    if (!RulesValues.isTruthy(addon) || addon.trim().isEmpty()) {
+                        isCommon = false;
+                    }
+
+                    if (addon != null && RulesValues.equalsIgnoreCase(addon.trim(), groupAddon)) {
+                        isCommon = true;
+                    }
+                }
+
+                if (isCommon) {
+                    common.add(groupAddon);
+                }
+            }
+
+            return common;
+        }
+
+        /*
+         * Returns the given role if the group covers it, or null otherwise
+         */
+        public String getCommonRole(String role) {
+            if (role == null || role.trim().isEmpty()) {
+                return null;
+            }
+
+            String trimmed = role.trim();
+            for (String groupRole : getPoolValues(this.pools, "roles")) {
+                if (RulesValues.equalsIgnoreCase(groupRole, trimmed)) {
+                    return trimmed;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Creates a new selector for the given consumer. The inputs are expected to be the same rules
+     * DTOs provided to the rules.
+     *
+     * @param consumer
+     *  the consumer for which to select pools, including the products to cover among its installed
+     *  products
+     *
+     * @param compliance
+     *  the compliance status of the consumer
+     *
+     * @param guestIds
+     *  the guests of the consumer
+     *
+     * @param pools
+     *  the candidate pools
+     *
+     * @param productIds
+     *  the IDs of the products to cover
+     *
+     * @param considerDerived
+     *  whether to consider the derived products of pools, rather than their products, when
+     *  binding a host to pools which unlock pools for its guests
+     */
+    public AutobindPoolSelector(ConsumerDTO consumer, ComplianceStatusDTO compliance,
+        Collection<GuestIdDTO> guestIds, List<PoolDTO> pools, String[] productIds, boolean considerDerived) {
+
+        this.consumer = Objects.requireNonNull(consumer);
+        this.compliance = Objects.requireNonNull(compliance);
+        this.pools = Objects.requireNonNull(pools);
+        this.productIds = productIds != null ? productIds : new String[0];
+        this.considerDerived = considerDerived;
+        this.calculator = new CoverageCalculator(consumer, guestIds);
+
+        this.consumerRole = RulesValues.isTruthy(consumer.getRole()) ? consumer.getRole() : null;
+        this.consumerAddons = consumer.getAddOns() != null ?
+            new ArrayList<>(consumer.getAddOns()) :
+            new ArrayList<>();
+
+        this.entitlements = new IdentityHashMap<>();
+        this.satisfiedValues = new HashMap<>();
+    }
+
+    /**
+     * Selects the best pools to cover the consumer.
+     *
+     * @throws IllegalStateException
+     *  if the selector has already been used
+     *
+     * @return
+     *  a mapping of the IDs of the selected pools to the quantity to take from each
+     */
+    public Map<String, Integer> selectPools() {
+        if (this.selected) {
+            throw new IllegalStateException("pools have already been selected");
+        }
+
+        this.selected = true;
+        log.debug("considerDerived = {}", this.considerDerived);
+
+        List<AutobindPool> candidates = new ArrayList<>();
+        for (PoolDTO pool : this.pools) {
+            AutobindPool candidate = new AutobindPool(pool, candidates.size(), this.calculator.isGuest());
+            candidate.setCurrentlyAvailable(this.getCurrentlyAvailable(candidate));
+            candidates.add(candidate);
+        }
+
+        this.attachedEnts = this.getAttachedEnts();
+        List<AutobindPool> validPools = this.getValidPools(candidates);
+
+        // Filter compliant products from the installed products
+        List<String> installed = new ArrayList<>(Arrays.asList(this.productIds));
+        if (this.compliance.getCompliantProducts() != null) {
+            for (String productId : this.compliance.getCompliantProducts().keySet()) {
+                installed.remove(productId);
+            }
+        }
+
+        // Filter the role and addons already fulfilled
+        String role = this.getRemainingRole();
+        List<String> addons = this.getRemainingAddons();
+
+        List<EntitlementGroup> groups = this.buildEntitlementGroups(validPools, installed);
+        log.debug("Total ent groups: {}", groups.size());
+
+        List<EntitlementGroup> validGroups = new ArrayList<>();
+        for (int i = groups.size() - 1; i >= 0; --i) {
+            EntitlementGroup group = groups.get(i);
+
+            if (!group.validate()) {
+                log.debug("Group with {} failed validation", group.getIdentifier());
+                continue;
+            }
+
+            // Only consider the group if it provides a needed product, role or addon, or stacks
+            // with an existing entitlement
+            if (!this.getCommonProducts(installed, group).isEmpty() || group.getCommonRole(role) != null ||
+                !group.getCommonAddons(addons).isEmpty() || !this.attachedEnts.isEmpty()) {
+
+                validGroups.add(group);
+                group.removeExtraAttrs();
+                group.prunePools();
+            }
+            else {
+                log.debug("Group with {} provides no needed products, roles or addons",
+                    group.getIdentifier());
+            }
+        }
+
+        log.debug("Valid ent groups: {}", validGroups.size());
+        List<EntitlementGroup> bestGroups = this.getBestEntitlementGroups(validGroups, installed, role,
+            addons);
+        log.debug("Best ent groups: {}", bestGroups.size());
+
+        Map<String, Integer> selected = new LinkedHashMap<>();
+        for (EntitlementGroup group : bestGroups) {
+            group.getPoolQuantity().forEach((poolId, quantity) -> selected.put(poolId, quantity.intValue()));
+        }
+
+        log.debug("Selected pools: {}", selected);
+        return selected;
+    }
+
+    private long getCurrentlyAvailable(AutobindPool pool) {
+        long available;
+
+        if (pool.getQuantity() == -1) {
+            // Unlimited pools only need as many entitlements as it takes to cover the consumer
+            available = pool.isMultiEnt() && pool.hasProductAttribute(STACKING_ID_ATTRIBUTE) ?
+                this.calculator.getQuantityToCoverStack(pool) :
+                1;
+        }
+        else {
+            available = pool.getAvailable();
+        }
+
+        // If the pool is not multi-entitlable, only one may be used
+        if (available > 0 && !pool.isMultiEnt()) {
+            available = 1;
+        }
+
+        return available;
+    }
+
+    private AutobindEntitlement getEntitlement(EntitlementDTO entitlement) {
+        return this.entitlements.computeIfAbsent(entitlement, ent -> new AutobindEntitlement(ent.getId(),
+            new AutobindPool(ent.getPool(), -1, this.calculator.isGuest()),
+            ent.getQuantity() != null ? ent.getQuantity() : 0));
+    }
+
+    private List<Map<String, Set<EntitlementDTO>>> getComplianceMaps() {
+        List<Map<String, Set<EntitlementDTO>>> maps = new ArrayList<>();
+        maps.add(this.compliance.getPartialStacks());
+        maps.add(this.compliance.getPartiallyCompliantProducts());
+        maps.add(this.compliance.getCompliantProducts());
+        maps.removeIf(Objects::isNull);
+
+        return maps;
+    }
+
+    private List<AutobindEntitlement> getAttachedEnts() {
+        List<AutobindEntitlement> attached = new ArrayList<>();
+
+        for (Map<String, Set<EntitlementDTO>> map : this.getComplianceMaps()) {
+            for (Set<EntitlementDTO> ents : map.values()) {
+                for (EntitlementDTO ent : ents) {
+                    if (attached.stream().noneMatch(elem -> Objects.equals(elem.getId(), ent.getId()))) {
+                        attached.add(this.getEntitlement(ent));
+                    }
+                }
+            }
+        }
+
+        return attached;
+    }
+
+    private List<AutobindEntitlement> withAttached(List<AutobindEntitlement> ents) {
+        List<AutobindEntitlement> output = new ArrayList<>(ents.size() + this.attachedEnts.size());
+        output.addAll(ents);
+        output.addAll(this.attachedEnts);
+
+        return output;
+    }
+
+    private static List<AutobindEntitlement> mockEntitlements(List<AutobindPool> pools) {
+        List<AutobindEntitlement> ents = new ArrayList<>(pools.size());
+        for (AutobindPool pool : pools) {
+            ents.add(AutobindEntitlement.mock(pool));
+        }
+
+        return ents;
+    }
+
+    /*
+     * Returns the pools which can be attached to the consumer
+     */
+    private List<AutobindPool> getValidPools(List<AutobindPool> candidates) {
+        String consumerArch = this.calculator.getConsumerArch();
+        boolean guest = this.calculator.isGuest();
+        List<AutobindPool> valid = new ArrayList<>();
+
+        for (AutobindPool pool : candidates) {
+            // Physical systems cannot consume from virt-only pools
+            boolean virtValid = guest || !pool.hasProductAttribute(VIRT_ONLY_ATTRIBUTE) || !pool.isVirtOnly();
+
+            // The rules check the architecture against the consumer type itself, rather than its
+            // label, so consumers without an architecture fact pass regardless of their type
+            boolean archValid = CoverageCalculator.architectureMatches(
+                pool.getProductAttribute(ARCH_ATTRIBUTE), consumerArch, null);
+
+            if (archValid && virtValid && pool.getCurrentlyAvailable() > 0) {
+                valid.add(pool);
+            }
+            else {
+                log.debug("Skipping pool {}", pool.getId());
+            }
+        }
+
+        return valid;
+    }
+
+    private String getRemainingRole() {
+        if (this.consumerRole == null) {
+            return "";
+        }
+
+        if (this.attachedEnts.isEmpty()) {
+            return this.consumerRole;
+        }
+
+        List<AutobindPool> attachedPools = new ArrayList<>();
+        this.attachedEnts.forEach(ent -> attachedPools.add(ent.getPool()));
+
+        for (String role : getPoolValues(attachedPools, "roles")) {
+            if (RulesValues.equalsIgnoreCase(role, this.consumerRole.trim())) {
+                return "";
+            }
+        }
+
+        return this.consumerRole;
+    }
+
+    /*
+     * Returns the consumer's addons not covered by its attached entitlements. When the consumer has
+     * no attached entitlements, the consumer's addons are returned as-is, and are consumed as
+     * groups are picked.
+     */
+    private List<String> getRemainingAddons() {
+        if (this.attachedEnts.isEmpty()) {
+            return this.consumerAddons;
+        }
+
+        List<AutobindPool> attachedPools = new ArrayList<>();
+        this.attachedEnts.forEach(ent -> attachedPools.add(ent.getPool()));
+        List<String> attachedAddons = getPoolValues(attachedPools, "addons");
+
+        List<String> remaining = new ArrayList<>();
+        for (String addon : this.consumerAddons) {
+            if (attachedAddons.stream().noneMatch(elem -> RulesValues.equalsIgnoreCase(elem, addon.trim()))) {
+                remaining.add(addon);
+            }
+        }
+
+        return remaining;
+    }
+
+    /*
+     * Returns the unique values of the given system purpose attribute across the given pools
+     */
+    private static List<String> getPoolValues(List<AutobindPool> pools, String attribute) {
+        List<String> values = new ArrayList<>();
+
+        for (AutobindPool pool : pools) {
+            for (String value : pool.retrievePoolAttributeValues(attribute)) {
+                if (!values.contains(value)) {
+                    values.add(value);
+                }
+            }
+        }
+
+        return values;
+    }
+
+    /*
+     * Builds the entitlement groups, which allow us to treat stacks and individual entitlements the
+     * same
+     */
+    private List<EntitlementGroup> buildEntitlementGroups(List<AutobindPool> validPools,
+        List<String> installed) {
+
+        List<EntitlementGroup> groups = new ArrayList<>();
+
+        for (AutobindPool pool : validPools) {
+            if (pool.isStacked()) {
+                String stackId = pool.getProductAttribute(STACKING_ID_ATTRIBUTE);
+                EntitlementGroup group = groups.stream()
+                    .filter(elem -> Objects.equals(elem.stackId, stackId))
+                    .findFirst()
+                    .orElse(null);
+
+                if (group == null) {
+                    group = new EntitlementGroup(true, stackId, installed);
+                    groups.add(group);
+                }
+
+                group.addPool(pool);
+            }
+            else {
+                EntitlementGroup group = new EntitlementGroup(false, "", installed);
+                group.addPool(pool);
+                groups.add(group);
+            }
+        }
+
+        return groups;
+    }
+
+    /*
+     * Returns the products the group covers, out of the given installed products
+     */
+    private List<String> getCommonProducts(List<String> installed, EntitlementGroup group) {
+        List<String> common = new ArrayList<>();
+
+        for (String productId : group.getProvidedProducts()) {
+            if (installed.contains(productId)) {
+                common.add(productId);
+            }
+        }
+
+        return common;
+    }
+
+    private EntitlementGroup findBestEntGroup(List<EntitlementGroup> groups, List<String> installed,
+        String role, List<String> addons) {
+
+        boolean stacked = false;
+        EntitlementGroup best = null;
+        double totalPoolQuantity = Double.MAX_VALUE;
+        double bestAvgPriority = 0;
+        int bestNumHostSpecific = 0;
+        int bestNumVirtOnly = 0;
+        boolean virtOnlyFound = false;
+        boolean hostSpecificFound = false;
+
+        for (EntitlementGroup group : groups) {
+            double groupAvgPriority = group.getAveragePriority();
+            int intersection = this.getCommonProducts(installed, group).size();
+            boolean roleNeeded = group.getCommonRole(role) != null;
+            boolean addonsNeeded = !group.getCommonAddons(addons).isEmpty();
+            long groupPoolQuantity = group.getTotalQuantity();
+            int groupNumHostSpecific = group.numMatchingPools(AutobindPool::isHostSpecific);
+            int groupNumVirtOnly = group.numMatchingPools(AutobindPool::isVirtOnly);
+
+            // Skip the group if it does not satisfy anything, or if we've found virt-only or
+            // host-specific pools and this group has fewer of them
+            if ((!roleNeeded && !addonsNeeded && intersection <= 0) ||
+                (hostSpecificFound && groupNumHostSpecific < bestNumHostSpecific) ||
+                (virtOnlyFound && groupNumVirtOnly < bestNumVirtOnly)) {
+                continue;
+            }
+
+            boolean newBestFound = false;
+            if (groupNumHostSpecific > bestNumHostSpecific) {
+                hostSpecificFound = true;
+                newBestFound = true;
+            }
+            else if (groupNumHostSpecific < bestNumHostSpecific) {
+                newBestFound = false;
+            }
+            else if (groupAvgPriority > bestAvgPriority) {
+                newBestFound = true;
+            }
+            else if (groupAvgPriority < bestAvgPriority) {
+                newBestFound = false;
+            }
+            else if (groupNumVirtOnly > bestNumVirtOnly) {
+                virtOnlyFound = true;
+                newBestFound = true;
+            }
+            else if (groupNumVirtOnly < bestNumVirtOnly) {
+                newBestFound = false;
+            }
+            else if (groupPoolQuantity < totalPoolQuantity) {
+                newBestFound = true;
+            }
+            else if (groupPoolQuantity > totalPoolQuantity) {
+                newBestFound = false;
+            }
+            else if (stacked && !group.stackable) {
+                newBestFound = true;
+            }
+            else if (roleNeeded || addonsNeeded) {
+                newBestFound = true;
+            }
+
+            if (newBestFound) {
+                stacked = group.stackable;
+                totalPoolQuantity = groupPoolQuantity;
+                bestAvgPriority = groupAvgPriority;
+                best = group;
+                bestNumHostSpecific = groupNumHostSpecific;
+                bestNumVirtOnly = groupNumVirtOnly;
+            }
+        }
+
+        return best;
+    }
+
+    private List<EntitlementGroup> getBestEntitlementGroups(List<EntitlementGroup> groups,
+        List<String> installed, String role, List<String> addons) {
+
+        List<EntitlementGroup> best = new ArrayList<>();
+
+        // Groups completing existing partial stacks are always picked
+        Map<String, Set<EntitlementDTO>> partialStacks = this.compliance.getPartialStacks();
+        if (partialStacks != null) {
+            for (String stackId : partialStacks.keySet()) {
+                for (EntitlementGroup group : groups) {
+                    if (Objects.equals(group.stackId, stackId)) {
+                        List<String> inCommon = this.getCommonProducts(installed, group);
+
+                        // Other groups do not need to handle the products this stack covers
+                        group.installed = inCommon;
+                        best.add(group);
+                        installed.removeAll(inCommon);
+                    }
+                }
+            }
+        }
+
+        EntitlementGroup group = this.findBestEntGroup(groups, installed, role, addons);
+
+        while (group != null) {
+            log.debug("New best is group with {}", group.getIdentifier());
+            best.add(group);
+
+            int installedCount = installed.size();
+            int addonCount = addons.size();
+            String priorRole = role;
+
+            // Remove the products, addons and role we just satisfied
+            List<String> productsInCommon = this.getCommonProducts(installed, group);
+            installed.removeAll(productsInCommon);
+            group.installed = productsInCommon;
+
+            List<String> addonsInCommon = group.getCommonAddons(addons);
+            addons.removeAll(addonsInCommon);
+
+            if (group.getCommonRole(role) != null) {
+                role = null;
+            }
+
+            // The rules would pick the same group forever if it satisfies nothing further
+            if (installed.size() == installedCount && addons.size() == addonCount &&
+                Objects.equals(role, priorRole)) {
+                log.warn("Group with {} does not satisfy any remaining products, roles or addons",
+                    group.getIdentifier());
+                break;
+            }
+
+            group = this.findBestEntGroup(groups, installed, role, addons);
+        }
+
+        return best;
+    }
+
+    /*
+     * Calculates the priority of a pool for the consumer, from how well it matches the consumer's
+     * system purpose and hardware. Priorities are memoized on the pools.
+     */
+    private double getPoolPriority(AutobindPool pool) {
+        if (pool.getPriority() != null) {
+            return pool.getPriority();
+        }
+
+        // Start with a default large enough that the total score cannot go below zero if every
+        // system purpose mismatch rule applies
+        double priority = 1105;
+
+        for (Map.Entry<String, Integer> entry : PRIORITY_WEIGHTS.entrySet()) {
+            String attribute = entry.getKey();
+            List<String> specified = this.getSpecifiedValues(attribute);
+            List<String> unsatisfied = difference(specified, this.getSatisfiedValues(attribute));
+            List<String> poolValues = pool.retrievePoolAttributeValues(attribute);
+
+            double nullScore = 0;
+            double matchScore = 0;
+            double mismatchScore = 0;
+
+            if (unsatisfied.isEmpty() && poolValues.isEmpty()) {
+                nullScore = 0.005;
+            }
+
+            if (!unsatisfied.isEmpty()) {
+                matchScore = (double) intersection(unsatisfied, poolValues).size() / unsatisfied.size();
+            }
+
+            if (!specified.isEmpty() && !poolValues.isEmpty()) {
+                double mismatches = difference(specified, poolValues).size();
+                mismatchScore = (mismatches / specified.size()) * -0.025;
+            }
+
+            priority += (nullScore + matchScore + mismatchScore) * entry.getValue();
+        }
+
+        // Use virt-only pools if possible, better still host-specific pools
+        if (pool.isVirtOnly()) {
+            priority += 100;
+        }
+
+        if (pool.isHostSpecific()) {
+            priority += 150;
+        }
+
+        // Prefer pools matching the consumer's hardware exactly, so we don't waste a pair of two
+        // socket subscriptions when we have a four socket subscription
+        for (String attribute : PRIORITY_ATTRIBUTES) {
+            if (!this.calculator.getComplianceAttributes().contains(attribute)) {
+                continue;
+            }
+
+            double consumerValue = this.calculator.getFact(attribute);
+            double poolValue = RulesValues.parseInt(pool.getProductAttribute(attribute));
+
+            if (consumerValue > 0 && poolValue > 0) {
+                double required = Math.ceil(consumerValue / poolValue);
+
+                // Don't count instance multiplied pools multiple times, but make sure there are
+                // enough available
+                double multi = SOCKETS_ATTRIBUTE.equals(attribute) ? pool.getInstanceMulti() : 1;
+
+                if (pool.getAvailable() / multi >= required) {
+                    poolValue *= required;
+
+                    // A maximum of 10 for an exact match, losing a half point for every additional
+                    // quantity. Doubled so that it trumps the end date comparison.
+                    priority += Math.max(0, 10 - (poolValue - consumerValue) - ((required - 1) / 2)) * 2;
+                }
+            }
+            else {
+                priority += 20;
+            }
+        }
+
+        log.debug("Final overall score for pool {}: {}", pool.getId(), priority);
+        pool.setPriority(priority);
+        return priority;
+    }
+
+    /*
+     * Returns the consumer's values for the given system purpose attribute, or its installed
+     * products for the "products" attribute. As in the rules, the consumer's addons are converted
+     * to lower case in place.
+     */
+    private List<String> getSpecifiedValues(String attribute) {
+        switch (attribute) {
+            case "products":
+                return this.consumer.getInstalledProducts() != null ?
+                    new ArrayList<>(this.consumer.getInstalledProducts()) :
+                    new ArrayList<>();
+
+            case "addons":
+                this.consumerAddons.replaceAll(RulesValues::lower);
+                return this.consumerAddons;
+
+            case "roles":
+                return lowerValue(this.consumerRole);
+
+            case "usage":
+                return lowerValue(this.consumer.getUsage());
+
+            case "support_level":
+                return lowerValue(this.consumer.getServiceLevel());
+
+            case "support_type":
+                return lowerValue(this.consumer.getServiceType());
+
+            default:
+                return new ArrayList<>();
+        }
+    }
+
+    private static List<String> lowerValue(String value) {
+        List<String> output = new ArrayList<>();
+        if (RulesValues.isTruthy(value)) {
+            output.add(RulesValues.lower(value));
+        }
+
+        return output;
+    }
+
+    /*
+     * Returns the values of the given system purpose attribute already satisfied by the consumer's
+     * entitlements, or its compliant products for the "products" attribute.
+     */
+    private List<String> getSatisfiedValues(String attribute) {
+        return this.satisfiedValues.computeIfAbsent(attribute, attr -> {
+            List<String> values = new ArrayList<>();
+
+            if ("products".equals(attr)) {
+                if (this.compliance.getCompliantProducts() != null) {
+                    values.addAll(this.compliance.getCompliantProducts().keySet());
+                }
+
+                return values;
+            }
+
+            List<Map<String, Set<EntitlementDTO>>> maps = new ArrayList<>(this.getComplianceMaps());
+            Collections.reverse(maps);
+
+            for (Map<String, Set<EntitlementDTO>> map : maps) {
+                for (Set<EntitlementDTO> ents : map.values()) {
+                    for (EntitlementDTO ent : ents) {
+                        String value = this.getEntitlement(ent).getPool().getProductAttribute(attr);
+
+                        if (RulesValues.isTruthy(value) &&
+                            values.stream().noneMatch(elem -> RulesValues.equalsIgnoreCase(elem, value))) {
+                            values.add(value);
+                        }
+                    }
+                }
+            }
+
+            values.replaceAll(RulesValues::lower);
+            return values;
+        });
+    }
+
+    /*
+     * Returns the elements of the first list, less one occurrence of each element of the second
+     */
+    private static List<String> difference(List<String> list1, List<String> list2) {
+        List<String> output = new ArrayList<>(list1);
+        for (String elem : list2) {
+            output.remove(elem);
+        }
+
+        return output;
+    }
+
+    /*
+     * Returns the elements of the first list also in the second
+     */
+    private static List<String> intersection(List<String> list1, List<String> list2) {
+        List<String> output = new ArrayList<>();
+        for (String elem : list1) {
+            if (list2.contains(elem)) {
+                output.add(elem);
+            }
+        }
+
+        return output;
+    }
+
+    /*
+     * Returns every combination of the given elements, of at most the given length
+     */
+    private static List<List<String>> getSets(List<String> list, int maxLength) {
+        List<List<String>> results = new ArrayList<>();
+
+        if (list.isEmpty()) {
+            results.add(new ArrayList<>());
+            return results;
+        }
+
+        for (List<String> set : getSets(list.subList(1, list.size()), maxLength)) {
+            if (set.size() < maxLength) {
+                List<String> extended = new ArrayList<>();
+                extended.add(list.get(0));
+                extended.addAll(set);
+                results.add(extended);
+            }
+
+            results.add(set);
+        }
+
+        return results;
+    }
+
+    /**
+     * Sorts a list with the algorithm the rules engine uses to sort arrays: insertion sort for
+     * small ranges, and median-of-three quicksort for larger ones. The sort is not stable, and the
+     * pool comparison is not strictly consistent, so any other algorithm could order pools with
+     * equal priority differently than the rules do.
+     *
+     * @param list
+     *  the list to sort
+     *
+     * @param comparator
+     *  the comparator with which to sort the list
+     */
+    static <T> void rulesSort(List<T> list, Comparator<T> comparator) {
+        if (list.size() < 2) {
+            return;
+        }
+
+        int maxDepth = (int) (Math.log10(list.size()) / Math.log10(2.0)) * 2;
+        hybridSort(list, 0, list.size() - 1, comparator, maxDepth);
+    }
+
+    private static <T> void hybridSort(List<T> list, int start, int end, Comparator<T> comparator,
+        int maxDepth) {
+
+        if (start < end) {
+            if (maxDepth == 0 || end - start <= SMALL_SORT) {
+                insertionSort(list, start, end, comparator);
+            }
+            else {
+                int pivot = partition(list, start, end, comparator);
+                hybridSort(list, start, pivot, comparator, maxDepth - 1);
+                hybridSort(list, pivot + 1, end, comparator, maxDepth - 1);
+            }
+        }
+    }
+
+    private static <T> void insertionSort(List<T> list, int start, int end, Comparator<T> comparator) {
+        for (int i = start; i <= end; ++i) {
+            T elem = list.get(i);
+            int j = i - 1;
+
+            while (j >= start && comparator.compare(list.get(j), elem) > 0) {
+                list.set(j + 1, list.get(j));
+                --j;
+            }
+
+            list.set(j + 1, elem);
+        }
+    }
+
+    private static <T> int partition(List<T> list, int start, int end, Comparator<T> comparator) {
+        int median = median(list, start, end, comparator);
+        T pivot = list.get(median);
+        Collections.swap(list, median, start);
+
+        int i = start;
+        int j = end + 1;
+
+        while (true) {
+            while (comparator.compare(list.get(++i), pivot) < 0) {
+                if (i == end) {
+                    break;
+                }
+            }
+
+            while (comparator.compare(list.get(--j), pivot) >= 0) {
+                if (j == start) {
+                    break;
+                }
+            }
+
+            if (i >= j) {
+                break;
+            }
+
+            Collections.swap(list, i, j);
+        }
+
+        Collections.swap(list, start, j);
+        return j;
+    }
+
+    private static <T> int median(List<T> list, int start, int end, Comparator<T> comparator) {
+        int middle = start + (end - start) / 2;
+        int smallest = start;
+
+        if (comparator.compare(list.get(smallest), list.get(middle)) > 0) {
+            smallest = middle;
+        }
+
+        if (comparator.compare(list.get(smallest), list.get(end)) > 0) {
+            smallest = end;
+        }
+
+        if (smallest == start) {
+            return comparator.compare(list.get(middle), list.get(end)) < 0 ? middle : end;
+        }
+
+        if (smallest == middle) {
+            return comparator.compare(list.get(start), list.get(end)) < 0 ? start : end;
+        }
+
+        return comparator.compare(list.get(start), list.get(middle)) < 0 ? start : middle;
+    }
+}
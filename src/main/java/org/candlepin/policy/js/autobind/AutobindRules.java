@@ -14,12 +14,15 @@
  */
 package org.candlepin.policy.js.autobind;
 
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
 import org.candlepin.dto.rules.v1.ConsumerDTO;
 import org.candlepin.dto.rules.v1.GuestIdDTO;
 import org.candlepin.dto.rules.v1.OwnerDTO;
 import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.metrics.CandlepinMeters;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCapability;
 import org.candlepin.model.ConsumerInstalledProduct;
@@ -36,23 +39,28 @@ import org.candlepin.model.ProductCurator;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsonJsContext;
 import org.candlepin.policy.js.RuleExecutionException;
+import org.candlepin.policy.js.RulesJsonCache;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.policy.js.compliance.ComplianceStatus;
 import org.candlepin.util.X509ExtensionUtil;
 
 import com.google.inject.Inject;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 import org.mozilla.javascript.RhinoException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.stream.Stream;
+import java.util.stream.Collectors;
 
 
 /**
@@ -62,6 +70,42 @@ import java.util.stream.Stream;
  */
 public class AutobindRules {
 
+    /**
+     * The engines which may be used to select pools
+     */
+    public enum Engine {
+        /** The select_pools function of the rules */
+        JS,
+
+        /** The native port of the select_pools function */
+        JAVA,
+
+        /** Both engines, using the selection of the rules and reporting any difference */
+        VERIFY;
+
+        /**
+         * Parses an engine from its configured name.
+         *
+         * @param name
+         *  the name of the engine, case-insensitive
+         *
+         * @throws IllegalArgumentException
+         *  if the name does not match any engine
+         *
+         * @return
+         *  the engine matching the given name
+         */
+        public static Engine parse(String name) {
+            for (Engine engine : values()) {
+                if (engine.name().equalsIgnoreCase(name != null ? name.trim() : null)) {
+                    return engine;
+                }
+            }
+
+            throw new IllegalArgumentException("Unknown autobind engine: " + name);
+        }
+    }
+
     protected static final String SELECT_POOL_FUNCTION = "select_pools";
     private static Logger log = LoggerFactory.getLogger(AutobindRules.class);
 
@@ -71,11 +115,15 @@ public class AutobindRules {
     private ConsumerTypeCurator consumerTypeCurator;
     private OwnerCurator ownerCurator;
     private ModelTranslator translator;
+    private RulesJsonCache jsonCache;
+    private Engine engine;
+    private Counter mismatches;
 
     @Inject
     public AutobindRules(JsRunner jsRules, ProductCurator productCurator,
         ConsumerTypeCurator consumerTypeCurator, OwnerCurator ownerCurator, RulesObjectMapper mapper,
-        ModelTranslator translator) {
+        ModelTranslator translator, RulesJsonCache jsonCache, Configuration config,
+        MeterRegistry meterRegistry) {
 
         this.jsRules = jsRules;
         this.productCurator = productCurator;
@@ -83,8 +131,13 @@ public class AutobindRules {
         this.consumerTypeCurator = consumerTypeCurator;
         this.mapper = mapper;
         this.translator = translator;
+        this.jsonCache = jsonCache;
+        this.engine = Engine.parse(config.getString(ConfigProperties.AUTOBIND_ENGINE));
+        this.mismatches = meterRegistry.counter(CandlepinMeters.AUTOBIND_ENGINE_MISMATCHES);
 
-        jsRules.init("autobind_name_space");
+        if (this.engine != Engine.JAVA) {
+            jsRules.init("autobind_name_space");
+        }
     }
 
     public List<PoolQuantity> selectBestPools(Consumer consumer, String[] productIds,
@@ -118,17 +171,10 @@ public class AutobindRules {
             }
         }
 
-        List<PoolDTO> poolDTOs = new ArrayList<>();
-        for (Pool pool : pools) {
-            poolDTOs.add(this.translator.translate(pool, PoolDTO.class));
-        }
-
-        Stream<GuestIdDTO> guestIdStream = consumer.getGuestIds() == null ? Stream.empty() :
+        List<GuestIdDTO> guestIds = consumer.getGuestIds() == null ? Collections.emptyList() :
             consumer.getGuestIds().stream()
-            .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
-
-        // Provide objects for the script:
-        JsonJsContext args = new JsonJsContext(mapper);
+            .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class))
+            .collect(Collectors.toList());
 
         ConsumerDTO consumerDTO = this.translator.translate(consumer, ConsumerDTO.class);
 
@@ -141,34 +187,50 @@ public class AutobindRules {
             }
         }
 
-        args.put("consumer", consumerDTO);
-        Owner owner = ownerCurator.findOwnerById(consumer.getOwnerId());
-        args.put("owner", this.translator.translate(owner, OwnerDTO.class));
-        args.put("serviceLevelOverride", serviceLevelOverride);
-        args.put("pools", poolDTOs.toArray());
-        args.put("products", productIds);
-        args.put("log", log, false);
-        args.put("compliance", this.translator.translate(compliance, ComplianceStatusDTO.class));
-        args.put("exemptList", exemptLevels);
-        args.put("considerDerived", considerDerived);
-        args.put("guestIds", guestIdStream);
-
-        // Convert the JSON returned into a Map object:
+        ComplianceStatusDTO complianceDTO = this.translator.translate(compliance, ComplianceStatusDTO.class);
         Map<String, Integer> result = null;
-        try {
-            String json = jsRules.invokeMethod(SELECT_POOL_FUNCTION, args);
-            result = mapper.toObject(json, Map.class);
-            if (log.isDebugEnabled()) {
-                log.debug("Executed javascript rule: {}", SELECT_POOL_FUNCTION);
-            }
-        }
-        catch (NoSuchMethodException e) {
-            log.warn("No method found: {}", SELECT_POOL_FUNCTION);
-            log.warn("Resorting to default pool selection behavior.");
-            return selectBestPoolDefault(pools);
+
+        if (this.engine == Engine.JAVA) {
+            result = this.selectPoolsNatively(consumerDTO, complianceDTO, guestIds, pools, productIds,
+                considerDerived);
         }
-        catch (RhinoException e) {
-            throw new RuleExecutionException(e);
+        else {
+            // Provide objects for the script:
+            JsonJsContext args = new JsonJsContext(mapper);
+
+            args.put("consumer", consumerDTO);
+            Owner owner = ownerCurator.findOwnerById(consumer.getOwnerId());
+            args.put("owner", this.translator.translate(owner, OwnerDTO.class));
+            args.put("serviceLevelOverride", serviceLevelOverride);
+            args.put("pools", this.jsonCache.getPools(pools));
+            args.put("products", productIds);
+            args.put("log", log, false);
+            args.put("compliance", complianceDTO);
+            args.put("exemptList", exemptLevels);
+            args.put("considerDerived", considerDerived);
+            args.put("guestIds", guestIds);
+
+            // Convert the JSON returned into a Map object:
+            try {
+                String json = jsRules.invokeMethod(SELECT_POOL_FUNCTION, args);
+                result = mapper.toObject(json, Map.class);
+                if (log.isDebugEnabled()) {
+                    log.debug("Executed javascript rule: {}", SELECT_POOL_FUNCTION);
+                }
+            }
+            catch (NoSuchMethodException e) {
+                log.warn("No method found: {}", SELECT_POOL_FUNCTION);
+                log.warn("Resorting to default pool selection behavior.");
+                return selectBestPoolDefault(pools);
+            }
+            catch (RhinoException e) {
+                throw new RuleExecutionException(e);
+            }
+
+            if (this.engine == Engine.VERIFY) {
+                this.verifySelection(consumer, result, consumerDTO, complianceDTO, guestIds, pools,
+                    productIds, considerDerived);
+            }
         }
 
         if (pools.size() > 0 && (result == null || result.isEmpty())) {
@@ -191,6 +253,48 @@ public class AutobindRules {
         return bestPools;
     }
 
+    /*
+     * Selects pools with the native port of the select_pools rules function. The DTOs are the same
+     * provided to the rules, so both engines see the same data.
+     */
+    private Map<String, Integer> selectPoolsNatively(ConsumerDTO consumer, ComplianceStatusDTO compliance,
+        List<GuestIdDTO> guestIds, List<Pool> pools, String[] productIds, boolean considerDerived) {
+
+        List<PoolDTO> poolDTOs = new ArrayList<>(pools.size());
+        for (Pool pool : pools) {
+            poolDTOs.add(this.translator.translate(pool, PoolDTO.class));
+        }
+
+        return new AutobindPoolSelector(consumer, compliance, guestIds, poolDTOs, productIds, considerDerived)
+            .selectPools();
+    }
+
+    /*
+     * Compares the selection of the rules with that of the native engine, logging and counting any
+     * difference. Failures of the native engine are reported the same way, and never fail the bind.
+     */
+    private void verifySelection(Consumer consumer, Map<String, Integer> expected, ConsumerDTO consumerDTO,
+        ComplianceStatusDTO complianceDTO, List<GuestIdDTO> guestIds, List<Pool> pools, String[] productIds,
+        boolean considerDerived) {
+
+        Map<String, Integer> selected = expected != null ? expected : Collections.emptyMap();
+
+        try {
+            Map<String, Integer> actual = this.selectPoolsNatively(consumerDTO, complianceDTO, guestIds,
+                pools, productIds, considerDerived);
+
+            if (!selected.equals(actual)) {
+                this.mismatches.increment();
+                log.warn("Autobind engines selected different pools for consumer {}; rules: {}, native: {}",
+                    consumer.getUuid(), selected, actual);
+            }
+        }
+        catch (RuntimeException e) {
+            this.mismatches.increment();
+            log.warn("Native autobind engine failed for consumer {}", consumer.getUuid(), e);
+        }
+    }
+
     private void logProducts(String message, String[] productIds, Consumer consumer, boolean debug) {
         List<String> consumerProducts = new LinkedList<>();
         if (consumer != null && consumer.getInstalledProducts() != null) {
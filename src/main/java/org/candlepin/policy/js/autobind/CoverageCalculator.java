@@ -0,0 +1,621 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.autobind;
+
+import static org.candlepin.policy.js.autobind.AutobindPool.ARCH_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.CORES_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.GUEST_LIMIT_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.INSTANCE_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.RAM_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.REQUIRES_HOST_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.SOCKETS_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.STACKING_ID_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.STORAGE_BAND_ATTRIBUTE;
+import static org.candlepin.policy.js.autobind.AutobindPool.VCPU_ATTRIBUTE;
+
+import org.candlepin.dto.rules.v1.ConsumerDTO;
+import org.candlepin.dto.rules.v1.GuestIdDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+
+
+/**
+ * Determines how well entitlements, or stacks of entitlements, cover a consumer, using the same
+ * attribute accumulation and coverage conditions as the compliance rules.
+ */
+class CoverageCalculator {
+
+    public static final String SOCKET_FACT = "cpu.cpu_socket(s)";
+    public static final String RAM_FACT = "memory.memtotal";
+    public static final String CORES_FACT = "cpu.core(s)_per_socket";
+    public static final String ARCH_FACT = "uname.machine";
+    public static final String IS_VIRT_GUEST_FACT = "virt.is_guest";
+    public static final String STORAGE_BAND_USAGE = "band.storage.usage";
+
+    private static final Map<String, String> ATTRIBUTES_TO_CONSUMER_FACTS = Map.of(
+        SOCKETS_ATTRIBUTE, SOCKET_FACT,
+        CORES_ATTRIBUTE, CORES_FACT,
+        ARCH_ATTRIBUTE, ARCH_FACT,
+        RAM_ATTRIBUTE, RAM_FACT,
+        VCPU_ATTRIBUTE, CORES_FACT,
+        STORAGE_BAND_ATTRIBUTE, STORAGE_BAND_USAGE);
+
+    private static final List<String> PHYSICAL_ATTRIBUTES = List.of(SOCKETS_ATTRIBUTE, CORES_ATTRIBUTE,
+        RAM_ATTRIBUTE, ARCH_ATTRIBUTE, GUEST_LIMIT_ATTRIBUTE, STORAGE_BAND_ATTRIBUTE);
+
+    private static final List<String> VIRT_ATTRIBUTES = List.of(VCPU_ATTRIBUTE, RAM_ATTRIBUTE,
+        ARCH_ATTRIBUTE, GUEST_LIMIT_ATTRIBUTE, STORAGE_BAND_ATTRIBUTE);
+
+    private static final List<String> UNCHECKED_WHEN_HOST_RESTRICTED = List.of(RAM_ATTRIBUTE, VCPU_ATTRIBUTE);
+
+    // Values a stack cannot accumulate beyond before the rules' integer conversions wrap around
+    private static final double INT32_LIMIT = Integer.MAX_VALUE;
+
+    /**
+     * The coverage of a consumer by an entitlement or stack.
+     */
+    public static class Coverage {
+        private final List<String> reasons;
+
+        public Coverage(List<String> reasons) {
+            this.reasons = reasons;
+        }
+
+        public boolean isCovered() {
+            return this.reasons.isEmpty();
+        }
+
+        /**
+         * Fetches the attributes which are not covered, in the order they are checked.
+         *
+         * @return
+         *  a list of the attributes which are not covered
+         */
+        public List<String> getReasons() {
+            return this.reasons;
+        }
+    }
+
+    /**
+     * Tracks the values accumulated by the entitlements of a stack, or of a single entitlement.
+     * An attribute is enforced once a value has been accumulated for it.
+     */
+    private class Tracker {
+        private final boolean stack;
+        private final List<String> entitlementIds;
+        private final Map<String, Double> values;
+        private List<String> arches;
+        private String hostRestricted;
+        private boolean empty;
+
+        public Tracker(boolean stack) {
+            this.stack = stack;
+            this.entitlementIds = new ArrayList<>();
+            this.values = new HashMap<>();
+            this.empty = true;
+        }
+
+        public boolean enforces(String attribute) {
+            // Guests are not subjected to ram and vcpu limitations when using a host-restricted pool
+            if (this.hostRestricted != null && guest && UNCHECKED_WHEN_HOST_RESTRICTED.contains(attribute)) {
+                return false;
+            }
+
+            return ARCH_ATTRIBUTE.equals(attribute) ?
+                this.arches != null :
+                this.values.containsKey(attribute);
+        }
+
+        public void updateFromPool(AutobindPool pool, long quantity) {
+            if (quantity > 0) {
+                this.empty = false;
+            }
+
+            String host = pool.getAttribute(REQUIRES_HOST_ATTRIBUTE);
+            if (RulesValues.isTruthy(host)) {
+                this.hostRestricted = host;
+            }
+
+            for (String attribute : complianceAttributes) {
+                String poolValue = pool.getProductAttribute(attribute);
+                if (poolValue == null) {
+                    continue;
+                }
+
+                if (ARCH_ATTRIBUTE.equals(attribute)) {
+                    List<String> stackValue = this.enforces(attribute) ? this.arches : null;
+                    this.arches = stackValue != null ? stackValue : new ArrayList<>();
+                    this.arches.add(poolValue);
+                    continue;
+                }
+
+                Double stackValue = this.enforces(attribute) ? this.values.get(attribute) : null;
+                this.values.put(attribute, accumulate(attribute, stackValue, poolValue, pool, quantity));
+            }
+        }
+
+        public void updateFromEntitlement(AutobindEntitlement entitlement) {
+            // The rules check for previously added entitlements with the "in" operator, which tests
+            // the IDs against the indexes of the ID array rather than its contents.
+            if (isArrayIndex(entitlement.getId(), this.entitlementIds.size())) {
+                return;
+            }
+
+            this.empty = false;
+            this.entitlementIds.add(entitlement.getId());
+
+            // Non-stacked entitlements only cover a consumer as a single entitlement
+            long quantity = entitlement.getQuantity();
+            if (!entitlement.getPool().isStacked() && quantity > 1) {
+                quantity = 1;
+            }
+
+            this.updateFromPool(entitlement.getPool(), quantity);
+        }
+    }
+
+    private final Map<String, String> facts;
+    private final String consumerType;
+    private final boolean guest;
+    private final List<String> complianceAttributes;
+    private final int activeGuests;
+    private final Map<String, Double> factValues;
+
+    /**
+     * Creates a new coverage calculator for the given consumer.
+     *
+     * @param consumer
+     *  the consumer for which to calculate coverage
+     *
+     * @param guestIds
+     *  the guests of the consumer, used to determine its guest limit coverage
+     */
+    public CoverageCalculator(ConsumerDTO consumer, Collection<GuestIdDTO> guestIds) {
+        this.facts = consumer.getFacts() != null ? consumer.getFacts() : Collections.emptyMap();
+        this.consumerType = consumer.getType() != null ? consumer.getType().getLabel() : null;
+        this.guest = RulesValues.isTruthy(this.facts.get(IS_VIRT_GUEST_FACT)) &&
+            RulesValues.equalsIgnoreCase("true", this.facts.get(IS_VIRT_GUEST_FACT));
+        this.complianceAttributes = this.guest ? VIRT_ATTRIBUTES : PHYSICAL_ATTRIBUTES;
+        this.factValues = new HashMap<>();
+
+        int active = 0;
+        if (guestIds != null) {
+            for (GuestIdDTO guestId : guestIds) {
+                Map<String, String> attributes = guestId.getAttributes();
+
+                // Only libvirt guests report whether or not they are active
+                if (attributes != null && "libvirt".equals(attributes.get("virtWhoType")) &&
+                    "1".equals(attributes.get("active"))) {
+                    ++active;
+                }
+            }
+        }
+
+        this.activeGuests = active;
+    }
+
+    private static boolean isArrayIndex(String id, int length) {
+        if (id == null || id.isEmpty() || id.length() > 9 || (id.length() > 1 && id.charAt(0) == '0')) {
+            return false;
+        }
+
+        for (int i = 0; i < id.length(); ++i) {
+            if (!Character.isDigit(id.charAt(i)) || id.charAt(i) > '9') {
+                return false;
+            }
+        }
+
+        return Integer.parseInt(id) < length;
+    }
+
+    private static double accumulate(String attribute, Double stackValue, String poolValue,
+        AutobindPool pool, long quantity) {
+
+        switch (attribute) {
+            case GUEST_LIMIT_ATTRIBUTE:
+                // The value does not matter, the limit only needs to be enforced
+                return -1;
+
+            case SOCKETS_ATTRIBUTE:
+                // Use the lowest quantity evenly divisible by the instance multiplier
+                double increment = RulesValues.parseInt(pool.getProductAttribute(INSTANCE_ATTRIBUTE));
+                increment = RulesValues.isTruthy(increment) ? increment : 1;
+
+                double adjusted = quantity - (quantity % increment);
+                return RulesValues.toInt32(stackValue) +
+                    (RulesValues.parseInt(poolValue) * adjusted) / increment;
+
+            default:
+                return RulesValues.toInt32(stackValue) + RulesValues.parseInt(poolValue) * quantity;
+        }
+    }
+
+    /**
+     * Checks whether a product supporting the given architectures can be used by a consumer with
+     * the given architecture.
+     *
+     * @param productArch
+     *  a comma-separated list of the architectures supported by the product, or null if the product
+     *  supports all architectures
+     *
+     * @param consumerArch
+     *  the architecture of the consumer, or null if it is unknown
+     *
+     * @param consumerType
+     *  the consumer type label; consumers which are not systems and do not report an architecture
+     *  match any product
+     *
+     * @return
+     *  true if the architectures match; false otherwise
+     */
+    public static boolean architectureMatches(String productArch, String consumerArch, String consumerType) {
+        if (!RulesValues.isTruthy(consumerArch) && !"system".equals(consumerType)) {
+            return true;
+        }
+
+        if (productArch == null) {
+            return true;
+        }
+
+        List<String> supported = new ArrayList<>(Arrays.asList(
+            productArch.toUpperCase(Locale.ROOT).split(",", -1)));
+
+        if (supported.contains("X86")) {
+            supported.addAll(List.of("I386", "I586", "I686"));
+        }
+
+        return supported.contains("ALL") ||
+            (RulesValues.isTruthy(consumerArch) &&
+            supported.contains(consumerArch.toUpperCase(Locale.ROOT)));
+    }
+
+    public boolean isGuest() {
+        return this.guest;
+    }
+
+    /**
+     * Fetches the attributes which affect compliance for the consumer, in the order they are
+     * checked.
+     *
+     * @return
+     *  the compliance attributes of the consumer
+     */
+    public List<String> getComplianceAttributes() {
+        return this.complianceAttributes;
+    }
+
+    /**
+     * Fetches the architecture fact of the consumer.
+     *
+     * @return
+     *  the architecture of the consumer, or null if it does not report one
+     */
+    public String getConsumerArch() {
+        return this.facts.get(ARCH_FACT);
+    }
+
+    /**
+     * Calculates the value of the consumer fact compared against the given product attribute.
+     * Missing facts count as 1, and facts which are not numeric as NaN.
+     *
+     * @param attribute
+     *  the product attribute for which to calculate the consumer's value
+     *
+     * @return
+     *  the consumer's value for the attribute
+     */
+    public double getFact(String attribute) {
+        Double value = this.factValues.get(attribute);
+
+        if (value == null) {
+            switch (attribute) {
+                case RAM_ATTRIBUTE:
+                    // RAM is reported in kilobytes, but products specify it in gigabytes
+                    String ram = this.getRawFact(attribute);
+                    double gigabytes = (ram != null ? RulesValues.parseInt(ram) : 1) / 1024 / 1024;
+                    value = Double.isNaN(gigabytes) ? gigabytes : (double) Math.round(gigabytes);
+                    break;
+
+                case CORES_ATTRIBUTE:
+                    // The consumer reports cores per socket
+                    value = this.getDefaultFact(attribute) * this.getFact(SOCKETS_ATTRIBUTE);
+                    break;
+
+                case VCPU_ATTRIBUTE:
+                    value = this.getFact(CORES_ATTRIBUTE);
+                    break;
+
+                case GUEST_LIMIT_ATTRIBUTE:
+                    value = (double) this.activeGuests;
+                    break;
+
+                default:
+                    value = this.getDefaultFact(attribute);
+            }
+
+            this.factValues.put(attribute, value);
+        }
+
+        return value;
+    }
+
+    private String getRawFact(String attribute) {
+        String fact = ATTRIBUTES_TO_CONSUMER_FACTS.get(attribute);
+        String value = fact != null ? this.facts.get(fact) : null;
+
+        return RulesValues.isTruthy(value) ? value : null;
+    }
+
+    private double getDefaultFact(String attribute) {
+        String value = this.getRawFact(attribute);
+        return value != null ? RulesValues.toNumber(value) : 1;
+    }
+
+    /**
+     * Determines the coverage of the consumer by the stack with the given stacking ID, formed by
+     * the stacked entitlements in the given list.
+     *
+     * @param stackId
+     *  the stacking ID of the stack
+     *
+     * @param entitlements
+     *  the entitlements to consider; entitlements not in the stack only contribute to global
+     *  attributes
+     *
+     * @return
+     *  the coverage of the consumer by the stack
+     */
+    public Coverage getStackCoverage(String stackId, List<AutobindEntitlement> entitlements) {
+        Tracker tracker = new Tracker(true);
+
+        for (AutobindEntitlement entitlement : entitlements) {
+            AutobindPool pool = entitlement.getPool();
+            String poolStackId = pool.getProductAttribute(STACKING_ID_ATTRIBUTE);
+
+            if (pool.isStacked() && Objects.equals(stackId, poolStackId)) {
+                tracker.updateFromEntitlement(entitlement);
+            }
+        }
+
+        return this.getCoverage(tracker, entitlements);
+    }
+
+    /**
+     * Determines the coverage of the consumer by a single entitlement.
+     *
+     * @param entitlement
+     *  the entitlement for which to determine coverage
+     *
+     * @param entitlements
+     *  the entitlements to consider for global attributes
+     *
+     * @return
+     *  the coverage of the consumer by the entitlement
+     */
+    public Coverage getEntitlementCoverage(AutobindEntitlement entitlement,
+        List<AutobindEntitlement> entitlements) {
+
+        Tracker tracker = new Tracker(false);
+        tracker.updateFromEntitlement(entitlement);
+
+        return this.getCoverage(tracker, entitlements);
+    }
+
+    /**
+     * Determines the quantity of entitlements needed from a stackable pool to cover the consumer,
+     * without considering any other entitlements.
+     *
+     * @param pool
+     *  the pool for which to determine the quantity
+     *
+     * @return
+     *  the quantity of entitlements needed to cover the consumer
+     */
+    public long getQuantityToCoverStack(AutobindPool pool) {
+        // Stacking arch or guest limit does not affect the quantity needed to cover the consumer
+        List<String> attributes = new ArrayList<>();
+        for (String attribute : this.complianceAttributes) {
+            if (!ARCH_ATTRIBUTE.equals(attribute) && !GUEST_LIMIT_ATTRIBUTE.equals(attribute) &&
+                pool.hasProductAttribute(attribute)) {
+                attributes.add(attribute);
+            }
+        }
+
+        long increment = 1;
+        if (pool.hasProductAttribute(INSTANCE_ATTRIBUTE) && !this.guest) {
+            double multiplier = RulesValues.parseInt(pool.getProductAttribute(INSTANCE_ATTRIBUTE));
+            increment = multiplier >= 1 ? (long) multiplier : 1;
+        }
+
+        // Start from a tracker enforcing the pool's attributes, but without any quantity
+        Tracker tracker = new Tracker(true);
+        tracker.updateFromPool(pool, 0);
+
+        List<AutobindEntitlement> entitlements = Collections.emptyList();
+        long quantity = 0;
+        boolean covered;
+
+        do {
+            // An empty stack needs at least one entitlement, even if nothing is enforced
+            tracker.updateFromPool(pool, increment);
+            quantity += increment;
+
+            List<String> reasons = this.getCoverage(tracker, entitlements).getReasons();
+            covered = Collections.disjoint(reasons, attributes);
+
+            // Unlimited pools may never cover attributes the pool cannot add to
+            if (!covered && pool.isUnlimited() && !this.canCover(pool, reasons, attributes)) {
+                break;
+            }
+        }
+        while (!covered && (quantity + increment <= pool.getAvailable() || pool.isUnlimited()));
+
+        return quantity;
+    }
+
+    private boolean canCover(AutobindPool pool, List<String> reasons, List<String> attributes) {
+        for (String attribute : reasons) {
+            if (attributes.contains(attribute)) {
+                double poolValue = RulesValues.parseInt(pool.getProductAttribute(attribute));
+                double consumerValue = this.getFact(attribute);
+
+                if (!(poolValue > 0) || !(consumerValue < INT32_LIMIT)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether adding more of the given pool to a stack can only increase the values the
+     * stack accumulates, without the accumulated values reaching the limits of the rules' integer
+     * conversions. When this holds, the coverage of a stack only ever improves as the quantity of
+     * the pool grows.
+     *
+     * @param pool
+     *  the pool for which to check accumulation
+     *
+     * @param bound
+     *  an upper bound of the values the stack could accumulate for any attribute
+     *
+     * @return
+     *  true if coverage grows monotonically with the quantity of the pool; false otherwise
+     */
+    public boolean isMonotonic(AutobindPool pool, double bound) {
+        if (!(bound < INT32_LIMIT)) {
+            return false;
+        }
+
+        for (String attribute : this.complianceAttributes) {
+            if (ARCH_ATTRIBUTE.equals(attribute) || GUEST_LIMIT_ATTRIBUTE.equals(attribute)) {
+                continue;
+            }
+
+            double value = RulesValues.parseInt(pool.getProductAttribute(attribute));
+            if (value < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Estimates the largest value the given entitlements could accumulate for any attribute.
+     *
+     * @param entitlements
+     *  the entitlements for which to estimate accumulated values
+     *
+     * @return
+     *  an upper bound of the accumulated values
+     */
+    public double getAccumulationBound(List<AutobindEntitlement> entitlements) {
+        double bound = 0;
+
+        for (String attribute : this.complianceAttributes) {
+            if (ARCH_ATTRIBUTE.equals(attribute) || GUEST_LIMIT_ATTRIBUTE.equals(attribute)) {
+                continue;
+            }
+
+            double total = 0;
+            for (AutobindEntitlement entitlement : entitlements) {
+                double value = RulesValues.parseInt(entitlement.getPool().getProductAttribute(attribute));
+                if (!Double.isNaN(value)) {
+                    total += Math.abs(value) * Math.abs(entitlement.getQuantity());
+                }
+            }
+
+            bound = Math.max(bound, total);
+        }
+
+        return bound;
+    }
+
+    private Coverage getCoverage(Tracker tracker, List<AutobindEntitlement> entitlements) {
+        // Global attributes are calculated from every entitlement, not just those in the stack
+        boolean limited = this.complianceAttributes.contains(GUEST_LIMIT_ATTRIBUTE);
+
+        if (limited && tracker.enforces(GUEST_LIMIT_ATTRIBUTE)) {
+            tracker.values.put(GUEST_LIMIT_ATTRIBUTE, this.getGlobalGuestLimit(entitlements));
+        }
+
+        List<String> reasons = new ArrayList<>();
+        for (String attribute : this.complianceAttributes) {
+            if (tracker.enforces(attribute) && !this.isCovered(tracker, attribute)) {
+                reasons.add(attribute);
+            }
+        }
+
+        return new Coverage(reasons);
+    }
+
+    private Double getGlobalGuestLimit(List<AutobindEntitlement> entitlements) {
+        Double total = null;
+
+        for (AutobindEntitlement entitlement : entitlements) {
+            AutobindPool pool = entitlement.getPool();
+
+            if (pool.hasProductAttribute(GUEST_LIMIT_ATTRIBUTE)) {
+                if (total == null) {
+                    total = 0.0;
+                }
+
+                double value = RulesValues.parseInt(pool.getProductAttribute(GUEST_LIMIT_ATTRIBUTE));
+                if (value == -1) {
+                    return value;
+                }
+
+                if (value > total) {
+                    total = value;
+                }
+            }
+        }
+
+        return total;
+    }
+
+    private boolean isCovered(Tracker tracker, String attribute) {
+        if (ARCH_ATTRIBUTE.equals(attribute)) {
+            for (String arch : tracker.arches) {
+                if (!architectureMatches(arch, this.getConsumerArch(), this.consumerType)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        Double value = tracker.values.get(attribute);
+        double consumerValue = this.getFact(attribute);
+
+        // A guest limit of -1 is unlimited
+        if (GUEST_LIMIT_ATTRIBUTE.equals(attribute) && value != null && value == -1) {
+            return true;
+        }
+
+        return RulesValues.parseInt(value) >= consumerValue;
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.autobind;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+
+
+/**
+ * Reproduces the JavaScript value conversions the autobind rules apply to attribute and fact
+ * values, so the native selection engine compares values exactly as the rules do. Numeric results
+ * are doubles, with NaN standing in for values which cannot be converted.
+ */
+final class RulesValues {
+
+    private static final Pattern DECIMAL = Pattern.compile(
+        "[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+    private static final Pattern HEX = Pattern.compile("0[xX][0-9a-fA-F]+");
+
+    private RulesValues() {
+        // Intentionally left empty
+    }
+
+    /**
+     * Converts a string to a number, as the JavaScript Number function would.
+     *
+     * @param value
+     *  the string to convert
+     *
+     * @return
+     *  the numeric value of the string, or NaN if the string is not numeric
+     */
+    public static double toNumber(String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return 0;
+        }
+
+        if (DECIMAL.matcher(trimmed).matches()) {
+            return Double.parseDouble(trimmed);
+        }
+
+        if (HEX.matcher(trimmed).matches()) {
+            return Long.parseLong(trimmed.substring(2), 16);
+        }
+
+        switch (trimmed) {
+            case "Infinity":
+            case "+Infinity":
+                return Double.POSITIVE_INFINITY;
+
+            case "-Infinity":
+                return Double.NEGATIVE_INFINITY;
+
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Parses the leading integer of a string, as the JavaScript parseInt function would.
+     *
+     * @param value
+     *  the string to parse
+     *
+     * @return
+     *  the leading integer of the string, or NaN if the string does not begin with an integer
+     */
+    public static double parseInt(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+
+        String trimmed = value.trim();
+        int offset = 0;
+        boolean negative = false;
+
+        if (trimmed.startsWith("-") || trimmed.startsWith("+")) {
+            negative = trimmed.charAt(0) == '-';
+            offset = 1;
+        }
+
+        int radix = 10;
+        if (trimmed.startsWith("0x", offset) || trimmed.startsWith("0X", offset)) {
+            radix = 16;
+            offset += 2;
+        }
+
+        double result = 0;
+        int digits = 0;
+
+        for (int i = offset; i < trimmed.length(); ++i) {
+            int digit = Character.digit(trimmed.charAt(i), radix);
+            if (digit < 0 || trimmed.charAt(i) > 0x7f) {
+                break;
+            }
+
+            result = result * radix + digit;
+            ++digits;
+        }
+
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        return negative ? -result : result;
+    }
+
+    /**
+     * Truncates a number to its integer part, as the JavaScript parseInt function does for values
+     * which are already numeric.
+     *
+     * @param value
+     *  the number to truncate, or null
+     *
+     * @return
+     *  the integer part of the number, or NaN if the value is null or not finite
+     */
+    public static double parseInt(Double value) {
+        if (value == null || value.isNaN() || value.isInfinite()) {
+            return Double.NaN;
+        }
+
+        return value < 0 ? Math.ceil(value) : Math.floor(value);
+    }
+
+    /**
+     * Converts a number to a 32-bit integer, as the JavaScript bitwise operators do. Null and
+     * non-finite values convert to zero.
+     *
+     * @param value
+     *  the number to convert, or null
+     *
+     * @return
+     *  the number as a 32-bit integer
+     */
+    public static double toInt32(Double value) {
+        if (value == null || value.isNaN() || value.isInfinite()) {
+            return 0;
+        }
+
+        return (int) (long) value.doubleValue();
+    }
+
+    /**
+     * Checks whether a number is truthy, as it would be in a JavaScript condition.
+     *
+     * @param value
+     *  the number to check
+     *
+     * @return
+     *  true if the number is neither zero nor NaN; false otherwise
+     */
+    public static boolean isTruthy(double value) {
+        return value != 0 && !Double.isNaN(value);
+    }
+
+    /**
+     * Checks whether a string is truthy, as it would be in a JavaScript condition.
+     *
+     * @param value
+     *  the string to check
+     *
+     * @return
+     *  true if the string is neither null nor empty; false otherwise
+     */
+    public static boolean isTruthy(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    /**
+     * Compares two strings ignoring case, as the rules' equalsIgnoreCase utility does. Null is
+     * only equal to null.
+     *
+     * @param str1
+     *  the first string to compare
+     *
+     * @param str2
+     *  the second string to compare
+     *
+     * @return
+     *  true if the strings are equal, ignoring case; false otherwise
+     */
+    public static boolean equalsIgnoreCase(String str1, String str2) {
+        if (str1 == null || str2 == null) {
+            return str1 == str2;
+        }
+
+        return lower(str1).equals(lower(str2));
+    }
+
+    /**
+     * Converts a string to lower case without regard to the default locale, as the JavaScript
+     * toLowerCase function does.
+     *
+     * @param value
+     *  the string to convert
+     *
+     * @return
+     *  the lower case string
+     */
+    public static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
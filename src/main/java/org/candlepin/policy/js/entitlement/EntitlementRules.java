@@ -23,8 +23,6 @@ import org.candlepin.controller.PoolManager;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.rules.v1.ConsumerDTO;
 import org.candlepin.dto.rules.v1.EntitlementDTO;
-import org.candlepin.dto.rules.v1.PoolDTO;
-import org.candlepin.dto.rules.v1.PoolQuantityDTO;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.ConsumerType;
@@ -41,6 +39,7 @@ import org.candlepin.policy.ValidationWarning;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsonJsContext;
 import org.candlepin.policy.js.RuleExecutionException;
+import org.candlepin.policy.js.RulesJsonCache;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.policy.js.pool.PoolHelper;
 import org.candlepin.util.DateSource;
@@ -88,6 +87,7 @@ public class EntitlementRules implements Enforcer {
     private EventSink eventSink;
     private EventFactory eventFactory;
     private ModelTranslator translator;
+    private RulesJsonCache jsonCache;
 
     private static final String POST_PREFIX = "post_";
     private static final long UNLIMITED_QUANTITY = -1L;
@@ -96,7 +96,8 @@ public class EntitlementRules implements Enforcer {
     public EntitlementRules(DateSource dateSource,
         JsRunner jsRules, I18n i18n, Configuration config, ConsumerCurator consumerCurator,
         ConsumerTypeCurator consumerTypeCurator, ProductCurator productCurator, RulesObjectMapper mapper,
-        EventSink eventSink, EventFactory eventFactory, ModelTranslator translator) {
+        EventSink eventSink, EventFactory eventFactory, ModelTranslator translator,
+        RulesJsonCache jsonCache) {
 
         this.jsRules = jsRules;
         this.dateSource = dateSource;
@@ -109,6 +110,7 @@ public class EntitlementRules implements Enforcer {
         this.eventSink = eventSink;
         this.eventFactory = eventFactory;
         this.translator = translator;
+        this.jsonCache = jsonCache;
 
         jsRules.init("entitlement_name_space");
     }
@@ -156,16 +158,12 @@ public class EntitlementRules implements Enforcer {
             consumer.getEntitlements().stream()
                 .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
 
-        Stream<PoolQuantityDTO> quantityStream = entitlementPoolQuantities == null ? Stream.empty() :
-            entitlementPoolQuantities.stream()
-                .map(this.translator.getStreamMapper(PoolQuantity.class, PoolQuantityDTO.class));
-
         JsonJsContext args = new JsonJsContext(objectMapper);
         args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
         args.put("hostConsumer", this.translator.translate(host, ConsumerDTO.class));
         args.put("consumerEntitlements", entStream.collect(Collectors.toSet()));
         args.put("standalone", config.getBoolean(ConfigProperties.STANDALONE));
-        args.put("poolQuantities", quantityStream);
+        args.put("poolQuantities", this.jsonCache.getPoolQuantities(entitlementPoolQuantities));
         args.put("caller", caller.getLabel());
         args.put("log", log, false);
 
@@ -203,9 +201,6 @@ public class EntitlementRules implements Enforcer {
 
         ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
 
-        Stream<PoolDTO> poolStream = pools == null ? Stream.empty() :
-            pools.stream().map(this.translator.getStreamMapper(Pool.class, PoolDTO.class));
-
         Stream<EntitlementDTO> entStream = consumer.getEntitlements() == null ? Stream.empty() :
             consumer.getEntitlements().stream()
                 .map(this.translator.getStreamMapper(Entitlement.class, EntitlementDTO.class));
@@ -214,7 +209,7 @@ public class EntitlementRules implements Enforcer {
         args.put("hostConsumer", this.translator.translate(getHost(consumer), ConsumerDTO.class));
         args.put("consumerEntitlements", entStream.collect(Collectors.toSet()));
         args.put("standalone", config.getBoolean(ConfigProperties.STANDALONE));
-        args.put("pools", poolStream.collect(Collectors.toSet()));
+        args.put("pools", this.jsonCache.getPools(pools));
         args.put("caller", CallerType.LIST_POOLS.getLabel());
         args.put("log", log, false);
 
@@ -18,7 +18,6 @@ import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.rules.v1.ConsumerDTO;
 import org.candlepin.dto.rules.v1.EntitlementDTO;
 import org.candlepin.dto.rules.v1.GuestIdDTO;
-import org.candlepin.dto.rules.v1.PoolDTO;
 import org.candlepin.dto.rules.v1.SuggestedQuantityDTO;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.Entitlement;
@@ -27,6 +26,7 @@ import org.candlepin.model.Pool;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsonJsContext;
 import org.candlepin.policy.js.RuleExecutionException;
+import org.candlepin.policy.js.RulesJsonCache;
 import org.candlepin.policy.js.RulesObjectMapper;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -51,13 +51,16 @@ public class QuantityRules {
     private RulesObjectMapper mapper;
     private static Logger log = LoggerFactory.getLogger(QuantityRules.class);
     private ModelTranslator translator;
+    private RulesJsonCache jsonCache;
 
     @Inject
-    public QuantityRules(JsRunner jsRules, RulesObjectMapper mapper, ModelTranslator translator) {
+    public QuantityRules(JsRunner jsRules, RulesObjectMapper mapper, ModelTranslator translator,
+        RulesJsonCache jsonCache) {
 
         this.jsRules = jsRules;
         this.mapper = mapper;
         this.translator = translator;
+        this.jsonCache = jsonCache;
 
         jsRules.init("quantity_name_space");
     }
@@ -76,7 +79,7 @@ public class QuantityRules {
                 .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
 
         args.put("consumer", this.translator.translate(c, ConsumerDTO.class));
-        args.put("pool", this.translator.translate(p, PoolDTO.class));
+        args.put("pool", this.jsonCache.getPool(p));
         args.put("validEntitlements", entStream);
         args.put("log", log, false);
         args.put("guestIds", guestIdStream);
@@ -103,9 +106,6 @@ public class QuantityRules {
     public Map<String, SuggestedQuantityDTO> getSuggestedQuantities(List<Pool> pools, Consumer c, Date date) {
         JsonJsContext args = new JsonJsContext(mapper);
 
-        Stream<PoolDTO> poolStream = pools == null ? Stream.empty() :
-            pools.stream().map(this.translator.getStreamMapper(Pool.class, PoolDTO.class));
-
         Stream<EntitlementDTO> entStream = c.getEntitlements() == null ? Stream.empty() :
             c.getEntitlements().stream()
                 .filter(ent -> ent.isValidOnDate(date))
@@ -115,7 +115,7 @@ public class QuantityRules {
             c.getGuestIds().stream()
                 .map(this.translator.getStreamMapper(GuestId.class, GuestIdDTO.class));
 
-        args.put("pools", poolStream);
+        args.put("pools", this.jsonCache.getPools(pools));
         args.put("consumer", this.translator.translate(c, ConsumerDTO.class));
         args.put("validEntitlements", entStream);
         args.put("log", log, false);
@@ -19,6 +19,8 @@ import org.candlepin.auth.Principal;
 import org.candlepin.auth.SecurityHole;
 import org.candlepin.auth.SystemPrincipal;
 import org.candlepin.dto.api.server.v1.QueueStatus;
+import org.candlepin.exceptions.NotFoundException;
+import org.candlepin.metrics.CandlepinMeterRegistry;
 import org.candlepin.model.User;
 import org.candlepin.model.UserCurator;
 import org.candlepin.resource.server.v1.AdminApi;
@@ -30,6 +32,7 @@ import com.google.inject.Inject;
 import org.jboss.resteasy.core.ResteasyContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xnap.commons.i18n.I18n;
 
 import java.util.List;
 
@@ -45,13 +48,17 @@ public class AdminResource implements AdminApi {
     private UserServiceAdapter userService;
     private UserCurator userCurator;
     private EventSink sink;
+    private CandlepinMeterRegistry meterRegistry;
+    private I18n i18n;
 
     @Inject
     public AdminResource(UserServiceAdapter userService, UserCurator userCurator,
-        EventSink dispatcher) {
+        EventSink dispatcher, CandlepinMeterRegistry meterRegistry, I18n i18n) {
         this.userService = userService;
         this.userCurator = userCurator;
         this.sink = dispatcher;
+        this.meterRegistry = meterRegistry;
+        this.i18n = i18n;
     }
 
     @Override
@@ -84,4 +91,13 @@ public class AdminResource implements AdminApi {
     public List<QueueStatus> getQueueStats() {
         return sink.getQueueInfo();
     }
+
+    @Override
+    public String getMetrics() {
+        if (!this.meterRegistry.isScrapeEnabled()) {
+            throw new NotFoundException(this.i18n.tr("The HTTP metrics export is not enabled"));
+        }
+
+        return this.meterRegistry.scrape();
+    }
 }
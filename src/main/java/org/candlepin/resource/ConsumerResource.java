@@ -138,6 +138,7 @@ import org.candlepin.service.UserServiceAdapter;
 import org.candlepin.service.model.OwnerInfo;
 import org.candlepin.service.model.UserInfo;
 import org.candlepin.sync.ExportCreationException;
+import org.candlepin.sync.Exporter;
 import org.candlepin.util.ContentOverrideValidator;
 import org.candlepin.util.FactValidator;
 import org.candlepin.util.PropertyValidationException;
@@ -184,6 +185,7 @@ import javax.persistence.OptimisticLockException;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 
 /**
@@ -2174,7 +2176,6 @@ public class ConsumerResource implements ConsumerApi {
 
         Consumer consumer = consumerCurator.verifyAndLookupConsumer(consumerUuid);
         ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
-        HttpServletResponse response = ResteasyContext.getContextData(HttpServletResponse.class);
         revokeOnGuestMigration(consumer);
         Set<Long> serialSet = this.extractSerials(serials);
         // filtering requires a null set, so make this null if it is
@@ -2183,18 +2184,12 @@ public class ConsumerResource implements ConsumerApi {
             serialSet = null;
         }
 
-        File archive;
-        try {
-            archive = manifestManager.generateEntitlementArchive(consumer, serialSet);
-            response.addHeader("Content-Disposition", "attachment; filename=" +
-                archive.getName());
+        // The archive is zipped and signed straight into the response as it is written
+        StreamingOutput archive = manifestManager.generateEntitlementArchive(consumer, serialSet);
 
-            return archive;
-        }
-        catch (ExportCreationException e) {
-            throw new IseException(
-                i18n.tr("Unable to create entitlement certificate archive"), e);
-        }
+        return Response.ok(archive, "application/zip")
+            .header("Content-Disposition", "attachment; filename=" + Exporter.getArchiveName(consumer))
+            .build();
     }
 
     private Set<Long> extractSerials(String serials) {
@@ -59,6 +59,7 @@ import org.candlepin.dto.api.server.v1.SubscriptionDTO;
 import org.candlepin.dto.api.server.v1.SystemPurposeAttributesDTO;
 import org.candlepin.dto.api.server.v1.UeberCertificateDTO;
 import org.candlepin.dto.api.server.v1.UpstreamConsumerDTOArrayElement;
+import org.candlepin.dto.api.v1.PoolJsonWriter;
 import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.exceptions.CandlepinException;
 import org.candlepin.exceptions.ConflictException;
@@ -108,6 +109,7 @@ import org.candlepin.resource.util.CalculatedAttributesUtil;
 import org.candlepin.resource.util.ConsumerTypeValidator;
 import org.candlepin.resource.util.EntitlementFinderUtil;
 import org.candlepin.resource.validation.DTOValidator;
+import org.candlepin.resteasy.EntityJsonStream;
 import org.candlepin.service.OwnerServiceAdapter;
 import org.candlepin.sync.ConflictOverrides;
 import org.candlepin.sync.ImporterException;
@@ -1264,6 +1266,10 @@ public class OwnerResource implements OwnerApi {
         // Store the page for the LinkHeaderResponseFilter
         ResteasyContext.pushContext(Page.class, poolPage);
 
+        // Allow the EntityJsonStreamingFilter to write the pools directly, skipping translation
+        ResteasyContext.pushContext(EntityJsonStream.class,
+            new EntityJsonStream<>(poolList.stream(), new PoolJsonWriter()));
+
         return poolList.stream()
             .map(this.translator.getStreamMapper(Pool.class, PoolDTO.class));
     }
@@ -25,6 +25,7 @@ import org.candlepin.dto.api.server.v1.CdnDTO;
 import org.candlepin.dto.api.server.v1.CertificateDTO;
 import org.candlepin.dto.api.server.v1.EntitlementDTO;
 import org.candlepin.dto.api.server.v1.PoolDTO;
+import org.candlepin.dto.api.v1.PoolJsonWriter;
 import org.candlepin.exceptions.BadRequestException;
 import org.candlepin.exceptions.ForbiddenException;
 import org.candlepin.exceptions.NotFoundException;
@@ -43,7 +44,9 @@ import org.candlepin.paging.PageRequest;
 import org.candlepin.resource.server.v1.PoolsApi;
 import org.candlepin.resource.util.CalculatedAttributesUtil;
 import org.candlepin.resource.util.ResourceDateParser;
+import org.candlepin.resteasy.EntityJsonStream;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
 import org.jboss.resteasy.core.ResteasyContext;
@@ -164,11 +167,12 @@ public class PoolResource implements PoolsApi {
         // Store the page for the LinkHeaderResponseFilter
         ResteasyContext.pushContext(Page.class, pageResponse);
 
-        List<PoolDTO> poolDTOs = new ArrayList<>();
-        for (Pool pool : poolList) {
-            poolDTOs.add(translator.translate(pool, PoolDTO.class));
-        }
-        return poolDTOs;
+        // Allow the EntityJsonStreamingFilter to write the pools directly, skipping translation
+        ResteasyContext.pushContext(EntityJsonStream.class,
+            new EntityJsonStream<>(poolList.stream(), new PoolJsonWriter()));
+
+        // Pools are translated lazily, as the list is only read when the response is not streamed
+        return Lists.transform(poolList, this.translator.getStreamMapper(Pool.class, PoolDTO.class)::apply);
     }
 
     @Override
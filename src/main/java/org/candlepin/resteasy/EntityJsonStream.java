@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy;
+
+import org.candlepin.jackson.DynamicFilterData;
+import org.candlepin.jackson.EntityJsonWriter;
+import org.candlepin.jackson.FilteredJsonWriter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+
+
+/**
+ * The EntityJsonStream holds the model entities backing a list response, along with the writer
+ * able to serialize them directly to JSON. Resources push an instance onto the request context
+ * alongside their translated response; when direct JSON streaming is enabled, the
+ * EntityJsonStreamingFilter writes the response from the entities instead, bypassing the DTO
+ * layer.
+ *
+ * @param <E>
+ *  The entity type of the stream
+ */
+public class EntityJsonStream<E> implements AutoCloseable {
+
+    private final Stream<? extends E> entities;
+    private final EntityJsonWriter<E> writer;
+
+    /**
+     * Creates a new entity stream.
+     *
+     * @param entities
+     *  the entities to write; the stream is consumed at most once, and closed with this instance
+     *
+     * @param writer
+     *  the writer to use to serialize each entity
+     *
+     * @throws IllegalArgumentException
+     *  if either entities or writer is null
+     */
+    public EntityJsonStream(Stream<? extends E> entities, EntityJsonWriter<E> writer) {
+        if (entities == null) {
+            throw new IllegalArgumentException("entities is null");
+        }
+
+        if (writer == null) {
+            throw new IllegalArgumentException("writer is null");
+        }
+
+        this.entities = entities;
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the entities of this stream as a JSON array.
+     *
+     * @param generator
+     *  the generator to which the array is written
+     *
+     * @param filterData
+     *  the attribute filters of the current request, or null if no filtering is to be applied
+     *
+     * @throws IOException
+     *  if the entities cannot be written
+     */
+    public void writeTo(JsonGenerator generator, DynamicFilterData filterData) throws IOException {
+        FilteredJsonWriter output = new FilteredJsonWriter(generator, filterData);
+        Iterator<? extends E> iterator = this.entities.iterator();
+
+        generator.writeStartArray();
+
+        while (iterator.hasNext()) {
+            E entity = iterator.next();
+
+            if (entity != null) {
+                this.writer.write(output, entity);
+            }
+            else {
+                generator.writeNull();
+            }
+        }
+
+        generator.writeEndArray();
+    }
+
+    /**
+     * Closes the underlying entity stream, releasing any resources backing it.
+     */
+    @Override
+    public void close() {
+        this.entities.close();
+    }
+
+}
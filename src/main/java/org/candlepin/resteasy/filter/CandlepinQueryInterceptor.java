@@ -14,6 +14,8 @@
  */
 package org.candlepin.resteasy.filter;
 
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
 import org.candlepin.model.AbstractHibernateObject;
 import org.candlepin.model.CandlepinQuery;
 import org.candlepin.model.ResultIterator;
@@ -26,6 +28,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -46,18 +50,28 @@ import javax.ws.rs.core.StreamingOutput;
 /**
  * The CandlepinQueryInterceptor handles the streaming of a query and applies any paging
  * configuration.
+ * <p></p>
+ * Queries are streamed through a forward-only cursor on a read-only session using the configured
+ * JDBC fetch size, and the session is periodically cleared of the entities already written, so the
+ * memory used by a stream does not grow with the number of rows returned.
  */
 @javax.ws.rs.ext.Provider
 public class CandlepinQueryInterceptor implements ContainerResponseFilter {
 
     protected final JsonProvider jsonProvider;
     protected final Provider<EntityManager> emProvider;
+    protected final int fetchSize;
+    protected final int clearInterval;
 
     @Inject
-    public CandlepinQueryInterceptor(
-        final JsonProvider jsonProvider, final Provider<EntityManager> emProvider) {
+    public CandlepinQueryInterceptor(final JsonProvider jsonProvider,
+        final Provider<EntityManager> emProvider, final Configuration config) {
         this.jsonProvider = Objects.requireNonNull(jsonProvider);
         this.emProvider = Objects.requireNonNull(emProvider);
+
+        Objects.requireNonNull(config);
+        this.fetchSize = config.getInt(ConfigProperties.DB_STREAM_FETCH_SIZE);
+        this.clearInterval = config.getInt(ConfigProperties.DB_STREAM_CLEAR_INTERVAL);
     }
 
     /**
@@ -95,9 +109,16 @@ public class CandlepinQueryInterceptor implements ContainerResponseFilter {
             try {
                 CandlepinQuery query = (CandlepinQuery) entity;
 
+                // Nothing streamed is ever written back, so skip the dirty-checking snapshots, the
+                // second-level cache and any flushing; this keeps clearing the session cheap and safe.
+                session.setDefaultReadOnly(true);
+                session.setCacheMode(CacheMode.IGNORE);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+
                 // Use a separate session so we aren't at risk of lazy loading or interceptors closing
                 // our cursor mid-stream.
                 query.useSession(session);
+                query.setFetchSize(this.fetchSize);
 
                 // Apply any paging config we may have
                 this.applyPaging(pageRequest, query);
@@ -162,8 +183,15 @@ public class CandlepinQueryInterceptor implements ContainerResponseFilter {
 
                 generator.writeStartArray();
 
+                int count = 0;
                 while (iterator.hasNext()) {
                     mapper.writeValue(generator, iterator.next());
+
+                    // Detach everything written so far, including any children lazily loaded during
+                    // serialization; the forward-only cursor never needs them again.
+                    if (this.clearInterval > 0 && ++count % this.clearInterval == 0) {
+                        session.clear();
+                    }
                 }
 
                 generator.writeEndArray();
@@ -19,6 +19,8 @@ import org.candlepin.auth.Principal;
 import org.candlepin.auth.UpdateConsumerCheckIn;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.resteasy.AnnotationLocator;
+import org.candlepin.tracing.Span;
+import org.candlepin.tracing.Tracer;
 
 import org.jboss.resteasy.core.ResteasyContext;
 
@@ -60,7 +62,10 @@ public class ConsumerCheckInFilter implements ContainerRequestFilter {
         if (principal instanceof ConsumerPrincipal &&
             annotationLocator.getAnnotation(method, UpdateConsumerCheckIn.class) != null) {
             ConsumerPrincipal p = (ConsumerPrincipal) principal;
-            consumerCurator.updateLastCheckin(p.getConsumer());
+
+            try (Span span = Tracer.startSpan("consumer.check_in")) {
+                consumerCurator.updateLastCheckin(p.getConsumer());
+            }
         }
     }
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.jackson.DynamicFilterData;
+import org.candlepin.resteasy.EntityJsonStream;
+import org.candlepin.resteasy.JsonProvider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.inject.Inject;
+
+import org.jboss.resteasy.core.ResteasyContext;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+
+
+/**
+ * The EntityJsonStreamingFilter replaces the translated response of list endpoints with the
+ * direct JSON serialization of the entities backing it, when the endpoint provided an
+ * EntityJsonStream and direct JSON streaming is enabled. The DTO object graph is then never
+ * built, and memory use no longer grows with the size of the translated response.
+ */
+@javax.ws.rs.ext.Provider
+public class EntityJsonStreamingFilter implements ContainerResponseFilter {
+
+    private final JsonProvider jsonProvider;
+    private final boolean enabled;
+
+    @Inject
+    public EntityJsonStreamingFilter(JsonProvider jsonProvider, Configuration config) {
+        this.jsonProvider = Objects.requireNonNull(jsonProvider);
+        this.enabled = config.getBoolean(ConfigProperties.API_DIRECT_JSON_STREAMING);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        EntityJsonStream stream = ResteasyContext.getContextData(EntityJsonStream.class);
+        if (stream == null || !this.enabled) {
+            return;
+        }
+
+        // Only replace the list returned by the endpoint; error responses are left untouched
+        Object entity = responseContext.getEntity();
+        if (!(entity instanceof Stream || entity instanceof Collection) ||
+            responseContext.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            return;
+        }
+
+        MediaType mediaType = responseContext.getMediaType();
+        if (mediaType != null && !MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType)) {
+            return;
+        }
+
+        DynamicFilterData filterData = ResteasyContext.getContextData(DynamicFilterData.class);
+        responseContext.setEntity(this.buildOutputStreamer(stream, filterData));
+    }
+
+    private StreamingOutput buildOutputStreamer(EntityJsonStream stream, DynamicFilterData filterData) {
+        ObjectMapper mapper = this.jsonProvider
+            .locateMapper(Object.class, MediaType.APPLICATION_JSON_TYPE);
+
+        return output -> {
+            try (EntityJsonStream source = stream;
+                JsonGenerator generator = mapper.getJsonFactory().createGenerator(output)) {
+
+                if (mapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+                    generator.useDefaultPrettyPrinter();
+                }
+
+                source.writeTo(generator, filterData);
+                generator.flush();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import org.candlepin.hibernate.QueryStatistics;
+import org.candlepin.tracing.Span;
+import org.candlepin.tracing.Tracer;
+
+import org.jboss.resteasy.core.ResteasyContext;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.ext.Provider;
+
+
+
+/**
+ * This filter tags the query statistics being collected for the current request, and the
+ * request's trace span, with the resource method the request was matched to, so statement
+ * counts, N+1 warnings and traces can be attributed to a specific endpoint.
+ * It runs ahead of authentication so that requests rejected during authentication or
+ * authorization are tagged as well.
+ */
+@Priority(Priorities.AUTHENTICATION - 1)
+@Provider
+public class QueryStatisticsFilter implements ContainerRequestFilter {
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        ResourceInfo resourceInfo = ResteasyContext.getContextData(ResourceInfo.class);
+        if (resourceInfo == null || resourceInfo.getResourceMethod() == null) {
+            return;
+        }
+
+        Method method = resourceInfo.getResourceMethod();
+        String resource = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+
+        QueryStatistics stats = QueryStatistics.current();
+        if (stats != null) {
+            stats.setTag(resource);
+        }
+
+        Span span = Tracer.current();
+        if (span != null) {
+            span.tag("resource", resource);
+        }
+    }
+}
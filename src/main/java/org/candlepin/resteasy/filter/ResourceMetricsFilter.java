@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import org.candlepin.hibernate.QueryStatistics;
+import org.candlepin.metrics.CandlepinMeters;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+
+import org.jboss.resteasy.core.ResteasyContext;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.ext.Provider;
+
+
+
+/**
+ * This filter records the latency of each request per resource method, the number of requests
+ * currently in flight, and the number of SQL statements issued by each resource method. It runs
+ * ahead of authentication so that rejected requests are measured as well.
+ */
+@Priority(Priorities.AUTHENTICATION - 1)
+@Provider
+@Singleton
+public class ResourceMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String SAMPLE_PROPERTY = ResourceMetricsFilter.class.getName() + ".sample";
+    private static final String RESOURCE_PROPERTY = ResourceMetricsFilter.class.getName() + ".resource";
+
+    private final MeterRegistry registry;
+    private final AtomicInteger activeRequests;
+
+    @Inject
+    public ResourceMetricsFilter(MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry);
+        this.activeRequests = registry.gauge(CandlepinMeters.HTTP_REQUESTS_ACTIVE, new AtomicInteger());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        ResourceInfo resourceInfo = ResteasyContext.getContextData(ResourceInfo.class);
+        if (resourceInfo == null || resourceInfo.getResourceMethod() == null) {
+            return;
+        }
+
+        Method method = resourceInfo.getResourceMethod();
+        String resource = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+
+        this.activeRequests.incrementAndGet();
+        requestContext.setProperty(RESOURCE_PROPERTY, resource);
+        requestContext.setProperty(SAMPLE_PROPERTY, Timer.start(this.registry));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+        throws IOException {
+
+        Object sample = requestContext.getProperty(SAMPLE_PROPERTY);
+        if (!(sample instanceof Timer.Sample)) {
+            return;
+        }
+
+        requestContext.removeProperty(SAMPLE_PROPERTY);
+        this.activeRequests.decrementAndGet();
+
+        String resource = (String) requestContext.getProperty(RESOURCE_PROPERTY);
+        Outcome outcome = Outcome.forStatus(responseContext.getStatus());
+
+        ((Timer.Sample) sample).stop(Timer.builder(CandlepinMeters.HTTP_REQUESTS)
+            .description("Latency of REST API requests")
+            .tag(CandlepinMeters.TAG_RESOURCE, resource)
+            .tag(CandlepinMeters.TAG_OUTCOME, outcome.name())
+            .publishPercentileHistogram()
+            .register(this.registry));
+
+        QueryStatistics stats = QueryStatistics.current();
+        if (stats != null) {
+            DistributionSummary.builder(CandlepinMeters.HTTP_REQUEST_STATEMENTS)
+                .description("SQL statements issued per REST API request")
+                .tag(CandlepinMeters.TAG_RESOURCE, resource)
+                .register(this.registry)
+                .record(stats.getStatementCount());
+        }
+    }
+}
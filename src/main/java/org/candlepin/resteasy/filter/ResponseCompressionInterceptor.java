@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import org.candlepin.cache.CompressedCertificateCache;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.dto.api.server.v1.CertificateDTO;
+import org.candlepin.dto.api.server.v1.CertificateSerialDTO;
+import org.candlepin.jackson.DynamicFilterData;
+import org.candlepin.resource.dto.ContentAccessListing;
+import org.candlepin.resteasy.JsonProvider;
+import org.candlepin.util.DeflateSegment;
+import org.candlepin.util.SegmentedGzipOutputStream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+
+import org.jboss.resteasy.core.ResteasyContext;
+import org.jboss.resteasy.spi.HttpRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+
+
+/**
+ * The ResponseCompressionInterceptor compresses textual response bodies using the gzip or deflate
+ * content encoding, as negotiated with the client through its Accept-Encoding header.
+ * <p></p>
+ * Certificate listings and content access bodies compressed with gzip are assembled from the
+ * compressed bodies of the individual certificates, which are cached by serial, so repeat downloads
+ * of unchanged certificates are neither serialized nor compressed again.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class ResponseCompressionInterceptor implements WriterInterceptor {
+
+    public static final String GZIP_ENCODING = "gzip";
+    public static final String DEFLATE_ENCODING = "deflate";
+
+    private static final byte[] ARRAY_START = { '[' };
+    private static final byte[] ARRAY_SEPARATOR = { ',' };
+    private static final byte[] ARRAY_END = { ']' };
+
+    private final JsonProvider jsonProvider;
+    private final CompressedCertificateCache cache;
+    private final boolean enabled;
+
+    @Inject
+    public ResponseCompressionInterceptor(JsonProvider jsonProvider, CompressedCertificateCache cache,
+        Configuration config) {
+
+        this.jsonProvider = Objects.requireNonNull(jsonProvider);
+        this.cache = Objects.requireNonNull(cache);
+        this.enabled = Objects.requireNonNull(config).getBoolean(ConfigProperties.API_RESPONSE_COMPRESSION);
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+
+        if (!this.enabled || headers.containsKey(HttpHeaders.CONTENT_ENCODING) ||
+            !isCompressible(context.getMediaType())) {
+
+            context.proceed();
+            return;
+        }
+
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        String encoding = negotiateEncoding(this.getAcceptedEncodings());
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+
+        if (GZIP_ENCODING.equals(encoding)) {
+            SegmentedGzipOutputStream gzip = new SegmentedGzipOutputStream(context.getOutputStream());
+
+            if (!this.writeCachedCertificates(context, gzip)) {
+                context.setOutputStream(gzip);
+                context.proceed();
+            }
+
+            gzip.finish();
+        }
+        else {
+            Deflater deflater = new Deflater();
+
+            try {
+                DeflaterOutputStream deflate = new DeflaterOutputStream(context.getOutputStream(), deflater);
+
+                context.setOutputStream(deflate);
+                context.proceed();
+                deflate.finish();
+            }
+            finally {
+                deflater.end();
+            }
+        }
+    }
+
+    private List<String> getAcceptedEncodings() {
+        HttpRequest request = ResteasyContext.getContextData(HttpRequest.class);
+        if (request == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> values = request.getHttpHeaders().getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+        return values != null ? values : Collections.emptyList();
+    }
+
+    /**
+     * Checks whether or not bodies of the given media type are worth compressing. Only textual
+     * types are compressed; archives and other binary types are usually compressed already.
+     *
+     * @param mediaType
+     *  the media type of the response body
+     *
+     * @return
+     *  true if bodies of the given media type should be compressed; false otherwise
+     */
+    static boolean isCompressible(MediaType mediaType) {
+        if (mediaType == null) {
+            return false;
+        }
+
+        String type = mediaType.getType().toLowerCase(Locale.ROOT);
+        String subtype = mediaType.getSubtype().toLowerCase(Locale.ROOT);
+
+        return "text".equals(type) || "json".equals(subtype) || "xml".equals(subtype) ||
+            subtype.endsWith("+json") || subtype.endsWith("+xml");
+    }
+
+    /**
+     * Selects the content encoding to use for a response from the values of the Accept-Encoding
+     * request headers. Gzip is preferred over deflate when the client accepts both equally.
+     *
+     * @param values
+     *  the values of the Accept-Encoding headers of the request
+     *
+     * @return
+     *  the content encoding to apply, or null if the response should not be compressed
+     */
+    static String negotiateEncoding(List<String> values) {
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+
+            for (String element : value.split(",")) {
+                String[] params = element.split(";");
+                String coding = params[0].trim().toLowerCase(Locale.ROOT);
+                double quality = 1;
+
+                for (int i = 1; i < params.length; ++i) {
+                    String param = params[i].trim();
+
+                    if (param.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(param.substring(2).trim());
+                        }
+                        catch (NumberFormatException e) {
+                            quality = 0;
+                        }
+                    }
+                }
+
+                switch (coding) {
+                    case GZIP_ENCODING:
+                    case "x-gzip":
+                        gzip = Math.max(gzip, quality);
+                        break;
+
+                    case DEFLATE_ENCODING:
+                        deflate = Math.max(deflate, quality);
+                        break;
+
+                    case "*":
+                        wildcard = Math.max(wildcard, quality);
+                        break;
+
+                    default:
+                        // Unsupported or identity encoding; ignore it
+                }
+            }
+        }
+
+        // Codings not listed explicitly receive the quality of the wildcard, if present
+        gzip = gzip < 0 ? wildcard : gzip;
+        deflate = deflate < 0 ? wildcard : deflate;
+
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP_ENCODING;
+        }
+
+        return deflate > 0 ? DEFLATE_ENCODING : null;
+    }
+
+    /**
+     * Writes the entity of the response as a series of cached, compressed certificate bodies, if the
+     * entity is a certificate listing or content access body that may be served from the cache.
+     *
+     * @param context
+     *  the context of the response being written
+     *
+     * @param out
+     *  the gzip stream to receive the response body
+     *
+     * @return
+     *  true if the entity was written; false if it should be serialized normally
+     */
+    private boolean writeCachedCertificates(WriterInterceptorContext context, SegmentedGzipOutputStream out)
+        throws IOException {
+
+        // Cached bodies are always complete, so filtered output cannot be served from the cache
+        if (!this.cache.isEnabled() ||
+            !MediaType.APPLICATION_JSON_TYPE.isCompatible(context.getMediaType()) ||
+            ResteasyContext.getContextData(DynamicFilterData.class) != null) {
+
+            return false;
+        }
+
+        ObjectMapper mapper = this.jsonProvider.locateMapper(Object.class, MediaType.APPLICATION_JSON_TYPE);
+        Object entity = context.getEntity();
+
+        if (entity instanceof ContentAccessListing) {
+            ContentAccessListing listing = (ContentAccessListing) entity;
+            Map<Long, List<String>> content = listing.getContentListing();
+
+            if (content == null || content.size() != 1 || content.containsKey(null)) {
+                return false;
+            }
+
+            long serial = content.keySet().iterator().next();
+            out.writeSegment(this.cache.get(ContentAccessListing.class, serial, listing.getLastUpdate(),
+                () -> compress(mapper, listing)));
+
+            return true;
+        }
+
+        if (!(entity instanceof Collection) || ((Collection<?>) entity).isEmpty()) {
+            return false;
+        }
+
+        List<CertificateDTO> certs = new ArrayList<>();
+        for (Object element : (Collection<?>) entity) {
+            if (!(element instanceof CertificateDTO)) {
+                return false;
+            }
+
+            CertificateDTO cert = (CertificateDTO) element;
+            if (cert.getSerial() == null || cert.getSerial().getId() == null) {
+                return false;
+            }
+
+            certs.add(cert);
+        }
+
+        out.write(ARRAY_START);
+
+        for (int i = 0; i < certs.size(); ++i) {
+            CertificateDTO cert = certs.get(i);
+            CertificateSerialDTO serial = cert.getSerial();
+            List<Object> version = Arrays.asList(cert.getId(), cert.getUpdated(), serial.getUpdated(),
+                serial.getRevoked());
+
+            if (i > 0) {
+                out.write(ARRAY_SEPARATOR);
+            }
+
+            out.writeSegment(this.cache.get(CertificateDTO.class, serial.getId(), version,
+                () -> compress(mapper, cert)));
+        }
+
+        out.write(ARRAY_END);
+        return true;
+    }
+
+    private static DeflateSegment compress(ObjectMapper mapper, Object value) {
+        try {
+            return DeflateSegment.compress(mapper.writeValueAsBytes(value));
+        }
+        catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.candlepin.config.Configuration;
 import org.candlepin.controller.util.ContentPrefix;
 import org.candlepin.controller.util.EntitlementContentPrefix;
 import org.candlepin.controller.util.PromotedContent;
+import org.candlepin.metrics.CandlepinMeters;
 import org.candlepin.model.CertificateSerial;
 import org.candlepin.model.CertificateSerialCurator;
 import org.candlepin.model.Consumer;
@@ -51,6 +52,9 @@ import org.candlepin.util.X509V3ExtensionUtil;
 import com.google.common.collect.Collections2;
 import com.google.inject.Inject;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import org.apache.commons.lang3.BooleanUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,6 +93,8 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
     private final Configuration config;
     private final ConsumerTypeCurator consumerTypeCurator;
     private final EnvironmentCurator environmentCurator;
+    private final MeterRegistry meterRegistry;
+    private final Timer certificateTimer;
 
     @Inject
     public DefaultEntitlementCertServiceAdapter(PKIUtility pki,
@@ -100,7 +106,8 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         EntitlementCurator entCurator, I18n i18n,
         Configuration config,
         ConsumerTypeCurator consumerTypeCurator,
-        EnvironmentCurator environmentCurator) {
+        EnvironmentCurator environmentCurator,
+        MeterRegistry meterRegistry) {
 
         this.pki = pki;
         this.extensionUtil = extensionUtil;
@@ -113,6 +120,8 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
         this.config = config;
         this.consumerTypeCurator = consumerTypeCurator;
         this.environmentCurator = environmentCurator;
+        this.meterRegistry = meterRegistry;
+        this.certificateTimer = CandlepinMeters.certificateTimer(meterRegistry, "entitlement");
     }
 
 
@@ -383,6 +392,7 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
             Pool pool = entry.getValue().getPool();
             Entitlement ent = entitlements.get(entry.getKey());
             CertificateSerial serial = serialMap.get(entry.getKey());
+            Timer.Sample sample = Timer.start(this.meterRegistry);
             Product product = productMap.get(entry.getKey());
 
             log.info("Generating entitlement cert for pool: {} quantity: {} entitlement id: {}",
@@ -442,6 +452,7 @@ public class DefaultEntitlementCertServiceAdapter extends BaseEntitlementCertSer
                 log.debug("Cert: {}", cert.getCert());
             }
 
+            sample.stop(this.certificateTimer);
             entitlementCerts.put(entry.getKey(), cert);
         }
 
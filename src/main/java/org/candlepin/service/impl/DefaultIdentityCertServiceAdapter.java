@@ -14,6 +14,7 @@
  */
 package org.candlepin.service.impl;
 
+import org.candlepin.metrics.CandlepinMeters;
 import org.candlepin.model.CertificateSerial;
 import org.candlepin.model.CertificateSerialCurator;
 import org.candlepin.model.Consumer;
@@ -26,6 +27,9 @@ import com.google.common.base.Function;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,17 +52,22 @@ public class DefaultIdentityCertServiceAdapter implements
     private IdentityCertificateCurator idCertCurator;
     private CertificateSerialCurator serialCurator;
     private Function<Date, Date> endDateGenerator;
+    private MeterRegistry meterRegistry;
+    private Timer certificateTimer;
 
     @SuppressWarnings("unchecked")
     @Inject
     public DefaultIdentityCertServiceAdapter(PKIUtility pki,
         IdentityCertificateCurator identityCertCurator,
         CertificateSerialCurator serialCurator,
-        @Named("endDateGenerator") Function endDtGen) {
+        @Named("endDateGenerator") Function endDtGen,
+        MeterRegistry meterRegistry) {
         this.pki = pki;
         this.idCertCurator = identityCertCurator;
         this.serialCurator = serialCurator;
         this.endDateGenerator = endDtGen;
+        this.meterRegistry = meterRegistry;
+        this.certificateTimer = CandlepinMeters.certificateTimer(meterRegistry, "identity");
     }
 
     @Override
@@ -115,6 +124,7 @@ public class DefaultIdentityCertServiceAdapter implements
 
     private IdentityCertificate generate(Consumer consumer)
         throws GeneralSecurityException, IOException {
+        Timer.Sample sample = Timer.start(this.meterRegistry);
         Calendar cal = Calendar.getInstance();
         cal.add(Calendar.HOUR, -1);
         Date startDate = cal.getTime();
@@ -136,6 +146,7 @@ public class DefaultIdentityCertServiceAdapter implements
         identityCert.setKey(new String(pki.getPemEncoded(keyPair.getPrivate())));
         identityCert.setSerial(serial);
         consumer.setIdCert(identityCert);
+        sample.stop(this.certificateTimer);
 
         return idCertCurator.create(identityCert);
     }
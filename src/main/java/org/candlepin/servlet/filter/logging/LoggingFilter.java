@@ -14,7 +14,10 @@
  */
 package org.candlepin.servlet.filter.logging;
 
+import org.candlepin.hibernate.QueryStatistics;
 import org.candlepin.logging.LoggingUtil;
+import org.candlepin.tracing.Span;
+import org.candlepin.tracing.Tracer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,10 +54,28 @@ public class LoggingFilter implements Filter {
     private static final Pattern CSID_REGEX = Pattern.compile("^([a-zA-Z0-9-]){1,}$");
 
     private String customHeaderName;
+    private int statementThreshold;
+    private int repeatThreshold;
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
         customHeaderName = filterConfig.getInitParameter("header.name");
+        statementThreshold = parseThreshold(filterConfig.getInitParameter("query.statement_threshold"));
+        repeatThreshold = parseThreshold(filterConfig.getInitParameter("query.repeat_threshold"));
+    }
+
+    private static int parseThreshold(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            log.warn("Invalid query statistics threshold: {}", value);
+            return 0;
+        }
     }
 
     @Override
@@ -73,6 +94,11 @@ public class LoggingFilter implements Filter {
         TeeHttpServletResponse resp = new TeeHttpServletResponse(
             (HttpServletResponse) response);
 
+        // Count the SQL statements issued while serving this request. The tag is replaced with the
+        // resource method once the request has been matched to one.
+        QueryStatistics stats = QueryStatistics.start(req.getMethod() + " " + req.getRequestURI());
+        Span span = null;
+
         try {
             // Generate a UUID for this request and store in the thread local MDC.
             // Will be logged with every request if the ConversionPattern uses it.
@@ -105,6 +131,11 @@ public class LoggingFilter implements Filter {
                 }
             }
 
+            // Start the root span for this request once its UUID and correlation ID are known
+            span = Tracer.startSpan("http.request")
+                .tag("http.method", req.getMethod())
+                .tag("http.path", req.getRequestURI());
+
             // Add requestUuid to the serverRequest as an attribute, so Tomcat can
             // log it to the access log with "%{requestUuid}r"
             req.setAttribute("requestUuid", requestUUID);
@@ -121,17 +152,28 @@ public class LoggingFilter implements Filter {
             }
 
             chain.doFilter(req, resp);
+            span.tag("http.status_code", resp.getStatus());
 
             if (log.isDebugEnabled()) {
                 log.debug("{}", ServletLogger.logResponse(resp, startTime));
+                log.debug("{}", ServletLogger.logQueryStatistics(
+                    new StringBuilder("Response statistics: "), stats));
             }
             else {
-                log.info("{}", ServletLogger.logBasicResponseInfo(resp, startTime));
+                log.info("{}", ServletLogger.logQueryStatistics(
+                    ServletLogger.logBasicResponseInfo(resp, startTime).append(", "), stats));
             }
 
             resp.finish();
         }
         finally {
+            QueryStatistics.stop();
+            stats.report(log, statementThreshold, repeatThreshold);
+
+            if (span != null) {
+                span.close();
+            }
+
             MDC.clear();
         }
     }
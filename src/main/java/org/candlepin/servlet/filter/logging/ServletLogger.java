@@ -14,6 +14,8 @@
  */
 package org.candlepin.servlet.filter.logging;
 
+import org.candlepin.hibernate.QueryStatistics;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 
@@ -137,6 +139,29 @@ public class ServletLogger {
                 .append("\", time=").append(duration);
     }
 
+    /**
+     * Appends the SQL statement count, statement execution time and number of entities loaded
+     * from the given query statistics to the provided builder.
+     *
+     * @param builder
+     *  the builder to which the statistics should be appended
+     *
+     * @param stats
+     *  the query statistics to append; may be null
+     *
+     * @return
+     *  the provided builder
+     */
+    public static StringBuilder logQueryStatistics(StringBuilder builder, QueryStatistics stats) {
+        if (stats == null) {
+            return builder;
+        }
+
+        return builder.append("queries=").append(stats.getStatementCount())
+            .append(", query_time=").append(stats.getExecutionTime())
+            .append(", entities=").append(stats.getEntityLoadCount());
+    }
+
     public static boolean showAsText(String header) {
         String[] textTypes = {
             MediaType.APPLICATION_JSON,
@@ -58,6 +58,13 @@ public class EntitlementImporter {
     private EntitlementCurator entitlementCurator;
     private ModelTranslator translator;
 
+    // Every subscription in a manifest belongs to the same owner and uses the same CDN, so these are
+    // translated once and shared by all of the subscriptions built by this importer
+    private Owner owner;
+    private OwnerDTO ownerDTO;
+    private String cdnLabel;
+    private CdnDTO cdnDTO;
+
     public EntitlementImporter(CertificateSerialCurator csCurator, CdnCurator cdnCurator, I18n i18n,
         ProductCurator productCurator, EntitlementCurator entitlementCurator, ModelTranslator translator) {
 
@@ -90,7 +97,7 @@ public class EntitlementImporter {
         subscription.setUpstreamEntitlementId(entitlement.getId());
         subscription.setUpstreamConsumerId(consumerUuid);
 
-        subscription.setOwner(this.translator.translate(owner, OwnerDTO.class));
+        subscription.setOwner(this.getOwnerDTO(owner));
 
         subscription.setStartDate(entitlement.getStartDate());
         subscription.setEndDate(entitlement.getEndDate());
@@ -105,10 +112,7 @@ public class EntitlementImporter {
         // where we actually import it for use.
         String cdnLabel = meta.getCdnLabel();
         if (!StringUtils.isBlank(cdnLabel)) {
-            Cdn cdn = cdnCurator.getByLabel(cdnLabel);
-            if (cdn != null) {
-                subscription.setCdn(this.translator.translate(cdn, CdnDTO.class));
-            }
+            subscription.setCdn(this.getCdnDTO(cdnLabel));
         }
 
         this.associateProducts(productsById, entitlement.getPool(), subscription);
@@ -129,6 +133,46 @@ public class EntitlementImporter {
         return subscription;
     }
 
+    /**
+     * Fetches the translated DTO of the given owner, translating it only if it differs from the
+     * owner of the previously imported entitlement.
+     *
+     * @param owner
+     *  the owner for which to fetch a DTO
+     *
+     * @return
+     *  the translated owner DTO
+     */
+    private OwnerDTO getOwnerDTO(Owner owner) {
+        if (this.ownerDTO == null || this.owner != owner) {
+            this.ownerDTO = this.translator.translate(owner, OwnerDTO.class);
+            this.owner = owner;
+        }
+
+        return this.ownerDTO;
+    }
+
+    /**
+     * Fetches the translated DTO of the CDN with the given label, looking it up only if the label
+     * differs from that of the previously imported entitlement.
+     *
+     * @param cdnLabel
+     *  the label of the CDN for which to fetch a DTO
+     *
+     * @return
+     *  the translated CDN DTO, or null if no CDN with the given label exists
+     */
+    private CdnDTO getCdnDTO(String cdnLabel) {
+        if (!cdnLabel.equals(this.cdnLabel)) {
+            Cdn cdn = this.cdnCurator.getByLabel(cdnLabel);
+
+            this.cdnDTO = cdn != null ? this.translator.translate(cdn, CdnDTO.class) : null;
+            this.cdnLabel = cdnLabel;
+        }
+
+        return this.cdnDTO;
+    }
+
     /*
      * Transfer associations to provided and derived provided products over to the
      * subscription.
@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import org.candlepin.pki.SignatureSigner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+
+
+/**
+ * Writes a signed export archive to a stream in a single pass. The archive is a zip file holding
+ * the inner "consumer_export.zip" archive of exported files and a "signature" entry with the
+ * signature of the inner archive. The inner archive is compressed straight into its entry in the
+ * outer archive and signed as it is written, so neither archive is ever buffered or stored.
+ * <p></p>
+ * The archive is only complete once finish has been invoked. Closing the writer without finishing
+ * it aborts the archive: neither archive is completed, so the target is left with a truncated,
+ * unsigned archive which cannot be read. The target stream is never closed by the writer.
+ */
+public class ExportArchiveWriter implements Closeable {
+    private static Logger log = LoggerFactory.getLogger(ExportArchiveWriter.class);
+
+    public static final String EXPORT_ARCHIVE = "consumer_export.zip";
+    public static final String SIGNATURE = "signature";
+    public static final String EXPORT_DIR = "export";
+
+    /**
+     * Writes the content of a single file in the export.
+     */
+    @FunctionalInterface
+    public interface EntryContent {
+        void write(Writer writer) throws IOException;
+    }
+
+    private final AbortableZipOutputStream outer;
+    private final AbortableZipOutputStream inner;
+    private final SignatureSigner signer;
+    private boolean finished;
+
+    /**
+     * Creates a new writer which writes a signed archive to the given stream.
+     *
+     * @param output
+     *  the stream to write the archive to
+     *
+     * @param signer
+     *  the signer with which to sign the inner archive
+     *
+     * @param comment
+     *  the comment for the inner archive; the outer archive's comment is prefixed with "signed"
+     *
+     * @throws IOException
+     *  if the archive cannot be started on the given stream
+     */
+    public ExportArchiveWriter(OutputStream output, SignatureSigner signer, String comment)
+        throws IOException {
+
+        if (output == null) {
+            throw new IllegalArgumentException("output is null");
+        }
+
+        if (signer == null) {
+            throw new IllegalArgumentException("signer is null");
+        }
+
+        this.signer = signer;
+
+        this.outer = new AbortableZipOutputStream(new UnclosableOutputStream(output));
+        this.outer.setComment("signed " + comment);
+        this.outer.putNextEntry(new ZipEntry(EXPORT_ARCHIVE));
+
+        this.inner = new AbortableZipOutputStream(signer.wrap(new UnclosableOutputStream(this.outer)));
+        this.inner.setComment(comment);
+    }
+
+    /**
+     * Adds a file to the export, writing its content with the default charset.
+     *
+     * @param path
+     *  the path of the file, relative to the export directory
+     *
+     * @param content
+     *  the content to write to the file; any writer it closes is closed harmlessly
+     *
+     * @throws IOException
+     *  if the file cannot be written
+     */
+    public void writeEntry(String path, EntryContent content) throws IOException {
+        if (this.finished) {
+            throw new IllegalStateException("archive has already been finished");
+        }
+
+        String name = EXPORT_DIR + "/" + path;
+        log.debug("Adding file to archive: {}", name);
+
+        this.inner.putNextEntry(new ZipEntry(name));
+
+        Writer writer = new OutputStreamWriter(new UnclosableOutputStream(this.inner));
+        try {
+            content.write(writer);
+        }
+        finally {
+            writer.close();
+        }
+
+        this.inner.closeEntry();
+    }
+
+    /**
+     * Completes the inner archive, adds its signature and completes the outer archive. Once
+     * finished, no further files may be added.
+     *
+     * @throws IOException
+     *  if the archive cannot be completed
+     */
+    public void finish() throws IOException {
+        if (this.finished) {
+            return;
+        }
+
+        this.inner.finish();
+        this.outer.closeEntry();
+
+        log.debug("Adding signature to archive.");
+        byte[] signature = this.signer.sign();
+
+        this.outer.putNextEntry(new ZipEntry(SIGNATURE));
+        this.outer.write(signature, 0, signature.length);
+        this.outer.closeEntry();
+        this.outer.finish();
+        this.outer.flush();
+
+        this.finished = true;
+    }
+
+    /**
+     * Releases the compressors of the archive without closing the target stream. If the archive
+     * has not been finished, it is aborted rather than completed, leaving a truncated archive
+     * without a signature or central directory.
+     *
+     * @throws IOException
+     *  if the archive cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.finished) {
+            log.warn("Aborting unfinished export archive");
+
+            this.inner.abort();
+            this.outer.abort();
+            return;
+        }
+
+        try {
+            this.inner.close();
+        }
+        finally {
+            this.outer.close();
+        }
+    }
+
+    /**
+     * A zip stream which can release its compressor without completing the archive. Closing a zip
+     * stream always writes out its central directory, which would turn a partially written export
+     * into a well-formed archive.
+     */
+    private static class AbortableZipOutputStream extends ZipOutputStream {
+        public AbortableZipOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        public void abort() {
+            this.def.end();
+        }
+    }
+
+    /**
+     * Passes writes through to the wrapped stream, but only flushes it when closed, so archives and
+     * writers layered on top of it can be closed without closing the streams beneath them.
+     */
+    private static class UnclosableOutputStream extends FilterOutputStream {
+        public UnclosableOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            this.out.write(buffer, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.out.flush();
+        }
+    }
+}
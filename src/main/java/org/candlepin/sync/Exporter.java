@@ -51,21 +51,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 
 
@@ -158,22 +155,37 @@ public class Exporter {
      */
     public File getFullExport(Consumer consumer, String cdnLabel, String webUrl,
         String apiUrl) throws ExportCreationException {
-        try {
-            File tmpDir = syncUtils.makeTempDir("export");
-            File baseDir = new File(tmpDir.getAbsolutePath(), "export");
-            baseDir.mkdir();
-
-            exportMeta(baseDir, cdnLabel);
-            exportConsumer(baseDir, consumer, webUrl, apiUrl);
-            exportIdentityCertificate(baseDir, consumer);
-            exportEntitlements(baseDir, consumer);
-            exportEntitlementsCerts(baseDir, consumer, null, true);
-            exportProducts(baseDir, consumer);
-            exportConsumerTypes(baseDir);
-            exportRules(baseDir);
-            exportDistributorVersions(baseDir);
-            exportContentDeliveryNetworks(baseDir);
-            return makeArchive(consumer, tmpDir, baseDir);
+        return this.exportToFile(consumer,
+            output -> this.writeFullExport(consumer, cdnLabel, webUrl, apiUrl, output));
+    }
+
+    /**
+     * Writes a manifest archive for the target {@link Consumer} to the given stream. The archive is
+     * zipped and signed as it is written, so nothing is buffered on disk or in memory along the way.
+     * The stream is not closed.
+     *
+     * @param consumer the target consumer to export.
+     * @param cdnLabel the CDN label to store in the meta file.
+     * @param webUrl the URL pointing to the manifest's originating web application.
+     * @param apiUrl the API URL pointing to the manifest's originating candlepin API.
+     * @param output the stream to write the manifest archive to.
+     * @throws ExportCreationException when an error occurs while creating the manifest archive.
+     */
+    public void writeFullExport(Consumer consumer, String cdnLabel, String webUrl, String apiUrl,
+        OutputStream output) throws ExportCreationException {
+
+        try (ExportArchiveWriter archive = this.openArchive(consumer, output)) {
+            exportMeta(archive, cdnLabel);
+            exportConsumer(archive, consumer, webUrl, apiUrl);
+            exportIdentityCertificate(archive, consumer);
+            exportEntitlements(archive, consumer);
+            exportEntitlementsCerts(archive, this.listEntitlementCerts(consumer, null, true));
+            exportProducts(archive, consumer);
+            exportConsumerTypes(archive);
+            exportRules(archive);
+            exportDistributorVersions(archive);
+            exportContentDeliveryNetworks(archive);
+            archive.finish();
         }
         catch (IOException e) {
             log.error("Error generating entitlement export", e);
@@ -184,160 +196,97 @@ public class Exporter {
     public File getEntitlementExport(Consumer consumer, Set<Long> serials) throws ExportCreationException {
         // TODO: need to delete tmpDir (which contains the archive,
         // which we need to return...)
-        try {
-            File tmpDir = syncUtils.makeTempDir("export");
-            File baseDir = new File(tmpDir.getAbsolutePath(), "export");
-            baseDir.mkdir();
-
-            exportMeta(baseDir, null);
-            exportEntitlementsCerts(baseDir, consumer, serials, false);
-            exportContentAccessCerts(baseDir, consumer, serials);
-            return makeArchive(consumer, tmpDir, baseDir);
-        }
-        catch (IOException e) {
-            log.error("Error generating entitlement export", e);
-            throw new ExportCreationException("Unable to create export archive", e);
-        }
+        return this.exportToFile(consumer, this.prepareEntitlementExport(consumer, serials));
     }
 
     /**
-     * Create a tar.gz archive of the exported directory.
+     * Writes an archive of the target {@link Consumer}'s entitlement and content access
+     * certificates to the given stream. The stream is not closed.
      *
-     * @param exportDir Directory where Candlepin data was exported.
-     * @return File reference to the new archive zip.
+     * @param consumer the consumer whose certificates are to be exported.
+     * @param serials the serials of the certificates to export, or null to export all of them.
+     * @param output the stream to write the archive to.
+     * @throws ExportCreationException when an error occurs while creating the archive.
      */
-    private File makeArchive(Consumer consumer, File tempDir, File exportDir)
-        throws IOException {
-        String exportFileName = String.format("%s-%s.zip", consumer.getUuid(), exportDir.getName());
-        log.info("Creating archive of " + exportDir.getAbsolutePath() + " in: " +
-            exportFileName);
-
-        File archive = createZipArchiveWithDir(tempDir, exportDir, "consumer_export.zip",
-            "Candlepin export for " + consumer.getUuid());
-
-        InputStream archiveInputStream = null;
-        try {
-            archiveInputStream = new FileInputStream(archive);
-            File signedArchive = createSignedZipArchive(
-                tempDir, archive, exportFileName,
-                pki.getSHA256WithRSAHash(archiveInputStream),
-                "signed Candlepin export for " + consumer.getUuid());
-
-            log.debug("Returning file: " + archive.getAbsolutePath());
-            return signedArchive;
-        }
-        finally {
-            if (archiveInputStream != null) {
-                try {
-                    archiveInputStream.close();
-                }
-                catch (Exception e) {
-                    // nothing to do
-                }
-            }
-        }
-    }
+    public void writeEntitlementExport(Consumer consumer, Set<Long> serials, OutputStream output)
+        throws ExportCreationException {
 
-    private File createZipArchiveWithDir(File tempDir, File exportDir,
-        String exportFileName, String comment)
-        throws FileNotFoundException, IOException {
-
-        File archive = new File(tempDir, exportFileName);
-        ZipOutputStream out = null;
-        try {
-            out = new ZipOutputStream(new FileOutputStream(archive));
-            out.setComment(comment);
-            addFilesToArchive(out, exportDir.getParent().length() + 1, exportDir);
-        }
-        finally {
-            if (out != null) {
-                out.close();
-            }
-        }
-        return archive;
-    }
-
-    private File createSignedZipArchive(File tempDir, File toAdd,
-        String exportFileName, byte[] signature, String comment)
-        throws FileNotFoundException, IOException {
-
-        File archive = new File(tempDir, exportFileName);
-        ZipOutputStream out = null;
-        try {
-            out = new ZipOutputStream(new FileOutputStream(archive));
-            out.setComment(comment);
-            addFileToArchive(out, toAdd.getParent().length() + 1, toAdd);
-            addSignatureToArchive(out, signature);
-        }
-        finally {
-            if (out != null) {
-                out.close();
-            }
-        }
-        return archive;
+        this.prepareEntitlementExport(consumer, serials).write(output);
     }
 
-    private void addFilesToArchive(ZipOutputStream out, int charsToDropFromName,
-        File directory) throws IOException {
-        for (File file : directory.listFiles()) {
-            if (file.isDirectory()) {
-                addFilesToArchive(out, charsToDropFromName, file);
+    /**
+     * Prepares an archive of the target {@link Consumer}'s entitlement and content access
+     * certificates. The certificates are looked up, and generated where necessary, before this
+     * method returns, so the returned task only has to write them out.
+     *
+     * @param consumer the consumer whose certificates are to be exported.
+     * @param serials the serials of the certificates to export, or null to export all of them.
+     * @return a task writing the archive to a given stream, without closing it.
+     */
+    public ExportTask prepareEntitlementExport(Consumer consumer, Set<Long> serials) {
+        List<EntitlementCertificate> entitlementCerts = this.listEntitlementCerts(consumer, serials, false);
+        ContentAccessCertificate contentAccessCert = this.getContentAccessCert(consumer, serials);
+
+        return output -> {
+            try (ExportArchiveWriter archive = this.openArchive(consumer, output)) {
+                exportMeta(archive, null);
+                exportEntitlementsCerts(archive, entitlementCerts);
+                exportContentAccessCert(archive, contentAccessCert);
+                archive.finish();
             }
-            else {
-                addFileToArchive(out, charsToDropFromName, file);
+            catch (IOException e) {
+                log.error("Error generating entitlement export", e);
+                throw new ExportCreationException("Unable to create export archive", e);
             }
-        }
+        };
     }
 
-    private void addFileToArchive(ZipOutputStream out, int charsToDropFromName,
-        File file) throws IOException, FileNotFoundException {
-        log.debug("Adding file to archive: " +
-            file.getAbsolutePath().substring(charsToDropFromName));
-        out.putNextEntry(new ZipEntry(
-            file.getAbsolutePath().substring(charsToDropFromName)));
-        FileInputStream in = null;
+    /**
+     * Writes an export into a single archive file in a new temporary directory.
+     *
+     * @return File reference to the new archive zip.
+     */
+    private File exportToFile(Consumer consumer, ExportTask task) throws ExportCreationException {
         try {
-            in = new FileInputStream(file);
+            File tmpDir = syncUtils.makeTempDir("export");
+            File archive = new File(tmpDir, getArchiveName(consumer));
+            log.info("Creating export archive: {}", archive.getAbsolutePath());
 
-            byte [] buf = new byte[1024];
-            int len;
-            while ((len = in.read(buf)) > 0) {
-                out.write(buf, 0, len);
+            try (OutputStream output = new BufferedOutputStream(new FileOutputStream(archive))) {
+                task.write(output);
             }
-            out.closeEntry();
+
+            log.debug("Returning file: {}", archive.getAbsolutePath());
+            return archive;
         }
-        finally {
-            if (in != null) {
-                in.close();
-            }
+        catch (IOException e) {
+            log.error("Error generating entitlement export", e);
+            throw new ExportCreationException("Unable to create export archive", e);
         }
     }
 
-    private void addSignatureToArchive(ZipOutputStream out, byte[] signature)
-        throws IOException, FileNotFoundException {
+    /**
+     * Fetches the file name of export archives created for the target {@link Consumer}.
+     *
+     * @param consumer the consumer being exported.
+     * @return the file name of the consumer's export archives.
+     */
+    public static String getArchiveName(Consumer consumer) {
+        return String.format("%s-export.zip", consumer.getUuid());
+    }
 
-        log.debug("Adding signature to archive.");
-        out.putNextEntry(new ZipEntry("signature"));
-        out.write(signature, 0, signature.length);
-        out.closeEntry();
+    private ExportArchiveWriter openArchive(Consumer consumer, OutputStream output) throws IOException {
+        return new ExportArchiveWriter(output, pki.getSHA256WithRSASigner(),
+            "Candlepin export for " + consumer.getUuid());
     }
 
-    private void exportMeta(File baseDir, String cdnKey)
+    private void exportMeta(ExportArchiveWriter archive, String cdnKey)
         throws IOException {
-        File file = new File(baseDir.getCanonicalPath(), "meta.json");
-        FileWriter writer = null;
-        try {
-            writer = new FileWriter(file);
-            Meta m = new Meta(getVersion(), new Date(),
-                principalProvider.get().getName(),
-                null, cdnKey);
-            meta.export(mapper, writer, m);
-        }
-        finally {
-            if (writer != null) {
-                writer.close();
-            }
-        }
+        Meta m = new Meta(getVersion(), new Date(),
+            principalProvider.get().getName(),
+            null, cdnKey);
+
+        archive.writeEntry("meta.json", writer -> meta.export(mapper, writer, m));
     }
 
     private String getPrefixWebUrl(String override) {
@@ -371,22 +320,17 @@ public class Exporter {
         return map.get("version") + "-" + map.get("release");
     }
 
-    private void exportConsumer(File baseDir, Consumer consumer, String webAppPrefix, String apiUrl)
-        throws IOException {
+    private void exportConsumer(ExportArchiveWriter archive, Consumer consumer, String webAppPrefix,
+        String apiUrl) throws IOException {
 
-        File file = new File(baseDir.getCanonicalPath(), "consumer.json");
-        try (FileWriter writer = new FileWriter(file)) {
-            this.consumerExporter.export(mapper, writer, consumer,
-                getPrefixWebUrl(webAppPrefix), getPrefixApiUrl(apiUrl));
-        }
+        archive.writeEntry("consumer.json", writer -> this.consumerExporter.export(mapper, writer, consumer,
+            getPrefixWebUrl(webAppPrefix), getPrefixApiUrl(apiUrl)));
     }
 
-    private void exportEntitlementsCerts(File baseDir, Consumer consumer,
-        Set<Long> serials, boolean manifest)
-        throws IOException {
+    private List<EntitlementCertificate> listEntitlementCerts(Consumer consumer, Set<Long> serials,
+        boolean manifest) {
 
-        File entCertDir = new File(baseDir.getCanonicalPath(), "entitlement_certificates");
-        entCertDir.mkdir();
+        List<EntitlementCertificate> certs = new ArrayList<>();
 
         for (EntitlementCertificate cert : entCertAdapter.listForConsumer(consumer)) {
             if (manifest && !this.exportRules.canExport(cert.getEntitlement())) {
@@ -397,70 +341,87 @@ public class Exporter {
             }
 
             if ((serials == null) || (serials.contains(cert.getSerial().getId()))) {
-                log.debug("Exporting entitlement certificate: {}", cert.getSerial());
-                File file = new File(entCertDir.getCanonicalPath(), cert.getSerial().getId() + ".pem");
-
-                new CertificateExporter().exportCertificate(cert, file);
+                certs.add(cert);
             }
         }
+
+        return certs;
+    }
+
+    private void exportEntitlementsCerts(ExportArchiveWriter archive,
+        Collection<EntitlementCertificate> certs) throws IOException {
+
+        for (EntitlementCertificate cert : certs) {
+            log.debug("Exporting entitlement certificate: {}", cert.getSerial());
+            archive.writeEntry("entitlement_certificates/" + cert.getSerial().getId() + ".pem",
+                writer -> new CertificateExporter().exportCertificate(cert, writer));
+        }
     }
 
     /**
-     * Exports content access certificates for a consumer.
+     * Fetches the content access certificate to export for a consumer.
      * Consumer must belong to owner with SCA enabled.
      *
-     * @param baseDir
-     *  Base directory path.
-     *
      * @param consumer
-     *  Consumer for which content access certificates needs to be exported.
+     *  Consumer for which the content access certificate needs to be exported.
      *
      * @param serials
      *  certificate serials used to filter content access certificates.
      *
-     * @throws IOException
-     *  Throws IO exception if unable to export content access certs for the consumer.
+     * @return
+     *  the content access certificate to export, or null if there is none to export
      */
-    private void exportContentAccessCerts(File baseDir, Consumer consumer,
-        Set<Long> serials) throws IOException {
+    private ContentAccessCertificate getContentAccessCert(Consumer consumer, Set<Long> serials) {
         ContentAccessCertificate contentAccessCert = this.contentAccessManager.getCertificate(consumer);
 
         if (contentAccessCert != null &&
             (serials == null || contentAccessCert.getSerial() == null ||
             serials.contains(contentAccessCert.getSerial().getId()))) {
-            File contentAccessCertDir = new File(baseDir.getCanonicalPath(), "content_access_certificates");
-            contentAccessCertDir.mkdir();
 
-            log.debug("Exporting content access certificate: {}", contentAccessCert.getSerial());
-            File file = new File(contentAccessCertDir.getCanonicalPath(),
-                contentAccessCert.getSerial().getId() + ".pem");
+            return contentAccessCert;
+        }
+
+        return null;
+    }
+
+    /**
+     * Exports a content access certificate for a consumer.
+     *
+     * @param archive
+     *  The archive to write the certificate to.
+     *
+     * @param contentAccessCert
+     *  The content access certificate to export, or null to export nothing.
+     *
+     * @throws IOException
+     *  Throws IO exception if unable to export the content access cert.
+     */
+    private void exportContentAccessCert(ExportArchiveWriter archive,
+        ContentAccessCertificate contentAccessCert) throws IOException {
 
-            new CertificateExporter().exportCertificate(contentAccessCert, file);
+        if (contentAccessCert != null) {
+            log.debug("Exporting content access certificate: {}", contentAccessCert.getSerial());
+            String path = "content_access_certificates/" + contentAccessCert.getSerial().getId() + ".pem";
+            archive.writeEntry(path,
+                writer -> new CertificateExporter().exportCertificate(contentAccessCert, writer));
         }
     }
 
-    private void exportIdentityCertificate(File baseDir, Consumer consumer)
+    private void exportIdentityCertificate(ExportArchiveWriter archive, Consumer consumer)
         throws IOException {
 
-        File idcertdir = new File(baseDir.getCanonicalPath(), "upstream_consumer");
-        idcertdir.mkdir();
-
         IdentityCertificate cert = consumer.getIdCert();
         if (cert == null) {
             throw new RuntimeException("The consumer for export does not have a valid identity certificate");
         }
 
         // paradigm dictates this should go in an exporter.export method
-        File file = new File(idcertdir.getCanonicalPath(), cert.getSerial().getId() + ".json");
-        try (FileWriter writer = new FileWriter(file)) {
-            mapper.writeValue(writer, this.translator.translate(cert, CertificateDTO.class));
-        }
+        archive.writeEntry("upstream_consumer/" + cert.getSerial().getId() + ".json",
+            writer -> mapper.writeValue(writer, this.translator.translate(cert, CertificateDTO.class)));
     }
 
-    private void exportEntitlements(File baseDir, Consumer consumer)
+    private void exportEntitlements(ExportArchiveWriter archive, Consumer consumer)
         throws IOException, ExportCreationException {
-        File entCertDir = new File(baseDir.getCanonicalPath(), "entitlements");
-        entCertDir.mkdir();
 
         for (Entitlement ent : entitlementCurator.listByConsumer(consumer)) {
             if (ent.isDirty()) {
@@ -475,17 +436,12 @@ public class Exporter {
 
             log.debug("Exporting entitlement for product {}", ent.getPool().getProductId());
 
-            File file = new File(entCertDir.getCanonicalPath(), ent.getId() + ".json");
-            try (FileWriter writer = new FileWriter(file)) {
-                entExporter.export(mapper, writer, ent);
-            }
+            archive.writeEntry("entitlements/" + ent.getId() + ".json",
+                writer -> entExporter.export(mapper, writer, ent));
         }
     }
 
-    private void exportProducts(File baseDir, Consumer consumer) throws IOException {
-        File productDir = new File(baseDir.getCanonicalPath(), "products");
-        productDir.mkdir();
-
+    private void exportProducts(ExportArchiveWriter archive, Consumer consumer) throws IOException {
         Map<String, Product> products = new HashMap<>();
         for (Entitlement entitlement : consumer.getEntitlements()) {
             Pool pool = entitlement.getPool();
@@ -509,13 +465,10 @@ public class Exporter {
             // product.setUuid(null);
             // product.setOwner(null);
 
-            String path = productDir.getCanonicalPath();
             String productId = product.getId();
 
-            File file = new File(path, productId + ".json");
-            try (FileWriter writer = new FileWriter(file)) {
-                productExporter.export(mapper, writer, product);
-            }
+            archive.writeEntry("products/" + productId + ".json",
+                writer -> productExporter.export(mapper, writer, product));
 
             // Real products have a numeric id.
             if (StringUtils.isNumeric(product.getId())) {
@@ -527,10 +480,8 @@ public class Exporter {
                 // so just skip over this if we get null back
                 // XXX: need to decide if the cert should always be in the export, or never.
                 if (cert != null) {
-                    file = new File(productDir.getCanonicalPath(), product.getId() + ".pem");
-                    try (FileWriter writer = new FileWriter(file)) {
-                        productCertExporter.export(writer, cert);
-                    }
+                    archive.writeEntry("products/" + productId + ".pem",
+                        writer -> productCertExporter.export(writer, cert));
                 }
             }
         }
@@ -549,98 +500,57 @@ public class Exporter {
         }
     }
 
-    private void exportConsumerTypes(File baseDir) throws IOException {
-        File typeDir = new File(baseDir.getCanonicalPath(), "consumer_types");
-        typeDir.mkdir();
-
+    private void exportConsumerTypes(ExportArchiveWriter archive) throws IOException {
         for (ConsumerType type : consumerTypeCurator.listAll()) {
-            File file = new File(typeDir.getCanonicalPath(), type.getLabel() + ".json");
-            FileWriter writer = null;
-            try {
-                writer = new FileWriter(file);
-                consumerType.export(mapper, writer, type);
-            }
-            finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
+            archive.writeEntry("consumer_types/" + type.getLabel() + ".json",
+                writer -> consumerType.export(mapper, writer, type));
         }
     }
 
-    private void exportRules(File baseDir) throws IOException {
+    private void exportRules(ExportArchiveWriter archive) throws IOException {
         // Because old candlepin servers assume to import a file in rules dir, we had to
         // move to a new directory for versioned rules file:
-        File newRulesDir = new File(baseDir.getCanonicalPath(), "rules2");
-        newRulesDir.mkdir();
-        File newRulesFile = new File(newRulesDir.getCanonicalPath(), "rules.js");
-        FileWriter writer = null;
-        try {
-            writer = new FileWriter(newRulesFile);
-            rules.export(writer);
-        }
-        finally {
-            if (writer != null) {
-                writer.close();
-            }
-        }
+        archive.writeEntry("rules2/rules.js", writer -> rules.export(writer));
     }
 
-    private void exportDistributorVersions(File baseDir) throws IOException {
+    private void exportDistributorVersions(ExportArchiveWriter archive) throws IOException {
         List<DistributorVersion> versions = distVerCurator.findAll();
         if (versions == null || versions.isEmpty()) {
             return;
         }
 
-        File distVerDir = new File(baseDir.getCanonicalPath(), "distributor_version");
-        distVerDir.mkdir();
-
-        FileWriter writer = null;
         for (DistributorVersion dv : versions) {
             if (log.isDebugEnabled()) {
                 log.debug("Exporting Distributor Version" + dv.getName());
             }
-            try {
-                File file = new File(distVerDir.getCanonicalPath(), dv.getName() + ".json");
-                writer = new FileWriter(file);
-                distVerExporter.export(mapper, writer, dv);
-            }
-            finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
+
+            archive.writeEntry("distributor_version/" + dv.getName() + ".json",
+                writer -> distVerExporter.export(mapper, writer, dv));
         }
     }
 
-    private void exportContentDeliveryNetworks(File baseDir) throws IOException {
+    private void exportContentDeliveryNetworks(ExportArchiveWriter archive) throws IOException {
         ResultIterator<Cdn> iterator = this.cdnCurator.listAll().iterate();
 
         try {
-            if (iterator.hasNext()) {
-                File cdnDir = new File(baseDir.getCanonicalPath(), "content_delivery_network");
-                cdnDir.mkdir();
-
-                while (iterator.hasNext()) {
-                    Cdn cdn = iterator.next();
-                    log.debug("Exporting CDN: {}", cdn.getName());
-
-                    FileWriter writer = null;
-                    try {
-                        File file = new File(cdnDir.getCanonicalPath(), cdn.getLabel() + ".json");
-                        writer = new FileWriter(file);
-                        cdnExporter.export(mapper, writer, cdn);
-                    }
-                    finally {
-                        if (writer != null) {
-                            writer.close();
-                        }
-                    }
-                }
+            while (iterator.hasNext()) {
+                Cdn cdn = iterator.next();
+                log.debug("Exporting CDN: {}", cdn.getName());
+
+                archive.writeEntry("content_delivery_network/" + cdn.getLabel() + ".json",
+                    writer -> cdnExporter.export(mapper, writer, cdn));
             }
         }
         finally {
             iterator.close();
         }
     }
+
+    /**
+     * Writes an export archive to a stream
+     */
+    @FunctionalInterface
+    public interface ExportTask {
+        void write(OutputStream output) throws ExportCreationException;
+    }
 }
@@ -44,6 +44,7 @@ import org.candlepin.model.OwnerCurator;
 import org.candlepin.model.ProductCurator;
 import org.candlepin.model.UpstreamConsumer;
 import org.candlepin.pki.PKIUtility;
+import org.candlepin.pki.SignatureVerifier;
 import org.candlepin.service.ProductServiceAdapter;
 import org.candlepin.service.SubscriptionServiceAdapter;
 import org.candlepin.service.impl.ImportProductServiceAdapter;
@@ -57,6 +58,7 @@ import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
@@ -94,6 +96,12 @@ import javax.persistence.PersistenceException;
 public class Importer {
     private static final Logger log = LoggerFactory.getLogger(Importer.class);
 
+    private static final String SIGNATURE_FILE = "signature";
+    private static final String CONSUMER_EXPORT_FILE = "consumer_export.zip";
+
+    /** The largest nested consumer export we'll spool to disk while verifying its signature */
+    private static final long MAX_CONSUMER_EXPORT_SIZE = 512L * 1024 * 1024;
+
     /**
      * files we use to perform import
      */
@@ -301,7 +309,7 @@ public class Importer {
      * @throws ImporterException
      */
     @Transactional
-    protected File extractFromService(ManifestFile export)
+    protected ExtractedArchive extractFromService(ManifestFile export)
         throws ManifestFileServiceException, ImporterException {
         return unpackExportFile(export.getId(), export.getInputStream());
     }
@@ -375,21 +383,23 @@ public class Importer {
         }
     }
 
-    private ImportRecord doExport(Owner owner, File exportDir, ConflictOverrides overrides,
+    private ImportRecord doExport(Owner owner, ExtractedArchive archive, ConflictOverrides overrides,
         String uploadedFileName) throws ImporterException {
 
         Map<String, Object> result = new HashMap<>();
+        File exportDir = archive.getDirectory();
         try {
-            File signature = new File(exportDir, "signature");
-            if (signature.length() == 0) {
+            if (archive.getSignature() == null || archive.getSignature().length == 0) {
                 throw new ImportExtractionException(
                     i18n.tr("The archive does not contain the required signature file"));
             }
 
-            boolean verifiedSignature = pki.verifySHA256WithRSAHashAgainstCACerts(
-                new File(exportDir, "consumer_export.zip"), loadSignature(new File(exportDir, "signature")));
+            if (!archive.hasConsumerExport()) {
+                throw new ImportExtractionException(i18n.tr("The archive does not contain " +
+                    "the required consumer_export.zip file"));
+            }
 
-            if (!verifiedSignature) {
+            if (!archive.isVerified()) {
                 log.warn("Archive signature check failed.");
 
                 if (!overrides.isForced(Conflict.SIGNATURE_CONFLICT)) {
@@ -408,9 +418,20 @@ public class Importer {
                 }
             }
 
-            File consumerExport = new File(exportDir, "consumer_export.zip");
-            File consumerExportDir = extractArchive(exportDir, consumerExport.getName(),
-                new FileInputStream(consumerExport));
+            // Only extract the consumer export once its signature has been checked
+            boolean extracted;
+            try (ZipInputStream zipStream = new ZipInputStream(
+                new FileInputStream(archive.getConsumerExport()))) {
+
+                extracted = this.extractEntries(exportDir, zipStream);
+            }
+
+            if (!extracted) {
+                throw new ImportExtractionException(i18n.tr(
+                    "The archive {0} is not a properly compressed file or is empty", CONSUMER_EXPORT_FILE));
+            }
+
+            File consumerExportDir = new File(exportDir, "export");
 
             Map<String, File> importFiles = new HashMap<>();
             File[] listFiles = consumerExportDir.listFiles();
@@ -451,11 +472,6 @@ public class Importer {
             log.error("Exception caught importing archive", e);
             throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e, result);
         }
-        catch (CertificateException e) {
-            log.error("Certificate exception checking archive signature", e);
-            throw new ImportExtractionException(
-                i18n.tr("Certificate exception checking archive signature"), e, result);
-        }
         finally {
             if (exportDir != null) {
                 try {
@@ -723,65 +739,70 @@ public class Importer {
     }
 
     /**
-     * Create a tar.gz archive of the exported directory.
+     * Copies the given stream to the specified file, failing if more than the given number of bytes
+     * would be written.
      *
-     * @param exportDir Directory where Candlepin data was exported.
-     * @return File reference to the new archive tar.gz.
+     * @param input the stream to copy.
+     * @param target the file to which the stream should be written.
+     * @param maxSize the maximum number of bytes to write.
+     * @throws IOException if the stream could not be copied, or exceeds the maximum size.
      */
-    private File extractArchive(File tempDir, String exportFileName, InputStream exportFileStream)
-        throws IOException, ImportExtractionException {
-
-        log.debug("Extracting archive to: {}", tempDir.getAbsolutePath());
-
-        byte[] buf = new byte[1024];
-
-        try (ZipInputStream zipinputstream = new ZipInputStream(exportFileStream)) {
-            ZipEntry zipentry = zipinputstream.getNextEntry();
+    private void spoolEntry(InputStream input, File target, long maxSize) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+
+        try (FileOutputStream output = new FileOutputStream(target)) {
+            for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+                total += read;
+                if (total > maxSize) {
+                    throw new IOException("Archive entry exceeds the maximum size of " + maxSize +
+                        " bytes: " + target.getName());
+                }
 
-            if (zipentry == null) {
-                throw new ImportExtractionException(i18n.tr(
-                    "The archive {0} is not a properly compressed file or is empty", exportFileName));
+                output.write(buffer, 0, read);
             }
+        }
+    }
 
-            while (zipentry != null) {
-                //for each entry to be extracted
-                String entryName = zipentry.getName();
-                log.debug("entryname {}", entryName);
+    /**
+     * Extracts the entries of the given zip stream into the specified directory. The stream is
+     * read to the end of its last entry, but is not closed.
+     *
+     * @param tempDir the directory in which to extract the entries.
+     * @param zipStream the zip stream to extract.
+     * @return true if the stream contained at least one entry; false otherwise.
+     */
+    private boolean extractEntries(File tempDir, ZipInputStream zipStream) throws IOException {
+        log.debug("Extracting archive to: {}", tempDir.getAbsolutePath());
 
-                File newFile = new File(entryName);
-                String directory = newFile.getParent();
-                if (directory != null) {
-                    new File(tempDir, directory).mkdirs();
-                }
+        boolean extracted = false;
+        String basePath = tempDir.getCanonicalPath() + File.separator;
 
-                try (FileOutputStream fileoutputstream = new FileOutputStream(new File(tempDir, entryName))) {
-                    int n;
-                    while ((n = zipinputstream.read(buf, 0, 1024)) > -1) {
-                        fileoutputstream.write(buf, 0, n);
-                    }
-                }
+        for (ZipEntry entry = zipStream.getNextEntry(); entry != null; entry = zipStream.getNextEntry()) {
+            String entryName = entry.getName();
+            log.debug("entryname {}", entryName);
 
-                zipinputstream.closeEntry();
-                zipentry = zipinputstream.getNextEntry();
+            File target = new File(tempDir, entryName);
+            if (!target.getCanonicalPath().startsWith(basePath)) {
+                throw new IOException("Archive entry is outside of the target directory: " + entryName);
             }
-        }
 
-        return new File(tempDir.getAbsolutePath(), "export");
-    }
+            if (entry.isDirectory()) {
+                target.mkdirs();
+            }
+            else {
+                target.getParentFile().mkdirs();
 
-    private byte[] loadSignature(File signatureFile) throws IOException {
-        // signature is never going to be a huge file, therefore cast is a-okay
-        byte[] signatureBytes = new byte[(int) signatureFile.length()];
-        try (FileInputStream signature = new FileInputStream(signatureFile)) {
-            int offset = 0;
-            int numRead = 0;
-            while (offset < signatureBytes.length && numRead >= 0) {
-                numRead = signature.read(signatureBytes, offset, signatureBytes.length - offset);
-                offset += numRead;
+                try (FileOutputStream output = new FileOutputStream(target)) {
+                    zipStream.transferTo(output);
+                }
             }
 
-            return signatureBytes;
+            zipStream.closeEntry();
+            extracted = true;
         }
+
+        return extracted;
     }
 
     protected void importDistributorVersions(File[] versionFiles) throws IOException {
@@ -824,17 +845,128 @@ public class Importer {
         return iup;
     }
 
-    private File unpackExportFile(String fileName, InputStream exportInputStream)
+    /**
+     * Reads a signed manifest archive from the given stream in a single pass. The nested consumer
+     * export is written to disk as-is, up to a bounded size, and its signature is verified against
+     * the data as it is read. The consumer export is not extracted here; callers must check the
+     * verification status before doing so.
+     *
+     * @param fileName the name of the archive, used for error reporting.
+     * @param exportInputStream the stream from which to read the archive.
+     * @return the extracted archive.
+     * @throws ImportExtractionException if the archive could not be read or extracted.
+     */
+    private ExtractedArchive unpackExportFile(String fileName, InputStream exportInputStream)
         throws ImportExtractionException {
-        try {
-            File tmpDir = syncUtils.makeTempDir("import");
-            extractArchive(tmpDir, fileName, exportInputStream);
-            return tmpDir;
+
+        File tmpDir = null;
+        boolean success = false;
+
+        try (ZipInputStream zipStream = new ZipInputStream(exportInputStream)) {
+            tmpDir = syncUtils.makeTempDir("import");
+            ExtractedArchive archive = new ExtractedArchive(tmpDir);
+            SignatureVerifier verifier = this.pki.getSHA256WithRSACAVerifier();
+
+            ZipEntry entry = zipStream.getNextEntry();
+            if (entry == null) {
+                throw new ImportExtractionException(i18n.tr(
+                    "The archive {0} is not a properly compressed file or is empty", fileName));
+            }
+
+            for (; entry != null; entry = zipStream.getNextEntry()) {
+                if (SIGNATURE_FILE.equals(entry.getName())) {
+                    archive.setSignature(zipStream.readAllBytes());
+                }
+                else if (CONSUMER_EXPORT_FILE.equals(entry.getName())) {
+                    // A second copy would be hashed along with the first, but only one could be kept
+                    if (archive.hasConsumerExport()) {
+                        throw new ImportExtractionException(i18n.tr(
+                            "The archive {0} contains more than one {1} file",
+                            fileName, CONSUMER_EXPORT_FILE));
+                    }
+
+                    File consumerExport = new File(tmpDir, CONSUMER_EXPORT_FILE);
+
+                    try (InputStream verified = verifier.wrap(CloseShieldInputStream.wrap(zipStream))) {
+                        this.spoolEntry(verified, consumerExport, MAX_CONSUMER_EXPORT_SIZE);
+                    }
+
+                    archive.setConsumerExport(consumerExport);
+                }
+                else {
+                    log.debug("Skipping unexpected archive entry: {}", entry.getName());
+                }
+
+                zipStream.closeEntry();
+            }
+
+            archive.setVerified(verifier.verify(archive.getSignature()));
+            success = true;
+
+            return archive;
         }
         catch (IOException e) {
             log.error("Unable to extract export archive", e);
             throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e);
         }
+        catch (CertificateException e) {
+            log.error("Certificate exception checking archive signature", e);
+            throw new ImportExtractionException(
+                i18n.tr("Certificate exception checking archive signature"), e);
+        }
+        finally {
+            if (!success && tmpDir != null) {
+                FileUtils.deleteQuietly(tmpDir);
+            }
+        }
+    }
+
+    /**
+     * The result of unpacking a signed manifest archive: the working directory for the import and the
+     * nested consumer export written to it, along with the archive signature and its verification
+     * status.
+     */
+    protected static class ExtractedArchive {
+        private final File directory;
+        private byte[] signature;
+        private File consumerExport;
+        private boolean verified;
+
+        public ExtractedArchive(File directory) {
+            this.directory = Objects.requireNonNull(directory);
+        }
+
+        public File getDirectory() {
+            return this.directory;
+        }
+
+        public byte[] getSignature() {
+            return this.signature;
+        }
+
+        public void setSignature(byte[] signature) {
+            this.signature = signature;
+        }
+
+        public boolean hasConsumerExport() {
+            return this.consumerExport != null;
+        }
+
+        public File getConsumerExport() {
+            return this.consumerExport;
+        }
+
+        public void setConsumerExport(File consumerExport) {
+            this.consumerExport = consumerExport;
+        }
+
+        public boolean isVerified() {
+            return this.verified;
+        }
+
+        public void setVerified(boolean verified) {
+            this.verified = verified;
+        }
     }
 
 }
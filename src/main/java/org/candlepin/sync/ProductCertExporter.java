@@ -17,19 +17,19 @@ package org.candlepin.sync;
 import org.candlepin.model.ProductCertificate;
 import org.candlepin.service.model.CertificateInfo;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 
 /**
  * ProductCertExporter
  */
 public class ProductCertExporter {
 
-    public void export(FileWriter writer, ProductCertificate productCert) throws IOException {
+    public void export(Writer writer, ProductCertificate productCert) throws IOException {
         writer.write(productCert.getCert());
     }
 
-    public void export(FileWriter writer, CertificateInfo productCert) throws IOException {
+    public void export(Writer writer, CertificateInfo productCert) throws IOException {
         writer.write(productCert.getCertificate());
     }
 
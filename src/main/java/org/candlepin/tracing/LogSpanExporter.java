@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+
+/**
+ * Writes each sampled span as a line of Zipkin v2 JSON to a dedicated logger, which is routed to
+ * its own file by the default logging configuration. The resulting file can be shipped to a trace
+ * backend by any log collector.
+ */
+public class LogSpanExporter implements SpanExporter {
+    private static final Logger spanLog = LoggerFactory.getLogger(
+        LogSpanExporter.class.getCanonicalName() + ".Spans");
+
+    @Override
+    public void export(Span span) {
+        if (spanLog.isInfoEnabled()) {
+            spanLog.info(ZipkinSpanEncoder.encode(span));
+        }
+    }
+}
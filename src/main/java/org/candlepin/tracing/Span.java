@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * A Span represents a single timed operation within a trace, such as a bind operation or a phase
+ * of an organization refresh. Spans are created through {@link Tracer#startSpan(String)}, which
+ * makes the new span the current span of the calling thread, and are completed by closing them:
+ *
+ * <pre>
+ *  try (Span span = Tracer.startSpan("bind.lock_pools")) {
+ *      ...
+ *  }
+ * </pre>
+ *
+ * Spans which are not sampled are still tracked so that their children inherit the sampling
+ * decision, but are never tagged or exported.
+ */
+public class Span implements AutoCloseable {
+
+    /** A span which is neither tracked nor exported, used while tracing is disabled */
+    static final Span NOOP = new Span(null, null, null, null, false);
+
+    private final Span parent;
+    private final String traceId;
+    private final String spanId;
+    private final String name;
+    private final boolean sampled;
+
+    private final long timestamp;
+    private final long startTime;
+    private long duration;
+    private boolean closed;
+    private Map<String, String> tags;
+
+    Span(Span parent, String traceId, String spanId, String name, boolean sampled) {
+        this.parent = parent;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.name = name;
+        this.sampled = sampled;
+
+        this.timestamp = sampled ? TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) : 0;
+        this.startTime = sampled ? System.nanoTime() : 0;
+        this.duration = -1;
+        this.closed = false;
+    }
+
+    /**
+     * Adds a tag to this span. Tags with a null value are ignored, as are all tags added to spans
+     * which are not sampled.
+     *
+     * @param key
+     *  the key of the tag to add
+     *
+     * @param value
+     *  the value of the tag to add
+     *
+     * @return
+     *  a reference to this span
+     */
+    public Span tag(String key, Object value) {
+        if (this.sampled && key != null && value != null) {
+            if (this.tags == null) {
+                this.tags = new LinkedHashMap<>();
+            }
+
+            this.tags.put(key, String.valueOf(value));
+        }
+
+        return this;
+    }
+
+    /**
+     * Flags this span as having failed with the specified exception.
+     *
+     * @param throwable
+     *  the exception which caused the operation represented by this span to fail
+     *
+     * @return
+     *  a reference to this span
+     */
+    public Span error(Throwable throwable) {
+        if (throwable != null) {
+            String message = throwable.getMessage();
+            this.tag("error", message != null ? message : throwable.getClass().getName());
+        }
+
+        return this;
+    }
+
+    /**
+     * Completes this span, restoring its parent as the current span and exporting it if sampled.
+     * Closing a span more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (this == NOOP || this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        if (this.sampled) {
+            this.duration = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - this.startTime);
+        }
+
+        Tracer.finish(this);
+    }
+
+    /**
+     * Checks if this span was sampled and will be exported when closed.
+     *
+     * @return
+     *  true if this span is sampled; false otherwise
+     */
+    public boolean isSampled() {
+        return this.sampled;
+    }
+
+    Span getParent() {
+        return this.parent;
+    }
+
+    /**
+     * Fetches the ID of the trace to which this span belongs, as 32 lowercase hex characters.
+     *
+     * @return
+     *  the trace ID of this span, or null if this span is not tracked
+     */
+    public String getTraceId() {
+        return this.traceId;
+    }
+
+    /**
+     * Fetches the ID of this span, as 16 lowercase hex characters.
+     *
+     * @return
+     *  the ID of this span, or null if this span is not tracked
+     */
+    public String getSpanId() {
+        return this.spanId;
+    }
+
+    /**
+     * Fetches the ID of the parent of this span.
+     *
+     * @return
+     *  the ID of the parent of this span, or null if this span is the root of its trace
+     */
+    public String getParentId() {
+        return this.parent != null ? this.parent.getSpanId() : null;
+    }
+
+    /**
+     * Fetches the name of the operation represented by this span.
+     *
+     * @return
+     *  the name of this span
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Fetches the time at which this span was started, in microseconds since the epoch.
+     *
+     * @return
+     *  the start time of this span
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Fetches the duration of this span, in microseconds.
+     *
+     * @return
+     *  the duration of this span, or -1 if the span has not been completed or is not sampled
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Fetches the tags added to this span.
+     *
+     * @return
+     *  an unmodifiable view of the tags added to this span
+     */
+    public Map<String, String> getTags() {
+        return this.tags != null ? Collections.unmodifiableMap(this.tags) : Collections.emptyMap();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Span [name: %s, trace: %s, span: %s, parent: %s, duration: %dus]",
+            this.name, this.traceId, this.spanId, this.getParentId(), this.duration);
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.tracing;
+
+
+
+/**
+ * A SpanExporter delivers completed, sampled spans to a trace backend. Exporters are invoked on
+ * the thread which completed the span, and should hand off any expensive work.
+ */
+public interface SpanExporter {
+
+    /**
+     * Exports the given completed span.
+     *
+     * @param span
+     *  the span to export
+     */
+    void export(Span span);
+
+    /**
+     * Flushes any buffered spans and releases the resources held by this exporter.
+     */
+    default void close() {
+        // Intentionally left empty
+    }
+}
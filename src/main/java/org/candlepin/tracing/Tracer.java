@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.tracing;
+
+import org.candlepin.logging.LoggingUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+
+
+/**
+ * The Tracer creates the spans used to break down the time spent in hot paths such as binds,
+ * organization refreshes and async jobs. The current span is tracked per thread, and each new span
+ * becomes a child of the current span of the calling thread.
+ * <p></p>
+ * The sampling decision is made once per trace, when its root span is started. Root spans take
+ * their trace ID from the request UUID (or job ID) stored in the MDC, so traces can be matched
+ * directly against the log entries of the request or job which produced them, and are tagged with
+ * the request UUID and correlation ID.
+ * <p></p>
+ * Until the tracer is configured with an exporter, tracing is disabled and every span started is a
+ * shared no-op span.
+ */
+public final class Tracer {
+    private static final Logger log = LoggerFactory.getLogger(Tracer.class);
+
+    public static final String TAG_REQUEST_UUID = "request_uuid";
+    public static final String TAG_CORRELATION_ID = "correlation_id";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private static volatile SpanExporter exporter;
+    private static volatile double sampleRate;
+
+    private Tracer() {
+        // Intentionally left empty
+    }
+
+    /**
+     * Enables tracing, exporting sampled spans to the given exporter. If the tracer was already
+     * configured, the previous exporter is closed.
+     *
+     * @param spanExporter
+     *  the exporter to which sampled spans are sent
+     *
+     * @param rate
+     *  the fraction of traces to sample, from 0.0 to 1.0
+     *
+     * @throws IllegalArgumentException
+     *  if the exporter is null, or the sample rate is not between 0.0 and 1.0
+     */
+    public static synchronized void configure(SpanExporter spanExporter, double rate) {
+        if (spanExporter == null) {
+            throw new IllegalArgumentException("spanExporter is null");
+        }
+
+        if (!(rate >= 0.0 && rate <= 1.0)) {
+            throw new IllegalArgumentException("sample rate must be between 0.0 and 1.0: " + rate);
+        }
+
+        SpanExporter previous = exporter;
+
+        sampleRate = rate;
+        exporter = spanExporter;
+
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Disables tracing and closes the configured exporter, if any.
+     */
+    public static synchronized void shutdown() {
+        SpanExporter previous = exporter;
+        exporter = null;
+
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Checks if tracing is enabled.
+     *
+     * @return
+     *  true if the tracer has been configured with an exporter; false otherwise
+     */
+    public static boolean isEnabled() {
+        return exporter != null;
+    }
+
+    /**
+     * Starts a new span, making it the current span of the calling thread. If the thread already
+     * has a current span, the new span is created as its child. The returned span must be closed
+     * by the calling thread once the operation it represents completes.
+     *
+     * @param name
+     *  the name of the operation represented by the span
+     *
+     * @return
+     *  the new span
+     */
+    public static Span startSpan(String name) {
+        if (exporter == null) {
+            return Span.NOOP;
+        }
+
+        Span parent = CURRENT.get();
+        Span span;
+
+        if (parent != null) {
+            boolean sampled = parent.isSampled();
+            span = new Span(parent, parent.getTraceId(), sampled ? generateId(16) : null, name, sampled);
+        }
+        else if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            String requestUuid = MDC.get(LoggingUtil.MDC_REQUEST_UUID_KEY);
+
+            span = new Span(null, toTraceId(requestUuid), generateId(16), name, true)
+                .tag(TAG_REQUEST_UUID, requestUuid)
+                .tag(TAG_CORRELATION_ID, MDC.get(LoggingUtil.MDC_CSID_KEY));
+        }
+        else {
+            span = new Span(null, null, null, name, false);
+        }
+
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * Fetches the current span of the calling thread.
+     *
+     * @return
+     *  the current span of the calling thread, or null if the thread has no current span
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Completes the given span, restoring its parent as the current span of the calling thread and
+     * exporting the span if it was sampled.
+     *
+     * @param span
+     *  the span to complete
+     */
+    static void finish(Span span) {
+        Span parent = span.getParent();
+        if (parent != null) {
+            CURRENT.set(parent);
+        }
+        else {
+            CURRENT.remove();
+        }
+
+        SpanExporter current = exporter;
+        if (span.isSampled() && current != null) {
+            try {
+                current.export(span);
+            }
+            catch (RuntimeException e) {
+                log.debug("Unable to export span: {}", span, e);
+            }
+        }
+    }
+
+    /**
+     * Converts the given request UUID to a trace ID. Request UUIDs and job IDs are both 128-bit
+     * hex values, and are used as-is once any dashes are removed; anything else results in a new,
+     * random trace ID.
+     *
+     * @param requestUuid
+     *  the request UUID to convert
+     *
+     * @return
+     *  a trace ID of 32 lowercase hex characters
+     */
+    static String toTraceId(String requestUuid) {
+        if (requestUuid != null) {
+            String traceId = requestUuid.replace("-", "").toLowerCase();
+
+            if (traceId.length() == 32 && traceId.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+                return traceId;
+            }
+        }
+
+        return generateId(32);
+    }
+
+    private static String generateId(int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder builder = new StringBuilder(length);
+
+        while (builder.length() < length) {
+            String chunk = Long.toHexString(random.nextLong());
+
+            for (int i = chunk.length(); i < 16; ++i) {
+                builder.append('0');
+            }
+
+            builder.append(chunk);
+        }
+
+        builder.setLength(length);
+        return builder.toString();
+    }
+}
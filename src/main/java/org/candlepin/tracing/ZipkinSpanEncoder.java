@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.tracing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Collection;
+import java.util.Map;
+
+
+
+/**
+ * Encodes spans in the Zipkin v2 JSON format, which is accepted by Zipkin, Jaeger and the
+ * OpenTelemetry collector's Zipkin receiver.
+ */
+public final class ZipkinSpanEncoder {
+
+    /** The service name reported as the local endpoint of every span */
+    public static final String SERVICE_NAME = "candlepin";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ZipkinSpanEncoder() {
+        // Intentionally left empty
+    }
+
+    /**
+     * Encodes a single span as a Zipkin v2 JSON object.
+     *
+     * @param span
+     *  the span to encode
+     *
+     * @return
+     *  the span as a JSON object
+     */
+    public static String encode(Span span) {
+        return write(toNode(span));
+    }
+
+    /**
+     * Encodes a collection of spans as a Zipkin v2 JSON array, suitable for posting to a collector.
+     *
+     * @param spans
+     *  the spans to encode
+     *
+     * @return
+     *  the spans as a JSON array
+     */
+    public static String encode(Collection<Span> spans) {
+        ArrayNode array = MAPPER.createArrayNode();
+        spans.forEach(span -> array.add(toNode(span)));
+
+        return write(array);
+    }
+
+    private static ObjectNode toNode(Span span) {
+        ObjectNode node = MAPPER.createObjectNode()
+            .put("traceId", span.getTraceId())
+            .put("id", span.getSpanId());
+
+        if (span.getParentId() != null) {
+            node.put("parentId", span.getParentId());
+        }
+
+        node.put("name", span.getName())
+            .put("timestamp", span.getTimestamp())
+            .put("duration", Math.max(span.getDuration(), 1));
+
+        node.putObject("localEndpoint")
+            .put("serviceName", SERVICE_NAME);
+
+        Map<String, String> tags = span.getTags();
+        if (!tags.isEmpty()) {
+            ObjectNode tagNode = node.putObject("tags");
+            tags.forEach(tagNode::put);
+        }
+
+        return node;
+    }
+
+    private static String write(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        }
+        catch (JsonProcessingException e) {
+            // This shouldn't happen, as spans contain only strings and numbers
+            throw new IllegalStateException(e);
+        }
+    }
+}
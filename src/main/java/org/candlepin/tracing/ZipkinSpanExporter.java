@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+
+/**
+ * Sends sampled spans to a Zipkin-compatible collector over HTTP. Spans are queued and posted in
+ * batches from a background thread, so exporting never blocks the request or job which completed
+ * the span. When the collector falls behind and the queue fills, new spans are dropped.
+ */
+public class ZipkinSpanExporter implements SpanExporter {
+    private static final Logger log = LoggerFactory.getLogger(ZipkinSpanExporter.class);
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long FLUSH_INTERVAL = 1000;
+    private static final int TIMEOUT = 5000;
+
+    private final URL url;
+    private final BlockingQueue<Span> queue;
+    private final AtomicLong dropped;
+    private final Thread sender;
+    private volatile boolean running;
+
+    /**
+     * Creates a new exporter posting spans to the given collector endpoint, such as
+     * "http://localhost:9411/api/v2/spans".
+     *
+     * @param collectorUrl
+     *  the URL of the collector's span endpoint
+     *
+     * @throws IllegalArgumentException
+     *  if the collector URL is null or malformed
+     */
+    public ZipkinSpanExporter(String collectorUrl) {
+        if (collectorUrl == null) {
+            throw new IllegalArgumentException("collectorUrl is null");
+        }
+
+        try {
+            this.url = new URL(collectorUrl);
+        }
+        catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid collector URL: " + collectorUrl, e);
+        }
+
+        this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.dropped = new AtomicLong();
+        this.running = true;
+
+        this.sender = new Thread(this::run, "Span Exporter");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    @Override
+    public void export(Span span) {
+        if (!this.running || !this.queue.offer(span)) {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.running = false;
+        this.sender.interrupt();
+
+        try {
+            this.sender.join(TIMEOUT);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Flush whatever the sender did not get to
+        List<Span> batch = new ArrayList<>();
+        while (this.queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+            this.send(batch);
+            batch.clear();
+        }
+    }
+
+    private void run() {
+        List<Span> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
+        while (this.running) {
+            try {
+                Span span = this.queue.poll(FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+                if (span == null) {
+                    continue;
+                }
+
+                batch.add(span);
+                this.queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+                this.send(batch);
+                batch.clear();
+            }
+            catch (InterruptedException e) {
+                // Shutting down; remaining spans are flushed by close
+                break;
+            }
+        }
+    }
+
+    private void send(List<Span> batch) {
+        long droppedSpans = this.dropped.getAndSet(0);
+        if (droppedSpans > 0) {
+            log.warn("Dropped {} span(s) while the trace collector was unavailable or falling behind",
+                droppedSpans);
+        }
+
+        byte[] body = ZipkinSpanEncoder.encode(batch).getBytes(StandardCharsets.UTF_8);
+
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) this.url.openConnection();
+            connection.setConnectTimeout(TIMEOUT);
+            connection.setReadTimeout(TIMEOUT);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body);
+            }
+
+            int status = connection.getResponseCode();
+            if (status >= 300) {
+                log.debug("Trace collector rejected {} span(s) with status {}", batch.size(), status);
+            }
+        }
+        catch (IOException e) {
+            log.debug("Unable to send {} span(s) to trace collector: {}", batch.size(), this.url, e);
+        }
+        finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.util;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+
+
+/**
+ * The DeflateSegment class represents a block of data compressed independently into raw deflate
+ * blocks, along with the CRC-32 checksum and length of the uncompressed data.
+ * <p></p>
+ * A segment never references data outside of itself, is flushed to a byte boundary and does not
+ * end the deflate stream, so any number of segments can be concatenated into a single valid deflate
+ * stream. This allows frequently served data to be compressed once and spliced into any number of
+ * compressed responses; see SegmentedGzipOutputStream.
+ */
+public final class DeflateSegment {
+
+    private final byte[] data;
+    private final long checksum;
+    private final long length;
+
+    private DeflateSegment(byte[] data, long checksum, long length) {
+        this.data = data;
+        this.checksum = checksum;
+        this.length = length;
+    }
+
+    /**
+     * Compresses the given data into a new deflate segment using the default compression level.
+     *
+     * @param input
+     *  the data to compress
+     *
+     * @throws IllegalArgumentException
+     *  if input is null
+     *
+     * @return
+     *  a deflate segment containing the compressed data
+     */
+    public static DeflateSegment compress(byte[] input) {
+        return compress(input, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Compresses the given data into a new deflate segment using the specified compression level.
+     *
+     * @param input
+     *  the data to compress
+     *
+     * @param level
+     *  the compression level to use, from 0 to 9, or -1 for the default level
+     *
+     * @throws IllegalArgumentException
+     *  if input is null, or the compression level is invalid
+     *
+     * @return
+     *  a deflate segment containing the compressed data
+     */
+    public static DeflateSegment compress(byte[] input, int level) {
+        if (input == null) {
+            throw new IllegalArgumentException("input is null");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(input);
+
+        Deflater deflater = new Deflater(level, true);
+
+        try {
+            deflater.setInput(input);
+
+            // A sync flush emits everything pending and aligns the output to a byte boundary
+            // without marking the final block of the stream
+            byte[] buffer = new byte[Math.max(64, input.length / 2)];
+            int size = 0;
+
+            while (true) {
+                size += deflater.deflate(buffer, size, buffer.length - size, Deflater.SYNC_FLUSH);
+
+                if (size < buffer.length) {
+                    break;
+                }
+
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+
+            return new DeflateSegment(Arrays.copyOf(buffer, size), crc.getValue(), input.length);
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Fetches the compressed data of this segment. The returned array must not be modified.
+     *
+     * @return
+     *  the raw deflate data of this segment
+     */
+    byte[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Fetches the CRC-32 checksum of the uncompressed data of this segment.
+     *
+     * @return
+     *  the CRC-32 checksum of the uncompressed data
+     */
+    public long getChecksum() {
+        return this.checksum;
+    }
+
+    /**
+     * Fetches the length of the uncompressed data of this segment.
+     *
+     * @return
+     *  the length of the uncompressed data, in bytes
+     */
+    public long getLength() {
+        return this.length;
+    }
+
+    /**
+     * Fetches the length of the compressed data of this segment.
+     *
+     * @return
+     *  the length of the compressed data, in bytes
+     */
+    public int getCompressedLength() {
+        return this.data.length;
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+
+
+/**
+ * The SegmentedGzipOutputStream writes a single gzip member (RFC 1952) to an underlying output
+ * stream, compressing written data on the fly while also allowing precompressed deflate segments to
+ * be spliced into the stream without recompressing them.
+ * <p></p>
+ * Since the output is one ordinary gzip member, it can be read by any gzip decoder, including those
+ * which do not support multi-member gzip data.
+ */
+public class SegmentedGzipOutputStream extends OutputStream {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final Deflater deflater;
+    private final byte[] buffer;
+
+    private long checksum;
+    private long length;
+    private boolean headerWritten;
+    private boolean pendingInput;
+    private boolean finished;
+
+    /**
+     * Creates a new segmented gzip output stream using the default compression level.
+     *
+     * @param out
+     *  the output stream to receive the gzip data
+     *
+     * @throws IllegalArgumentException
+     *  if out is null
+     */
+    public SegmentedGzipOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a new segmented gzip output stream using the specified compression level for any data
+     * not written as precompressed segments.
+     *
+     * @param out
+     *  the output stream to receive the gzip data
+     *
+     * @param level
+     *  the compression level to use, from 0 to 9, or -1 for the default level
+     *
+     * @throws IllegalArgumentException
+     *  if out is null, or the compression level is invalid
+     */
+    public SegmentedGzipOutputStream(OutputStream out, int level) {
+        if (out == null) {
+            throw new IllegalArgumentException("out is null");
+        }
+
+        this.out = out;
+        this.deflater = new Deflater(level, true);
+        this.buffer = new byte[BUFFER_SIZE];
+
+        this.checksum = 0;
+        this.length = 0;
+        this.headerWritten = false;
+        this.pendingInput = false;
+        this.finished = false;
+    }
+
+    private void writeHeader() throws IOException {
+        if (this.finished) {
+            throw new IOException("stream already finished");
+        }
+
+        if (!this.headerWritten) {
+            // magic, CM = deflate, no flags, no mtime, no extra flags, unknown OS
+            this.out.write(new byte[] {
+                (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+            });
+
+            this.headerWritten = true;
+        }
+    }
+
+    private void drain(int flush) throws IOException {
+        int count;
+
+        do {
+            count = this.deflater.deflate(this.buffer, 0, this.buffer.length, flush);
+
+            if (count > 0) {
+                this.out.write(this.buffer, 0, count);
+            }
+        }
+        while (count == this.buffer.length || (flush == Deflater.NO_FLUSH && !this.deflater.needsInput()));
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        this.write(new byte[] { (byte) value }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int count) throws IOException {
+        this.writeHeader();
+
+        if (count > 0) {
+            CRC32 crc = new CRC32();
+            crc.update(data, offset, count);
+
+            this.deflater.setInput(data, offset, count);
+            this.drain(Deflater.NO_FLUSH);
+
+            this.checksum = combineChecksums(this.checksum, crc.getValue(), count);
+            this.length += count;
+            this.pendingInput = true;
+        }
+    }
+
+    /**
+     * Writes the given precompressed segment to this stream. Any data written to this stream but not
+     * yet emitted is flushed first.
+     *
+     * @param segment
+     *  the deflate segment to write
+     *
+     * @throws IllegalArgumentException
+     *  if segment is null
+     *
+     * @throws IOException
+     *  if an I/O error occurs, or this stream has already been finished
+     */
+    public void writeSegment(DeflateSegment segment) throws IOException {
+        if (segment == null) {
+            throw new IllegalArgumentException("segment is null");
+        }
+
+        this.writeHeader();
+
+        if (this.pendingInput) {
+            // Flush to a byte boundary and discard the compression window, since the data after
+            // the segment must not reference data the segment displaced
+            this.drain(Deflater.SYNC_FLUSH);
+            this.deflater.reset();
+            this.pendingInput = false;
+        }
+
+        this.out.write(segment.getData());
+
+        this.checksum = combineChecksums(this.checksum, segment.getChecksum(), segment.getLength());
+        this.length += segment.getLength();
+    }
+
+    /**
+     * Finishes the gzip member, writing the final deflate block and the gzip trailer to the
+     * underlying stream without closing it. Calling this method on a finished stream has no effect.
+     *
+     * @throws IOException
+     *  if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (this.finished) {
+            return;
+        }
+
+        try {
+            this.writeHeader();
+
+            this.deflater.finish();
+            while (!this.deflater.finished()) {
+                int count = this.deflater.deflate(this.buffer);
+                this.out.write(this.buffer, 0, count);
+            }
+
+            // CRC-32 and the uncompressed length modulo 2^32, both little-endian
+            this.out.write(new byte[] {
+                (byte) this.checksum, (byte) (this.checksum >> 8),
+                (byte) (this.checksum >> 16), (byte) (this.checksum >> 24),
+                (byte) this.length, (byte) (this.length >> 8),
+                (byte) (this.length >> 16), (byte) (this.length >> 24)
+            });
+        }
+        finally {
+            this.finished = true;
+            this.deflater.end();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.finish();
+        }
+        finally {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Combines the CRC-32 checksums of two consecutive blocks of data into the checksum of their
+     * concatenation. This is a port of zlib's crc32_combine.
+     *
+     * @param crc1
+     *  the checksum of the first block
+     *
+     * @param crc2
+     *  the checksum of the second block
+     *
+     * @param length2
+     *  the length of the second block, in bytes
+     *
+     * @return
+     *  the checksum of the concatenated blocks
+     */
+    static long combineChecksums(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+
+        long[] even = new long[32];
+        long[] odd = new long[32];
+
+        // Operator for a single zero bit
+        odd[0] = 0xedb88320L;
+        long row = 1;
+        for (int i = 1; i < 32; ++i) {
+            odd[i] = row;
+            row <<= 1;
+        }
+
+        // Operators for two and four zero bits
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+
+        // Apply length2 zero bytes to crc1
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+
+            gf2MatrixSquare(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+
+            length2 >>= 1;
+        }
+        while (length2 != 0);
+
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+
+        for (int i = 0; vector != 0; ++i, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int i = 0; i < 32; ++i) {
+            square[i] = gf2MatrixTimes(matrix, matrix[i]);
+        }
+    }
+}
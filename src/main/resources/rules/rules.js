@@ -1,4 +1,4 @@
-// Version: 5.43
+// Version: 5.44
 
 /*
  * Default Candlepin rule set.
@@ -2026,17 +2026,62 @@ var Entitlement = {
         return this.build_func("do_pre_global")();
     },
 
-    get_validators: function(pool) {
-        var validators = [this.do_pre_global];
+    // Parses attribute_mappings into an ordered list of attribute/validator pairs. This is
+    // run once when the rules are compiled; see ENTITLEMENT_VALIDATORS below.
+    build_validator_table: function() {
+        var table = [];
         var mappings = this.attribute_mappings().split(",");
         for (var i = 0; i < mappings.length; i++) {
             var attr_data = mappings[i].split(":");
-            var funcname = "do_pre_" + attr_data[0];
-            var attribute = attr_data[2];
-            if (pool.hasAttribute(attribute)) {
-                validators.push(this[funcname]);
+            table.push({
+                attribute: attr_data[2],
+                validator: this["do_pre_" + attr_data[0]]
+            });
+        }
+        return table;
+    },
+
+    // Returns the validators to run for the given pool. The global validator always runs
+    // first, followed by the validators of each mapped attribute set on the pool, in mapping
+    // order. If a memo object is provided, the validator list is shared by every pool with the
+    // same combination of mapped attributes.
+    get_validators: function(pool, memo) {
+        // Collect the attributes set on the pool or its product in a single pass. Attributes
+        // with a null value or a value of 0 are considered unset, as in pool.hasAttribute.
+        var present = {};
+        var attr_lists = [pool.attributes, pool.productAttributes];
+        for (var i = 0; i < attr_lists.length; i++) {
+            var attrs = attr_lists[i] || [];
+            for (var k = 0; k < attrs.length; k++) {
+                var v = attrs[k].value;
+                if (v !== null && v !== undefined && v !== 0 && v !== "0") {
+                    present[attrs[k].name] = true;
+                }
             }
         }
+
+        var signature = "";
+        for (var i = 0; i < ENTITLEMENT_VALIDATORS.length; i++) {
+            if (present[ENTITLEMENT_VALIDATORS[i].attribute] === true) {
+                signature += i + ",";
+            }
+        }
+
+        if (memo && signature in memo) {
+            return memo[signature];
+        }
+
+        var validators = [this.do_pre_global];
+        for (var i = 0; i < ENTITLEMENT_VALIDATORS.length; i++) {
+            if (present[ENTITLEMENT_VALIDATORS[i].attribute] === true) {
+                validators.push(ENTITLEMENT_VALIDATORS[i].validator);
+            }
+        }
+
+        if (memo) {
+            memo[signature] = validators;
+        }
+
         return validators;
     },
 
@@ -2054,9 +2099,10 @@ var Entitlement = {
         context = this.get_attribute_context();
 
         var result_map = {};
+        var memo = {};
         for (var i = 0; i < context.pools.length; i++) {
             pool = context.pools[i];
-            validators = this.get_validators(pool);
+            validators = this.get_validators(pool, memo);
             var result = this.ValidationResult();
             for (var k = 0; k < validators.length; k++) {
                 // Set up the context to work like an individual validation
@@ -2075,9 +2121,10 @@ var Entitlement = {
         context.quantity = 1;
 
         var result_map = {};
+        var memo = {};
         for (var i = 0; i < context.pools.length; i++) {
             pool = context.pools[i]
-            validators = this.get_validators(pool);
+            validators = this.get_validators(pool, memo);
             var result = this.ValidationResult();
             for (var k = 0; k < validators.length; k++) {
                 // Set up the context to work like an individual validation
@@ -2090,6 +2137,13 @@ var Entitlement = {
     },
 }
 
+/*
+ * The entitlement validator dispatch table, built from Entitlement.attribute_mappings when the
+ * rules are compiled. The table lives in the shared rules scope and is reused by every
+ * execution of this version of the rules, so it must not be modified.
+ */
+var ENTITLEMENT_VALIDATORS = Entitlement.build_validator_table();
+
 var Autobind = {
 
     /*
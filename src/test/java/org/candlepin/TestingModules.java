@@ -127,6 +127,9 @@ import com.google.inject.persist.UnitOfWork;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import com.google.inject.servlet.RequestScoped;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.hibernate.Session;
 import org.hibernate.cfg.beanvalidation.BeanValidationEventListener;
 import org.hibernate.validator.HibernateValidator;
@@ -173,10 +176,27 @@ public class TestingModules {
     }
 
     public static class JpaModule extends AbstractModule {
+        private final Properties jpaProperties;
+
+        public JpaModule() {
+            this(new Properties());
+        }
+
+        /**
+         * Creates a JPA module for the testing persistence unit, with the given properties overriding
+         * those defined for the unit in persistence.xml.
+         *
+         * @param jpaProperties
+         *  the JPA and Hibernate properties to override
+         */
+        public JpaModule(Properties jpaProperties) {
+            this.jpaProperties = jpaProperties;
+        }
+
         @Override
         public void configure() {
             install(new ServletEnvironmentModule());
-            install(new JpaPersistModule("testing"));
+            install(new JpaPersistModule("testing").properties(this.jpaProperties));
 
             bind(BeanValidationEventListener.class).toProvider(ValidationListenerProvider.class);
             bind(MessageInterpolator.class).to(CandlepinMessageInterpolator.class);
@@ -349,6 +369,9 @@ public class TestingModules {
             // Messaging
             bind(CPMSessionFactory.class).to(NoopSessionFactory.class).in(Singleton.class);
             bind(CPMContextListener.class).to(NoopContextListener.class).in(Singleton.class);
+
+            // Metrics
+            bind(MeterRegistry.class).to(SimpleMeterRegistry.class).in(Singleton.class);
         }
 
         @Provides @Singleton @Named("EventFactoryObjectMapper")
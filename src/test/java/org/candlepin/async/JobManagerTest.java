@@ -19,7 +19,9 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyCollection;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
@@ -49,6 +51,7 @@ import org.candlepin.controller.mode.CandlepinModeManager.Mode;
 import org.candlepin.guice.CandlepinRequestScope;
 import org.candlepin.guice.PrincipalProvider;
 import org.candlepin.logging.LoggingUtil;
+import org.candlepin.metrics.CandlepinMeters;
 import org.candlepin.model.AsyncJobStatus;
 import org.candlepin.model.AsyncJobStatus.JobState;
 import org.candlepin.model.AsyncJobStatusCurator;
@@ -59,6 +62,10 @@ import org.candlepin.util.Util;
 
 import com.google.inject.Injector;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.hamcrest.core.StringContains;
 import org.hibernate.Session;
@@ -164,6 +171,7 @@ public class JobManagerTest {
     private CandlepinRequestScope requestScope;
     private Injector injector;
     private EventSink eventSink;
+    private MeterRegistry meterRegistry;
 
     private Scheduler scheduler;
     private List<ImmutablePair<String, String>> scheduledJobs;
@@ -187,6 +195,7 @@ public class JobManagerTest {
         this.requestScope = mock(CandlepinRequestScope.class);
         this.injector = mock(Injector.class);
         this.eventSink = mock(EventSink.class);
+        this.meterRegistry = new SimpleMeterRegistry();
 
         this.scheduler = mock(Scheduler.class);
         this.scheduledJobs = new LinkedList<>();
@@ -198,6 +207,13 @@ public class JobManagerTest {
         doReturn(session).when(this.jobCurator).currentSession();
         doAnswer(returnsFirstArg()).when(this.jobCurator).merge(Mockito.any(AsyncJobStatus.class));
         doAnswer(returnsFirstArg()).when(this.jobCurator).create(Mockito.any(AsyncJobStatus.class));
+        doAnswer(invocation -> {
+            invocation.getArgument(0, AsyncJobStatus.class).setConstraintKey(invocation.getArgument(1));
+            return true;
+        }).when(this.jobCurator).claimConstraintKey(Mockito.any(AsyncJobStatus.class), anyString());
+        doAnswer(returnsFirstArg()).when(this.jobCurator)
+            .compareAndSetJobStatus(Mockito.any(AsyncJobStatus.class), anyCollection());
+        doAnswer(returnsFirstArg()).when(this.jobCurator).detachJob(Mockito.any(AsyncJobStatus.class));
         doReturn(this.scheduler).when(this.schedulerFactory).getScheduler();
         doReturn(this.listenerManager).when(this.scheduler).getListenerManager();
 
@@ -261,7 +277,7 @@ public class JobManagerTest {
     private JobManager createJobManager(JobMessageDispatcher dispatcher) {
         return new JobManager(this.config, this.schedulerFactory, this.modeManager, this.jobCurator,
             this.ownerCurator, dispatcher, this.receiver, this.principalProvider, this.requestScope,
-            this.injector);
+            this.injector, this.meterRegistry);
     }
 
     private JobArguments buildJobArguments(Map<String, Object> args) {
@@ -385,6 +401,30 @@ public class JobManagerTest {
         verify(spy).execute(any());
     }
 
+    @Test
+    public void testJobExecutionIsTimed() throws JobException {
+        AsyncJobStatus status = this.createJobStatus(JOB_ID)
+            .setJobKey(TestJob.JOB_KEY)
+            .setState(JobState.QUEUED);
+
+        doReturn(mock(AsyncJob.class)).when(injector).getInstance(TestJob.class);
+        this.injectMockedJobStatus(status);
+
+        JobManager manager = createJobManager();
+        manager.initialize();
+        manager.start();
+
+        manager.executeJob(new JobMessage(JOB_ID, TestJob.JOB_KEY));
+
+        Timer timer = this.meterRegistry.find(CandlepinMeters.JOB_EXECUTIONS)
+            .tag(CandlepinMeters.TAG_JOB, TestJob.JOB_KEY)
+            .tag(CandlepinMeters.TAG_OUTCOME, "SUCCESS")
+            .timer();
+
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
     @Test
     public void testJobManagerDoesNotExecuteCanceledJob() throws JobException {
         AsyncJobStatus status = this.createJobStatus(JOB_ID)
@@ -575,6 +615,107 @@ public class JobManagerTest {
         assertThat(collected, hasItems(JobState.RUNNING, JobState.FINISHED));
     }
 
+    @Test
+    public void testCoalescedJobOnlyPersistsTerminalState() throws JobException {
+        this.config.setProperty(ConfigProperties.jobConfig(TestJob.JOB_KEY,
+            ConfigProperties.ASYNC_JOBS_JOB_COALESCE_STATE_UPDATES), "true");
+
+        StateCollectingStatus status = new StateCollectingStatus(JOB_ID);
+        status.setJobKey(TestJob.JOB_KEY);
+        status.setState(JobState.QUEUED);
+
+        doReturn(mock(AsyncJob.class)).when(injector).getInstance(TestJob.class);
+        this.injectMockedJobStatus(status);
+
+        JobManager manager = createJobManager();
+        manager.initialize();
+        manager.start();
+
+        manager.executeJob(new JobMessage(JOB_ID, TestJob.JOB_KEY));
+
+        assertThat(status.getCollectedStates(), hasItems(JobState.RUNNING, JobState.FINISHED));
+        assertEquals(JobState.FINISHED, status.getState());
+
+        // The job should be detached while it runs, and only the terminal state should be written
+        verify(this.jobCurator, times(1)).detachJob(status);
+        verify(this.jobCurator, times(1)).compareAndSetJobStatus(eq(status), anyCollection());
+        verify(this.jobCurator, never()).merge(any(AsyncJobStatus.class));
+    }
+
+    @Test
+    public void testCoalescedJobIsPersistedAsQueued() throws JobException {
+        this.config.setProperty(ConfigProperties.jobConfig(TestJob.JOB_KEY,
+            ConfigProperties.ASYNC_JOBS_JOB_COALESCE_STATE_UPDATES), "true");
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        // The job should already be in the QUEUED state when it is first persisted
+        doAnswer(iom -> {
+            assertEquals(JobState.QUEUED, ((AsyncJobStatus) iom.getArgument(0)).getState());
+            return iom.getArgument(0);
+        }).when(this.jobCurator).create(any(AsyncJobStatus.class));
+
+        AsyncJobStatus result = manager.queueJob(JobConfig.forJob(TestJob.JOB_KEY));
+
+        assertNotNull(result);
+        assertEquals(JobState.QUEUED, result.getState());
+        verify(this.jobCurator, times(1)).create(result);
+        verify(this.jobCurator, never()).merge(any(AsyncJobStatus.class));
+        verify(this.dispatcher, times(1)).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testJobHeartbeatIsRecorded() throws JobException {
+        this.config.setProperty(ConfigProperties.ASYNC_JOBS_HEARTBEAT_INTERVAL, "0");
+
+        AsyncJobStatus status = new StateCollectingStatus(JOB_ID)
+            .setJobKey(TestJob.JOB_KEY)
+            .setState(JobState.QUEUED);
+
+        AsyncJob job = context -> context.heartbeat();
+
+        doReturn(job).when(injector).getInstance(TestJob.class);
+        this.injectMockedJobStatus(status);
+
+        JobManager manager = createJobManager();
+        manager.initialize();
+        manager.start();
+
+        manager.executeJob(new JobMessage(JOB_ID, TestJob.JOB_KEY));
+
+        verify(this.jobCurator, times(1)).recordJobHeartbeat(status);
+    }
+
+    @Test
+    public void testJobCanceledWhileRunningIsNotConcluded() throws JobException {
+        AsyncJobStatus status = new StateCollectingStatus(JOB_ID)
+            .setJobKey(TestJob.JOB_KEY)
+            .setState(JobState.QUEUED);
+
+        AsyncJobStatus canceled = new StateCollectingStatus(JOB_ID)
+            .setJobKey(TestJob.JOB_KEY)
+            .setState(JobState.CANCELED);
+
+        doReturn(mock(AsyncJob.class)).when(injector).getInstance(TestJob.class);
+
+        // The job is canceled by another node while it runs
+        doReturn(status).doReturn(canceled).when(this.jobCurator).get(JOB_ID);
+        doReturn(null).when(this.jobCurator)
+            .compareAndSetJobStatus(argThat(job -> job.getState() == JobState.FINISHED), anyCollection());
+
+        JobManager manager = createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.executeJob(new JobMessage(JOB_ID, TestJob.JOB_KEY));
+
+        assertNotNull(result);
+        assertEquals(JobState.CANCELED, result.getState());
+        verify(this.jobCurator, never()).merge(any(AsyncJobStatus.class));
+    }
+
     @Test
     public void testExecuteJobProperlyRecoversFromExceptions() throws JobException {
         StateCollectingStatus status = new StateCollectingStatus(JOB_ID);
@@ -1003,7 +1144,8 @@ public class JobManagerTest {
             .setMaxAttempts(3));
 
         AsyncJob job = jdata -> {
-            doThrow(new RuntimeException()).when(jobCurator).merge(status);
+            doThrow(new RuntimeException()).when(jobCurator)
+                .compareAndSetJobStatus(eq(status), anyCollection());
             throw new JobExecutionException("kaboom");
         };
 
@@ -1301,6 +1443,88 @@ public class JobManagerTest {
         assertEquals(JobState.QUEUED, result.getState());
     }
 
+    @Test
+    public void testQueuedJobReceivesConstraintKey() throws Exception {
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1");
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.QUEUED, result.getState());
+        assertNotNull(result.getConstraintKey());
+        verify(this.jobCurator, times(1)).fetchJobIdsByConstraintKey(eq(result.getConstraintKey()));
+    }
+
+    @Test
+    public void testBlockedJobDoesNotReceiveConstraintKey() throws Exception {
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1");
+
+        doReturn(Arrays.asList("job-1")).when(this.jobCurator).fetchJobIdsByConstraintKey(anyString());
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.ABORTED, result.getState());
+        assertNull(result.getConstraintKey());
+    }
+
+    @Test
+    public void testJobLosingConstraintKeyClaimIsAborted() throws Exception {
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(JobConstraints.uniqueByArguments("arg1"))
+            .setJobArgument("arg1", "val1");
+
+        // No existing jobs when the constraint is tested, but another node claims the key before us
+        doReturn(Arrays.asList())
+            .doReturn(Arrays.asList("job-1"))
+            .when(this.jobCurator).fetchJobIdsByConstraintKey(anyString());
+        doReturn(false).when(this.jobCurator).claimConstraintKey(any(AsyncJobStatus.class), anyString());
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.ABORTED, result.getState());
+        assertNull(result.getConstraintKey());
+        assertThat(result.getJobResult(), containsString("job-1"));
+        verify(this.dispatcher, never()).postJobMessage(any(JobMessage.class));
+    }
+
+    @Test
+    public void testJobWithMultipleKeyedConstraintsClaimsFirstKey() throws Exception {
+        JobConstraint first = JobConstraints.uniqueByArguments("arg1");
+        JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
+            .addConstraint(first)
+            .addConstraint(JobConstraints.uniqueByArguments("arg2"))
+            .setJobArgument("arg1", "val1")
+            .setJobArgument("arg2", "val2");
+
+        JobManager manager = this.createJobManager();
+        manager.initialize();
+        manager.start();
+
+        AsyncJobStatus result = manager.queueJob(builder);
+
+        assertNotNull(result);
+        assertEquals(JobState.QUEUED, result.getState());
+        assertEquals(first.generateConstraintKey(result), result.getConstraintKey());
+    }
+
     @Test
     public void testJobDoesNotQueueIfConstraintFails() throws Exception {
         JobConfig builder = JobConfig.forJob(TestJob.JOB_KEY)
@@ -1687,6 +1911,49 @@ public class JobManagerTest {
         assertEquals(1, output.getMaxAttempts());
     }
 
+    @Test
+    public void testCancelJobReevaluatesJobsStartedConcurrently() {
+        String jobId = "job_id";
+        AsyncJobStatus expected = this.createJobStatus(jobId, null, JobState.QUEUED)
+            .setMaxAttempts(5);
+
+        this.injectMockedJobStatus(expected);
+
+        AsyncJobStatus running = this.createJobStatus(jobId, null, JobState.RUNNING)
+            .setMaxAttempts(5);
+
+        // The job is started by another node before the cancellation is written
+        doReturn(expected).doReturn(running).when(this.jobCurator).get(jobId);
+        doReturn(null).when(this.jobCurator)
+            .compareAndSetJobStatus(eq(expected), eq(List.of(JobState.QUEUED)));
+
+        JobManager manager = this.createJobManager();
+        AsyncJobStatus output = manager.cancelJob(expected.getId());
+
+        assertNotNull(output);
+        assertEquals(JobState.RUNNING, output.getState());
+        assertEquals(1, output.getMaxAttempts());
+    }
+
+    @Test
+    public void testCancelJobWontCancelJobsConcludedConcurrently() {
+        String jobId = "job_id";
+        AsyncJobStatus expected = this.createJobStatus(jobId, null, JobState.QUEUED);
+
+        this.injectMockedJobStatus(expected);
+
+        AsyncJobStatus finished = this.createJobStatus(jobId, null, JobState.RUNNING)
+            .setState(JobState.FINISHED);
+
+        doReturn(expected).doReturn(finished).when(this.jobCurator).get(jobId);
+        doReturn(null).when(this.jobCurator)
+            .compareAndSetJobStatus(eq(expected), eq(List.of(JobState.QUEUED)));
+
+        JobManager manager = this.createJobManager();
+        assertThrows(IllegalStateException.class, () -> manager.cancelJob(expected.getId()));
+        verify(this.jobCurator, never()).merge(any(AsyncJobStatus.class));
+    }
+
     public static Stream<Arguments> terminalJobStatesProvider() {
         return Arrays.stream(JobState.values())
             .filter(state -> state != null && state.isTerminal())
@@ -68,17 +68,29 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
         return status;
     }
 
-    private AsyncJobStatus persistJobStatus(String name, String jobKey, Map<String, Object> params) {
+    private AsyncJobStatus persistJobStatus(JobConstraint constraint, String name, String jobKey,
+        Map<String, Object> params) {
+
+        // Mimic the job manager, which stores the constraint key with the job as it's queued
         AsyncJobStatus status = this.buildJobStatus(name, jobKey, params);
+        status.setConstraintKey(constraint.generateConstraintKey(status));
+
         return this.asyncJobCurator.merge(status);
     }
 
+    private AsyncJobStatus persistLegacyJobStatus(String name, String jobKey, Map<String, Object> params) {
+        // Jobs queued before constraint keys were introduced do not have one
+        return this.asyncJobCurator.merge(this.buildJobStatus(name, jobKey, params));
+    }
+
     @Test
     public void testStandardMatching() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map("param1", "val1"));
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key",
+            this.map("param1", "val1"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -88,10 +100,12 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testStandardMatchingFromCollection() {
+        JobConstraint constraint = new UniqueByArgConstraint(Collections.singletonList("param1"));
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map("param1", "val1"));
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key",
+            this.map("param1", "val1"));
 
-        JobConstraint constraint = new UniqueByArgConstraint(Collections.singletonList("param1"));
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -101,17 +115,18 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMatchingOnJobsWithMultipleParams() {
+        JobConstraint constraint = new UniqueByArgConstraint("param2");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "paramA", "valA",
             "param2", "val2",
             "paramC", "valC"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param2");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -121,17 +136,18 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMatchingOnJobsWithMultipleParamsFromCollection() {
+        JobConstraint constraint = new UniqueByArgConstraint(Collections.singletonList("param2"));
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "paramA", "valA",
             "param2", "val2",
             "paramC", "valC"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint(Collections.singletonList("param2"));
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -141,17 +157,18 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultiMatchingOnJobsWithMultipleParams() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -161,17 +178,18 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultiMatchingOnJobsWithMultipleParamsFromCollection() {
+        JobConstraint constraint = new UniqueByArgConstraint(Arrays.asList("param1", "param2", "param3"));
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint(Arrays.asList("param1", "param2", "param3"));
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -181,17 +199,18 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultiMatchingOnJobsWithMultipleParamsOutOfOrder() {
+        JobConstraint constraint = new UniqueByArgConstraint("param2", "param1", "param3");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param2", "param1", "param3");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -201,17 +220,18 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultiMatchingOnJobsWithMultipleParamsOutOfOrderFromCollection() {
+        JobConstraint constraint = new UniqueByArgConstraint(Arrays.asList("param2", "param1", "param3"));
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint(Arrays.asList("param2", "param1", "param3"));
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -221,6 +241,8 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultiMatchingOnJobsWithMultipleParamsAndExtraParams() {
+        JobConstraint constraint = new UniqueByArgConstraint("param2", "param1", "param3");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "paramA", "valA",
             "param1", "val1",
@@ -230,7 +252,7 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
             "param3", "val3",
             "paramD", "valD"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "paramR", "valR",
             "param1", "val1",
             "paramS", "valS",
@@ -239,7 +261,6 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
             "param3", "val3",
             "paramU", "valU"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param2", "param1", "param3");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -249,10 +270,12 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testNoMatchOnKeyMismatch() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
-        AsyncJobStatus existing = this.persistJobStatus("existing", "alt_key", this.map("param1", "val1"));
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "alt_key",
+            this.map("param1", "val1"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -260,17 +283,18 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testNoMatchOnKeyMismatchWithMultiParam() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "alt_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "alt_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -278,10 +302,12 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testNoMatchOnParamMismatch() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map("paramX", "val1"));
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key",
+            this.map("paramX", "val1"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -289,17 +315,18 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultiParamsNoMatchOnParamMismatch() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "paramX", "val2",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -307,10 +334,12 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testNoMatchOnArgMismatch() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map("param1", "valX"));
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key",
+            this.map("param1", "valX"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -318,17 +347,18 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultiParamsNoMatchOnArgMismatch() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "param2", "valX",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -336,10 +366,12 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testNoMatchWhenInboundJobLacksParam() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param2", "val2"));
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map("param1", null));
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key",
+            this.map("param1", null));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -347,16 +379,17 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultiParamNoMatchWhenInboundJobLacksParam() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "param1", "val1",
             "param2", "val2"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -364,10 +397,12 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testNoMatchWhenExistingJobsLackParam() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", null));
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map("param2", "val2"));
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key",
+            this.map("param2", "val2"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -375,16 +410,17 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultiParamNoMatchWhenExistingJobsLackParam() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
             "param1", "val1",
             "param2", "val2",
             "param3", "val3"));
 
-        AsyncJobStatus existing = this.persistJobStatus("existing", "test_key", this.map(
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key", this.map(
             "param1", "val1",
             "param3", "val3"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2", "param3");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertTrue(result == null || result.isEmpty());
@@ -392,13 +428,17 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultipleExistingJobsMatchesCorrectJob() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
 
-        AsyncJobStatus existing1 = this.persistJobStatus("existing1", "test_key", this.map("param1", "val3"));
-        AsyncJobStatus existing2 = this.persistJobStatus("existing2", "test_key", this.map("param1", "val1"));
-        AsyncJobStatus existing3 = this.persistJobStatus("existing3", "test_key", this.map("param1", "val2"));
+        AsyncJobStatus existing1 = this.persistJobStatus(constraint, "existing1", "test_key",
+            this.map("param1", "val3"));
+        AsyncJobStatus existing2 = this.persistJobStatus(constraint, "existing2", "test_key",
+            this.map("param1", "val1"));
+        AsyncJobStatus existing3 = this.persistJobStatus(constraint, "existing3", "test_key",
+            this.map("param1", "val2"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -408,13 +448,19 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
 
     @Test
     public void testMultipleExistingJobsMatchesMultipleCorrectJobs() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
         AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
 
-        AsyncJobStatus existing1 = this.persistJobStatus("existing1", "test_key", this.map("param1", "val1"));
-        AsyncJobStatus existing2 = this.persistJobStatus("existing2", "test_key", this.map("param1", "val2"));
-        AsyncJobStatus existing3 = this.persistJobStatus("existing3", "test_key", this.map("param1", "val1"));
+        // Only one non-terminal job can hold a given constraint key, so the second matching job
+        // must predate constraint keys
+        AsyncJobStatus existing1 = this.persistJobStatus(constraint, "existing1", "test_key",
+            this.map("param1", "val1"));
+        AsyncJobStatus existing2 = this.persistJobStatus(constraint, "existing2", "test_key",
+            this.map("param1", "val2"));
+        AsyncJobStatus existing3 = this.persistLegacyJobStatus("existing3", "test_key",
+            this.map("param1", "val1"));
 
-        JobConstraint constraint = new UniqueByArgConstraint("param1");
         Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
 
         assertNotNull(result);
@@ -423,4 +469,96 @@ public class UniqueByArgConstraintTest extends DatabaseTestFixture {
         assertThat(result, hasItem(existing3.getId()));
     }
 
+    @Test
+    public void testMatchesJobsWithoutConstraintKeyByArguments() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2");
+
+        AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
+            "param1", "val1",
+            "param2", "val2"));
+
+        AsyncJobStatus existing1 = this.persistLegacyJobStatus("existing1", "test_key", this.map(
+            "param1", "val1",
+            "param2", "val2",
+            "param3", "val3"));
+        AsyncJobStatus existing2 = this.persistLegacyJobStatus("existing2", "test_key", this.map(
+            "param1", "val1",
+            "param2", "val3"));
+        AsyncJobStatus existing3 = this.persistLegacyJobStatus("existing3", "other_key", this.map(
+            "param1", "val1",
+            "param2", "val2"));
+
+        Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
+
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        assertThat(result, hasItem(existing1.getId()));
+    }
+
+    @Test
+    public void testNoMatchOnTerminalJobsWithoutConstraintKey() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
+        AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
+        AsyncJobStatus existing = this.persistLegacyJobStatus("existing", "test_key",
+            this.map("param1", "val1"));
+
+        existing.setState(AsyncJobStatus.JobState.FINISHED);
+        this.asyncJobCurator.merge(existing);
+        this.asyncJobCurator.flush();
+
+        Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
+
+        assertTrue(result == null || result.isEmpty());
+    }
+
+    @Test
+    public void testNoMatchOnTerminalJobs() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
+        AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
+        AsyncJobStatus existing = this.persistJobStatus(constraint, "existing", "test_key",
+            this.map("param1", "val1"));
+
+        existing.setState(AsyncJobStatus.JobState.FINISHED);
+        this.asyncJobCurator.merge(existing);
+        this.asyncJobCurator.flush();
+
+        Collection<String> result = constraint.test(this.asyncJobCurator, inbound);
+
+        assertTrue(result == null || result.isEmpty());
+    }
+
+    @Test
+    public void testConstraintKeyIsIndependentOfParamOrder() {
+        AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map(
+            "param1", "val1",
+            "param2", "val2"));
+
+        String key1 = new UniqueByArgConstraint("param1", "param2").generateConstraintKey(inbound);
+        String key2 = new UniqueByArgConstraint("param2", "param1").generateConstraintKey(inbound);
+
+        assertNotNull(key1);
+        assertEquals(key1, key2);
+    }
+
+    @Test
+    public void testConstraintKeyDiffersByJobKey() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1");
+
+        AsyncJobStatus job1 = this.buildJobStatus("job1", "test_key", this.map("param1", "val1"));
+        AsyncJobStatus job2 = this.buildJobStatus("job2", "alt_key", this.map("param1", "val1"));
+
+        assertNotEquals(constraint.generateConstraintKey(job1), constraint.generateConstraintKey(job2));
+    }
+
+    @Test
+    public void testNoConstraintKeyWhenParamIsMissing() {
+        JobConstraint constraint = new UniqueByArgConstraint("param1", "param2");
+
+        AsyncJobStatus inbound = this.buildJobStatus("inbound", "test_key", this.map("param1", "val1"));
+
+        assertNull(constraint.generateConstraintKey(inbound));
+    }
+
 }
@@ -20,6 +20,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import org.candlepin.async.JobExecutionContext;
+import org.candlepin.async.JobExecutionException;
+import org.candlepin.config.ConfigProperties;
 import org.candlepin.model.AsyncJobStatus;
 import org.candlepin.model.Content;
 import org.candlepin.model.Owner;
@@ -32,6 +34,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -40,8 +43,8 @@ import java.util.Set;
 public class OrphanCleanupJobTest extends DatabaseTestFixture {
 
     private OrphanCleanupJob createJobInstance() {
-        return new OrphanCleanupJob(this.contentCurator, this.ownerContentCurator, this.productCurator,
-            this.ownerProductCurator);
+        return new OrphanCleanupJob(this.config, this.contentCurator, this.ownerContentCurator,
+            this.productCurator, this.ownerProductCurator);
     }
 
     private Content createOrphanedContent() {
@@ -198,4 +201,83 @@ public class OrphanCleanupJobTest extends DatabaseTestFixture {
         // Verify unreferenced orphans were
         assertNull(this.productCurator.get(product3.getUuid()));
     }
+
+    @Test
+    public void testChunkedExecutionRemovesAllOrphans() throws Exception {
+        this.config.setProperty(ConfigProperties.jobConfig(OrphanCleanupJob.JOB_KEY,
+            OrphanCleanupJob.CFG_CHUNK_SIZE), "2");
+
+        Owner owner = this.createOwner();
+        Content existingContent = this.createContent(owner);
+        Product existingProduct = this.createProduct(owner);
+
+        Set<Content> orphanedContent = new HashSet<>();
+        Set<Product> orphanedProducts = new HashSet<>();
+
+        for (int i = 0; i < 5; ++i) {
+            Content content = TestUtil.createContent("test-content-" + i, "test-content-" + i);
+            content.addModifiedProductId("modified-" + i);
+            orphanedContent.add(this.contentCurator.create(content));
+
+            orphanedProducts.add(this.createOrphanedProduct());
+        }
+
+        this.ownerCurator.flush();
+
+        AsyncJobStatus status = mock(AsyncJobStatus.class);
+        JobExecutionContext context = spy(new JobExecutionContext(status));
+
+        this.createJobInstance().execute(context);
+
+        verify(context, times(1)).setJobResult(anyString(), eq(5), eq(5));
+
+        this.ownerCurator.flush();
+        this.ownerCurator.clear();
+
+        assertNotNull(this.contentCurator.get(existingContent.getUuid()));
+        assertNotNull(this.productCurator.get(existingProduct.getUuid()));
+
+        for (Content orphan : orphanedContent) {
+            assertNull(this.contentCurator.get(orphan.getUuid()));
+        }
+
+        for (Product orphan : orphanedProducts) {
+            assertNull(this.productCurator.get(orphan.getUuid()));
+        }
+    }
+
+    @Test
+    public void testChunkDeletionSkipsEntitiesNoLongerOrphaned() {
+        Owner owner = this.createOwner();
+
+        Content content = this.createOrphanedContent();
+        Product product = this.createOrphanedProduct();
+
+        // Simulate the entities being linked to an owner after the orphans were found, but
+        // before the chunk containing them was processed
+        this.ownerContentCurator.mapContentToOwner(content, owner);
+        this.ownerProductCurator.mapProductToOwner(product, owner);
+        this.ownerCurator.flush();
+
+        OrphanCleanupJob job = this.createJobInstance();
+        assertEquals(0, job.deleteOrphanedContent(List.of(content.getUuid())));
+        assertEquals(0, job.deleteOrphanedProducts(List.of(product.getUuid())));
+
+        this.ownerCurator.flush();
+        this.ownerCurator.clear();
+
+        assertNotNull(this.contentCurator.get(content.getUuid()));
+        assertNotNull(this.productCurator.get(product.getUuid()));
+    }
+
+    @Test
+    public void testInvalidChunkSizeConfiguration() {
+        this.config.setProperty(ConfigProperties.jobConfig(OrphanCleanupJob.JOB_KEY,
+            OrphanCleanupJob.CFG_CHUNK_SIZE), "0");
+
+        AsyncJobStatus status = mock(AsyncJobStatus.class);
+        JobExecutionContext context = new JobExecutionContext(status);
+
+        assertThrows(JobExecutionException.class, () -> this.createJobInstance().execute(context));
+    }
 }
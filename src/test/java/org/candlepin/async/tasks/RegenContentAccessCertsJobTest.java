@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.async.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.candlepin.async.JobExecutionContext;
+import org.candlepin.async.JobExecutionException;
+import org.candlepin.audit.EventSink;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.controller.ContentAccessManager;
+import org.candlepin.controller.ContentAccessManager.ContentAccessMode;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ContentAccessCertificate;
+import org.candlepin.model.KeyPairDataCurator;
+import org.candlepin.model.Owner;
+import org.candlepin.pki.CertificateReader;
+import org.candlepin.pki.PKIUtility;
+import org.candlepin.pki.PrivateKeyReader;
+import org.candlepin.pki.impl.DefaultSubjectKeyIdentifierWriter;
+import org.candlepin.pki.impl.JSSPKIUtility;
+import org.candlepin.pki.impl.JSSPrivateKeyReader;
+import org.candlepin.test.DatabaseTestFixture;
+import org.candlepin.util.X509V3ExtensionUtil;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.inject.Inject;
+
+
+
+public class RegenContentAccessCertsJobTest extends DatabaseTestFixture {
+
+    @Inject private KeyPairDataCurator keyPairDataCurator;
+
+    private ContentAccessManager contentAccessManager;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        PrivateKeyReader keyReader = new JSSPrivateKeyReader();
+        CertificateReader certReader = new CertificateReader(this.config, keyReader);
+        PKIUtility pkiUtility = spy(new JSSPKIUtility(certReader, new DefaultSubjectKeyIdentifierWriter(),
+            this.config, this.keyPairDataCurator));
+        X509V3ExtensionUtil x509V3ExtensionUtil = new X509V3ExtensionUtil(this.config,
+            this.entitlementCurator, new ObjectMapper());
+
+        this.contentAccessManager = new ContentAccessManager(this.config, pkiUtility, x509V3ExtensionUtil,
+            this.caCertCurator, this.certSerialCurator, this.ownerCurator, this.ownerContentCurator,
+            this.consumerCurator, this.consumerTypeCurator, this.environmentCurator, this.caCertCurator,
+            mock(EventSink.class), new SimpleMeterRegistry());
+    }
+
+    private RegenContentAccessCertsJob createJob() {
+        return new RegenContentAccessCertsJob(this.config, this.ownerCurator, this.ownerContentCurator,
+            this.consumerCurator, this.caCertCurator, this.contentAccessManager);
+    }
+
+    private Owner createOwner(ContentAccessMode mode) {
+        Owner owner = this.createOwner();
+
+        owner.setContentAccessModeList(ContentAccessMode.ENTITLEMENT.toDatabaseValue() + ", " +
+            ContentAccessMode.ORG_ENVIRONMENT.toDatabaseValue());
+        owner.setContentAccessMode(mode.toDatabaseValue());
+
+        return this.ownerCurator.merge(owner);
+    }
+
+    private Consumer createConsumerWithStaleCert(Owner owner) {
+        Consumer consumer = this.createConsumer(owner);
+        consumer.setFact("system.certificate_version", "3.0");
+        consumer = this.consumerCurator.merge(consumer);
+
+        ContentAccessCertificate cert = this.contentAccessManager.getCertificate(consumer);
+        if (!owner.isUsingSimpleContentAccess()) {
+            return consumer;
+        }
+
+        // Backdate the certificate, then flag a content change in the org
+        this.getEntityManager()
+            .createQuery("UPDATE ContentAccessCertificate SET updated = :date WHERE id = :id")
+            .setParameter("date", new Date(System.currentTimeMillis() - 60000))
+            .setParameter("id", cert.getId())
+            .executeUpdate();
+
+        owner.setLastContentUpdate(new Date());
+        this.ownerCurator.merge(owner);
+
+        this.caCertCurator.flush();
+        this.caCertCurator.clear();
+
+        return this.consumerCurator.get(consumer.getId());
+    }
+
+    @Test
+    public void testFetchOwnerIdsWithStaleContent() {
+        Owner owner1 = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        Owner owner2 = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        this.createConsumerWithStaleCert(owner1);
+        this.createConsumerWithStaleCert(owner1);
+        this.createConsumerWithStaleCert(owner2);
+
+        List<String> stale = this.caCertCurator.getOwnerIdsWithStaleContent();
+
+        assertEquals(2, stale.size());
+        assertTrue(stale.contains(owner1.getId()));
+        assertTrue(stale.contains(owner2.getId()));
+    }
+
+    @Test
+    public void testFetchConsumerIdsWithStaleContent() {
+        Owner owner1 = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        Owner owner2 = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        Consumer consumer1 = this.createConsumerWithStaleCert(owner1);
+        Consumer consumer2 = this.createConsumerWithStaleCert(owner1);
+        Consumer consumer3 = this.createConsumerWithStaleCert(owner2);
+
+        List<String> stale = this.caCertCurator.getConsumerIdsWithStaleContent(owner1.getId(), null, 10);
+
+        assertEquals(2, stale.size());
+        assertTrue(stale.contains(consumer1.getId()));
+        assertTrue(stale.contains(consumer2.getId()));
+        assertEquals(List.of(consumer3.getId()),
+            this.caCertCurator.getConsumerIdsWithStaleContent(owner2.getId(), null, 10));
+    }
+
+    @Test
+    public void testFetchConsumerIdsWithStaleContentPaged() {
+        Owner owner = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5; ++i) {
+            expected.add(this.createConsumerWithStaleCert(owner).getId());
+        }
+
+        Collections.sort(expected);
+
+        List<String> fetched = new ArrayList<>();
+        List<String> page = this.caCertCurator.getConsumerIdsWithStaleContent(owner.getId(), null, 2);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= 2);
+            fetched.addAll(page);
+
+            page = this.caCertCurator.getConsumerIdsWithStaleContent(owner.getId(),
+                page.get(page.size() - 1), 2);
+        }
+
+        assertEquals(expected, fetched);
+    }
+
+    @Test
+    public void testExecutionRegeneratesStaleCertificates() throws Exception {
+        Owner owner = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        Consumer consumer = this.createConsumerWithStaleCert(owner);
+        Date staleDate = consumer.getContentAccessCert().getUpdated();
+
+        this.config.setProperty(ConfigProperties.jobConfig(RegenContentAccessCertsJob.JOB_KEY,
+            RegenContentAccessCertsJob.CFG_MAX_CERTS_PER_SECOND), "0");
+
+        this.createJob().execute(mock(JobExecutionContext.class));
+
+        this.caCertCurator.flush();
+        this.caCertCurator.clear();
+
+        Consumer updated = this.consumerCurator.get(consumer.getId());
+        assertNotEquals(staleDate, updated.getContentAccessCert().getUpdated());
+        assertTrue(this.caCertCurator.getOwnerIdsWithStaleContent().isEmpty());
+    }
+
+    @Test
+    public void testExecutionRegeneratesStaleCertificatesInBatches() throws Exception {
+        Owner owner = this.createOwner(ContentAccessMode.ORG_ENVIRONMENT);
+        for (int i = 0; i < 5; ++i) {
+            this.createConsumerWithStaleCert(owner);
+        }
+
+        this.config.setProperty(ConfigProperties.jobConfig(RegenContentAccessCertsJob.JOB_KEY,
+            RegenContentAccessCertsJob.CFG_BATCH_SIZE), "2");
+        this.config.setProperty(ConfigProperties.jobConfig(RegenContentAccessCertsJob.JOB_KEY,
+            RegenContentAccessCertsJob.CFG_MAX_CERTS_PER_SECOND), "0");
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        this.createJob().execute(context);
+
+        this.caCertCurator.flush();
+        this.caCertCurator.clear();
+
+        verify(context, times(3)).heartbeat();
+        assertTrue(this.caCertCurator.getOwnerIdsWithStaleContent().isEmpty());
+    }
+
+    @Test
+    public void testExecutionIgnoresEntitlementModeOrgs() throws Exception {
+        Owner owner = this.createOwner(ContentAccessMode.ENTITLEMENT);
+        this.createConsumerWithStaleCert(owner);
+
+        assertTrue(this.caCertCurator.getOwnerIdsWithStaleContent().isEmpty());
+
+        this.createJob().execute(mock(JobExecutionContext.class));
+    }
+
+    @Test
+    public void testInvalidBatchSizeConfiguration() {
+        this.config.setProperty(ConfigProperties.jobConfig(RegenContentAccessCertsJob.JOB_KEY,
+            RegenContentAccessCertsJob.CFG_BATCH_SIZE), "0");
+
+        assertThrows(JobExecutionException.class, () -> this.createJob().execute(
+            mock(JobExecutionContext.class)));
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.cache.AutobindCandidateIndex.Candidate;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Pool;
+import org.candlepin.model.Product;
+import org.candlepin.test.TestUtil;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+
+
+public class AutobindCandidateIndexTest {
+
+    private static final String OWNER_ID = "owner-id";
+
+    /**
+     * Candidate loader backed by a map of pool IDs to candidates, which records the pool IDs of
+     * each load
+     */
+    private static class MapLoader implements AutobindCandidateIndex.CandidateLoader {
+        private final Map<String, Candidate> candidates = new HashMap<>();
+        private final List<Collection<String>> loads = new ArrayList<>();
+
+        public void put(Candidate candidate) {
+            this.candidates.put(candidate.getPoolId(), candidate);
+        }
+
+        public void remove(String poolId) {
+            this.candidates.remove(poolId);
+        }
+
+        @Override
+        public Collection<Candidate> load(String ownerId, Collection<String> poolIds) {
+            this.loads.add(poolIds);
+
+            return this.candidates.values().stream()
+                .filter(candidate -> poolIds == null || poolIds.contains(candidate.getPoolId()))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private MapLoader loader;
+    private Date now;
+
+    @BeforeEach
+    public void setup() {
+        this.loader = new MapLoader();
+        this.now = new Date();
+    }
+
+    private AutobindCandidateIndex createIndex(int maxOwners, long ttl) {
+        AutobindCandidateIndex index = new AutobindCandidateIndex(maxOwners, ttl);
+        index.setTracking(true);
+
+        return index;
+    }
+
+    private Candidate createCandidate(String poolId, String productId, Map<String, String> attributes) {
+        return new Candidate(poolId, productId, List.of(productId + "-provided"), attributes,
+            TestUtil.createDateOffset(0, 0, -1), TestUtil.createDateOffset(0, 0, 1));
+    }
+
+    private Set<String> lookup(AutobindCandidateIndex index, String... productIds) {
+        return index.getCandidatePoolIds(OWNER_ID, this.now, List.of(productIds), Set.of(), Set.of(), null,
+            this.loader);
+    }
+
+    private Pool createPool(String poolId) {
+        Owner owner = new Owner("owner-key", "owner-name");
+        owner.setId(OWNER_ID);
+
+        Pool pool = new Pool();
+        pool.setId(poolId);
+        pool.setOwner(owner);
+
+        return pool;
+    }
+
+    @Test
+    public void testMatchesPoolsByProductAndProvidedProduct() {
+        AutobindCandidateIndex index = this.createIndex(10, 60000);
+        this.loader.put(this.createCandidate("pool-1", "prod-1", null));
+        this.loader.put(this.createCandidate("pool-2", "prod-2", null));
+
+        assertEquals(Set.of("pool-1"), this.lookup(index, "prod-1"));
+        assertEquals(Set.of("pool-2"), this.lookup(index, "prod-2-provided"));
+        assertEquals(Set.of(), this.lookup(index, "prod-3"));
+
+        // The owner should only have been loaded once
+        assertEquals(1, this.loader.loads.size());
+    }
+
+    @Test
+    public void testMatchesPoolsByStackingIdAddonAndRole() {
+        AutobindCandidateIndex index = this.createIndex(10, 60000);
+        this.loader.put(this.createCandidate("pool-1", "prod-1",
+            Map.of(Product.Attributes.STACKING_ID, "stack-1")));
+        this.loader.put(this.createCandidate("pool-2", "prod-2",
+            Map.of(Product.Attributes.ADDONS, "Addon-1, addon-2")));
+        this.loader.put(this.createCandidate("pool-3", "prod-3",
+            Map.of(Product.Attributes.ROLES, "role-1,Role-2")));
+
+        assertEquals(Set.of("pool-1"), index.getCandidatePoolIds(OWNER_ID, this.now, List.of(),
+            Set.of("stack-1"), Set.of(), null, this.loader));
+        assertEquals(Set.of("pool-2"), index.getCandidatePoolIds(OWNER_ID, this.now, List.of(),
+            Set.of(), Set.of(" ADDON-1 "), null, this.loader));
+        assertEquals(Set.of("pool-3"), index.getCandidatePoolIds(OWNER_ID, this.now, List.of(),
+            Set.of(), Set.of(), "role-2", this.loader));
+    }
+
+    @Test
+    public void testExcludesInactivePools() {
+        AutobindCandidateIndex index = this.createIndex(10, 60000);
+        this.loader.put(new Candidate("pool-1", "prod-1", null, null,
+            TestUtil.createDateOffset(0, 0, 1), TestUtil.createDateOffset(0, 0, 2)));
+
+        assertEquals(Set.of(), this.lookup(index, "prod-1"));
+    }
+
+    @Test
+    public void testResolvesChangedPoolsIncrementally() {
+        AutobindCandidateIndex index = this.createIndex(10, 60000);
+        this.loader.put(this.createCandidate("pool-1", "prod-1", null));
+        this.loader.put(this.createCandidate("pool-2", "prod-1", null));
+        assertEquals(Set.of("pool-1", "pool-2"), this.lookup(index, "prod-1"));
+
+        // Create a pool, change the product of another and delete the last
+        this.loader.put(this.createCandidate("pool-3", "prod-1", null));
+        this.loader.put(this.createCandidate("pool-1", "prod-2", null));
+        this.loader.remove("pool-2");
+        index.poolChanged(this.createPool("pool-1"));
+        index.poolChanged(this.createPool("pool-2"));
+        index.poolChanged(this.createPool("pool-3"));
+
+        assertEquals(Set.of("pool-3"), this.lookup(index, "prod-1"));
+        assertEquals(Set.of("pool-1"), this.lookup(index, "prod-2"));
+
+        assertEquals(2, this.loader.loads.size());
+        assertEquals(Set.of("pool-1", "pool-2", "pool-3"), Set.copyOf(this.loader.loads.get(1)));
+    }
+
+    @Test
+    public void testChangesDuringLoadAreIncludedButNotCached() {
+        AutobindCandidateIndex index = this.createIndex(10, 60000);
+        this.loader.put(this.createCandidate("pool-1", "prod-1", null));
+
+        // Simulate a pool created by another transaction while the owner is being loaded
+        AutobindCandidateIndex.CandidateLoader racingLoader = (ownerId, poolIds) -> {
+            Collection<Candidate> candidates = this.loader.load(ownerId, poolIds);
+            index.poolChanged(this.createPool("pool-2"));
+            return candidates;
+        };
+
+        assertEquals(Set.of("pool-1", "pool-2"), index.getCandidatePoolIds(OWNER_ID, this.now,
+            List.of("prod-1"), Set.of(), Set.of(), null, racingLoader));
+
+        // The racing load should not have been kept
+        this.lookup(index, "prod-1");
+        assertEquals(2, this.loader.loads.size());
+        assertNull(this.loader.loads.get(1));
+    }
+
+    @Test
+    public void testExpiredOwnersAreReloaded() {
+        AutobindCandidateIndex index = this.createIndex(10, 0);
+        this.loader.put(this.createCandidate("pool-1", "prod-1", null));
+
+        this.lookup(index, "prod-1");
+        this.lookup(index, "prod-1");
+
+        assertEquals(2, this.loader.loads.size());
+        assertNull(this.loader.loads.get(0));
+        assertNull(this.loader.loads.get(1));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedOwnersAreEvicted() {
+        AutobindCandidateIndex index = this.createIndex(1, 60000);
+
+        index.getCandidatePoolIds("owner-1", this.now, List.of(), Set.of(), Set.of(), null, this.loader);
+        index.getCandidatePoolIds("owner-2", this.now, List.of(), Set.of(), Set.of(), null, this.loader);
+        index.getCandidatePoolIds("owner-1", this.now, List.of(), Set.of(), Set.of(), null, this.loader);
+
+        assertEquals(3, this.loader.loads.size());
+    }
+
+    @Test
+    public void testIndexIsDisabledWithoutChangeTracking() {
+        AutobindCandidateIndex index = new AutobindCandidateIndex(10, 60000);
+        assertFalse(index.isEnabled());
+        assertNull(this.lookup(index, "prod-1"));
+
+        index.setTracking(true);
+        assertTrue(index.isEnabled());
+        assertEquals(Set.of(), this.lookup(index, "prod-1"));
+    }
+
+    @Test
+    public void testIndexIsDisabledWithoutOwners() {
+        AutobindCandidateIndex index = this.createIndex(0, 60000);
+
+        assertFalse(index.isEnabled());
+        assertNull(this.lookup(index, "prod-1"));
+        assertTrue(this.loader.loads.isEmpty());
+    }
+}
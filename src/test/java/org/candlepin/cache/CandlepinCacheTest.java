@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+
+package org.candlepin.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+
+public class CandlepinCacheTest {
+
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        CachingProvider provider = Caching.getCachingProvider();
+        ClassLoader loader = provider.getDefaultClassLoader();
+        this.cacheManager = provider.getCacheManager(loader.getResource("ehcache.xml").toURI(), loader);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.cacheManager.close();
+    }
+
+    @Test
+    public void testEntityCacheHitPercentages() {
+        Cache<Object, Object> cache = this.cacheManager.getCache(CandlepinCacheRegions.CONSUMER_TYPE);
+        cache.get("type_id");
+        cache.put("type_id", "type");
+        cache.get("type_id");
+
+        Map<String, Float> percentages = new CandlepinCache(this.cacheManager)
+            .getEntityCacheHitPercentages();
+
+        assertEquals(50.0f, percentages.get(CandlepinCacheRegions.CONSUMER_TYPE), 0.01f);
+        assertFalse(percentages.containsKey(CandlepinCacheRegions.FIVE_SECONDS_QUERY_CACHE));
+    }
+
+    @Test
+    public void testAllEntityRegionsAreConfigured() {
+        for (String region : CandlepinCacheRegions.ENTITY_REGIONS) {
+            assertEquals(region, this.cacheManager.getCache(region).getName());
+        }
+    }
+}
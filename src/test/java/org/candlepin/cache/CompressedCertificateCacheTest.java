@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.candlepin.util.DeflateSegment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+
+
+public class CompressedCertificateCacheTest {
+
+    private static Supplier<DeflateSegment> counting(AtomicInteger counter) {
+        return () -> {
+            counter.incrementAndGet();
+            return DeflateSegment.compress(new byte[] { 1, 2, 3 });
+        };
+    }
+
+    @Test
+    public void testBodiesAreCachedPerVersion() {
+        CompressedCertificateCache cache = new CompressedCertificateCache(10);
+        AtomicInteger builds = new AtomicInteger();
+
+        DeflateSegment first = cache.get(String.class, 1L, "v1", counting(builds));
+        DeflateSegment second = cache.get(String.class, 1L, "v1", counting(builds));
+        DeflateSegment third = cache.get(String.class, 1L, "v2", counting(builds));
+
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertEquals(2, builds.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testBodiesAreScopedByType() {
+        CompressedCertificateCache cache = new CompressedCertificateCache(10);
+        AtomicInteger builds = new AtomicInteger();
+
+        cache.get(String.class, 1L, null, counting(builds));
+        cache.get(Integer.class, 1L, null, counting(builds));
+        cache.get(String.class, 1L, null, counting(builds));
+
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedBodiesAreEvicted() {
+        CompressedCertificateCache cache = new CompressedCertificateCache(2);
+        AtomicInteger builds = new AtomicInteger();
+
+        cache.get(String.class, 1L, null, counting(builds));
+        cache.get(String.class, 2L, null, counting(builds));
+
+        // Touch the first body so the second becomes the eldest
+        cache.get(String.class, 1L, null, counting(builds));
+        cache.get(String.class, 3L, null, counting(builds));
+        assertEquals(3, builds.get());
+
+        cache.get(String.class, 1L, null, counting(builds));
+        assertEquals(3, builds.get());
+
+        cache.get(String.class, 2L, null, counting(builds));
+        assertEquals(4, builds.get());
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysBuilds() {
+        CompressedCertificateCache cache = new CompressedCertificateCache(0);
+        AtomicInteger builds = new AtomicInteger();
+
+        cache.get(String.class, 1L, null, counting(builds));
+        cache.get(String.class, 1L, null, counting(builds));
+
+        assertFalse(cache.isEnabled());
+        assertEquals(2, builds.get());
+        assertEquals(0, cache.size());
+    }
+}
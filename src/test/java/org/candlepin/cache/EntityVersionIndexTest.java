@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.candlepin.model.Content;
+import org.candlepin.model.Product;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+
+
+public class EntityVersionIndexTest {
+
+    @Test
+    public void testPutAndGet() {
+        EntityVersionIndex index = new EntityVersionIndex(10);
+
+        index.put(Product.class, 1L, List.of("uuid-1"));
+        index.put(Product.class, 1L, List.of("uuid-2"));
+
+        assertEquals(Set.of("uuid-1", "uuid-2"), index.get(Product.class, 1L));
+        assertNull(index.get(Product.class, 2L));
+    }
+
+    @Test
+    public void testAddExtendsIndexedVersionsOnly() {
+        EntityVersionIndex index = new EntityVersionIndex(10);
+
+        index.put(Product.class, 1L, List.of("uuid-1"));
+        index.add(Product.class, 1L, "uuid-2");
+        index.add(Product.class, 2L, "uuid-3");
+
+        assertEquals(Set.of("uuid-1", "uuid-2"), index.get(Product.class, 1L));
+        assertNull(index.get(Product.class, 2L));
+    }
+
+    @Test
+    public void testIndexesAreScopedByType() {
+        EntityVersionIndex index = new EntityVersionIndex(10);
+
+        index.put(Product.class, 1L, List.of("uuid-1"));
+
+        assertNull(index.get(Content.class, 1L));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedVersionsAreEvicted() {
+        EntityVersionIndex index = new EntityVersionIndex(2);
+
+        index.put(Product.class, 1L, List.of("uuid-1"));
+        index.put(Product.class, 2L, List.of("uuid-2"));
+
+        // Touch the first version so the second becomes the eldest
+        index.get(Product.class, 1L);
+        index.put(Product.class, 3L, List.of("uuid-3"));
+
+        assertEquals(Set.of("uuid-1"), index.get(Product.class, 1L));
+        assertNull(index.get(Product.class, 2L));
+        assertEquals(Set.of("uuid-3"), index.get(Product.class, 3L));
+    }
+
+    @Test
+    public void testEvictByVersion() {
+        EntityVersionIndex index = new EntityVersionIndex(10);
+
+        index.put(Product.class, 1L, List.of("uuid-1"));
+        index.evict(Product.class, 1L);
+
+        assertNull(index.get(Product.class, 1L));
+    }
+
+    @Test
+    public void testEvictByUuid() {
+        EntityVersionIndex index = new EntityVersionIndex(10);
+
+        index.put(Product.class, 1L, List.of("uuid-1"));
+        index.put(Product.class, 2L, List.of("uuid-2"));
+        index.evict(Product.class, "uuid-1");
+
+        assertNull(index.get(Product.class, 1L));
+        assertEquals(Set.of("uuid-2"), index.get(Product.class, 2L));
+    }
+
+    @Test
+    public void testDisabledIndexStoresNothing() {
+        EntityVersionIndex index = new EntityVersionIndex(0);
+
+        index.put(Product.class, 1L, List.of("uuid-1"));
+
+        assertFalse(index.isEnabled());
+        assertNull(index.get(Product.class, 1L));
+    }
+
+}
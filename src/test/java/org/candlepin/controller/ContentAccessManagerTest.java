@@ -74,6 +74,8 @@ import org.candlepin.util.X509V3ExtensionUtil;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.bouncycastle.openssl.PEMKeyPair;
 import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
@@ -204,7 +206,7 @@ public class ContentAccessManagerTest {
             this.config, pkiUtil, this.x509V3ExtensionUtil, this.mockContentAccessCertCurator,
             this.mockCertSerialCurator, this.mockOwnerCurator, this.mockOwnerContentCurator,
             this.mockConsumerCurator, this.mockConsumerTypeCurator, this.mockEnvironmentCurator,
-            this.mockContentAccessCertCurator, this.mockEventSink);
+            this.mockContentAccessCertCurator, this.mockEventSink, new SimpleMeterRegistry());
     }
 
     private ContentAccessManager createManager() {
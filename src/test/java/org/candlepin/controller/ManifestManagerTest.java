@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.anyCollection;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -51,6 +52,7 @@ import org.candlepin.model.Entitlement;
 import org.candlepin.model.EntitlementCurator;
 import org.candlepin.model.Owner;
 import org.candlepin.sync.ConflictOverrides;
+import org.candlepin.sync.ExportCreationException;
 import org.candlepin.sync.ExportResult;
 import org.candlepin.sync.Exporter;
 import org.candlepin.sync.Importer;
@@ -71,15 +73,20 @@ import org.mockito.quality.Strictness;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.StreamingOutput;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -373,22 +380,65 @@ public class ManifestManagerTest {
         String manifestId = "124";
         String manifestFilename = "manifest.zip";
 
+        byte[] manifestData = "manifest data".getBytes();
+
         ManifestFile manifest = mock(ManifestFile.class);
-        InputStream mockManifestInputStream = mock(InputStream.class);
         when(manifest.getId()).thenReturn(manifestId);
         when(manifest.getName()).thenReturn(manifestFilename);
         when(manifest.getTargetId()).thenReturn(exportedConsumer.getUuid());
-        when(manifest.getInputStream()).thenReturn(mockManifestInputStream);
+        when(manifest.getInputStream()).thenReturn(new ByteArrayInputStream(manifestData));
         when(fileService.get(eq(manifestId))).thenReturn(manifest);
-        when(mockManifestInputStream.read()).thenReturn(-1); // Simulate no data for test.
 
         manager.writeStoredExportToResponse(manifestId, exportedConsumer.getUuid(), response);
         verify(fileService).get(eq(manifestId));
         verify(response).setContentType("application/zip");
         verify(response).setHeader(eq("Content-Disposition"), eq("attachment; filename=" + manifestFilename));
+        verify(responseOutputStream).write(any(byte[].class), eq(0), eq(manifestData.length));
         verify(responseOutputStream).flush();
     }
 
+    @Test
+    public void testGenerateEntitlementArchiveStreamsExportToOutput() throws Exception {
+        Consumer consumer = this.createMockConsumer(false);
+        Set<Long> serials = Set.of(1L, 2L);
+
+        Exporter.ExportTask export = mock(Exporter.ExportTask.class);
+        when(exporter.prepareEntitlementExport(eq(consumer), eq(serials))).thenReturn(export);
+
+        StreamingOutput archive = manager.generateEntitlementArchive(consumer, serials);
+        verify(poolManager).regenerateDirtyEntitlements(eq(consumer));
+        verify(exporter).prepareEntitlementExport(eq(consumer), eq(serials));
+        verifyNoInteractions(export);
+
+        OutputStream output = new ByteArrayOutputStream();
+        archive.write(output);
+        verify(export).write(eq(output));
+    }
+
+    @Test
+    public void testGenerateEntitlementArchiveFailsBeforeStreamingOnLookupErrors() {
+        Consumer consumer = this.createMockConsumer(false);
+        Set<Long> serials = Set.of(1L, 2L);
+
+        doThrow(new RuntimeException("lookup failed")).when(exporter)
+            .prepareEntitlementExport(eq(consumer), eq(serials));
+
+        assertThrows(RuntimeException.class, () -> manager.generateEntitlementArchive(consumer, serials));
+    }
+
+    @Test
+    public void testGenerateEntitlementArchiveFailsWriteOnExportErrors() throws Exception {
+        Consumer consumer = this.createMockConsumer(false);
+        Set<Long> serials = Set.of(1L, 2L);
+
+        Exporter.ExportTask export = mock(Exporter.ExportTask.class);
+        when(exporter.prepareEntitlementExport(eq(consumer), eq(serials))).thenReturn(export);
+        doThrow(new ExportCreationException("write failed")).when(export).write(any(OutputStream.class));
+
+        StreamingOutput archive = manager.generateEntitlementArchive(consumer, serials);
+        assertThrows(IOException.class, () -> archive.write(new ByteArrayOutputStream()));
+    }
+
     @Test
     public void testWriteStoredExportToResponseFailsWhenManifestFileNotFound() throws Exception {
         HttpServletResponse response = mock(HttpServletResponse.class);
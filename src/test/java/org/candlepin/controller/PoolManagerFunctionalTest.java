@@ -902,6 +902,43 @@ public class PoolManagerFunctionalTest extends DatabaseTestFixture {
         assertNull(this.poolCurator.get(pool4.getId()));           // Expired pool, derived attrib
     }
 
+    @Test
+    public void testCleanupExpiredPoolsRevokesEntitlementsOfExpiredPools() {
+        long ct = System.currentTimeMillis();
+        Date expiredStart = new Date(ct - 7200000);
+        Date expiredEnd = new Date(ct - 3600000);
+
+        Owner owner = this.createOwner();
+        Product product = this.createProduct("test-product-1", "Test Product 1", owner);
+        Pool pool = this.createPool(owner, product, 1L, expiredStart, expiredEnd);
+        pool.setAttribute("test-attrib", "test-value");
+        this.poolCurator.merge(pool);
+
+        Consumer consumer = this.createConsumer(owner);
+        EntitlementCertificate cert = this.createEntitlementCertificate("key", "cert");
+        Entitlement ent = this.createEntitlement(owner, consumer, pool, cert);
+        ent.setQuantity(1);
+        ent.setEndDateOverride(expiredEnd);
+        this.entitlementCurator.merge(ent);
+
+        consumer.setEntitlementCount(1);
+        this.consumerCurator.merge(consumer);
+
+        Long serialId = cert.getSerial().getId();
+        this.poolCurator.flush();
+
+        this.poolManager.cleanupExpiredPools();
+
+        this.poolCurator.flush();
+        this.poolCurator.clear();
+
+        assertNull(this.poolCurator.get(pool.getId()));
+        assertNull(this.entitlementCurator.get(ent.getId()));
+        assertNull(this.entitlementCertificateCurator.get(cert.getId()));
+        assertTrue(this.certSerialCurator.get(serialId).isRevoked());
+        assertEquals(0L, this.consumerCurator.get(consumer.getId()).getEntitlementCount());
+    }
+
     private Pool createPool(Owner owner, Product product, long quantity, Date startDate, Date endDate,
         String subscriptionId, String subscriptionSubkey) {
 
@@ -38,6 +38,7 @@ import org.candlepin.bind.PoolOperationCallback;
 import org.candlepin.bind.PostBindBonusPoolsOp;
 import org.candlepin.bind.PreEntitlementRulesCheckOp;
 import org.candlepin.bind.PreEntitlementRulesCheckOpFactory;
+import org.candlepin.cache.AutobindCandidateIndex;
 import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.Configuration;
 import org.candlepin.controller.refresher.RefreshResult;
@@ -102,6 +103,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
@@ -181,6 +183,7 @@ public class PoolManagerTest {
     private I18n i18n;
 
     private Provider<RefreshWorker> refreshWorkerProvider;
+    private AutobindCandidateIndex candidateIndex;
 
     protected static Map<String, List<Pool>> subToPools;
 
@@ -210,6 +213,7 @@ public class PoolManagerTest {
             this.mockOwnerProductCurator, this.mockContentCurator, this.mockOwnerContentCurator));
 
         this.refreshWorkerProvider = () -> refreshWorker;
+        this.candidateIndex = new AutobindCandidateIndex(10, 60000);
 
         this.manager = spy(new CandlepinPoolManager(
             mockPoolCurator, mockEventSink, eventFactory, mockConfig, enforcerMock, poolRulesMock,
@@ -217,7 +221,7 @@ public class PoolManagerTest {
             mockECGenerator, complianceRules, systemPurposeComplianceRules, autobindRules,
             activationKeyRules, mockProductCurator, mockOwnerCurator, mockOwnerProductCurator,
             mockOwnerManager, mockCdnCurator, i18n, mockBindChainFactory, jsonProvider,
-            refreshWorkerProvider));
+            refreshWorkerProvider, candidateIndex));
 
         setupBindChain();
 
@@ -1096,12 +1100,17 @@ public class PoolManagerTest {
         Product product = TestUtil.createProduct();
         List<Pool> pools = new ArrayList<>();
         Pool pool1 = TestUtil.createPool(product);
+        pool1.setId("poolId1");
         pools.add(pool1);
         Pool pool2 = TestUtil.createPool(product);
+        pool2.setId("poolId2");
         pools.add(pool2);
         Date now = new Date();
 
+        Map<String, ValidationResult> resultMap = new HashMap<>();
         ValidationResult result = mock(ValidationResult.class);
+        resultMap.put("poolId1", result);
+        resultMap.put("poolId2", result);
         Page page = mock(Page.class);
 
         when(page.getPageData()).thenReturn(pools);
@@ -1114,8 +1123,8 @@ public class PoolManagerTest {
         CandlepinQuery mockQuery = mock(CandlepinQuery.class);
         when(mockPoolCurator.listAllByIds(nullable(Set.class))).thenReturn(mockQuery);
         when(mockQuery.iterator()).thenReturn(Arrays.asList(pool1).listIterator());
-        when(enforcerMock.preEntitlement(any(Consumer.class), any(Pool.class), anyInt(),
-            any(CallerType.class))).thenReturn(result);
+        when(enforcerMock.preEntitlement(any(Consumer.class), anyCollection(),
+            any(CallerType.class))).thenReturn(resultMap);
 
         when(enforcerMock.postEntitlement(eq(manager), any(Consumer.class), nullable(Owner.class), anyMap(),
             anyList(), eq(false), anyMap())).thenReturn(new PoolOperationCallback());
@@ -1330,9 +1339,13 @@ public class PoolManagerTest {
     @Test
     public void testCleanupExpiredPoolsReadOnlySubscriptions() {
         Pool p = createPoolWithEntitlements();
+        p.setId("expired-pool");
         p.setSubscriptionId("subid");
         List<Pool> pools = Arrays.asList(p);
 
+        // Pools with active entitlements must go through the full deletion process
+        when(mockPoolCurator.getPoolIdsWithActiveEntitlements(anyCollection(), any(Date.class)))
+            .thenReturn(Set.of(p.getId()));
         when(mockPoolCurator.lockAndLoad(anyCollection())).thenReturn(pools);
         when(mockPoolCurator.listExpiredPools(anyInt())).thenReturn(pools);
         when(mockPoolCurator.entitlementsIn(p)).thenReturn(new ArrayList<>(p.getEntitlements()));
@@ -1348,10 +1361,75 @@ public class PoolManagerTest {
 
         // And the pool should be deleted:
         verify(mockPoolCurator).batchDelete(eq(pools), anySet());
+        verify(mockPoolCurator, never()).bulkDeleteByIds(anyCollection());
         verify(mockSubAdapter, never()).getSubscription(any(String.class));
         // verify(mockSubAdapter, never()).deleteSubscription(any(String.class));
     }
 
+    @Test
+    public void testCleanupExpiredPoolsBulkDeletesPoolsWithoutEntitlementsOrDependents() {
+        Pool p = TestUtil.createPool(owner, product);
+        p.setId("expired-pool");
+        List<Pool> pools = Arrays.asList(p);
+
+        when(mockPoolCurator.listExpiredPools(anyInt())).thenReturn(pools);
+
+        manager.cleanupExpiredPools();
+
+        verify(mockPoolCurator).bulkDeleteByIds(Set.of(p.getId()));
+        verify(eventFactory).poolDeleted(p);
+
+        // None of the slow deletion path should be used
+        verify(mockPoolCurator, never()).lockAndLoad(anyCollection());
+        verify(mockPoolCurator, never()).batchDelete(anyCollection(), anyCollection());
+        verify(entitlementCurator, never()).batchDeleteByIds(anyCollection());
+    }
+
+    @Test
+    public void testCleanupExpiredPoolsBulkDeletesPoolsWithExpiredEntitlements() {
+        Pool p = createPoolWithEntitlements();
+        p.setId("expired-pool");
+        List<Pool> pools = Arrays.asList(p);
+        List<String> entitlementIds = Arrays.asList("1", "2");
+        Map<String, Long> quantities = Map.of("consumer-id", 2L);
+
+        when(mockPoolCurator.listExpiredPools(anyInt())).thenReturn(pools);
+        when(mockPoolCurator.getEntitlementIdsForPools(anyCollection())).thenReturn(entitlementIds);
+        when(entitlementCurator.getEntitlementQuantitiesByConsumer(entitlementIds)).thenReturn(quantities);
+
+        manager.cleanupExpiredPools();
+
+        InOrder order = inOrder(certCuratorMock, entitlementCurator, consumerCuratorMock, mockPoolCurator);
+        order.verify(certCuratorMock).deleteByEntitlementIds(entitlementIds);
+        order.verify(entitlementCurator).batchDeleteByIds(entitlementIds);
+        order.verify(consumerCuratorMock).decrementEntitlementCounts(quantities);
+        order.verify(mockPoolCurator).bulkDeleteByIds(Set.of(p.getId()));
+
+        verify(entitlementCurator).markDependentEntitlementsDirty(entitlementIds);
+        verify(eventFactory).poolDeleted(p);
+
+        // None of the slow deletion path should be used
+        verify(mockPoolCurator, never()).lockAndLoad(anyCollection());
+        verify(mockPoolCurator, never()).batchDelete(anyCollection(), anyCollection());
+    }
+
+    @Test
+    public void testCleanupExpiredPoolsWontBulkDeletePoolsWithDependents() {
+        Pool p = TestUtil.createPool(owner, product);
+        p.setId("expired-pool");
+        List<Pool> pools = Arrays.asList(p);
+
+        when(mockPoolCurator.listExpiredPools(anyInt())).thenReturn(pools);
+        when(mockPoolCurator.getPoolIdsWithDependents(anyCollection())).thenReturn(Set.of(p.getId()));
+        when(mockPoolCurator.lockAndLoad(anyCollection())).thenReturn(pools);
+
+        manager.cleanupExpiredPools();
+
+        verify(mockPoolCurator, never()).bulkDeleteByIds(anyCollection());
+        verify(mockPoolCurator).lockAndLoad(anyCollection());
+        verify(mockPoolCurator).batchDelete(eq(pools), anySet());
+    }
+
     private Pool createPoolWithEntitlements() {
         Pool newPool = TestUtil.createPool(owner, product);
         Entitlement e1 = new Entitlement(newPool, TestUtil.createConsumer(owner), owner, 1);
@@ -1371,10 +1449,13 @@ public class PoolManagerTest {
         Product product = TestUtil.createProduct();
         List<Pool> pools = new ArrayList<>();
         Pool pool1 = TestUtil.createPool(product);
+        pool1.setId("poolId1");
         pools.add(pool1);
         Date now = new Date();
 
+        Map<String, ValidationResult> resultMap = new HashMap<>();
         ValidationResult result = mock(ValidationResult.class);
+        resultMap.put("poolId1", result);
 
         // Setup an installed product for the consumer, we'll make the bind request
         // with no products specified, so this should get used instead:
@@ -1395,8 +1476,8 @@ public class PoolManagerTest {
         when(mockPoolCurator.listAllByIds(anyList())).thenReturn(mockQuery);
         when(mockQuery.iterator()).thenReturn(Arrays.asList(pool1).listIterator());
 
-        when(enforcerMock.preEntitlement(any(Consumer.class), any(Pool.class), anyInt(),
-            any(CallerType.class))).thenReturn(result);
+        when(enforcerMock.preEntitlement(any(Consumer.class), anyCollection(),
+            any(CallerType.class))).thenReturn(resultMap);
         when(enforcerMock.postEntitlement(eq(manager), any(Consumer.class), any(Owner.class), anyMap(),
             anyList(), eq(false), anyMap())).thenReturn(new PoolOperationCallback());
         when(result.isSuccessful()).thenReturn(true);
@@ -1420,6 +1501,123 @@ public class PoolManagerTest {
             anySet(), eq(false));
     }
 
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void testGetBestPoolsValidatesCandidatesInSingleRulesCall() throws Exception {
+        Product product = TestUtil.createProduct();
+        Pool pool1 = TestUtil.createPool(owner, product);
+        pool1.setId("pool1");
+        Pool pool2 = TestUtil.createPool(owner, product);
+        pool2.setId("pool2");
+        Pool pool3 = TestUtil.createPool(owner, product);
+        pool3.setId("pool3");
+        Date now = new Date();
+
+        Page page = mock(Page.class);
+        when(page.getPageData()).thenReturn(Arrays.asList(pool1, pool2, pool3));
+        when(mockPoolCurator.listAvailableEntitlementPools(any(Consumer.class),
+            nullable(String.class), nullable(String.class), nullable(String.class), eq(now),
+            any(PoolFilterBuilder.class), nullable(PageRequest.class), anyBoolean(), anyBoolean(),
+            anyBoolean(), nullable(Date.class))).thenReturn(page);
+        when(complianceRules.getStatus(any(Consumer.class), any(Date.class), anyBoolean()))
+            .thenReturn(new ComplianceStatus(now));
+
+        ValidationResult failed = new ValidationResult();
+        failed.addError("rulefailed.consumer.type.mismatch");
+
+        Map<String, ValidationResult> results = new HashMap<>();
+        results.put(pool1.getId(), new ValidationResult());
+        results.put(pool2.getId(), failed);
+        results.put(pool3.getId(), new ValidationResult());
+        when(enforcerMock.preEntitlement(any(Consumer.class), anyCollection(), eq(CallerType.BEST_POOLS)))
+            .thenReturn(results);
+
+        ConsumerType ctype = this.mockConsumerType(TestUtil.createConsumerType());
+        Consumer consumer = TestUtil.createConsumer(ctype, owner);
+
+        manager.getBestPools(consumer, new String[] { product.getId() }, now, owner.getId(), null, null);
+
+        ArgumentCaptor<Collection> quantityCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(enforcerMock, times(1)).preEntitlement(eq(consumer), quantityCaptor.capture(),
+            eq(CallerType.BEST_POOLS));
+        verify(enforcerMock, never()).preEntitlement(any(Consumer.class), any(Pool.class), anyInt(),
+            any(CallerType.class));
+        assertEquals(3, quantityCaptor.getValue().size());
+
+        ArgumentCaptor<List> poolCaptor = ArgumentCaptor.forClass(List.class);
+        verify(autobindRules).selectBestPools(any(Consumer.class), any(String[].class),
+            poolCaptor.capture(), any(ComplianceStatus.class), nullable(String.class),
+            anySet(), eq(false));
+        assertEquals(Arrays.asList(pool1, pool3), poolCaptor.getValue());
+    }
+
+    @Test
+    public void testGetBestPoolsFetchesOnlyIndexedCandidates() throws Exception {
+        Product product1 = TestUtil.createProduct();
+        Product product2 = TestUtil.createProduct();
+        Pool pool1 = TestUtil.createPool(owner, product1);
+        pool1.setId("pool1");
+        Pool pool2 = TestUtil.createPool(owner, product2);
+        pool2.setId("pool2");
+        Date now = new Date();
+
+        this.candidateIndex.setTracking(true);
+        when(mockPoolCurator.getAutobindCandidates(owner.getId(), null)).thenReturn(Arrays.asList(
+            new AutobindCandidateIndex.Candidate(pool1.getId(), product1.getId(), null, null,
+                pool1.getStartDate(), pool1.getEndDate()),
+            new AutobindCandidateIndex.Candidate(pool2.getId(), product2.getId(), null, null,
+                pool2.getStartDate(), pool2.getEndDate())));
+
+        Page page = mock(Page.class);
+        when(page.getPageData()).thenReturn(Arrays.asList(pool1));
+        when(mockPoolCurator.listAvailableEntitlementPools(any(Consumer.class),
+            nullable(String.class), nullable(String.class), nullable(String.class), eq(now),
+            any(PoolFilterBuilder.class), nullable(PageRequest.class), anyBoolean(), anyBoolean(),
+            anyBoolean(), nullable(Date.class))).thenReturn(page);
+        when(complianceRules.getStatus(any(Consumer.class), any(Date.class), anyBoolean()))
+            .thenReturn(new ComplianceStatus(now));
+
+        ConsumerType ctype = this.mockConsumerType(TestUtil.createConsumerType());
+        Consumer consumer = TestUtil.createConsumer(ctype, owner);
+
+        manager.getBestPools(consumer, new String[] { product1.getId() }, now, owner.getId(), null, null);
+        manager.getBestPools(consumer, new String[] { product1.getId() }, now, owner.getId(), null, null);
+
+        ArgumentCaptor<PoolFilterBuilder> filterCaptor = ArgumentCaptor.forClass(PoolFilterBuilder.class);
+        verify(mockPoolCurator, times(2)).listAvailableEntitlementPools(any(Consumer.class),
+            nullable(String.class), nullable(String.class), nullable(String.class), eq(now),
+            filterCaptor.capture(), nullable(PageRequest.class), anyBoolean(), anyBoolean(),
+            anyBoolean(), nullable(Date.class));
+
+        for (PoolFilterBuilder filter : filterCaptor.getAllValues()) {
+            assertEquals(List.of(pool1.getId()), filter.getIdFilters());
+        }
+
+        // The owner's pools should only have been indexed once
+        verify(mockPoolCurator, times(1)).getAutobindCandidates(owner.getId(), null);
+    }
+
+    @Test
+    public void testGetBestPoolsSkipsPoolLookupWithoutIndexedCandidates() throws Exception {
+        Product product = TestUtil.createProduct();
+        Date now = new Date();
+
+        this.candidateIndex.setTracking(true);
+        when(mockPoolCurator.getAutobindCandidates(owner.getId(), null)).thenReturn(List.of());
+        when(complianceRules.getStatus(any(Consumer.class), any(Date.class), anyBoolean()))
+            .thenReturn(new ComplianceStatus(now));
+
+        ConsumerType ctype = this.mockConsumerType(TestUtil.createConsumerType());
+        Consumer consumer = TestUtil.createConsumer(ctype, owner);
+
+        manager.getBestPools(consumer, new String[] { product.getId() }, now, owner.getId(), null, null);
+
+        verify(mockPoolCurator, never()).listAvailableEntitlementPools(any(Consumer.class),
+            nullable(String.class), nullable(String.class), nullable(String.class), any(Date.class),
+            any(PoolFilterBuilder.class), nullable(PageRequest.class), anyBoolean(), anyBoolean(),
+            anyBoolean(), nullable(Date.class));
+    }
+
     @Test
     public void testRefreshPoolsRemovesOtherOwnerPoolsForSameSub() {
         PreUnbindHelper preHelper = mock(PreUnbindHelper.class);
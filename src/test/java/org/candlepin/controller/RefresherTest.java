@@ -15,11 +15,14 @@
 package org.candlepin.controller;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyMap;
+import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -93,6 +96,41 @@ public class RefresherTest {
         verify(ownerManager).updateRefreshDate(owner);
     }
 
+    @Test
+    public void testChangeSetRefreshesOnlyChangedSubscriptions() {
+        Owner owner = TestUtil.createOwner();
+
+        Subscription subscription = new Subscription();
+        subscription.setId("subId");
+        subscription.setOwner(owner);
+
+        refresher.add(owner, List.of(subscription));
+        refresher.run();
+
+        verify(poolManager, times(1)).refreshChangedSubscriptions(eq(owner),
+            argThat(subs -> subs.size() == 1 && subs.contains(subscription)), eq(false));
+        verify(poolManager, never())
+            .refreshPoolsWithRegeneration(any(), any(), any(), anyBoolean());
+        verify(ownerManager, never()).updateRefreshDate(owner);
+    }
+
+    @Test
+    public void testChangeSetSkippedForFullyRefreshedOwner() {
+        Owner owner = TestUtil.createOwner();
+
+        Subscription subscription = new Subscription();
+        subscription.setId("subId");
+        subscription.setOwner(owner);
+
+        refresher.add(owner, List.of(subscription));
+        refresher.add(owner);
+        refresher.run();
+
+        verify(poolManager, times(1))
+            .refreshPoolsWithRegeneration(eq(subAdapter), eq(prodAdapter), eq(owner), eq(false));
+        verify(poolManager, never()).refreshChangedSubscriptions(any(), any(), anyBoolean());
+    }
+
     @Test
     public void testProductOnlyExaminedOnce() {
         Product product = TestUtil.createProduct();
@@ -158,14 +196,42 @@ public class RefresherTest {
         when(subAdapter.getSubscription("subId")).thenReturn(subscription);
         when(poolManager.getBySubscriptionId(owner, "subId")).thenReturn(pools);
 
-        Pool mainPool = TestUtil.copyFromSub(subscription);
-        when(poolManager.convertToMasterPool(subscription)).thenReturn(mainPool);
         refresher.add(product);
         refresher.add(product2);
         refresher.run();
 
-        verify(poolManager, times(1)).refreshPoolsForMasterPool(eq(mainPool), eq(true), eq(false),
-            anyMap());
+        verify(poolManager, times(1)).refreshChangedSubscriptions(eq(owner),
+            argThat(subs -> subs.size() == 1 && subs.contains(subscription)), eq(false));
+    }
+
+    @Test
+    public void testProductSubscriptionsRefreshedAsChangeSetPerOwner() {
+        Product product = TestUtil.createProduct();
+        Owner owner1 = TestUtil.createOwner();
+        Owner owner2 = TestUtil.createOwner();
+
+        Subscription subscription1 = new Subscription();
+        subscription1.setId("subId1");
+        subscription1.setOwner(owner1);
+        Subscription subscription2 = new Subscription();
+        subscription2.setId("subId2");
+        subscription2.setOwner(owner1);
+        Subscription subscription3 = new Subscription();
+        subscription3.setId("subId3");
+        subscription3.setOwner(owner2);
+
+        this.mockAdapterProductSubs(product.getId(),
+            Arrays.asList(subscription1, subscription2, subscription3));
+
+        refresher.add(product);
+        refresher.run();
+
+        verify(poolManager, times(1)).refreshChangedSubscriptions(eq(owner1),
+            argThat(subs -> subs.size() == 2 && subs.containsAll(List.of(subscription1, subscription2))),
+            eq(false));
+        verify(poolManager, times(1)).refreshChangedSubscriptions(eq(owner2),
+            argThat(subs -> subs.size() == 1 && subs.contains(subscription3)), eq(false));
+        verify(poolManager, never()).refreshPoolsForMasterPool(any(), anyBoolean(), anyBoolean(), anyMap());
     }
 
     protected void mockAdapterSubs(String input, Collection<? extends SubscriptionInfo> output) {
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2009 - 2020 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller.refresher;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.controller.refresher.RefreshResult.EntityState;
+import org.candlepin.model.Content;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Product;
+import org.candlepin.model.ProductContent;
+import org.candlepin.service.model.ContentInfo;
+import org.candlepin.service.model.ProductInfo;
+import org.candlepin.test.DatabaseTestFixture;
+import org.candlepin.test.TestUtil;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+
+
+
+/**
+ * Test suite for the incremental (change set) mode of the RefreshWorker
+ */
+public class RefreshWorkerIncrementalTest extends DatabaseTestFixture {
+
+    @BeforeEach
+    public void init() throws Exception {
+        super.init(false);
+    }
+
+    private RefreshWorker buildRefreshWorker() {
+        return new RefreshWorker(this.poolCurator, this.productCurator, this.ownerProductCurator,
+            this.contentCurator, this.ownerContentCurator)
+            .setIncremental(true);
+    }
+
+    private ProductInfo mockProductInfo(String id, String name) {
+        ProductInfo entity = mock(ProductInfo.class);
+        doReturn(id).when(entity).getId();
+        doReturn(null).when(entity).getMultiplier();
+        doReturn(name).when(entity).getName();
+
+        // Leave the children undefined so the existing children are retained
+        doReturn(null).when(entity).getProvidedProducts();
+        doReturn(null).when(entity).getProductContent();
+
+        return entity;
+    }
+
+    private ContentInfo mockContentInfo(String id, String name) {
+        ContentInfo entity = mock(ContentInfo.class);
+        doReturn(id).when(entity).getId();
+        doReturn(null).when(entity).getMetadataExpiration();
+        doReturn(name).when(entity).getName();
+
+        return entity;
+    }
+
+    @Test
+    public void testChangedContentUpdatesReferencingProducts() {
+        Owner owner = this.createOwner("test_owner");
+
+        Content content = this.createContent("c1", "old_name", owner);
+
+        Product product = TestUtil.createProduct("p1", "product");
+        product.addContent(content, true);
+        product = this.createProduct(product, owner);
+
+        Product parent = TestUtil.createProduct("p2", "parent");
+        parent.addProvidedProduct(product);
+        parent = this.createProduct(parent, owner);
+
+        Product unrelated = this.createProduct("p3", "unrelated", owner);
+
+        RefreshResult result = this.buildRefreshWorker()
+            .addContent(this.mockContentInfo("c1", "new_name"))
+            .execute(owner);
+
+        assertNotNull(result);
+        assertEquals(1, result.getEntities(Content.class, EntityState.UPDATED).size());
+        assertEquals(2, result.getEntities(Product.class, EntityState.UPDATED).size());
+        assertNull(result.getEntity(Product.class, unrelated.getId()));
+
+        Product updatedProduct = result.getEntity(Product.class, "p1");
+        Product updatedParent = result.getEntity(Product.class, "p2");
+
+        assertNotEquals(product.getUuid(), updatedProduct.getUuid());
+        assertNotEquals(parent.getUuid(), updatedParent.getUuid());
+
+        assertEquals("new_name", updatedProduct.getProductContent().stream()
+            .map(ProductContent::getContent)
+            .map(Content::getName)
+            .findFirst()
+            .orElse(null));
+
+        assertEquals(updatedProduct.getUuid(), updatedParent.getProvidedProducts().stream()
+            .map(Product::getUuid)
+            .collect(Collectors.joining()));
+
+        assertTrue(this.ownerProductCurator.isProductMappedToOwner(updatedParent, owner));
+        assertTrue(this.ownerProductCurator.isProductMappedToOwner(unrelated, owner));
+    }
+
+    @Test
+    public void testChangedProductRetainsExistingChildren() {
+        Owner owner = this.createOwner("test_owner");
+
+        Content content = this.createContent("c1", "content", owner);
+
+        Product product = TestUtil.createProduct("p1", "old_name");
+        product.addContent(content, true);
+        product = this.createProduct(product, owner);
+
+        RefreshResult result = this.buildRefreshWorker()
+            .addProducts(this.mockProductInfo("p1", "new_name"))
+            .execute(owner);
+
+        assertNotNull(result);
+        assertEquals(1, result.getEntities(Product.class, EntityState.UPDATED).size());
+        assertEquals(1, result.getEntities(Content.class, EntityState.UNCHANGED).size());
+
+        Product updated = result.getEntity(Product.class, "p1");
+
+        assertEquals("new_name", updated.getName());
+        assertEquals(1, updated.getProductContent().size());
+        assertEquals(content.getUuid(), updated.getProductContent().iterator().next()
+            .getContent()
+            .getUuid());
+    }
+
+    @Test
+    public void testIncrementalRefreshDoesNotRemoveUnmappedEntities() {
+        Owner owner = this.createOwner("test_owner");
+
+        Product locked = TestUtil.createProduct("p1", "locked");
+        locked.setLocked(true);
+        locked = this.createProduct(locked, owner);
+
+        Content content = this.createContent("c1", "content", owner);
+
+        RefreshResult result = this.buildRefreshWorker()
+            .setOrphanedEntityGracePeriod(0)
+            .addProducts(this.mockProductInfo("p2", "new_product"))
+            .execute(owner);
+
+        assertNotNull(result);
+        assertEquals(1, result.getEntities(Product.class, EntityState.CREATED).size());
+        assertEquals(0, result.getEntities(Product.class, EntityState.DELETED).size());
+        assertEquals(0, result.getEntities(Content.class, EntityState.DELETED).size());
+
+        assertTrue(this.ownerProductCurator.isProductMappedToOwner(locked, owner));
+        assertTrue(this.ownerContentCurator.isContentMappedToOwner(content, owner));
+        assertNull(this.ownerProductCurator.getOwnerProduct(owner.getId(), "p1").getOrphanedDate());
+    }
+
+}
@@ -41,6 +41,7 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -306,6 +307,60 @@ public class NodeProcessorTest {
         }
     }
 
+    @Test
+    public void testConcurrentProcessingProcessesChildrenBeforeParents() {
+        Class cls = Product.class;
+
+        NodeProcessor processor = new NodeProcessor();
+        NodeMapper mapper = new NodeMapper();
+        NodeVisitor visitor = this.mockNodeVisitor(cls);
+
+        List<EntityNode> prepareOrder = Collections.synchronizedList(new LinkedList<>());
+        List<EntityNode> processOrder = Collections.synchronizedList(new LinkedList<>());
+
+        doAnswer(iom -> {
+            EntityNode node = (EntityNode) iom.getArguments()[0];
+
+            // All children must be processed by the time a node is prepared
+            assertTrue(node.getChildrenNodes().allMatch(child -> processOrder.contains(child)));
+            prepareOrder.add(node);
+
+            return null;
+        }).when(visitor).prepareNode(any(EntityNode.class));
+
+        doAnswer(iom -> {
+            EntityNode node = (EntityNode) iom.getArguments()[0];
+
+            if (node != null) {
+                node.setNodeState(NodeState.UNCHANGED);
+                processOrder.add(node);
+            }
+
+            return null;
+        }).when(visitor).processNode(any(EntityNode.class));
+
+        Collection<EntityNode> trees = this.buildNodeTrees(mapper, cls);
+
+        processor.setNodeMapper(mapper)
+            .addVisitor(visitor)
+            .setParallelism(4);
+
+        processor.processNodes();
+
+        for (EntityNode root : trees) {
+            this.validateNodeProcessingOrder(processOrder, root);
+        }
+
+        assertEquals(processOrder.size(), prepareOrder.size());
+    }
+
+    @Test
+    public void testSetParallelismRequiresPositiveValue() {
+        NodeProcessor processor = new NodeProcessor();
+
+        assertThrows(IllegalArgumentException.class, () -> processor.setParallelism(0));
+    }
+
     private int validateNodePruningOrder(List<EntityNode> pruneOrder, EntityNode node) {
         int nodeIndex = pruneOrder.indexOf(node);
         int lastIndex = pruneOrder.lastIndexOf(node);
@@ -381,6 +436,31 @@ public class NodeProcessorTest {
         }
     }
 
+    @Test
+    public void testProcessNodesSkipsPruningWhenDisabled() {
+        Class cls = Product.class;
+
+        NodeProcessor processor = new NodeProcessor();
+        NodeMapper mapper = new NodeMapper();
+        NodeVisitor visitor = this.mockNodeVisitor(cls);
+
+        doAnswer(iom -> {
+            ((EntityNode) iom.getArguments()[0]).setNodeState(NodeState.UNCHANGED);
+            return null;
+        }).when(visitor).processNode(any(EntityNode.class));
+
+        this.buildNodeTrees(mapper, cls);
+
+        processor.setNodeMapper(mapper)
+            .addVisitor(visitor)
+            .setPruneNodes(false);
+
+        processor.processNodes();
+
+        verify(visitor, never()).pruneNode(any(EntityNode.class));
+        verify(visitor, atLeastOnce()).applyChanges(any(EntityNode.class));
+    }
+
     @Test
     public void testProcessNodesAppliesChangesAsTrees() {
         // This test verifies the order of change application. We're expecting that it starts
@@ -19,11 +19,14 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.candlepin.model.ModelEntity;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.function.Function;
+
 
 public class SimpleModelTranslatorTest {
 
@@ -317,4 +320,49 @@ public class SimpleModelTranslatorTest {
         assertSame(entity, dto.getSourceObject());
     }
 
+    @Test
+    public void testFindTranslatorByClassReflectsNewRegistrations() {
+        ModelTranslator modelTranslator = new SimpleModelTranslator();
+        ObjectTranslator translator1 = new TestTranslator();
+        ObjectTranslator translator2 = new TestTranslator();
+
+        ModelEntity entity = new TestModelEntity() {};
+        Class entityClass = entity.getClass();
+
+        modelTranslator.registerTranslator(translator1, ModelEntity.class, TestDTO.class);
+        assertSame(translator1, modelTranslator.findTranslatorByClass(entityClass, TestDTO.class));
+        assertSame(translator1, modelTranslator.findTranslatorByClass(entityClass, TestDTO.class));
+
+        modelTranslator.registerTranslator(translator2, TestModelEntity.class, TestDTO.class);
+        assertSame(translator2, modelTranslator.findTranslatorByClass(entityClass, TestDTO.class));
+
+        modelTranslator.unregisterTranslator(translator2);
+        assertSame(translator1, modelTranslator.findTranslatorByClass(entityClass, TestDTO.class));
+
+        modelTranslator.unregisterTranslator(ModelEntity.class, TestDTO.class);
+        assertThrows(TranslationException.class,
+            () -> modelTranslator.findTranslatorByClass(entityClass, TestDTO.class));
+    }
+
+    @Test
+    public void testStreamMapperTranslatesWithinTranslationContext() {
+        ModelTranslator modelTranslator = new SimpleModelTranslator();
+        ObjectTranslator translator = new TestTranslator();
+
+        modelTranslator.registerTranslator(translator, ModelEntity.class, TestDTO.class);
+
+        ModelEntity entity1 = new TestModelEntity() {};
+        ModelEntity entity2 = new TestModelEntity() {};
+        Function<ModelEntity, TestDTO> mapper = modelTranslator
+            .getStreamMapper(ModelEntity.class, TestDTO.class);
+
+        TestDTO dto1 = mapper.apply(entity1);
+        TestDTO dto2 = mapper.apply(entity2);
+
+        assertSame(entity1, dto1.getSourceObject());
+        assertSame(entity2, dto2.getSourceObject());
+        assertTrue(dto1.getModelTranslator() instanceof TranslationContext);
+        assertSame(dto1.getModelTranslator(), dto2.getModelTranslator());
+    }
+
 }
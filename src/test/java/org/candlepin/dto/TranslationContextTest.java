@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.candlepin.model.ModelEntity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+
+
+
+public class TranslationContextTest {
+
+    /**
+     * Test ObjectTranslator which counts the number of translations it has performed
+     */
+    private static class CountingTranslator implements ObjectTranslator<ModelEntity, TestDTO> {
+        private int translations = 0;
+
+        public TestDTO translate(ModelEntity source) {
+            return this.translate(null, source);
+        }
+
+        public TestDTO translate(ModelTranslator modelTranslator, ModelEntity source) {
+            ++this.translations;
+            return new TestDTO(modelTranslator, this, source);
+        }
+
+        public TestDTO populate(ModelEntity source, TestDTO dest) {
+            return this.populate(null, source, dest);
+        }
+
+        public TestDTO populate(ModelTranslator modelTranslator, ModelEntity source, TestDTO dest) {
+            return dest.setModelTranslator(modelTranslator)
+                .setObjectTranslator(this)
+                .setSourceObject(source);
+        }
+
+        public int getTranslations() {
+            return this.translations;
+        }
+    }
+
+    private ModelTranslator modelTranslator;
+    private CountingTranslator translator;
+
+    @BeforeEach
+    public void init() {
+        this.modelTranslator = new SimpleModelTranslator();
+        this.translator = new CountingTranslator();
+
+        this.modelTranslator.registerTranslator(this.translator, ModelEntity.class, TestDTO.class);
+    }
+
+    @Test
+    public void testCreateTranslationContext() {
+        ModelTranslator context = this.modelTranslator.createTranslationContext();
+
+        assertNotSame(this.modelTranslator, context);
+        assertNotSame(context, this.modelTranslator.createTranslationContext());
+        assertSame(context, context.createTranslationContext());
+    }
+
+    @Test
+    public void testTranslateSharesOutputForRepeatedInstances() {
+        ModelTranslator context = this.modelTranslator.createTranslationContext();
+        ModelEntity entity = new ModelEntity() {};
+
+        TestDTO dto1 = context.translate(entity, TestDTO.class);
+        TestDTO dto2 = context.translate(entity, TestDTO.class);
+
+        assertSame(dto1, dto2);
+        assertSame(context, dto1.getModelTranslator());
+        assertSame(entity, dto1.getSourceObject());
+        assertEquals(1, this.translator.getTranslations());
+    }
+
+    @Test
+    public void testTranslateDistinctInstances() {
+        ModelTranslator context = this.modelTranslator.createTranslationContext();
+        ModelEntity entity1 = new ModelEntity() {};
+        ModelEntity entity2 = new ModelEntity() {};
+
+        TestDTO dto1 = context.translate(entity1, TestDTO.class);
+        TestDTO dto2 = context.translate(entity2, TestDTO.class);
+
+        assertNotSame(dto1, dto2);
+        assertSame(entity1, dto1.getSourceObject());
+        assertSame(entity2, dto2.getSourceObject());
+        assertEquals(2, this.translator.getTranslations());
+    }
+
+    @Test
+    public void testTranslateDoesNotShareOutputAcrossContexts() {
+        ModelEntity entity = new ModelEntity() {};
+
+        TestDTO dto1 = this.modelTranslator.createTranslationContext().translate(entity, TestDTO.class);
+        TestDTO dto2 = this.modelTranslator.createTranslationContext().translate(entity, TestDTO.class);
+
+        assertNotSame(dto1, dto2);
+        assertEquals(2, this.translator.getTranslations());
+    }
+
+    @Test
+    public void testTranslateNullInput() {
+        ModelTranslator context = this.modelTranslator.createTranslationContext();
+
+        assertNull(context.translate(null, TestDTO.class));
+        assertEquals(0, this.translator.getTranslations());
+    }
+
+    @Test
+    public void testTranslateWithoutTranslator() {
+        ModelTranslator context = new SimpleModelTranslator().createTranslationContext();
+
+        assertThrows(TranslationException.class,
+            () -> context.translate(new ModelEntity() {}, TestDTO.class));
+    }
+
+    @Test
+    public void testStreamMapperSharesOutputForRepeatedInstances() {
+        ModelTranslator context = this.modelTranslator.createTranslationContext();
+        ModelEntity entity = new ModelEntity() {};
+
+        Function<ModelEntity, TestDTO> mapper = context.getStreamMapper(ModelEntity.class, TestDTO.class);
+        TestDTO dto1 = mapper.apply(entity);
+        TestDTO dto2 = context.translate(entity, TestDTO.class);
+
+        assertSame(dto1, dto2);
+        assertNull(mapper.apply(null));
+        assertEquals(1, this.translator.getTranslations());
+    }
+
+    @Test
+    public void testContextResetsOnceCacheLimitIsReached() {
+        ModelTranslator context = new TranslationContext(this.modelTranslator, 1);
+        ModelEntity entity1 = new ModelEntity() {};
+        ModelEntity entity2 = new ModelEntity() {};
+
+        TestDTO dto1 = context.translate(entity1, TestDTO.class);
+        assertSame(dto1, context.translate(entity1, TestDTO.class));
+
+        TestDTO dto2 = context.translate(entity2, TestDTO.class);
+        assertSame(dto2, context.translate(entity2, TestDTO.class));
+
+        assertNotSame(dto1, context.translate(entity1, TestDTO.class));
+        assertEquals(3, this.translator.getTranslations());
+    }
+
+    @Test
+    public void testInvalidCacheLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new TranslationContext(this.modelTranslator, 0));
+    }
+
+    @Test
+    public void testNullParent() {
+        assertThrows(IllegalArgumentException.class, () -> new TranslationContext(null));
+    }
+
+}
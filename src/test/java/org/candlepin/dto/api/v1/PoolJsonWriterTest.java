@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.dto.api.v1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+
+import org.candlepin.config.Configuration;
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.SimpleModelTranslator;
+import org.candlepin.dto.api.server.v1.PoolDTO;
+import org.candlepin.jackson.DynamicFilterData;
+import org.candlepin.jackson.FilteredJsonWriter;
+import org.candlepin.model.Branding;
+import org.candlepin.model.Pool;
+import org.candlepin.resteasy.JsonProvider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.jboss.resteasy.core.ResteasyContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+
+
+
+/**
+ * Test suite verifying the PoolJsonWriter against the serialized output of the PoolTranslator.
+ */
+public class PoolJsonWriterTest {
+
+    private ObjectMapper mapper;
+    private ModelTranslator modelTranslator;
+    private PoolJsonWriter writer;
+
+    @BeforeEach
+    public void init() {
+        JsonProvider provider = new JsonProvider(mock(Configuration.class));
+        this.mapper = provider.locateMapper(Object.class, MediaType.APPLICATION_JSON_TYPE);
+
+        this.modelTranslator = new SimpleModelTranslator();
+        new PoolTranslatorTest().initModelTranslator(this.modelTranslator);
+
+        this.writer = new PoolJsonWriter();
+
+        ResteasyContext.clearContextData();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ResteasyContext.clearContextData();
+    }
+
+    private Pool buildPool() {
+        Pool pool = new PoolTranslatorTest().initSourceObject();
+        pool.setCreated(new Date(1500000000000L));
+        pool.setUpdated(new Date(1600000000000L));
+
+        Branding branding1 = new Branding(pool.getProduct(), "eng_product-id-1", "brand 1", "OS");
+        branding1.setCreated(new Date(1500000000000L));
+        Branding branding2 = new Branding(pool.getProduct(), "eng_product-id-2", "brand 2", "OS");
+
+        pool.getProduct().addBranding(branding1);
+        pool.getProduct().addBranding(branding2);
+
+        return pool;
+    }
+
+    private JsonNode writeDirectly(Pool pool, DynamicFilterData filterData) throws Exception {
+        StringWriter output = new StringWriter();
+
+        try (JsonGenerator generator = this.mapper.getFactory().createGenerator(output)) {
+            this.writer.write(new FilteredJsonWriter(generator, filterData), pool);
+        }
+
+        return normalize(this.mapper.readTree(output.toString()));
+    }
+
+    private JsonNode writeTranslated(Pool pool, DynamicFilterData filterData) throws Exception {
+        if (filterData != null) {
+            ResteasyContext.pushContext(DynamicFilterData.class, filterData);
+        }
+
+        PoolDTO dto = this.modelTranslator.translate(pool, PoolDTO.class);
+        return normalize(this.mapper.readTree(this.mapper.writeValueAsString(dto)));
+    }
+
+    /**
+     * Sorts the elements of every array in the given tree, as the DTOs serialize sets in hash
+     * order while the writer follows the order of the entity collections.
+     */
+    private static JsonNode normalize(JsonNode node) {
+        if (node instanceof ObjectNode) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                normalize(fields.next().getValue());
+            }
+        }
+        else if (node instanceof ArrayNode) {
+            ArrayNode array = (ArrayNode) node;
+            List<JsonNode> elements = new ArrayList<>();
+
+            array.forEach(element -> elements.add(normalize(element)));
+            elements.sort(Comparator.comparing(JsonNode::toString));
+
+            array.removeAll();
+            array.addAll(elements);
+        }
+
+        return node;
+    }
+
+    @Test
+    public void testWriteMatchesTranslatedPool() throws Exception {
+        Pool pool = this.buildPool();
+
+        assertEquals(this.writeTranslated(pool, null), this.writeDirectly(pool, null));
+    }
+
+    @Test
+    public void testWriteMatchesTranslatedPoolWithoutOptionalData() throws Exception {
+        Pool pool = new Pool();
+        pool.setId("pool-id");
+
+        assertEquals(this.writeTranslated(pool, null), this.writeDirectly(pool, null));
+    }
+
+    @Test
+    public void testWriteMatchesTranslatedPoolWithoutDerivedProduct() throws Exception {
+        Pool pool = this.buildPool();
+        pool.getProduct().setDerivedProduct(null);
+        pool.setSourceEntitlement(null);
+        pool.setOwner(null);
+        pool.setCalculatedAttributes(null);
+
+        assertEquals(this.writeTranslated(pool, null), this.writeDirectly(pool, null));
+    }
+
+    @Test
+    public void testWriteAppliesExcludeFilters() throws Exception {
+        Pool pool = this.buildPool();
+
+        DynamicFilterData filterData = new DynamicFilterData();
+        filterData.excludeAttribute("owner.href");
+        filterData.excludeAttribute("attributes");
+        filterData.excludeAttribute("providedProducts.productName");
+        filterData.excludeAttribute("branding.created");
+        filterData.excludeAttribute("sourceEntitlement");
+
+        JsonNode expected = this.writeTranslated(pool, filterData);
+
+        assertEquals(expected, this.writeDirectly(pool, filterData));
+        assertFalse(expected.has("attributes"));
+    }
+
+    @Test
+    public void testWriteAppliesIncludeFilters() throws Exception {
+        Pool pool = this.buildPool();
+
+        DynamicFilterData filterData = new DynamicFilterData(true);
+        filterData.includeAttribute("id");
+        filterData.includeAttribute("owner.key");
+        filterData.includeAttribute("branding.name");
+        filterData.includeAttribute("derivedProvidedProducts");
+
+        JsonNode expected = this.writeTranslated(pool, filterData);
+
+        assertEquals(expected, this.writeDirectly(pool, filterData));
+        assertEquals(4, expected.size());
+    }
+
+}
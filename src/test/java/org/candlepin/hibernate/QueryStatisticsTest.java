@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.candlepin.model.Owner;
+import org.candlepin.test.DatabaseTestFixture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.Map;
+
+
+
+/**
+ * Test suite for the QueryStatistics class and the Hibernate hooks which feed it
+ */
+public class QueryStatisticsTest extends DatabaseTestFixture {
+
+    @AfterEach
+    public void clearStatistics() {
+        QueryStatistics.stop();
+    }
+
+    @Test
+    public void testStartAndStop() {
+        assertNull(QueryStatistics.current());
+
+        QueryStatistics stats = QueryStatistics.start("tag");
+        assertSame(stats, QueryStatistics.current());
+        assertEquals("tag", stats.getTag());
+
+        assertSame(stats, QueryStatistics.stop());
+        assertNull(QueryStatistics.current());
+        assertNull(QueryStatistics.stop());
+    }
+
+    @Test
+    public void testInspectorCountsStatementsWhenStarted() {
+        QueryStatisticsInspector inspector = new QueryStatisticsInspector();
+
+        assertEquals("SELECT 1", inspector.inspect("SELECT 1"));
+
+        QueryStatistics stats = QueryStatistics.start("tag");
+        assertEquals("SELECT 1", inspector.inspect("SELECT 1"));
+        assertEquals("SELECT 2", inspector.inspect("SELECT 2"));
+
+        assertEquals(2, stats.getStatementCount());
+    }
+
+    @Test
+    public void testRepeatedStatements() {
+        QueryStatistics stats = new QueryStatistics("tag");
+
+        for (int i = 0; i < 5; ++i) {
+            stats.recordStatement("SELECT a FROM b WHERE id = ?");
+        }
+
+        for (int i = 0; i < 3; ++i) {
+            stats.recordStatement("SELECT c FROM d WHERE id = ?");
+        }
+
+        stats.recordStatement("SELECT e FROM f");
+
+        Map<String, Integer> repeated = stats.getRepeatedStatements(3);
+
+        assertEquals(9, stats.getStatementCount());
+        assertEquals(List.of("SELECT a FROM b WHERE id = ?", "SELECT c FROM d WHERE id = ?"),
+            List.copyOf(repeated.keySet()));
+        assertEquals(5, repeated.get("SELECT a FROM b WHERE id = ?"));
+        assertEquals(3, repeated.get("SELECT c FROM d WHERE id = ?"));
+    }
+
+    @Test
+    public void testReportFlagsStatementThreshold() {
+        Logger log = mock(Logger.class);
+        QueryStatistics stats = new QueryStatistics("tag");
+
+        stats.recordStatement("SELECT 1");
+        stats.recordStatement("SELECT 2");
+
+        assertFalse(stats.report(log, 2, 0));
+
+        stats.recordStatement("SELECT 3");
+
+        assertTrue(stats.report(log, 2, 0));
+    }
+
+    @Test
+    public void testReportFlagsRepeatedStatements() {
+        Logger log = mock(Logger.class);
+        QueryStatistics stats = new QueryStatistics("tag");
+
+        stats.recordStatement("SELECT 1");
+        stats.recordStatement("SELECT 1");
+
+        assertFalse(stats.report(log, 0, 3));
+        assertFalse(stats.report(log, 0, 0));
+
+        stats.recordStatement("SELECT 1");
+
+        assertTrue(stats.report(log, 0, 3));
+    }
+
+    @Test
+    public void testStatementsAreCountedForDatabaseOperations() {
+        Owner owner = this.createOwner();
+        this.ownerCurator.flush();
+        this.ownerCurator.clear();
+
+        QueryStatistics stats = QueryStatistics.start("tag");
+
+        this.ownerCurator.getByKey(owner.getKey());
+        this.ownerCurator.listAll().list();
+
+        assertTrue(stats.getStatementCount() >= 2);
+        assertTrue(stats.getRepeatedStatements(1).size() >= 2);
+    }
+}
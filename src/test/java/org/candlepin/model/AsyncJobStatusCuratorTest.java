@@ -18,6 +18,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.candlepin.async.JobConfig;
 import org.candlepin.model.AsyncJobStatus.JobState;
 import org.candlepin.model.AsyncJobStatusCurator.AsyncJobStatusQueryArguments;
 import org.candlepin.test.DatabaseTestFixture;
@@ -2662,5 +2663,130 @@ public class AsyncJobStatusCuratorTest extends DatabaseTestFixture {
         this.validateJobStates(jobMap, Arrays.asList(), JobState.ABORTED);
     }
 
+    @Test
+    public void testClaimConstraintKey() {
+        AsyncJobStatus job = this.createJob("job-1", "job_key-1", JobState.CREATED, null, null, null, null,
+            null, null, null);
+
+        assertTrue(this.asyncJobCurator.claimConstraintKey(job, "constraint_key-1"));
+        assertEquals("constraint_key-1", job.getConstraintKey());
+        assertEquals(Arrays.asList(job.getId()),
+            this.asyncJobCurator.fetchJobIdsByConstraintKey("constraint_key-1"));
+    }
+
+    @Test
+    public void testClaimConstraintKeyHeldByAnotherJob() {
+        AsyncJobStatus holder = this.createJob("job-1", "job_key-1", JobState.QUEUED, null, null, null, null,
+            null, null, null);
+        AsyncJobStatus job = this.createJob("job-2", "job_key-1", JobState.CREATED, null, null, null, null,
+            null, null, null);
+
+        assertTrue(this.asyncJobCurator.claimConstraintKey(holder, "constraint_key-1"));
+        assertFalse(this.asyncJobCurator.claimConstraintKey(job, "constraint_key-1"));
+        assertNull(job.getConstraintKey());
+
+        // The failed claim must not leave the transaction unusable
+        this.asyncJobCurator.flush();
+        assertEquals(Arrays.asList(holder.getId()),
+            this.asyncJobCurator.fetchJobIdsByConstraintKey("constraint_key-1"));
+    }
+
+    /**
+     * Fetches the state and version of the given job directly from the database, bypassing any
+     * copies of the job held by the session
+     */
+    private Object[] fetchPersistedStateAndVersion(String jobId) {
+        return this.getEntityManager()
+            .createQuery("SELECT aj.state, aj.version FROM AsyncJobStatus aj WHERE aj.id = :job_id",
+                Object[].class)
+            .setParameter("job_id", jobId)
+            .getSingleResult();
+    }
+
+    @Test
+    public void testCompareAndSetJobStatus() {
+        AsyncJobStatus job = this.createJob("job-1", "job_key-1", JobState.QUEUED, null, null, null, null,
+            null, null, null);
+
+        assertTrue(this.asyncJobCurator.claimConstraintKey(job, "constraint_key-1"));
+        this.asyncJobCurator.flush();
+
+        Date start = new Date();
+        job.setExecutor("executor-1")
+            .setStartTime(start)
+            .setJobResult("result-1")
+            .setState(JobState.CANCELED);
+
+        AsyncJobStatus updated = this.asyncJobCurator.compareAndSetJobStatus(job,
+            Arrays.asList(JobState.QUEUED, JobState.RUNNING));
+
+        assertNotNull(updated);
+        assertEquals(job.getId(), updated.getId());
+        assertEquals(JobState.CANCELED, updated.getState());
+        assertEquals(JobState.QUEUED, updated.getPreviousState());
+        assertEquals("executor-1", updated.getExecutor());
+        assertEquals(start, updated.getStartTime());
+        assertEquals("result-1", updated.getJobResult());
+        assertNull(updated.getConstraintKey());
+    }
 
+    @Test
+    public void testCompareAndSetJobStatusWontUpdateUnexpectedStates() {
+        AsyncJobStatus job = this.createJob("job-1", "job_key-1", JobState.CANCELED, null, null, null, null,
+            null, null, null);
+
+        job.setState(JobState.FINISHED);
+
+        assertNull(this.asyncJobCurator.compareAndSetJobStatus(job,
+            Arrays.asList(JobState.QUEUED, JobState.RUNNING)));
+
+        AsyncJobStatus current = this.asyncJobCurator.get(job.getId());
+        assertNotNull(current);
+        assertEquals(JobState.CANCELED, current.getState());
+    }
+
+    @Test
+    public void testDetachedJobIsOnlyWrittenByCompareAndSet() {
+        AsyncJobStatus job = this.createJob("job-1", "job_key-1", JobState.QUEUED, null, null, null, null,
+            null, null, null);
+
+        job.setJobArguments(JobConfig.forJob("job_key-1")
+            .setJobArgument("arg", "value")
+            .getJobArguments());
+        this.asyncJobCurator.merge(job);
+        this.asyncJobCurator.flush();
+
+        job = this.asyncJobCurator.get(job.getId());
+        Object[] queued = this.fetchPersistedStateAndVersion(job.getId());
+
+        // Changes made to the detached job, as a coalesced job would while it runs, must not be
+        // written by any flush issued before its terminal state
+        job = this.asyncJobCurator.detachJob(job);
+        job.setExecutor("executor-1")
+            .setStartTime(new Date())
+            .setState(JobState.RUNNING);
+
+        this.asyncJobCurator.flush();
+        this.asyncJobCurator.clear();
+
+        Object[] running = this.fetchPersistedStateAndVersion(job.getId());
+        assertEquals(JobState.QUEUED, running[0]);
+        assertEquals(queued[1], running[1]);
+        assertEquals(1, job.getJobArguments().size());
+
+        job.setEndTime(new Date())
+            .setState(JobState.FINISHED);
+
+        AsyncJobStatus updated = this.asyncJobCurator.compareAndSetJobStatus(job,
+            Arrays.asList(JobState.QUEUED, JobState.RUNNING));
+
+        assertNotNull(updated);
+        assertEquals(JobState.FINISHED, updated.getState());
+        assertEquals(JobState.QUEUED, updated.getPreviousState());
+        assertEquals("executor-1", updated.getExecutor());
+
+        Object[] finished = this.fetchPersistedStateAndVersion(job.getId());
+        assertEquals(JobState.FINISHED, finished[0]);
+        assertEquals((int) queued[1] + 1, finished[1]);
+    }
 }
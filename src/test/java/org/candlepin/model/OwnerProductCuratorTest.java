@@ -18,6 +18,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.candlepin.cache.EntityVersionIndex;
 import org.candlepin.model.activationkeys.ActivationKey;
 import org.candlepin.test.DatabaseTestFixture;
 import org.candlepin.test.TestUtil;
@@ -679,6 +680,83 @@ public class OwnerProductCuratorTest extends DatabaseTestFixture {
         assertThat(uuidList2, hasItems(p1a.getUuid(), p2b.getUuid(), p3c.getUuid()));
     }
 
+    @Test
+    public void testGetProductsByVersionsIndexesResolvedVersions() {
+        Owner owner = this.createOwner();
+        Product product = this.createProduct("p1", "product", owner);
+
+        EntityVersionIndex index = this.injector.getInstance(EntityVersionIndex.class);
+        index.clear();
+
+        Map<String, List<Product>> productMap = this.ownerProductCurator
+            .getProductsByVersions(Set.of(product.getEntityVersion()));
+
+        assertEquals(1, productMap.get("p1").size());
+        assertEquals(Set.of(product.getUuid()), index.get(Product.class, product.getEntityVersion()));
+
+        // Subsequent lookups should resolve the same product through the index
+        productMap = this.ownerProductCurator
+            .getProductsByVersions(Set.of(product.getEntityVersion()));
+
+        assertEquals(1, productMap.get("p1").size());
+        assertEquals(product.getUuid(), productMap.get("p1").get(0).getUuid());
+    }
+
+    @Test
+    public void testGetProductsByVersionsFindsProductsCreatedAfterIndexing() {
+        Owner owner1 = this.createOwner();
+        Owner owner2 = this.createOwner();
+        Product product1 = this.createProduct("p1", "product", owner1);
+
+        EntityVersionIndex index = this.injector.getInstance(EntityVersionIndex.class);
+        index.clear();
+
+        this.ownerProductCurator.getProductsByVersions(Set.of(product1.getEntityVersion()));
+
+        // A product with the same version created after the version was indexed
+        Product product2 = this.createProduct("p1", "product", owner2);
+        assertEquals(product1.getEntityVersion(), product2.getEntityVersion());
+
+        Map<String, List<Product>> productMap = this.ownerProductCurator
+            .getProductsByVersions(Set.of(product1.getEntityVersion()));
+
+        assertEquals(2, productMap.get("p1").size());
+        assertEquals(Set.of(product1.getUuid(), product2.getUuid()),
+            index.get(Product.class, product1.getEntityVersion()));
+    }
+
+    @Test
+    public void testGetProductsByVersionsFallsBackOnStaleIndexEntries() {
+        Owner owner = this.createOwner();
+        Product product = this.createProduct("p1", "product", owner);
+
+        EntityVersionIndex index = this.injector.getInstance(EntityVersionIndex.class);
+        index.clear();
+        index.put(Product.class, product.getEntityVersion(), List.of("deleted_uuid"));
+
+        Map<String, List<Product>> productMap = this.ownerProductCurator
+            .getProductsByVersions(Set.of(product.getEntityVersion()));
+
+        assertEquals(1, productMap.get("p1").size());
+        assertEquals(product.getUuid(), productMap.get("p1").get(0).getUuid());
+        assertEquals(Set.of(product.getUuid()), index.get(Product.class, product.getEntityVersion()));
+    }
+
+    @Test
+    public void testClearProductEntityVersionEvictsIndexedVersion() {
+        Owner owner = this.createOwner();
+        Product product = this.createProduct("p1", "product", owner);
+        long version = product.getEntityVersion();
+
+        EntityVersionIndex index = this.injector.getInstance(EntityVersionIndex.class);
+        index.clear();
+
+        this.ownerProductCurator.getProductsByVersions(Set.of(version));
+        this.ownerProductCurator.clearProductEntityVersion(product);
+
+        assertNull(index.get(Product.class, version));
+    }
+
     @Test
     public void testGetProductsByVersionsNoVersionInfo() {
         Owner owner1 = this.createOwner();
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+
+
+
+public class SignatureSignerTest {
+
+    private static final byte[] DATA = "some data to sign".getBytes(StandardCharsets.UTF_8);
+
+    private static KeyPair signingKeyPair;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+
+        signingKeyPair = generator.generateKeyPair();
+    }
+
+    private boolean verify(byte[] data, byte[] signature) throws Exception {
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(signingKeyPair.getPublic());
+        verifier.update(data);
+
+        return verifier.verify(signature);
+    }
+
+    @Test
+    public void testSignData() throws Exception {
+        SignatureSigner signer = new SignatureSigner("SHA256withRSA", signingKeyPair.getPrivate());
+        signer.update(DATA, 0, 4);
+        signer.update(DATA, 4, DATA.length - 4);
+
+        assertTrue(this.verify(DATA, signer.sign()));
+    }
+
+    @Test
+    public void testSignatureFailsForModifiedData() throws Exception {
+        SignatureSigner signer = new SignatureSigner("SHA256withRSA", signingKeyPair.getPrivate());
+        signer.update(DATA, 1, DATA.length - 1);
+
+        assertFalse(this.verify(DATA, signer.sign()));
+    }
+
+    @Test
+    public void testWrappedStreamUpdatesSigner() throws Exception {
+        SignatureSigner signer = new SignatureSigner("SHA256withRSA", signingKeyPair.getPrivate());
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        try (OutputStream stream = signer.wrap(target)) {
+            // Mix single byte and bulk writes; all of the data must still be signed and passed on
+            stream.write(DATA[0]);
+            stream.write(DATA, 1, DATA.length - 1);
+        }
+
+        assertArrayEquals(DATA, target.toByteArray());
+        assertTrue(this.verify(DATA, signer.sign()));
+    }
+
+    @Test
+    public void testRequiresAlgorithmAndKey() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new SignatureSigner(null, signingKeyPair.getPrivate()));
+        assertThrows(IllegalArgumentException.class, () -> new SignatureSigner("SHA256withRSA", null));
+    }
+}
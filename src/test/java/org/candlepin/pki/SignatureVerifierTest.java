@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pki;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+
+
+
+public class SignatureVerifierTest {
+
+    private static final byte[] DATA = "some data to sign".getBytes(StandardCharsets.UTF_8);
+
+    private static KeyPair signingKeyPair;
+    private static X509Certificate signingCert;
+    private static X509Certificate otherCert;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        signingKeyPair = generateKeyPair();
+        signingCert = createCertificate(signingKeyPair);
+        otherCert = createCertificate(generateKeyPair());
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+
+        return generator.generateKeyPair();
+    }
+
+    private static X509Certificate createCertificate(KeyPair keyPair) throws Exception {
+        X500Name name = new X500Name("CN=test");
+        Date start = new Date();
+        Date end = new Date(start.getTime() + 86400000L);
+
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE, start,
+            end, name, keyPair.getPublic());
+
+        return new JcaX509CertificateConverter().getCertificate(builder
+            .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+    }
+
+    private byte[] sign(byte[] data) throws Exception {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(signingKeyPair.getPrivate());
+        signature.update(data);
+
+        return signature.sign();
+    }
+
+    @Test
+    public void testVerifyAgainstAnyCertificate() throws Exception {
+        SignatureVerifier verifier = new SignatureVerifier("SHA256withRSA", List.of(otherCert, signingCert));
+        verifier.update(DATA, 0, DATA.length);
+
+        assertTrue(verifier.verify(this.sign(DATA)));
+    }
+
+    @Test
+    public void testVerifyFailsForUnknownCertificate() throws Exception {
+        SignatureVerifier verifier = new SignatureVerifier("SHA256withRSA", List.of(otherCert));
+        verifier.update(DATA, 0, DATA.length);
+
+        assertFalse(verifier.verify(this.sign(DATA)));
+    }
+
+    @Test
+    public void testVerifyFailsForModifiedData() throws Exception {
+        SignatureVerifier verifier = new SignatureVerifier("SHA256withRSA", List.of(signingCert));
+        verifier.update(DATA, 1, DATA.length - 1);
+
+        assertFalse(verifier.verify(this.sign(DATA)));
+    }
+
+    @Test
+    public void testVerifyFailsForMissingSignature() throws Exception {
+        SignatureVerifier verifier = new SignatureVerifier("SHA256withRSA", List.of(signingCert));
+        verifier.update(DATA, 0, DATA.length);
+
+        assertFalse(verifier.verify(null));
+        assertFalse(verifier.verify(new byte[0]));
+    }
+
+    @Test
+    public void testVerifyMalformedSignature() throws Exception {
+        SignatureVerifier verifier = new SignatureVerifier("SHA256withRSA", List.of(signingCert));
+        verifier.update(DATA, 0, DATA.length);
+
+        assertFalse(verifier.verify("not a signature".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testWrappedStreamUpdatesVerifier() throws Exception {
+        SignatureVerifier verifier = new SignatureVerifier("SHA256withRSA", List.of(signingCert));
+
+        try (InputStream stream = verifier.wrap(new ByteArrayInputStream(DATA))) {
+            // Mix single byte reads, skips and bulk reads; all of the data must still be verified
+            stream.read();
+            stream.skip(4);
+            stream.transferTo(OutputStream.nullOutputStream());
+        }
+
+        assertTrue(verifier.verify(this.sign(DATA)));
+    }
+
+    @Test
+    public void testRequiresCertificates() {
+        assertThrows(IllegalArgumentException.class, () -> new SignatureVerifier("SHA256withRSA", List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new SignatureVerifier(null, List.of(signingCert)));
+    }
+}
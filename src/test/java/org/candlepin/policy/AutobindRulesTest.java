@@ -30,6 +30,7 @@ import org.candlepin.dto.StandardTranslator;
 import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
 import org.candlepin.dto.rules.v1.ConsumerDTO;
 import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.metrics.CandlepinMeters;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerInstalledProduct;
 import org.candlepin.model.ConsumerType;
@@ -52,6 +53,7 @@ import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
 import org.candlepin.policy.js.JsonJsContext;
+import org.candlepin.policy.js.RulesJsonCache;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.policy.js.autobind.AutobindRules;
 import org.candlepin.policy.js.compliance.ComplianceStatus;
@@ -61,6 +63,9 @@ import org.candlepin.util.X509ExtensionUtil;
 
 import com.google.inject.Provider;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -99,6 +104,7 @@ public class AutobindRulesTest {
     private ModelTranslator translator;
     private JsRunner jsRules;
     private RulesObjectMapper mapper;
+    private SimpleMeterRegistry meterRegistry;
     private static Logger log = LoggerFactory.getLogger(AutobindRules.class);
 
     private static final String HIGHEST_QUANTITY_PRODUCT = "QUANTITY001";
@@ -110,6 +116,10 @@ public class AutobindRulesTest {
 
         when(config.getInt(eq(ConfigProperties.PRODUCT_CACHE_MAX))).thenReturn(100);
 
+        // Select pools with both engines, so every test also verifies the native engine
+        when(config.getString(eq(ConfigProperties.AUTOBIND_ENGINE))).thenReturn("verify");
+        meterRegistry = new SimpleMeterRegistry();
+
         InputStream is = this.getClass().getResourceAsStream(RulesCurator.DEFAULT_RULES_FILE);
         Rules rules = new Rules(Util.readFile(is));
 
@@ -117,12 +127,12 @@ public class AutobindRulesTest {
         doReturn(TestUtil.createDate(2010, 1, 1)).when(this.rulesCurator).getUpdated();
         doReturn(cache).when(this.cacheProvider).get();
 
-        jsRules = new JsRunnerProvider(rulesCurator, cacheProvider).get();
+        jsRules = new JsRunnerProvider(rulesCurator, cacheProvider, new SimpleMeterRegistry()).get();
         mapper =  new RulesObjectMapper();
 
         translator = new StandardTranslator(consumerTypeCurator, environmentCurator, mockOwnerCurator);
         autobindRules = new AutobindRules(jsRules, mockProductCurator, consumerTypeCurator, mockOwnerCurator,
-           mapper, translator);
+           mapper, translator, new RulesJsonCache(translator, mapper, 1000), config, meterRegistry);
 
         owner = new Owner();
         owner.setId(TestUtil.randomString());
@@ -143,6 +153,11 @@ public class AutobindRulesTest {
         activeGuestAttrs.put("active", "1");
     }
 
+    @AfterEach
+    public void verifyNativeEngine() {
+        assertEquals(0.0, meterRegistry.counter(CandlepinMeters.AUTOBIND_ENGINE_MISMATCHES).count());
+    }
+
 
     @Test
     public void testFindBestWithSingleProductSinglePoolReturnsProvidedPool() {
@@ -43,6 +43,7 @@ import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
 import org.candlepin.policy.js.RuleExecutionException;
+import org.candlepin.policy.js.RulesJsonCache;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.policy.js.entitlement.Enforcer;
 import org.candlepin.policy.js.entitlement.EntitlementRules;
@@ -53,6 +54,8 @@ import org.candlepin.test.TestUtil;
 
 import com.google.inject.Provider;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -120,13 +123,16 @@ public class EnforcerTest extends DatabaseTestFixture {
         when(rulesCurator.getUpdated()).thenReturn(TestUtil.createDate(2010, 1, 1));
         when(cacheProvider.get()).thenReturn(cache);
 
-        JsRunner jsRules = new JsRunnerProvider(rulesCurator, cacheProvider).get();
+        JsRunner jsRules = new JsRunnerProvider(rulesCurator, cacheProvider, new SimpleMeterRegistry()).get();
 
         translator = new StandardTranslator(consumerTypeCurator, mockEnvironmentCurator, mockOwnerCurator);
 
+        RulesObjectMapper objectMapper = new RulesObjectMapper();
+
         enforcer = new EntitlementRules(
             new DateSourceForTesting(2010, 1, 1), jsRules, i18n, config, consumerCurator, consumerTypeCurator,
-            mockProductCurator, new RulesObjectMapper(), mockEventSink, mockEventFactory, translator);
+            mockProductCurator, objectMapper, mockEventSink, mockEventFactory, translator,
+            new RulesJsonCache(translator, objectMapper, 1000));
     }
 
     @Test
@@ -27,6 +27,8 @@ import org.candlepin.model.RulesCurator;
 
 import com.google.inject.Provider;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -55,7 +57,7 @@ public class JsRunnerProviderTest {
         when(rulesCurator.getRules()).thenReturn(rules);
         when(rules.getRules()).thenReturn("");
         when(rules.getRulesSource()).thenReturn(RulesSourceEnum.DATABASE);
-        provider = new JsRunnerProvider(rulesCurator, cacheProvider);
+        provider = new JsRunnerProvider(rulesCurator, cacheProvider, new SimpleMeterRegistry());
     }
 
     @Test
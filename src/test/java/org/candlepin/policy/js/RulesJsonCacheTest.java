@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+import org.candlepin.dto.ModelTranslator;
+import org.candlepin.dto.StandardTranslator;
+import org.candlepin.dto.rules.v1.PoolDTO;
+import org.candlepin.model.ConsumerTypeCurator;
+import org.candlepin.model.EnvironmentCurator;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.model.Pool;
+import org.candlepin.model.PoolQuantity;
+import org.candlepin.model.Product;
+import org.candlepin.test.TestUtil;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+
+
+public class RulesJsonCacheTest {
+
+    private ModelTranslator translator;
+    private RulesObjectMapper mapper;
+    private Owner owner;
+
+    @BeforeEach
+    public void setUp() {
+        this.translator = new StandardTranslator(mock(ConsumerTypeCurator.class),
+            mock(EnvironmentCurator.class), mock(OwnerCurator.class));
+        this.mapper = new RulesObjectMapper();
+        this.owner = TestUtil.createOwner();
+    }
+
+    private Pool createPool(String id) {
+        Pool pool = TestUtil.createPool(this.owner, TestUtil.createProduct());
+        pool.setId(id);
+
+        return pool;
+    }
+
+    @Test
+    public void testSerializesPoolAsRulesDTO() throws Exception {
+        RulesJsonCache cache = new RulesJsonCache(this.translator, this.mapper, 10);
+        Pool pool = this.createPool("pool1");
+
+        String expected = this.mapper.toJsonString(this.translator.translate(pool, PoolDTO.class));
+
+        assertEquals(expected, cache.getPool(pool).rawValue());
+    }
+
+    @Test
+    public void testReturnsCachedJsonForUnchangedPool() {
+        RulesJsonCache cache = new RulesJsonCache(this.translator, this.mapper, 10);
+        Pool pool = this.createPool("pool1");
+
+        RawValue json = cache.getPool(pool);
+
+        assertSame(json, cache.getPool(pool));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testReserializesChangedPool() {
+        RulesJsonCache cache = new RulesJsonCache(this.translator, this.mapper, 10);
+        Pool pool = this.createPool("pool1");
+
+        RawValue json = cache.getPool(pool);
+        pool.setConsumed(pool.getConsumed() + 1);
+        RawValue updated = cache.getPool(pool);
+
+        assertNotSame(json, updated);
+        assertSame(updated, cache.getPool(pool));
+
+        pool.setAttribute(Pool.Attributes.VIRT_ONLY, "true");
+        assertNotSame(updated, cache.getPool(pool));
+    }
+
+    @Test
+    public void testReserializesPoolWhenProductChanges() {
+        RulesJsonCache cache = new RulesJsonCache(this.translator, this.mapper, 10);
+        Pool pool = this.createPool("pool1");
+
+        RawValue json = cache.getPool(pool);
+        pool.getProduct().setAttribute(Product.Attributes.SOCKETS, "4");
+
+        assertNotSame(json, cache.getPool(pool));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedPools() {
+        RulesJsonCache cache = new RulesJsonCache(this.translator, this.mapper, 2);
+        Pool pool1 = this.createPool("pool1");
+        Pool pool2 = this.createPool("pool2");
+        Pool pool3 = this.createPool("pool3");
+
+        RawValue json1 = cache.getPool(pool1);
+        RawValue json2 = cache.getPool(pool2);
+        cache.getPool(pool1);
+        cache.getPool(pool3);
+
+        assertEquals(2, cache.size());
+        assertSame(json1, cache.getPool(pool1));
+        assertNotSame(json2, cache.getPool(pool2));
+    }
+
+    @Test
+    public void testDisabledCacheDoesNotRetainPools() {
+        RulesJsonCache cache = new RulesJsonCache(this.translator, this.mapper, 0);
+        Pool pool = this.createPool("pool1");
+
+        RawValue json = cache.getPool(pool);
+
+        assertNotSame(json, cache.getPool(pool));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testGetPoolsSkipsNullPools() {
+        RulesJsonCache cache = new RulesJsonCache(this.translator, this.mapper, 10);
+        Pool pool1 = this.createPool("pool1");
+        Pool pool2 = this.createPool("pool2");
+
+        List<RawValue> json = cache.getPools(Arrays.asList(pool1, null, pool2));
+
+        assertEquals(Arrays.asList(cache.getPool(pool1), cache.getPool(pool2)), json);
+        assertNull(cache.getPool(null));
+    }
+
+    @Test
+    public void testGetPoolQuantities() {
+        RulesJsonCache cache = new RulesJsonCache(this.translator, this.mapper, 10);
+        Pool pool = this.createPool("pool1");
+
+        List<Map<String, Object>> output = cache.getPoolQuantities(Arrays.asList(new PoolQuantity(pool, 3)));
+
+        assertEquals(1, output.size());
+        assertEquals(3, output.get(0).get("quantity"));
+        assertSame(cache.getPool(pool), output.get(0).get("pool"));
+    }
+}
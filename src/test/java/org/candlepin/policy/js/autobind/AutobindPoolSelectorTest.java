@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.policy.js.autobind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.dto.rules.v1.ComplianceStatusDTO;
+import org.candlepin.dto.rules.v1.ConsumerDTO;
+import org.candlepin.dto.rules.v1.ConsumerTypeDTO;
+import org.candlepin.dto.rules.v1.PoolDTO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+
+/**
+ * Tests for the native autobind pool selection. The expected selections are those of the
+ * select_pools rules function for the same inputs; AutobindRulesTest compares both engines on its
+ * own scenarios.
+ */
+public class AutobindPoolSelectorTest {
+
+    private static final String PRODUCT_ID = "prod";
+
+    private ConsumerDTO consumer;
+    private List<PoolDTO> pools;
+
+    @BeforeEach
+    public void setUp() {
+        this.consumer = new ConsumerDTO()
+            .setType(new ConsumerTypeDTO().setLabel("system"));
+        this.consumer.addInstalledProduct(PRODUCT_ID);
+
+        this.pools = new ArrayList<>();
+    }
+
+    private PoolDTO addPool(String id, long quantity, Map<String, String> productAttributes) {
+        PoolDTO pool = new PoolDTO()
+            .setId(id)
+            .setQuantity(quantity)
+            .setConsumed(0L)
+            .setProductId(PRODUCT_ID)
+            .setProductAttributes(productAttributes);
+
+        this.pools.add(pool);
+        return pool;
+    }
+
+    private Map<String, String> stackAttributes(String sockets) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("stacking_id", "stack");
+        attributes.put("multi-entitlement", "yes");
+        attributes.put("sockets", sockets);
+
+        return attributes;
+    }
+
+    private PoolDTO addStackedPool(String id, long quantity, String sockets) {
+        return this.addPool(id, quantity, this.stackAttributes(sockets));
+    }
+
+    private AutobindPoolSelector buildSelector() {
+        return new AutobindPoolSelector(this.consumer, new ComplianceStatusDTO(), Collections.emptyList(),
+            this.pools, new String[] { PRODUCT_ID }, false);
+    }
+
+    @Test
+    public void testSelectsQuantityToCoverStack() {
+        this.consumer.setFact("cpu.cpu_socket(s)", "8");
+        this.addStackedPool("stack", 100, "2");
+
+        assertEquals(Map.of("stack", 4), this.buildSelector().selectPools());
+    }
+
+    @Test
+    public void testSelectsQuantityToCoverStackFromUnlimitedPool() {
+        this.consumer.setFact("cpu.cpu_socket(s)", "6");
+        this.addStackedPool("unlimited", -1, "2");
+
+        assertEquals(Map.of("unlimited", 3), this.buildSelector().selectPools());
+    }
+
+    @Test
+    public void testSelectsNothingWhenStackCannotBeCovered() {
+        this.consumer.setFact("cpu.cpu_socket(s)", "6");
+        this.addStackedPool("short", 2, "2");
+
+        assertTrue(this.buildSelector().selectPools().isEmpty());
+    }
+
+    @Test
+    public void testPrunesPoolsNotNeededForCoverage() {
+        this.consumer.setFact("cpu.cpu_socket(s)", "4");
+        this.addStackedPool("two", 10, "2");
+        this.addStackedPool("four", 10, "4");
+
+        assertEquals(Map.of("four", 1), this.buildSelector().selectPools());
+    }
+
+    @Test
+    public void testSelectsInstanceMultiplesForPhysicalConsumers() {
+        this.consumer.setFact("cpu.cpu_socket(s)", "4");
+        Map<String, String> attributes = this.stackAttributes("2");
+        attributes.put("instance_multiplier", "2");
+        this.addPool("instance", 20, attributes);
+
+        assertEquals(Map.of("instance", 4), this.buildSelector().selectPools());
+    }
+
+    @Test
+    public void testSelectsSingleInstanceForGuests() {
+        this.consumer.setFact("cpu.cpu_socket(s)", "4");
+        this.consumer.setFact("virt.is_guest", "true");
+        Map<String, String> attributes = this.stackAttributes("2");
+        attributes.put("instance_multiplier", "2");
+        this.addPool("instance", 20, attributes);
+
+        assertEquals(Map.of("instance", 1), this.buildSelector().selectPools());
+    }
+
+    @Test
+    public void testPrefersPoolMatchingConsumerRole() {
+        this.consumer.setFact("cpu.cpu_socket(s)", "1");
+        this.consumer.setRole("Server");
+
+        Map<String, String> workstation = new HashMap<>();
+        workstation.put("roles", "Workstation");
+        this.addPool("workstation", 10, workstation);
+
+        Map<String, String> server = new HashMap<>();
+        server.put("roles", "Server");
+        this.addPool("server", 10, server);
+
+        assertEquals(Map.of("server", 1), this.buildSelector().selectPools());
+    }
+
+    @Test
+    public void testSelectorCannotBeReused() {
+        this.consumer.setFact("cpu.cpu_socket(s)", "8");
+        this.addStackedPool("stack", 100, "2");
+
+        AutobindPoolSelector selector = this.buildSelector();
+        selector.selectPools();
+
+        assertThrows(IllegalStateException.class, selector::selectPools);
+    }
+
+    @Test
+    public void testRulesSortOrdersElements() {
+        Random random = new Random(42);
+
+        for (int size : new int[] { 0, 1, 5, 17, 18, 100, 1000 }) {
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < size; ++i) {
+                values.add(random.nextInt(50));
+            }
+
+            List<Integer> expected = new ArrayList<>(values);
+            Collections.sort(expected);
+
+            AutobindPoolSelector.rulesSort(values, Comparator.naturalOrder());
+            assertEquals(expected, values);
+        }
+    }
+}
@@ -47,6 +47,7 @@ import org.candlepin.model.dto.Subscription;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.RulesJsonCache;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.policy.js.compliance.ComplianceStatus;
 import org.candlepin.policy.js.pool.PoolRules;
@@ -57,6 +58,8 @@ import org.candlepin.util.Util;
 
 import com.google.inject.Provider;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -126,9 +129,11 @@ public class EntitlementRulesTestFixture {
         when(rulesCurator.getUpdated()).thenReturn(TestUtil.createDate(2010, 1, 1));
         when(cacheProvider.get()).thenReturn(cache);
 
-        JsRunner jsRules = new JsRunnerProvider(rulesCurator, cacheProvider).get();
+        JsRunner jsRules = new JsRunnerProvider(rulesCurator, cacheProvider, new SimpleMeterRegistry()).get();
 
         translator = new StandardTranslator(consumerTypeCurator, environmentCurator, ownerCurator);
+        RulesObjectMapper objectMapper = new RulesObjectMapper();
+
         enforcer = new EntitlementRules(
             new DateSourceImpl(),
             jsRules,
@@ -137,10 +142,11 @@ public class EntitlementRulesTestFixture {
             consumerCurator,
             consumerTypeCurator,
             productCurator,
-            new RulesObjectMapper(),
+            objectMapper,
             eventSink,
             eventFactory,
-            translator
+            translator,
+            new RulesJsonCache(translator, objectMapper, 1000)
         );
 
         owner = TestUtil.createOwner();
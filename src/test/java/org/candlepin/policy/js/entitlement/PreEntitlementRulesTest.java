@@ -199,6 +199,57 @@ public class PreEntitlementRulesTest extends EntitlementRulesTestFixture {
         }
     }
 
+    @Test
+    public void testBatchValidationRunsValidatorsForEachPoolsAttributes() {
+        Product coresProduct = TestUtil.createProduct("cores_product", "A cores product");
+        coresProduct.setAttribute(Product.Attributes.CORES, "10");
+        Product unsetCoresProduct = TestUtil.createProduct("unset_cores_product", "An unset cores product");
+        unsetCoresProduct.setAttribute(Product.Attributes.CORES, "0");
+        Product plainProduct = TestUtil.createProduct("plain_product", "A plain product");
+
+        Pool coresPool1 = createPool(owner, coresProduct);
+        Pool plainPool = createPool(owner, plainProduct);
+        Pool coresPool2 = createPool(owner, coresProduct);
+        Pool unsetCoresPool = createPool(owner, unsetCoresProduct);
+
+        consumer.setFacts(new HashMap<>());
+        consumer.setFact("cpu.cpu_socket(s)", "2");
+        consumer.setFact("cpu.core(s)_per_socket", "10");
+
+        Map<String, ValidationResult> results = enforcer.preEntitlement(consumer,
+            createPoolQuantities(1, coresPool1, plainPool, coresPool2, unsetCoresPool), CallerType.UNKNOWN);
+
+        assertEquals(4, results.size());
+        for (Pool pool : List.of(coresPool1, coresPool2)) {
+            ValidationResult result = results.get(pool.getId());
+            assertEquals(1, result.getWarnings().size());
+            assertEquals("rulewarning.unsupported.number.of.cores",
+                result.getWarnings().get(0).getResourceKey());
+        }
+
+        for (Pool pool : List.of(plainPool, unsetCoresPool)) {
+            ValidationResult result = results.get(pool.getId());
+            assertFalse(result.hasErrors());
+            assertFalse(result.hasWarnings());
+        }
+    }
+
+    @Test
+    public void testMappedAttributeWithNullValueIsConsideredUnset() {
+        Product product = TestUtil.createProduct("null_attribute_product", "A product for testing");
+        Pool pool = createPool(owner, product);
+
+        // If the requires_host validator were run, the non-guest consumer would be rejected
+        pool.setAttribute(Pool.Attributes.REQUIRES_HOST, null);
+        consumer.setFacts(new HashMap<>());
+
+        ValidationResult result = enforcer.preEntitlement(consumer, pool, 1);
+
+        assertFalse(result.hasErrors());
+        assertFalse(result.hasWarnings());
+        assertTrue(result.isSuccessful());
+    }
+
     @Test
     public void testBindFromSameProductAllowedWithMultiEntitlementAttribute() {
         Product product = TestUtil.createProduct(productId, "A product for testing");
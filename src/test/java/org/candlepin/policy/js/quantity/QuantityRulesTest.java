@@ -37,12 +37,15 @@ import org.candlepin.model.Rules;
 import org.candlepin.model.RulesCurator;
 import org.candlepin.policy.js.JsRunnerProvider;
 import org.candlepin.policy.js.JsRunnerRequestCache;
+import org.candlepin.policy.js.RulesJsonCache;
 import org.candlepin.policy.js.RulesObjectMapper;
 import org.candlepin.test.TestUtil;
 import org.candlepin.util.Util;
 
 import com.google.inject.Provider;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -98,10 +101,12 @@ public class QuantityRulesTest {
         when(rulesCuratorMock.getUpdated()).thenReturn(new Date());
         when(rulesCuratorMock.getRules()).thenReturn(rules);
         when(cacheProvider.get()).thenReturn(cache);
-        provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider);
+        provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider, new SimpleMeterRegistry());
 
         translator = new StandardTranslator(consumerTypeCurator, environmentCurator, ownerCuratorMock);
-        quantityRules = new QuantityRules(provider.get(), new RulesObjectMapper(), translator);
+        RulesObjectMapper mapper = new RulesObjectMapper();
+        quantityRules = new QuantityRules(provider.get(), mapper, translator,
+            new RulesJsonCache(translator, mapper, 1000));
 
         owner = TestUtil.createOwner();
         product = TestUtil.createProduct();
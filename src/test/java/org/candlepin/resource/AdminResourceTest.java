@@ -15,13 +15,17 @@
 package org.candlepin.resource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.candlepin.audit.EventSink;
 import org.candlepin.dto.api.server.v1.QueueStatus;
+import org.candlepin.exceptions.NotFoundException;
+import org.candlepin.metrics.CandlepinMeterRegistry;
 import org.candlepin.model.User;
 import org.candlepin.model.UserCurator;
 import org.candlepin.service.UserServiceAdapter;
@@ -29,9 +33,12 @@ import org.candlepin.service.impl.DefaultUserServiceAdapter;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * AdminResourceTest
@@ -42,13 +49,17 @@ public class AdminResourceTest {
     private AdminResource ar;
     private UserCurator uc;
     private EventSink sink;
+    private CandlepinMeterRegistry meterRegistry;
+    private I18n i18n;
 
     @BeforeEach
     public void init() {
         usa = mock(DefaultUserServiceAdapter.class);
         uc = mock(UserCurator.class);
         sink = mock(EventSink.class);
-        ar = new AdminResource(usa, uc, sink);
+        meterRegistry = mock(CandlepinMeterRegistry.class);
+        i18n = I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK);
+        ar = new AdminResource(usa, uc, sink, meterRegistry, i18n);
     }
 
     @Test
@@ -60,7 +71,7 @@ public class AdminResourceTest {
 
     @Test
     public void initWithNonDefaultUserService() {
-        ar = new AdminResource(mock(UserServiceAdapter.class), uc, null);
+        ar = new AdminResource(mock(UserServiceAdapter.class), uc, null, meterRegistry, i18n);
         assertEquals("Already initialized.", ar.initialize());
     }
 
@@ -82,4 +93,20 @@ public class AdminResourceTest {
         when(sink.getQueueInfo()).thenReturn(mockQueueStats);
         assertEquals(2, ar.getQueueStats().size());
     }
+
+    @Test
+    public void testGetMetrics() {
+        when(meterRegistry.isScrapeEnabled()).thenReturn(true);
+        when(meterRegistry.scrape()).thenReturn("candlepin_http_requests_seconds_count 1.0\n");
+
+        assertEquals("candlepin_http_requests_seconds_count 1.0\n", ar.getMetrics());
+    }
+
+    @Test
+    public void testGetMetricsWhenExportDisabled() {
+        when(meterRegistry.isScrapeEnabled()).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> ar.getMetrics());
+        verify(meterRegistry, never()).scrape();
+    }
 }
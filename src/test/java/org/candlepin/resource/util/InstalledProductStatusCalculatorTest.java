@@ -56,6 +56,8 @@ import org.candlepin.util.Util;
 
 import com.google.inject.Provider;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -121,7 +123,7 @@ public class InstalledProductStatusCalculatorTest {
         when(rulesCuratorMock.getRules()).thenReturn(rules);
         when(cacheProvider.get()).thenReturn(cache);
 
-        this.provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider);
+        this.provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider, new SimpleMeterRegistry());
         i18n = I18nFactory.getI18n(getClass(), "org.candlepin.i18n.Messages", locale, I18nFactory.FALLBACK);
 
         RulesObjectMapper objectMapper = new RulesObjectMapper();
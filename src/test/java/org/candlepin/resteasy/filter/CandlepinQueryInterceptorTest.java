@@ -17,6 +17,8 @@ package org.candlepin.resteasy.filter;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.model.CandlepinQuery;
 import org.candlepin.model.Owner;
 import org.candlepin.paging.PageRequest;
 import org.candlepin.resteasy.JsonProvider;
@@ -28,6 +30,8 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Provider;
 
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Order;
@@ -113,11 +117,15 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         ResteasyContext.popContextData(PageRequest.class);
     }
 
+    private CandlepinQueryInterceptor buildInterceptor() {
+        return new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider, this.config);
+    }
+
     @Test
     public void testWriteCandlepinQueryContents() throws IOException {
         List<Owner> owners = this.ownerCurator.listAll().list();
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = this.buildInterceptor();
 
         ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
         ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
@@ -168,7 +176,7 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         pageRequest.setSortBy(sortBy);
         pageRequest.setOrder(order);
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = this.buildInterceptor();
 
         ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
         ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
@@ -203,7 +211,7 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         // List of entities
         List<Owner> owners = this.ownerCurator.listAll().list();
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = this.buildInterceptor();
 
         ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
         ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
@@ -220,7 +228,7 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         // Single entity
         Owner owner = this.ownerCurator.listAll().list().get(0);
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = this.buildInterceptor();
 
         ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
         ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
@@ -236,7 +244,7 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         doThrow(new RuntimeException()).when(this.mockJsonProvider)
             .locateMapper(Object.class, MediaType.APPLICATION_JSON_TYPE);
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = this.buildInterceptor();
 
         try {
             ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
@@ -253,4 +261,73 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
 
     }
 
+    @Test
+    public void testStreamingSessionIsReadOnly() throws IOException {
+        CandlepinQueryInterceptor cqi = this.buildInterceptor();
+
+        ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+        ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
+        doReturn(this.ownerCurator.listAll()).when(responseContext).getEntity();
+
+        cqi.filter(requestContext, responseContext);
+
+        verify(this.session).setDefaultReadOnly(true);
+        verify(this.session).setCacheMode(CacheMode.IGNORE);
+        verify(this.session).setHibernateFlushMode(FlushMode.MANUAL);
+    }
+
+    @Test
+    public void testStreamingAppliesConfiguredFetchSize() {
+        this.config.setProperty(ConfigProperties.DB_STREAM_FETCH_SIZE, "25");
+        CandlepinQueryInterceptor cqi = this.buildInterceptor();
+
+        CandlepinQuery<Owner> query = spy(this.ownerCurator.listAll());
+
+        ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+        ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
+        doReturn(query).when(responseContext).getEntity();
+
+        cqi.filter(requestContext, responseContext);
+
+        verify(query).setFetchSize(25);
+    }
+
+    private static Stream<Object[]> paramsForSessionClearingTest() {
+        return Stream.of(
+            new Object[] { "1", 5 },
+            new Object[] { "2", 2 },
+            new Object[] { "5", 1 },
+            new Object[] { "6", 0 },
+            new Object[] { "0", 0 },
+            new Object[] { "-1", 0 }
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("paramsForSessionClearingTest")
+    public void testStreamingClearsSessionPeriodically(String interval, int expected) throws IOException {
+        List<Owner> owners = this.ownerCurator.listAll().list();
+
+        this.config.setProperty(ConfigProperties.DB_STREAM_CLEAR_INTERVAL, interval);
+        CandlepinQueryInterceptor cqi = this.buildInterceptor();
+
+        ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+        ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
+        doReturn(this.ownerCurator.listAll()).when(responseContext).getEntity();
+
+        cqi.filter(requestContext, responseContext);
+
+        ArgumentCaptor<StreamingOutput> captor = ArgumentCaptor.forClass(StreamingOutput.class);
+        verify(responseContext, times(1)).setEntity(captor.capture());
+
+        ((StreamingOutput) captor.getValue()).write(this.mockOutputStream);
+
+        // Every row must still be written, even though the session was cleared mid-stream
+        for (Owner owner : owners) {
+            verify(this.mockObjectMapper, times(1)).writeValue(eq(this.mockJsonGenerator), eq(owner));
+        }
+
+        verify(this.session, times(expected)).clear();
+    }
+
 }
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.config.Configuration;
+import org.candlepin.dto.api.v1.PoolJsonWriter;
+import org.candlepin.jackson.DynamicFilterData;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Pool;
+import org.candlepin.resteasy.EntityJsonStream;
+import org.candlepin.resteasy.JsonProvider;
+import org.candlepin.test.TestUtil;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.jboss.resteasy.core.ResteasyContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+
+
+/**
+ * Test suite for the EntityJsonStreamingFilter
+ */
+@ExtendWith(MockitoExtension.class)
+public class EntityJsonStreamingFilterTest {
+
+    @Mock private Configuration config;
+    @Mock private ContainerRequestContext requestContext;
+    @Mock private ContainerResponseContext responseContext;
+
+    private JsonProvider jsonProvider;
+    private List<Pool> pools;
+    private AtomicBoolean closed;
+
+    @BeforeEach
+    public void init() {
+        this.jsonProvider = new JsonProvider(false);
+
+        Owner owner = TestUtil.createOwner("test-owner");
+        owner.setId("test-owner-id");
+
+        this.pools = List.of(TestUtil.createPool(owner), TestUtil.createPool(owner));
+        this.pools.get(0).setId("pool-1");
+        this.pools.get(1).setId("pool-2");
+
+        this.closed = new AtomicBoolean(false);
+
+        ResteasyContext.clearContextData();
+        ResteasyContext.pushContext(EntityJsonStream.class, new EntityJsonStream<>(
+            this.pools.stream().onClose(() -> this.closed.set(true)), new PoolJsonWriter()));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ResteasyContext.clearContextData();
+    }
+
+    private EntityJsonStreamingFilter buildFilter(boolean enabled) {
+        when(this.config.getBoolean(ConfigProperties.API_DIRECT_JSON_STREAMING)).thenReturn(enabled);
+        return new EntityJsonStreamingFilter(this.jsonProvider, this.config);
+    }
+
+    private void mockSuccessfulResponse() {
+        doReturn(this.pools).when(this.responseContext).getEntity();
+        when(this.responseContext.getStatusInfo()).thenReturn(Response.Status.OK);
+        when(this.responseContext.getMediaType()).thenReturn(MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    private JsonNode writeResponse() throws Exception {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(this.responseContext).setEntity(captor.capture());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) captor.getValue()).write(output);
+
+        return new ObjectMapper().readTree(output.toByteArray());
+    }
+
+    @Test
+    public void testWritesEntitiesDirectly() throws Exception {
+        this.mockSuccessfulResponse();
+
+        this.buildFilter(true).filter(this.requestContext, this.responseContext);
+        JsonNode response = this.writeResponse();
+
+        assertEquals(2, response.size());
+        assertEquals("pool-1", response.get(0).get("id").asText());
+        assertEquals("/pools/pool-2", response.get(1).get("href").asText());
+        assertEquals("test-owner", response.get(1).get("owner").get("key").asText());
+        assertTrue(this.closed.get());
+    }
+
+    @Test
+    public void testAppliesDynamicFilters() throws Exception {
+        this.mockSuccessfulResponse();
+
+        DynamicFilterData filterData = new DynamicFilterData();
+        filterData.excludeAttribute("owner");
+        ResteasyContext.pushContext(DynamicFilterData.class, filterData);
+
+        this.buildFilter(true).filter(this.requestContext, this.responseContext);
+        JsonNode response = this.writeResponse();
+
+        assertEquals(2, response.size());
+        assertTrue(response.get(0).has("id"));
+        assertFalse(response.get(0).has("owner"));
+    }
+
+    @Test
+    public void testDisabledLeavesResponseUntouched() {
+        this.buildFilter(false).filter(this.requestContext, this.responseContext);
+
+        verify(this.responseContext, never()).setEntity(any());
+    }
+
+    @Test
+    public void testResponseWithoutEntityStreamLeftUntouched() {
+        ResteasyContext.clearContextData();
+
+        this.buildFilter(true).filter(this.requestContext, this.responseContext);
+
+        verify(this.responseContext, never()).setEntity(any());
+    }
+
+    @Test
+    public void testErrorResponseLeftUntouched() {
+        doReturn("error").when(this.responseContext).getEntity();
+
+        this.buildFilter(true).filter(this.requestContext, this.responseContext);
+
+        verify(this.responseContext, never()).setEntity(any());
+    }
+
+    @Test
+    public void testNonJsonResponseLeftUntouched() {
+        doReturn(this.pools).when(this.responseContext).getEntity();
+        when(this.responseContext.getStatusInfo()).thenReturn(Response.Status.OK);
+        when(this.responseContext.getMediaType()).thenReturn(MediaType.TEXT_PLAIN_TYPE);
+
+        this.buildFilter(true).filter(this.requestContext, this.responseContext);
+
+        verify(this.responseContext, never()).setEntity(any());
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.candlepin.metrics.CandlepinMeters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.jboss.resteasy.core.ResteasyContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+
+
+
+public class ResourceMetricsFilterTest {
+
+    private MeterRegistry registry;
+    private ResourceMetricsFilter filter;
+    private ContainerRequestContext requestContext;
+    private ContainerResponseContext responseContext;
+    private ResourceInfo resourceInfo;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        this.registry = new SimpleMeterRegistry();
+        this.filter = new ResourceMetricsFilter(this.registry);
+
+        Map<String, Object> properties = new HashMap<>();
+        this.requestContext = mock(ContainerRequestContext.class);
+        doAnswer(iom -> properties.put(iom.getArgument(0), iom.getArgument(1)))
+            .when(this.requestContext).setProperty(anyString(), any());
+        doAnswer(iom -> properties.get(iom.getArgument(0)))
+            .when(this.requestContext).getProperty(anyString());
+        doAnswer(iom -> properties.remove(iom.getArgument(0)))
+            .when(this.requestContext).removeProperty(anyString());
+
+        this.responseContext = mock(ContainerResponseContext.class);
+
+        this.resourceInfo = mock(ResourceInfo.class);
+        doReturn(FakeResource.class.getMethod("getThing")).when(this.resourceInfo).getResourceMethod();
+        ResteasyContext.pushContext(ResourceInfo.class, this.resourceInfo);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ResteasyContext.clearContextData();
+    }
+
+    private double getActiveRequests() {
+        return this.registry.get(CandlepinMeters.HTTP_REQUESTS_ACTIVE).gauge().value();
+    }
+
+    @Test
+    public void testRequestIsTimedPerResourceMethod() throws Exception {
+        when(this.responseContext.getStatus()).thenReturn(200);
+
+        this.filter.filter(this.requestContext);
+        assertEquals(1.0, this.getActiveRequests());
+
+        this.filter.filter(this.requestContext, this.responseContext);
+        assertEquals(0.0, this.getActiveRequests());
+
+        Timer timer = this.registry.find(CandlepinMeters.HTTP_REQUESTS)
+            .tag(CandlepinMeters.TAG_RESOURCE, "FakeResource.getThing")
+            .tag(CandlepinMeters.TAG_OUTCOME, "SUCCESS")
+            .timer();
+
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    public void testFailedRequestIsTaggedWithOutcome() throws Exception {
+        when(this.responseContext.getStatus()).thenReturn(404);
+
+        this.filter.filter(this.requestContext);
+        this.filter.filter(this.requestContext, this.responseContext);
+
+        Timer timer = this.registry.find(CandlepinMeters.HTTP_REQUESTS)
+            .tag(CandlepinMeters.TAG_OUTCOME, "CLIENT_ERROR")
+            .timer();
+
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    public void testUnmatchedRequestIsIgnored() throws Exception {
+        ResteasyContext.clearContextData();
+        when(this.responseContext.getStatus()).thenReturn(404);
+
+        this.filter.filter(this.requestContext);
+        this.filter.filter(this.requestContext, this.responseContext);
+
+        assertEquals(0.0, this.getActiveRequests());
+        assertNull(this.registry.find(CandlepinMeters.HTTP_REQUESTS).timer());
+    }
+
+    /**
+     * Resource stand-in providing a resource method for the filter to name
+     */
+    public static class FakeResource {
+        public String getThing() {
+            return "thing";
+        }
+    }
+}
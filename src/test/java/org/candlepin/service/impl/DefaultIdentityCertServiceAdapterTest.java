@@ -35,6 +35,8 @@ import org.candlepin.test.TestUtil;
 import org.candlepin.util.ExpiryDateFunction;
 import org.candlepin.util.Util;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -70,7 +72,8 @@ public class DefaultIdentityCertServiceAdapterTest {
 
     @BeforeEach
     public void setUp() {
-        dicsa = new DefaultIdentityCertServiceAdapter(pki, idcur, csc, new ExpiryDateFunction(1));
+        dicsa = new DefaultIdentityCertServiceAdapter(pki, idcur, csc, new ExpiryDateFunction(1),
+            new SimpleMeterRegistry());
     }
 
     // can't mock a final class, so create a dummy one
@@ -15,13 +15,19 @@
 package org.candlepin.servlet.filter.logging;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.candlepin.hibernate.QueryStatistics;
+
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
@@ -44,6 +50,8 @@ import java.util.Enumeration;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -147,4 +155,55 @@ public class LoggingFilterTest {
         // VERIFY
         verify(mockapp, atLeastOnce()).doAppend(message.capture());
     }
+
+    private void issueStatements(int count) throws Exception {
+        doAnswer(invocation -> {
+            for (int i = 0; i < count; ++i) {
+                QueryStatistics.current().recordStatement("SELECT * FROM cp_pool WHERE id = ?");
+            }
+
+            return null;
+        }).when(chain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+    }
+
+    @Test
+    public void testResponseLineIncludesQueryStatistics() throws Exception {
+        filterlogger.setLevel(Level.INFO);
+        this.issueStatements(3);
+
+        ArgumentCaptor<ILoggingEvent> message = ArgumentCaptor.forClass(ILoggingEvent.class);
+
+        filter.doFilter(request, response, chain);
+
+        verify(mockapp, atLeastOnce()).doAppend(message.capture());
+        assertTrue(message.getAllValues().stream()
+            .map(ILoggingEvent::getFormattedMessage)
+            .anyMatch(msg -> msg.startsWith("Response:") && msg.contains("queries=3")));
+    }
+
+    @Test
+    public void testRepeatedStatementsAreReported() throws Exception {
+        FilterConfig config = mock(FilterConfig.class);
+        when(config.getInitParameter("query.repeat_threshold")).thenReturn("3");
+
+        filterlogger.setLevel(Level.INFO);
+        this.issueStatements(3);
+
+        ArgumentCaptor<ILoggingEvent> message = ArgumentCaptor.forClass(ILoggingEvent.class);
+
+        filter.init(config);
+        filter.doFilter(request, response, chain);
+
+        verify(mockapp, atLeastOnce()).doAppend(message.capture());
+        assertTrue(message.getAllValues().stream()
+            .anyMatch(event -> event.getLevel() == Level.WARN &&
+                event.getFormattedMessage().contains("possible N+1 select")));
+    }
+
+    @Test
+    public void testStatisticsAreClearedAfterRequest() throws Exception {
+        filter.doFilter(request, response, chain);
+
+        assertNull(QueryStatistics.current());
+    }
 }
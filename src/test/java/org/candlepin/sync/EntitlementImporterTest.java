@@ -192,6 +192,34 @@ public class EntitlementImporterTest {
         assertEquals(brandingDTO, sub.getProduct().getBranding().toArray()[0]);
     }
 
+    @Test
+    public void testImportSharesOwnerAndCdnAcrossSubscriptions() throws Exception {
+        Product product = TestUtil.createProduct();
+        Pool pool = TestUtil.createPool(owner, product)
+            .setQuantity(3L);
+
+        Entitlement ent1 = TestUtil.createEntitlement(owner, consumer, pool, cert);
+        ent1.setQuantity(1);
+        Entitlement ent2 = TestUtil.createEntitlement(owner, consumer, pool, cert);
+        ent2.setQuantity(2);
+
+        when(om.readValue(reader, EntitlementDTO.class)).thenReturn(
+            this.translator.translate(ent1, EntitlementDTO.class),
+            this.translator.translate(ent2, EntitlementDTO.class));
+
+        Map<String, ProductDTO> productsById = buildProductCache(product);
+
+        SubscriptionDTO sub1 = importer.importObject(
+            om, reader, owner, productsById, consumerDTO.getUuid(), meta);
+        SubscriptionDTO sub2 = importer.importObject(
+            om, reader, owner, productsById, consumerDTO.getUuid(), meta);
+
+        assertSame(sub1.getOwner(), sub2.getOwner());
+        assertSame(sub1.getCdn(), sub2.getCdn());
+        assertEquals(meta.getCdnLabel(), sub2.getCdn().getLabel());
+        verify(cdnCurator, times(1)).getByLabel("test-cdn");
+    }
+
     private Map<String, ProductDTO> buildProductCache(Product... products) {
         Map<String, ProductDTO> productsById = new HashMap<>();
         for (Product p : products) {
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.pki.SignatureSigner;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+
+
+public class ExportArchiveWriterTest {
+
+    private static KeyPair signingKeyPair;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+
+        signingKeyPair = generator.generateKeyPair();
+    }
+
+    private ExportArchiveWriter buildWriter(OutputStream output) throws Exception {
+        SignatureSigner signer = new SignatureSigner("SHA256withRSA", signingKeyPair.getPrivate());
+        return new ExportArchiveWriter(output, signer, "Candlepin export for test");
+    }
+
+    private Map<String, byte[]> readEntries(byte[] archive) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+                entries.put(entry.getName(), zis.readAllBytes());
+            }
+        }
+
+        return entries;
+    }
+
+    @Test
+    public void testArchiveLayout() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ExportArchiveWriter archive = this.buildWriter(output)) {
+            archive.writeEntry("meta.json", writer -> writer.write("{\"meta\":true}"));
+            archive.writeEntry("products/123.pem", writer -> writer.write("cert"));
+            archive.finish();
+        }
+
+        Map<String, byte[]> outer = this.readEntries(output.toByteArray());
+        assertEquals(List.of(ExportArchiveWriter.EXPORT_ARCHIVE, ExportArchiveWriter.SIGNATURE),
+            List.copyOf(outer.keySet()));
+
+        Map<String, byte[]> inner = this.readEntries(outer.get(ExportArchiveWriter.EXPORT_ARCHIVE));
+        assertEquals(List.of("export/meta.json", "export/products/123.pem"), List.copyOf(inner.keySet()));
+        assertArrayEquals("{\"meta\":true}".getBytes(), inner.get("export/meta.json"));
+        assertArrayEquals("cert".getBytes(), inner.get("export/products/123.pem"));
+    }
+
+    @Test
+    public void testSignatureCoversExportArchive() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ExportArchiveWriter archive = this.buildWriter(output)) {
+            archive.writeEntry("meta.json", writer -> writer.write("{}"));
+            archive.finish();
+        }
+
+        Map<String, byte[]> outer = this.readEntries(output.toByteArray());
+
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(signingKeyPair.getPublic());
+        verifier.update(outer.get(ExportArchiveWriter.EXPORT_ARCHIVE));
+
+        assertTrue(verifier.verify(outer.get(ExportArchiveWriter.SIGNATURE)));
+    }
+
+    @Test
+    public void testEntryContentMayCloseWriter() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ExportArchiveWriter archive = this.buildWriter(output)) {
+            archive.writeEntry("first.json", writer -> {
+                writer.write("first");
+                writer.close();
+            });
+
+            archive.writeEntry("second.json", writer -> writer.write("second"));
+            archive.finish();
+        }
+
+        Map<String, byte[]> outer = this.readEntries(output.toByteArray());
+        Map<String, byte[]> inner = this.readEntries(outer.get(ExportArchiveWriter.EXPORT_ARCHIVE));
+
+        assertArrayEquals("first".getBytes(), inner.get("export/first.json"));
+        assertArrayEquals("second".getBytes(), inner.get("export/second.json"));
+    }
+
+    @Test
+    public void testUnfinishedArchiveIsAborted() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (ExportArchiveWriter archive = this.buildWriter(output)) {
+            archive.writeEntry("meta.json", writer -> writer.write("{}"));
+        }
+
+        // The archive must not be completed with an end of central directory record, or the
+        // partial export would be indistinguishable from a well-formed archive
+        byte[] endOfCentralDirectory = new byte[] { 0x50, 0x4b, 0x05, 0x06 };
+        byte[] archive = output.toByteArray();
+
+        assertTrue(archive.length > 0);
+        for (int i = 0; i + endOfCentralDirectory.length <= archive.length; ++i) {
+            assertFalse(Arrays.equals(archive, i, i + endOfCentralDirectory.length,
+                endOfCentralDirectory, 0, endOfCentralDirectory.length));
+        }
+    }
+
+    @Test
+    public void testTargetStreamIsNotClosed() throws Exception {
+        boolean[] closed = new boolean[1];
+        OutputStream output = new FilterOutputStream(new ByteArrayOutputStream()) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        try (ExportArchiveWriter archive = this.buildWriter(output)) {
+            archive.writeEntry("meta.json", writer -> writer.write("{}"));
+            archive.finish();
+        }
+
+        assertFalse(closed[0]);
+    }
+
+    @Test
+    public void testCannotWriteEntriesOnceFinished() throws Exception {
+        try (ExportArchiveWriter archive = this.buildWriter(new ByteArrayOutputStream())) {
+            archive.finish();
+
+            assertThrows(IllegalStateException.class,
+                () -> archive.writeEntry("meta.json", writer -> writer.write("{}")));
+        }
+    }
+}
@@ -59,6 +59,7 @@ import org.candlepin.model.ProductCertificate;
 import org.candlepin.model.Rules;
 import org.candlepin.model.RulesCurator;
 import org.candlepin.pki.PKIUtility;
+import org.candlepin.pki.SignatureSigner;
 import org.candlepin.policy.js.export.ExportRules;
 import org.candlepin.service.EntitlementCertServiceAdapter;
 import org.candlepin.service.ProductServiceAdapter;
@@ -69,6 +70,7 @@ import org.candlepin.version.VersionUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -79,9 +81,10 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -132,6 +135,16 @@ public class ExporterTest {
     private ModelTranslator translator;
     private ContentAccessManager contentAccessManager;
 
+    private static KeyPair signingKeyPair;
+
+    @BeforeAll
+    public static void generateSigningKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+
+        signingKeyPair = generator.generateKeyPair();
+    }
+
     @BeforeEach
     public void setUp() {
         ctc = mock(ConsumerTypeCurator.class);
@@ -162,6 +175,15 @@ public class ExporterTest {
         when(exportRules.canExport(any(Entitlement.class))).thenReturn(Boolean.TRUE);
     }
 
+    private SignatureSigner buildSigner() {
+        try {
+            return new SignatureSigner("SHA256withRSA", signingKeyPair.getPrivate());
+        }
+        catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private KeyPairData buildConsumerKeyPairData() {
         Random rnd = new Random();
         final int keySize = 4096;
@@ -234,7 +256,7 @@ public class ExporterTest {
 
         when(ent.getPool()).thenReturn(pool);
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
+        when(pki.getSHA256WithRSASigner()).thenReturn(this.buildSigner());
         when(rc.getRules()).thenReturn(mrules);
         when(consumer.getEntitlements()).thenReturn(entitlements);
         when(psa.getProductCertificate(any(String.class), any(String.class))).thenReturn(pcert);
@@ -296,8 +318,7 @@ public class ExporterTest {
         List<Entitlement> entitlements = new ArrayList<>();
         entitlements.add(ent);
 
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn(
-            "signature".getBytes());
+        when(pki.getSHA256WithRSASigner()).thenReturn(this.buildSigner());
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
 
@@ -336,7 +357,7 @@ public class ExporterTest {
         IdentityCertificate idcert = new IdentityCertificate();
 
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
+        when(pki.getSHA256WithRSASigner()).thenReturn(this.buildSigner());
         when(rc.getRules()).thenReturn(mrules);
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
@@ -385,7 +406,7 @@ public class ExporterTest {
         Principal principal = mock(Principal.class);
 
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
+        when(pki.getSHA256WithRSASigner()).thenReturn(this.buildSigner());
         when(rc.getRules()).thenReturn(mrules);
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
@@ -434,7 +455,7 @@ public class ExporterTest {
         Principal principal = mock(Principal.class);
 
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
+        when(pki.getSHA256WithRSASigner()).thenReturn(this.buildSigner());
         when(rc.getRules()).thenReturn(mrules);
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
@@ -489,7 +510,7 @@ public class ExporterTest {
         Principal principal = mock(Principal.class);
 
         when(mrules.getRules()).thenReturn("foobar");
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
+        when(pki.getSHA256WithRSASigner()).thenReturn(this.buildSigner());
         when(rc.getRules()).thenReturn(mrules);
         when(pprov.get()).thenReturn(principal);
         when(principal.getUsername()).thenReturn("testUser");
@@ -562,7 +583,7 @@ public class ExporterTest {
         when(ctc.getConsumerType(eq(consumer))).thenReturn(ctype);
         when(ctc.get(eq(ctype.getId()))).thenReturn(ctype);
 
-        when(pki.getSHA256WithRSAHash(any(InputStream.class))).thenReturn("signature".getBytes());
+        when(pki.getSHA256WithRSASigner()).thenReturn(this.buildSigner());
 
         // Setup principal
         Principal principal = mock(Principal.class);
@@ -622,7 +643,7 @@ public class ExporterTest {
         doReturn(ctype).when(ctc).getConsumerType(eq(consumer));
         doReturn(ctype).when(ctc).get(eq(ctype.getId()));
 
-        doReturn("signature".getBytes()).when(pki).getSHA256WithRSAHash(any(InputStream.class));
+        doReturn(this.buildSigner()).when(pki).getSHA256WithRSASigner();
 
         // Setup principal
         Principal principal = mock(Principal.class);
@@ -684,7 +705,7 @@ public class ExporterTest {
         doReturn(ctype).when(ctc).getConsumerType(eq(consumer));
         doReturn(ctype).when(ctc).get(eq(ctype.getId()));
 
-        doReturn("signature".getBytes()).when(pki).getSHA256WithRSAHash(any(InputStream.class));
+        doReturn(this.buildSigner()).when(pki).getSHA256WithRSASigner();
 
         // Setup principal
         Principal principal = mock(Principal.class);
@@ -746,7 +767,7 @@ public class ExporterTest {
         doReturn(ctype).when(ctc).getConsumerType(eq(consumer));
         doReturn(ctype).when(ctc).get(eq(ctype.getId()));
 
-        doReturn("signature".getBytes()).when(pki).getSHA256WithRSAHash(any(InputStream.class));
+        doReturn(this.buildSigner()).when(pki).getSHA256WithRSASigner();
 
         // Setup principal
         Principal principal = mock(Principal.class);
@@ -16,6 +16,7 @@ package org.candlepin.sync;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.*;
 
 import org.candlepin.audit.EventSink;
@@ -58,6 +59,7 @@ import org.candlepin.model.ProductCurator;
 import org.candlepin.model.UpstreamConsumer;
 import org.candlepin.model.dto.Subscription;
 import org.candlepin.pki.PKIUtility;
+import org.candlepin.pki.SignatureVerifier;
 import org.candlepin.pki.impl.JSSProviderLoader;
 import org.candlepin.service.ProductServiceAdapter;
 import org.candlepin.service.SubscriptionServiceAdapter;
@@ -67,6 +69,7 @@ import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.apache.commons.io.FileUtils;
 import org.hamcrest.core.StringContains;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -86,6 +89,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
 import java.io.Reader;
 import java.net.URISyntaxException;
@@ -134,6 +138,7 @@ public class ImporterTest {
 
     @Mock private RulesImporter mockRulesImporter;
     @Mock private PKIUtility mockPKIUtility;
+    @Mock private SignatureVerifier mockSignatureVerifier;
     @Mock private EventSink mockEventSink;
     @Mock private DistributorVersionCurator mockDistributorVersionCurator;
     @Mock private SubscriptionReconciler mockSubscriptionReconciler;
@@ -159,6 +164,10 @@ public class ImporterTest {
         this.mapper = this.syncUtils.getObjectMapper();
         this.mockJsPath = new File(this.tmpFolder, "empty.js").getPath();
 
+        // Archive signatures fail verification unless a test stubs the verifier otherwise
+        doReturn(this.mockSignatureVerifier).when(this.mockPKIUtility).getSHA256WithRSACAVerifier();
+        doAnswer(returnsFirstArg()).when(this.mockSignatureVerifier).wrap(any(InputStream.class));
+
         this.updateReleaseVersion("0.0.3", "1");
     }
 
@@ -505,12 +514,54 @@ public class ImporterTest {
             () -> importer.loadExport(owner, archive, co, "original_file.zip"));
     }
 
+    @Test
+    public void testConsumerExportIsNotExtractedBeforeSignatureCheck() throws Exception {
+        File workDir = new File(this.tmpFolder, "sync");
+        this.config.setProperty(ConfigProperties.SYNC_WORK_DIR, workDir.getPath());
+
+        // Record whether anything from the consumer export had been extracted by the time the
+        // signature was checked
+        List<File> extracted = new ArrayList<>();
+        doAnswer(iom -> {
+            FileUtils.listFiles(workDir, null, true).stream()
+                .filter(file -> !file.getName().equals("consumer_export.zip"))
+                .forEach(extracted::add);
+
+            return false;
+        }).when(this.mockSignatureVerifier).verify(any(byte[].class));
+
+        Owner owner = mock(Owner.class);
+        ConflictOverrides co = mock(ConflictOverrides.class);
+
+        File archive = new File(this.tmpFolder, "file.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        out.putNextEntry(new ZipEntry("signature"));
+        out.write("This is the placeholder for the signature file".getBytes());
+
+        File ceArchive = new File(this.tmpFolder, "consumer_export.zip");
+        ZipOutputStream cezip = new ZipOutputStream(new FileOutputStream(ceArchive));
+        cezip.putNextEntry(new ZipEntry("export/meta.json"));
+        cezip.write("{}".getBytes());
+        cezip.close();
+
+        addFileToArchive(out, ceArchive);
+        out.close();
+
+        Importer importer = this.buildImporter();
+        assertThrows(ImportConflictException.class,
+            () -> importer.loadExport(owner, archive, co, "original_file.zip"));
+
+        verify(this.mockSignatureVerifier).verify(any(byte[].class));
+        assertEquals(List.of(), extracted);
+        assertEquals(0, FileUtils.listFiles(workDir, null, true).size());
+    }
+
     @Test
     public void testImportBadConsumerZip() throws Exception {
         // Mock a passed signature check:
         doReturn(true)
-            .when(this.mockPKIUtility)
-            .verifySHA256WithRSAHashAgainstCACerts(any(File.class), any(byte [].class));
+            .when(this.mockSignatureVerifier)
+            .verify(any(byte[].class));
 
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
@@ -540,8 +591,8 @@ public class ImporterTest {
     public void testImportZipSigAndEmptyConsumerZip() throws Exception {
         // Mock a passed signature check:
         doReturn(true)
-            .when(this.mockPKIUtility)
-            .verifySHA256WithRSAHashAgainstCACerts(any(File.class), any(byte [].class));
+            .when(this.mockSignatureVerifier)
+            .verify(any(byte[].class));
 
         Owner owner = mock(Owner.class);
         ConflictOverrides co = mock(ConflictOverrides.class);
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.candlepin.logging.LoggingUtil;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+
+public class TracerTest {
+
+    private List<Span> exported = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        Tracer.shutdown();
+        MDC.clear();
+    }
+
+    private void enable(double sampleRate) {
+        Tracer.configure(this.exported::add, sampleRate);
+    }
+
+    @Test
+    public void testSpansAreNoOpWhileDisabled() {
+        assertFalse(Tracer.isEnabled());
+
+        try (Span span = Tracer.startSpan("test")) {
+            assertSame(Span.NOOP, span);
+            assertFalse(span.isSampled());
+            assertNull(Tracer.current());
+        }
+    }
+
+    @Test
+    public void testChildSpansShareTraceAndRestoreParent() {
+        this.enable(1.0);
+
+        try (Span root = Tracer.startSpan("root")) {
+            try (Span child = Tracer.startSpan("child")) {
+                assertSame(child, Tracer.current());
+                assertEquals(root.getTraceId(), child.getTraceId());
+                assertEquals(root.getSpanId(), child.getParentId());
+                assertNotEquals(root.getSpanId(), child.getSpanId());
+            }
+
+            assertSame(root, Tracer.current());
+            assertNull(root.getParentId());
+        }
+
+        assertNull(Tracer.current());
+        assertEquals(2, this.exported.size());
+        assertEquals("child", this.exported.get(0).getName());
+        assertEquals("root", this.exported.get(1).getName());
+        assertTrue(this.exported.get(1).getDuration() >= 0);
+    }
+
+    @Test
+    public void testUnsampledTracesAreNotExported() {
+        this.enable(0.0);
+
+        try (Span root = Tracer.startSpan("root")) {
+            try (Span child = Tracer.startSpan("child")) {
+                assertFalse(child.isSampled());
+                child.tag("key", "value");
+                assertTrue(child.getTags().isEmpty());
+            }
+
+            assertSame(root, Tracer.current());
+        }
+
+        assertNull(Tracer.current());
+        assertTrue(this.exported.isEmpty());
+    }
+
+    @Test
+    public void testRootSpanIsCorrelatedWithRequest() {
+        MDC.put(LoggingUtil.MDC_REQUEST_UUID_KEY, "6F7C2A4E-1B3D-4C5E-8F90-A1B2C3D4E5F6");
+        MDC.put(LoggingUtil.MDC_CSID_KEY, "correlation-id");
+        this.enable(1.0);
+
+        try (Span root = Tracer.startSpan("root")) {
+            assertEquals("6f7c2a4e1b3d4c5e8f90a1b2c3d4e5f6", root.getTraceId());
+            assertEquals("6F7C2A4E-1B3D-4C5E-8F90-A1B2C3D4E5F6",
+                root.getTags().get(Tracer.TAG_REQUEST_UUID));
+            assertEquals("correlation-id", root.getTags().get(Tracer.TAG_CORRELATION_ID));
+        }
+    }
+
+    @Test
+    public void testTraceIdIsGeneratedForNonUuidRequestIds() {
+        String traceId = Tracer.toTraceId("not-a-uuid");
+
+        assertEquals(32, traceId.length());
+        assertTrue(traceId.matches("[0-9a-f]{32}"));
+        assertTrue(Tracer.toTraceId(null).matches("[0-9a-f]{32}"));
+    }
+
+    @Test
+    public void testInvalidSampleRate() {
+        assertThrows(IllegalArgumentException.class, () -> Tracer.configure(this.exported::add, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> Tracer.configure(this.exported::add, -0.1));
+        assertThrows(IllegalArgumentException.class, () -> Tracer.configure(null, 1.0));
+    }
+
+    @Test
+    public void testZipkinEncoding() throws Exception {
+        this.enable(1.0);
+
+        try (Span root = Tracer.startSpan("root")) {
+            try (Span child = Tracer.startSpan("child")) {
+                child.tag("pools", 3)
+                    .error(new IllegalStateException("failed"));
+            }
+        }
+
+        JsonNode json = new ObjectMapper().readTree(ZipkinSpanEncoder.encode(this.exported));
+
+        assertEquals(2, json.size());
+
+        JsonNode child = json.get(0);
+        JsonNode root = json.get(1);
+
+        assertEquals("child", child.get("name").asText());
+        assertEquals(root.get("id").asText(), child.get("parentId").asText());
+        assertEquals(root.get("traceId").asText(), child.get("traceId").asText());
+        assertEquals("3", child.get("tags").get("pools").asText());
+        assertEquals("failed", child.get("tags").get("error").asText());
+        assertEquals(ZipkinSpanEncoder.SERVICE_NAME,
+            child.get("localEndpoint").get("serviceName").asText());
+        assertTrue(child.get("duration").asLong() > 0);
+        assertFalse(root.has("parentId"));
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2009 - 2022 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+
+
+public class SegmentedGzipOutputStreamTest {
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] randomText(Random random, int length) {
+        byte[] data = new byte[length];
+
+        for (int i = 0; i < length; ++i) {
+            data[i] = (byte) "ABCDEFGH-+=\n".charAt(random.nextInt(12));
+        }
+
+        return data;
+    }
+
+    @Test
+    public void testWritePlainData() throws IOException {
+        byte[] data = "-----BEGIN CERTIFICATE-----\nplain data\n".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        try (SegmentedGzipOutputStream out = new SegmentedGzipOutputStream(buffer)) {
+            out.write(data);
+        }
+
+        assertArrayEquals(data, decompress(buffer.toByteArray()));
+    }
+
+    @Test
+    public void testWriteEmptyStream() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        new SegmentedGzipOutputStream(buffer).finish();
+
+        assertArrayEquals(new byte[0], decompress(buffer.toByteArray()));
+    }
+
+    @Test
+    public void testWriteSegmentsOnly() throws IOException {
+        Random random = new Random(1);
+        byte[] first = randomText(random, 20000);
+        byte[] second = randomText(random, 5);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        try (SegmentedGzipOutputStream out = new SegmentedGzipOutputStream(buffer)) {
+            for (byte[] data : new byte[][] { first, second, first }) {
+                out.writeSegment(DeflateSegment.compress(data));
+                expected.write(data);
+            }
+        }
+
+        assertArrayEquals(expected.toByteArray(), decompress(buffer.toByteArray()));
+    }
+
+    @Test
+    public void testInterleaveSegmentsAndPlainData() throws IOException {
+        Random random = new Random(2);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        try (SegmentedGzipOutputStream out = new SegmentedGzipOutputStream(buffer)) {
+            for (int i = 0; i < 50; ++i) {
+                byte[] data = randomText(random, random.nextInt(30000));
+
+                if (random.nextBoolean()) {
+                    out.writeSegment(DeflateSegment.compress(data));
+                }
+                else {
+                    out.write(data);
+                }
+
+                expected.write(data);
+            }
+        }
+
+        assertArrayEquals(expected.toByteArray(), decompress(buffer.toByteArray()));
+    }
+
+    @Test
+    public void testSegmentReportsUncompressedData() {
+        byte[] data = randomText(new Random(3), 1000);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        DeflateSegment segment = DeflateSegment.compress(data);
+
+        assertEquals(crc.getValue(), segment.getChecksum());
+        assertEquals(1000, segment.getLength());
+    }
+
+    @Test
+    public void testCombineChecksums() {
+        Random random = new Random(4);
+
+        for (int i = 0; i < 100; ++i) {
+            byte[] first = randomText(random, random.nextInt(5000));
+            byte[] second = randomText(random, random.nextInt(5000));
+
+            CRC32 crc1 = new CRC32();
+            crc1.update(first);
+            CRC32 crc2 = new CRC32();
+            crc2.update(second);
+            CRC32 combined = new CRC32();
+            combined.update(first);
+            combined.update(second);
+
+            assertEquals(combined.getValue(), SegmentedGzipOutputStream.combineChecksums(crc1.getValue(),
+                crc2.getValue(), second.length));
+        }
+    }
+
+    @Test
+    public void testWriteAfterFinishFails() throws IOException {
+        SegmentedGzipOutputStream out = new SegmentedGzipOutputStream(new ByteArrayOutputStream());
+        out.finish();
+
+        assertThrows(IOException.class, () -> out.write(1));
+        assertThrows(IOException.class, () -> out.writeSegment(DeflateSegment.compress(new byte[1])));
+    }
+}